@@ -31,6 +31,7 @@ import com.dmdirc.parser.interfaces.Parser;
 import java.net.URI;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import javax.annotation.Nonnull;
 
@@ -287,20 +288,42 @@ public interface Connection {
     void updateTitle();
 
     /**
-     * Sends a raw line to the underlying connection.
+     * Queues a raw line to be sent to the underlying connection. Lines are subject to the
+     * connection's flood control, and this method returns without waiting for them to be sent.
      *
      * @param line The line to be sent
      */
     void sendLine(String line);
 
     /**
-     * Sends a message to the specified target.
+     * Queues a message to be sent to the specified target. Messages are subject to the
+     * connection's flood control, and this method returns without waiting for them to be sent.
      *
      * @param target  target to send message to
      * @param message Message to send
      */
     void sendMessage(String target, String message);
 
+    /**
+     * Queues an action to be sent to the specified target. Actions are subject to the
+     * connection's flood control, and this method returns without waiting for them to be sent.
+     *
+     * @param target target to send the action to
+     * @param action Action to send
+     */
+    void sendAction(String target, String action);
+
+    /**
+     * Queues a command to be sent using this connection's parser, after any lines that are
+     * already waiting. Commands are subject to the connection's flood control, and this method
+     * returns without waiting for them to be sent. The command is discarded if the connection
+     * closes before it is sent.
+     *
+     * @param line   The line the command is expected to send, used for flood control
+     * @param sender The task that sends the command using the parser
+     */
+    void sendCommand(String line, Consumer<Parser> sender);
+
     /**
      * Gets the core model for the input/output window for this connection.
      *
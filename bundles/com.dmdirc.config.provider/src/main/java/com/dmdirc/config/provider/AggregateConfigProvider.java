@@ -46,6 +46,17 @@ public interface AggregateConfigProvider extends ReadOnlyConfigProvider {
      */
     void addChangeListener(String domain, String key, ConfigChangeListener listener);
 
+    /**
+     * Adds a change listener for the specified domain and key, which is only weakly referenced by
+     * this provider. The listener is removed automatically once it is no longer referenced
+     * elsewhere, so it must not be a lambda or other object that nothing else holds on to.
+     *
+     * @param domain   The domain of the option
+     * @param key      The option to be monitored
+     * @param listener The listener to register
+     */
+    void addWeakChangeListener(String domain, String key, ConfigChangeListener listener);
+
     /**
      * Returns the name of all domains known by this manager.
      *
@@ -76,4 +87,15 @@ public interface AggregateConfigProvider extends ReadOnlyConfigProvider {
      */
     ConfigBinder getBinder();
 
+    /**
+     * Starts a transaction on this provider. Until the transaction is committed, listeners
+     * registered with this provider are not told about changed settings; they are then told
+     * about each changed setting once. Changes made directly to the underlying providers are
+     * held back as well. Transactions may be nested, in which case notifications are delivered
+     * when the outermost one is committed.
+     *
+     * @return A new transaction, which must be committed or closed
+     */
+    ConfigTransaction beginTransaction();
+
 }
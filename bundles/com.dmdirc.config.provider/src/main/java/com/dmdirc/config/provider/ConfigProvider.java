@@ -79,6 +79,16 @@ public interface ConfigProvider extends ReadOnlyConfigProvider {
      */
     void save();
 
+    /**
+     * Starts a transaction on this provider. Until the transaction is committed, listeners are
+     * not told about changed settings; they are then told about each changed setting once.
+     * Transactions may be nested, in which case notifications are delivered when the outermost
+     * one is committed.
+     *
+     * @return A new transaction, which must be committed or closed
+     */
+    ConfigTransaction beginTransaction();
+
     /**
      * Sets the specified option in this identity to the specified value.
      *
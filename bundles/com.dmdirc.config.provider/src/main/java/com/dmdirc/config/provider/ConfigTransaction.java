@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.config.provider;
+
+/**
+ * A group of changes to a config provider whose change notifications are delivered together.
+ *
+ * <p>Settings changed during a transaction take effect immediately; only the notifications to
+ * {@link ConfigChangeListener}s are held back. When the transaction is committed each changed
+ * setting is notified once, however many times it was changed. There is no rollback.
+ *
+ * <p>Transactions are intended to be used with try-with-resources:
+ * <pre>
+ * try (ConfigTransaction transaction = provider.beginTransaction()) {
+ *     provider.setOption("domain", "first", "value");
+ *     provider.setOption("domain", "second", "value");
+ * }
+ * </pre>
+ */
+@FunctionalInterface
+public interface ConfigTransaction extends AutoCloseable {
+
+    /**
+     * Ends this transaction, delivering any held back change notifications once the outermost
+     * open transaction on the provider has ended. Calling this more than once has no effect.
+     */
+    void commit();
+
+    /**
+     * Commits this transaction if it has not already been committed.
+     */
+    @Override
+    default void close() {
+        commit();
+    }
+
+}
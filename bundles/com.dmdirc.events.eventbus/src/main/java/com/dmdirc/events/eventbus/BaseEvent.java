@@ -29,6 +29,11 @@ public abstract class BaseEvent {
      */
     private final LocalDateTime timestamp;
 
+    /**
+     * The sequence number assigned to this event by the {@link EventFlightRecorder} when it was last published.
+     */
+    private long flightRecorderSequence = -1;
+
     /**
      * Creates a new event with the specified timestamp.
      *
@@ -57,4 +62,12 @@ public abstract class BaseEvent {
         return timestamp;
     }
 
+    long getFlightRecorderSequence() {
+        return flightRecorderSequence;
+    }
+
+    void setFlightRecorderSequence(final long flightRecorderSequence) {
+        this.flightRecorderSequence = flightRecorderSequence;
+    }
+
 }
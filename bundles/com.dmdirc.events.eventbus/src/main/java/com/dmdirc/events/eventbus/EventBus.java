@@ -50,4 +50,15 @@ public interface EventBus {
      */
     void publishAsync(BaseEvent message);
 
+    /**
+     * Gets the metrics collected by this bus, describing which events are published and how long their handlers
+     * take to process them.
+     */
+    EventBusMetrics getMetrics();
+
+    /**
+     * Gets the flight recorder for this bus, which retains a brief history of recently published events.
+     */
+    EventFlightRecorder getFlightRecorder();
+
 }
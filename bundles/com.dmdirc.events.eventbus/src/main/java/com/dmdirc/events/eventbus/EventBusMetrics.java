@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.events.eventbus;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Collects throughput and latency statistics for an {@link EventBus}.
+ *
+ * <p>All recording methods are lock-free and may be called concurrently from any publishing or dispatching thread.
+ * Reading methods return point-in-time snapshots which are never updated.
+ */
+public class EventBusMetrics {
+
+    /** Number of slow invocations to remember. */
+    private static final int SLOW_SAMPLES = 128;
+    /** Invocations taking at least this long are remembered as slow. */
+    private static final long SLOW_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** Publication counts, keyed on event type. */
+    private final Map<Class<?>, PublishCounter> publications = new ConcurrentHashMap<>();
+    /** Invocation latencies, keyed on subscriber method. */
+    private final Map<Method, HandlerMetrics> handlers = new ConcurrentHashMap<>();
+    /** Ring buffer of recent slow invocations. */
+    private final AtomicReferenceArray<HandlerInvocationSample> slowInvocations =
+            new AtomicReferenceArray<>(SLOW_SAMPLES);
+    /** The next index to write to in {@link #slowInvocations}. */
+    private final AtomicLong slowIndex = new AtomicLong();
+    /** Supplier of the number of events waiting for asynchronous dispatch. */
+    private final IntSupplier queueDepth;
+
+    /**
+     * Creates a new metrics collector.
+     *
+     * @param queueDepth Supplier of the number of events waiting for asynchronous dispatch.
+     */
+    public EventBusMetrics(final IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    /**
+     * Records the publication of an event.
+     *
+     * @param type The type of event being published.
+     * @param async True if the event was published asynchronously, false otherwise.
+     */
+    void recordPublication(final Class<?> type, final boolean async) {
+        PublishCounter counter = publications.get(type);
+        if (counter == null) {
+            counter = publications.computeIfAbsent(type, k -> new PublishCounter());
+        }
+        (async ? counter.async : counter.sync).increment();
+    }
+
+    /**
+     * Records the invocation of a subscriber method.
+     *
+     * @param method The subscriber method that was invoked.
+     * @param type The type of event that was passed to the method.
+     * @param nanos The time taken for the method to complete, in nanoseconds.
+     */
+    void recordInvocation(final Method method, final Class<?> type, final long nanos) {
+        HandlerMetrics metrics = handlers.get(method);
+        if (metrics == null) {
+            metrics = handlers.computeIfAbsent(method, HandlerMetrics::new);
+        }
+        metrics.histogram.record(nanos);
+
+        if (nanos >= SLOW_THRESHOLD_NANOS) {
+            final int index = (int) (slowIndex.getAndIncrement() % SLOW_SAMPLES);
+            slowInvocations.set(index, new HandlerInvocationSample(metrics.name, type,
+                    LocalDateTime.now(), nanos));
+        }
+    }
+
+    /**
+     * Gets publication counts for every event type published so far, busiest first.
+     *
+     * @return A list of publication statistics.
+     */
+    public List<EventTypeStatistics> getEventTypeStatistics() {
+        return publications.entrySet().stream()
+                .map(e -> new EventTypeStatistics(e.getKey(), e.getValue().sync.sum(),
+                        e.getValue().async.sum()))
+                .sorted(Comparator.comparingLong(EventTypeStatistics::getTotalCount).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets latency statistics for every subscriber method invoked so far, ordered by the total time spent in them.
+     *
+     * @return A list of handler statistics.
+     */
+    public List<HandlerStatistics> getHandlerStatistics() {
+        return handlers.values().stream()
+                .map(HandlerMetrics::getStatistics)
+                .sorted(Comparator.comparingLong(
+                        (HandlerStatistics s) -> s.getTotal(TimeUnit.NANOSECONDS)).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the slowest of the recently recorded slow invocations, slowest first.
+     *
+     * @param limit The maximum number of invocations to return.
+     * @return A list of slow invocations.
+     */
+    public List<HandlerInvocationSample> getSlowestRecentInvocations(final int limit) {
+        final List<HandlerInvocationSample> samples = new ArrayList<>(SLOW_SAMPLES);
+        for (int i = 0; i < SLOW_SAMPLES; i++) {
+            final HandlerInvocationSample sample = slowInvocations.get(i);
+            if (sample != null) {
+                samples.add(sample);
+            }
+        }
+        return samples.stream()
+                .sorted(Comparator.comparingLong(
+                        (HandlerInvocationSample s) -> s.getDuration(TimeUnit.NANOSECONDS)).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the number of events currently waiting to be dispatched asynchronously.
+     *
+     * @return The current size of the asynchronous dispatch queue.
+     */
+    public int getAsyncQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    /**
+     * Discards all statistics recorded so far.
+     */
+    public void reset() {
+        publications.clear();
+        handlers.clear();
+        for (int i = 0; i < SLOW_SAMPLES; i++) {
+            slowInvocations.set(i, null);
+        }
+    }
+
+    /**
+     * Sync and async counters for a single event type.
+     */
+    private static class PublishCounter {
+        private final LongAdder sync = new LongAdder();
+        private final LongAdder async = new LongAdder();
+    }
+
+    /**
+     * Latency histogram for a single subscriber method.
+     */
+    private static class HandlerMetrics {
+
+        private final String name;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        HandlerMetrics(final Method method) {
+            name = method.getDeclaringClass().getName() + '#' + method.getName();
+        }
+
+        HandlerStatistics getStatistics() {
+            return new HandlerStatistics(name, histogram.getCount(), histogram.getTotal(),
+                    histogram.getMax(), histogram.getPercentile(50), histogram.getPercentile(99));
+        }
+
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.events.eventbus;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Always-on, fixed-size ring buffer of recently published events.
+ *
+ * <p>Only the event's class, the ID of its source window, and timing information are retained, so recording an
+ * event never keeps it alive. Publishing threads claim a slot with a single atomic increment and write into
+ * preallocated arrays, so recording costs a handful of stores and no allocation.
+ *
+ * <p>Readers validate each slot's sequence number before and after copying it, and skip any slot that was
+ * overwritten mid-read. A dump may therefore miss a few events if the bus is very busy, but will never report a
+ * record made up of two different events.
+ */
+public class EventFlightRecorder {
+
+    /** The default number of events to retain. */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /** Mask used to map sequence numbers to slots. */
+    private final int mask;
+    /** The next sequence number to hand out. */
+    private final AtomicLong sequence = new AtomicLong();
+    /** The sequence number stored in each slot, or -1 if the slot is being written. */
+    private final AtomicLongArray sequences;
+    /** The class of event in each slot. */
+    private final Class<?>[] types;
+    /** The ID of the source window for the event in each slot. */
+    private final String[] sources;
+    /** Whether the event in each slot was published asynchronously. */
+    private final boolean[] async;
+    /** The wall-clock time the event in each slot was published, in milliseconds since the epoch. */
+    private final long[] publishTimes;
+    /** The total time spent in handlers for the event in each slot, in nanoseconds. */
+    private final AtomicLongArray durations;
+    /** Function used to determine the source window ID of an event. */
+    private final Function<BaseEvent, String> sourceIdentifier;
+
+    /**
+     * Creates a new flight recorder.
+     *
+     * @param capacity The number of events to retain. Will be rounded up to a power of two.
+     * @param sourceIdentifier Function used to determine the ID of an event's source window. May return null.
+     */
+    public EventFlightRecorder(final int capacity, final Function<BaseEvent, String> sourceIdentifier) {
+        final int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.types = new Class<?>[size];
+        this.sources = new String[size];
+        this.async = new boolean[size];
+        this.publishTimes = new long[size];
+        this.durations = new AtomicLongArray(size);
+        this.sourceIdentifier = sourceIdentifier;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, -1);
+        }
+    }
+
+    /**
+     * Records the publication of an event, and tags the event so handler durations can be attributed to it.
+     *
+     * @param event The event being published.
+     * @param isAsync True if the event is being published asynchronously, false otherwise.
+     */
+    void recordPublication(final BaseEvent event, final boolean isAsync) {
+        final long seq = sequence.getAndIncrement();
+        final int slot = (int) (seq & mask);
+        sequences.set(slot, -1);
+        types[slot] = event.getClass();
+        sources[slot] = identifySource(event);
+        async[slot] = isAsync;
+        publishTimes[slot] = System.currentTimeMillis();
+        durations.set(slot, 0);
+        sequences.set(slot, seq);
+        event.setFlightRecorderSequence(seq);
+    }
+
+    /**
+     * Attributes time spent in a handler to the given event.
+     *
+     * @param event The event that was handled.
+     * @param nanos The time spent in the handler, in nanoseconds.
+     */
+    void recordDispatch(final BaseEvent event, final long nanos) {
+        final long seq = event.getFlightRecorderSequence();
+        if (seq >= 0) {
+            final int slot = (int) (seq & mask);
+            if (sequences.get(slot) == seq) {
+                durations.addAndGet(slot, nanos);
+            }
+        }
+    }
+
+    /**
+     * Gets a snapshot of all currently retained events, oldest first.
+     *
+     * @return A list of recorded events.
+     */
+    public List<FlightRecord> getRecords() {
+        final long end = sequence.get();
+        final long start = Math.max(0, end - mask - 1);
+        final List<FlightRecord> records = new ArrayList<>((int) (end - start));
+        for (long seq = start; seq < end; seq++) {
+            final int slot = (int) (seq & mask);
+            if (sequences.get(slot) != seq) {
+                continue;
+            }
+            final FlightRecord record = new FlightRecord(types[slot], sources[slot], async[slot],
+                    Instant.ofEpochMilli(publishTimes[slot]), durations.get(slot));
+            if (sequences.get(slot) == seq) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Writes all currently retained events to the given file, oldest first.
+     *
+     * @param file The file to write to. Will be overwritten if it exists.
+     * @throws IOException If the file could not be written.
+     */
+    public void dump(final Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (FlightRecord record : getRecords()) {
+                writer.write(record.getPublishTime().toString());
+                writer.write('\t');
+                writer.write(record.isAsync() ? "async" : "sync");
+                writer.write('\t');
+                writer.write(String.valueOf(record.getDispatchDuration(TimeUnit.MICROSECONDS)));
+                writer.write("us\t");
+                writer.write(record.getSource() == null ? "-" : record.getSource());
+                writer.write('\t');
+                writer.write(record.getType().getName());
+                writer.newLine();
+            }
+        }
+    }
+
+    private String identifySource(final BaseEvent event) {
+        try {
+            return sourceIdentifier.apply(event);
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.events.eventbus;
+
+/**
+ * Snapshot of the number of times a single event type has been published.
+ */
+public final class EventTypeStatistics {
+
+    /** The type of event. */
+    private final Class<?> type;
+    /** The number of synchronous publications. */
+    private final long syncCount;
+    /** The number of asynchronous publications. */
+    private final long asyncCount;
+
+    EventTypeStatistics(final Class<?> type, final long syncCount, final long asyncCount) {
+        this.type = type;
+        this.syncCount = syncCount;
+        this.asyncCount = asyncCount;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public long getSyncCount() {
+        return syncCount;
+    }
+
+    public long getAsyncCount() {
+        return asyncCount;
+    }
+
+    public long getTotalCount() {
+        return syncCount + asyncCount;
+    }
+
+    @Override
+    public String toString() {
+        return type.getSimpleName() + "{sync=" + syncCount + ", async=" + asyncCount + '}';
+    }
+
+}
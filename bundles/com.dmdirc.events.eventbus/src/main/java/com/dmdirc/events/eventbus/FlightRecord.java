@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.events.eventbus;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single event captured by an {@link EventFlightRecorder}.
+ */
+public final class FlightRecord {
+
+    /** The type of event. */
+    private final Class<?> type;
+    /** The ID of the event's source window, if known. */
+    private final String source;
+    /** Whether the event was published asynchronously. */
+    private final boolean async;
+    /** The time the event was published. */
+    private final Instant publishTime;
+    /** The total time spent in handlers, in nanoseconds. */
+    private final long dispatchNanos;
+
+    FlightRecord(final Class<?> type, final String source, final boolean async,
+            final Instant publishTime, final long dispatchNanos) {
+        this.type = type;
+        this.source = source;
+        this.async = async;
+        this.publishTime = publishTime;
+        this.dispatchNanos = dispatchNanos;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Gets the ID of the window the event was sourced from.
+     *
+     * @return The source window's ID, or {@code null} if the event had no source.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public Instant getPublishTime() {
+        return publishTime;
+    }
+
+    /**
+     * Gets the total time spent by handlers processing the event. For events still waiting in the async queue, or
+     * still being dispatched, this will only include handlers that have completed.
+     *
+     * @param unit The unit to return the duration in.
+     * @return The time spent dispatching the event.
+     */
+    public long getDispatchDuration(final TimeUnit unit) {
+        return unit.convert(dispatchNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return type.getSimpleName() + "{source=" + source + ", async=" + async + ", publishTime="
+                + publishTime + ", dispatchNanos=" + dispatchNanos + '}';
+    }
+
+}
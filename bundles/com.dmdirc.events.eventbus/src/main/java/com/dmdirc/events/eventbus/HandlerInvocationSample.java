@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.events.eventbus;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records a single, noteworthy invocation of a subscriber method.
+ */
+public final class HandlerInvocationSample {
+
+    /** The name of the handler, in the form {@code Class#method}. */
+    private final String handler;
+    /** The type of event that was being handled. */
+    private final Class<?> eventType;
+    /** The time the invocation completed. */
+    private final LocalDateTime timestamp;
+    /** The duration of the invocation, in nanoseconds. */
+    private final long durationNanos;
+
+    HandlerInvocationSample(final String handler, final Class<?> eventType,
+            final LocalDateTime timestamp, final long durationNanos) {
+        this.handler = handler;
+        this.eventType = eventType;
+        this.timestamp = timestamp;
+        this.durationNanos = durationNanos;
+    }
+
+    public String getHandler() {
+        return handler;
+    }
+
+    public Class<?> getEventType() {
+        return eventType;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public long getDuration(final TimeUnit unit) {
+        return unit.convert(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return handler + '(' + eventType.getSimpleName() + ") took " + durationNanos + "ns at "
+                + timestamp;
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.events.eventbus;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the invocation latency of a single subscriber method.
+ */
+public final class HandlerStatistics {
+
+    /** The name of the handler, in the form {@code Class#method}. */
+    private final String handler;
+    /** The number of times the handler has been invoked. */
+    private final long invocations;
+    /** The total time spent in the handler, in nanoseconds. */
+    private final long totalNanos;
+    /** The longest single invocation, in nanoseconds. */
+    private final long maxNanos;
+    /** The estimated median invocation time, in nanoseconds. */
+    private final long p50Nanos;
+    /** The estimated 99th percentile invocation time, in nanoseconds. */
+    private final long p99Nanos;
+
+    HandlerStatistics(final String handler, final long invocations, final long totalNanos,
+            final long maxNanos, final long p50Nanos, final long p99Nanos) {
+        this.handler = handler;
+        this.invocations = invocations;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+    }
+
+    public String getHandler() {
+        return handler;
+    }
+
+    public long getInvocations() {
+        return invocations;
+    }
+
+    public long getTotal(final TimeUnit unit) {
+        return unit.convert(totalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getMax(final TimeUnit unit) {
+        return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getMedian(final TimeUnit unit) {
+        return unit.convert(p50Nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long get99thPercentile(final TimeUnit unit) {
+        return unit.convert(p99Nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getMean(final TimeUnit unit) {
+        return invocations == 0 ? 0 : unit.convert(totalNanos / invocations, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return handler + "{invocations=" + invocations + ", totalNanos=" + totalNanos
+                + ", maxNanos=" + maxNanos + '}';
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.events.eventbus;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations, bucketed by powers of two nanoseconds.
+ *
+ * <p>Bucket {@code n} holds durations in the range {@code [2^n, 2^(n+1))} nanoseconds, so percentiles are only ever
+ * accurate to within a factor of two. That's plenty to tell a 50us handler from a 50ms one.
+ */
+class LatencyHistogram {
+
+    /** Number of buckets; enough to cover durations up to ~2^40ns (18 minutes). */
+    private static final int BUCKETS = 41;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a single duration.
+     *
+     * @param nanos The duration to record, in nanoseconds.
+     */
+    void record(final long nanos) {
+        final long value = Math.max(1, nanos);
+        buckets.incrementAndGet(Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(value)));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Gets the number of durations recorded.
+     *
+     * @return The number of recorded durations.
+     */
+    long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the sum of all durations recorded.
+     *
+     * @return The total recorded time, in nanoseconds.
+     */
+    long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * Gets the longest duration recorded.
+     *
+     * @return The maximum recorded time, in nanoseconds.
+     */
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Estimates the given percentile of recorded durations, using the upper bound of the containing bucket.
+     *
+     * @param percentile The percentile to calculate, between 0 and 100.
+     * @return The estimated duration, in nanoseconds, or 0 if nothing has been recorded.
+     */
+    long getPercentile(final double percentile) {
+        final long[] snapshot = new long[BUCKETS];
+        long recorded = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            recorded += snapshot[i];
+        }
+
+        if (recorded == 0) {
+            return 0;
+        }
+
+        final long target = (long) Math.ceil(recorded * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target && snapshot[i] > 0) {
+                return Math.min(getMax(), (1L << (i + 1)) - 1);
+            }
+        }
+        return getMax();
+    }
+
+}
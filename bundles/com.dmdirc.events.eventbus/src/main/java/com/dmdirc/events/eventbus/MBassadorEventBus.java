@@ -17,6 +17,10 @@
 
 package com.dmdirc.events.eventbus;
 
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+import net.engio.mbassy.bus.IMessagePublication;
 import net.engio.mbassy.bus.MBassador;
 import net.engio.mbassy.bus.config.BusConfiguration;
 import net.engio.mbassy.bus.config.Feature;
@@ -31,12 +35,30 @@ public class MBassadorEventBus implements EventBus {
     private static final Logger LOG = LoggerFactory.getLogger(MBassadorEventBus.class);
 
     private final MBassador<BaseEvent> bus;
+    private final EventBusMetrics metrics;
+    private final EventFlightRecorder flightRecorder;
 
     public MBassadorEventBus() {
+        this(e -> null);
+    }
+
+    /**
+     * Creates a new event bus.
+     *
+     * @param sourceIdentifier Function used to determine the ID of the window an event came from, for use in the
+     *                         {@link EventFlightRecorder}. May return null.
+     */
+    public MBassadorEventBus(final Function<BaseEvent, String> sourceIdentifier) {
+        final BlockingQueue<IMessagePublication> pending = new LinkedBlockingQueue<>();
+        metrics = new EventBusMetrics(pending::size);
+        flightRecorder = new EventFlightRecorder(EventFlightRecorder.DEFAULT_CAPACITY, sourceIdentifier);
         bus = new MBassador<>(new BusConfiguration()
-                .addFeature(Feature.SyncPubSub.Default())
+                .addFeature(Feature.SyncPubSub.Default()
+                        .setSubscriptionFactory(new MeteredSubscriptionFactory(metrics, flightRecorder)))
                 .addFeature(Feature.AsynchronousHandlerInvocation.Default(1, 1))
-                .addFeature(Feature.AsynchronousMessageDispatch.Default().setNumberOfMessageDispatchers(1))
+                .addFeature(Feature.AsynchronousMessageDispatch.Default()
+                        .setNumberOfMessageDispatchers(1)
+                        .setMessageQueue(pending))
                 .addPublicationErrorHandler(e -> LOG.error("Unhandled exception while publishing event", e)));
     }
 
@@ -52,12 +74,26 @@ public class MBassadorEventBus implements EventBus {
 
     @Override
     public void publish(BaseEvent message) {
+        metrics.recordPublication(message.getClass(), false);
+        flightRecorder.recordPublication(message, false);
         bus.publish(message);
     }
 
     @Override
     public void publishAsync(BaseEvent message) {
+        metrics.recordPublication(message.getClass(), true);
+        flightRecorder.recordPublication(message, true);
         bus.publishAsync(message);
     }
 
+    @Override
+    public EventBusMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public EventFlightRecorder getFlightRecorder() {
+        return flightRecorder;
+    }
+
 }
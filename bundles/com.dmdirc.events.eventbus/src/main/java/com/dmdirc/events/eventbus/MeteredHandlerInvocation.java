@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.events.eventbus;
+
+import java.lang.reflect.Method;
+import net.engio.mbassy.bus.MessagePublication;
+import net.engio.mbassy.dispatch.IHandlerInvocation;
+import net.engio.mbassy.subscription.AbstractSubscriptionContextAware;
+
+/**
+ * Handler invocation that times its delegate and reports the duration to an {@link EventBusMetrics} and
+ * {@link EventFlightRecorder}. The delegate should be the base invocation of the handler method, so
+ * that asynchronous handlers are timed where they actually run.
+ */
+class MeteredHandlerInvocation extends AbstractSubscriptionContextAware
+        implements IHandlerInvocation<Object, Object> {
+
+    private final IHandlerInvocation<Object, Object> delegate;
+    private final EventBusMetrics metrics;
+    private final EventFlightRecorder flightRecorder;
+    private final Method method;
+
+    MeteredHandlerInvocation(final IHandlerInvocation<Object, Object> delegate,
+            final EventBusMetrics metrics, final EventFlightRecorder flightRecorder) {
+        super(delegate.getContext());
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.flightRecorder = flightRecorder;
+        this.method = delegate.getContext().getHandler().getMethod();
+    }
+
+    @Override
+    public void invoke(final Object listener, final Object message,
+            final MessagePublication publication) {
+        final long start = System.nanoTime();
+        try {
+            delegate.invoke(listener, message, publication);
+        } finally {
+            final long duration = System.nanoTime() - start;
+            metrics.recordInvocation(method, message.getClass(), duration);
+            if (message instanceof BaseEvent) {
+                flightRecorder.recordDispatch((BaseEvent) message, duration);
+            }
+        }
+    }
+
+}
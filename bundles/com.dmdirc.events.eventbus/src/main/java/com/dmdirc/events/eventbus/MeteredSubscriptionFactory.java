@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.events.eventbus;
+
+import net.engio.mbassy.dispatch.AsynchronousHandlerInvocation;
+import net.engio.mbassy.dispatch.IHandlerInvocation;
+import net.engio.mbassy.dispatch.SynchronizedHandlerInvocation;
+import net.engio.mbassy.subscription.SubscriptionContext;
+import net.engio.mbassy.subscription.SubscriptionFactory;
+
+/**
+ * Subscription factory that wraps every handler invocation in a {@link MeteredHandlerInvocation}.
+ *
+ * <p>The metering is applied directly around the handler method, inside any synchronisation or
+ * asynchronous dispatch, so that asynchronous handlers are timed on the thread that runs them
+ * rather than just for the hand-off to the executor.
+ */
+class MeteredSubscriptionFactory extends SubscriptionFactory {
+
+    private final EventBusMetrics metrics;
+    private final EventFlightRecorder flightRecorder;
+
+    MeteredSubscriptionFactory(final EventBusMetrics metrics,
+            final EventFlightRecorder flightRecorder) {
+        this.metrics = metrics;
+        this.flightRecorder = flightRecorder;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected IHandlerInvocation buildInvocationForHandler(final SubscriptionContext context)
+            throws Exception {
+        IHandlerInvocation invocation = new MeteredHandlerInvocation(
+                createBaseHandlerInvocation(context), metrics, flightRecorder);
+        if (context.getHandler().isSynchronized()) {
+            invocation = new SynchronizedHandlerInvocation(invocation);
+        }
+        if (context.getHandler().isAsynchronous()) {
+            invocation = new AsynchronousHandlerInvocation(invocation);
+        }
+        return invocation;
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.events.eventbus;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventBusMetricsTest {
+
+    private EventBusMetrics metrics;
+    private Method fastHandler;
+    private Method slowHandler;
+
+    @Before
+    public void setUp() throws NoSuchMethodException {
+        metrics = new EventBusMetrics(() -> 3);
+        fastHandler = String.class.getMethod("length");
+        slowHandler = String.class.getMethod("isEmpty");
+    }
+
+    @Test
+    public void testCountsPublicationsByTypeAndMode() {
+        metrics.recordPublication(String.class, false);
+        metrics.recordPublication(String.class, true);
+        metrics.recordPublication(String.class, true);
+        metrics.recordPublication(Integer.class, false);
+
+        final List<EventTypeStatistics> stats = metrics.getEventTypeStatistics();
+        assertEquals(2, stats.size());
+        assertEquals(String.class, stats.get(0).getType());
+        assertEquals(1, stats.get(0).getSyncCount());
+        assertEquals(2, stats.get(0).getAsyncCount());
+        assertEquals(Integer.class, stats.get(1).getType());
+        assertEquals(1, stats.get(1).getTotalCount());
+    }
+
+    @Test
+    public void testOrdersHandlersByTotalTime() {
+        metrics.recordInvocation(fastHandler, String.class, 100);
+        metrics.recordInvocation(fastHandler, String.class, 100);
+        metrics.recordInvocation(slowHandler, String.class, 10000);
+
+        final List<HandlerStatistics> stats = metrics.getHandlerStatistics();
+        assertEquals(2, stats.size());
+        assertEquals("java.lang.String#isEmpty", stats.get(0).getHandler());
+        assertEquals(1, stats.get(0).getInvocations());
+        assertEquals(10000, stats.get(0).getMax(TimeUnit.NANOSECONDS));
+        assertEquals(2, stats.get(1).getInvocations());
+        assertEquals(200, stats.get(1).getTotal(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testPercentilesAreWithinBucket() {
+        for (int i = 0; i < 99; i++) {
+            metrics.recordInvocation(fastHandler, String.class, 1000);
+        }
+        metrics.recordInvocation(fastHandler, String.class, 1000000);
+
+        final HandlerStatistics stats = metrics.getHandlerStatistics().get(0);
+        assertTrue(stats.getMedian(TimeUnit.NANOSECONDS) >= 1000);
+        assertTrue(stats.getMedian(TimeUnit.NANOSECONDS) < 2000);
+        assertTrue(stats.get99thPercentile(TimeUnit.NANOSECONDS) < 2000);
+        assertEquals(1000000, stats.getMax(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testOnlyRemembersSlowInvocations() {
+        metrics.recordInvocation(fastHandler, String.class, 100);
+        metrics.recordInvocation(slowHandler, Integer.class, TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.recordInvocation(slowHandler, String.class, TimeUnit.MILLISECONDS.toNanos(50));
+
+        final List<HandlerInvocationSample> samples = metrics.getSlowestRecentInvocations(5);
+        assertEquals(2, samples.size());
+        assertEquals(50, samples.get(0).getDuration(TimeUnit.MILLISECONDS));
+        assertEquals(Integer.class, samples.get(1).getEventType());
+        assertEquals(1, metrics.getSlowestRecentInvocations(1).size());
+    }
+
+    @Test
+    public void testReportsQueueDepth() {
+        assertEquals(3, metrics.getAsyncQueueDepth());
+    }
+
+    @Test
+    public void testResetDiscardsEverything() {
+        metrics.recordPublication(String.class, false);
+        metrics.recordInvocation(slowHandler, String.class, TimeUnit.MILLISECONDS.toNanos(50));
+        metrics.reset();
+
+        assertTrue(metrics.getEventTypeStatistics().isEmpty());
+        assertTrue(metrics.getHandlerStatistics().isEmpty());
+        assertTrue(metrics.getSlowestRecentInvocations(5).isEmpty());
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.events.eventbus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EventFlightRecorderTest {
+
+    private EventFlightRecorder recorder;
+
+    @Before
+    public void setUp() {
+        recorder = new EventFlightRecorder(4, e -> e instanceof SourcedTestEvent ? "window1" : null);
+    }
+
+    @Test
+    public void testRecordsPublications() {
+        recorder.recordPublication(new TestEvent(), false);
+        recorder.recordPublication(new SourcedTestEvent(), true);
+
+        final List<FlightRecord> records = recorder.getRecords();
+        assertEquals(2, records.size());
+        assertEquals(TestEvent.class, records.get(0).getType());
+        assertFalse(records.get(0).isAsync());
+        assertNull(records.get(0).getSource());
+        assertEquals(SourcedTestEvent.class, records.get(1).getType());
+        assertTrue(records.get(1).isAsync());
+        assertEquals("window1", records.get(1).getSource());
+    }
+
+    @Test
+    public void testAccumulatesDispatchTime() {
+        final BaseEvent event = new TestEvent();
+        recorder.recordPublication(event, false);
+        recorder.recordDispatch(event, 1000);
+        recorder.recordDispatch(event, 500);
+
+        assertEquals(1500, recorder.getRecords().get(0).getDispatchDuration(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testRetainsOnlyMostRecentEvents() {
+        final BaseEvent first = new TestEvent();
+        recorder.recordPublication(first, false);
+        for (int i = 0; i < 4; i++) {
+            recorder.recordPublication(new SourcedTestEvent(), false);
+        }
+
+        final List<FlightRecord> records = recorder.getRecords();
+        assertEquals(4, records.size());
+        for (FlightRecord record : records) {
+            assertEquals(SourcedTestEvent.class, record.getType());
+        }
+
+        // Dispatching an event that has been overwritten shouldn't affect the newer record.
+        recorder.recordDispatch(first, 1000);
+        assertEquals(0, recorder.getRecords().get(3).getDispatchDuration(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testSourceIdentifierFailuresAreIgnored() {
+        recorder = new EventFlightRecorder(4, e -> {
+            throw new IllegalStateException();
+        });
+        recorder.recordPublication(new TestEvent(), false);
+        assertNull(recorder.getRecords().get(0).getSource());
+    }
+
+    @Test
+    public void testDump() throws IOException {
+        final Path file = Files.createTempFile("events", ".log");
+        try {
+            recorder.recordPublication(new TestEvent(), false);
+            recorder.recordPublication(new SourcedTestEvent(), true);
+            recorder.dump(file);
+
+            final List<String> lines = Files.readAllLines(file);
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(0).endsWith("\tsync\t0us\t-\t" + TestEvent.class.getName()));
+            assertTrue(lines.get(1).endsWith("\tasync\t0us\twindow1\t" + SourcedTestEvent.class.getName()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static class TestEvent extends BaseEvent {
+    }
+
+    private static class SourcedTestEvent extends BaseEvent {
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.dmdirc.events.eventbus;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.Invoke;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MBassadorEventBusTest {
+
+    @Test(timeout = 5000)
+    public void testTimesAsynchronousHandlersWhereTheyRun() throws InterruptedException {
+        final MBassadorEventBus bus = new MBassadorEventBus();
+        bus.subscribe(new SlowListener());
+        bus.publish(new TestEvent());
+
+        List<HandlerStatistics> stats = bus.getMetrics().getHandlerStatistics();
+        while (stats.isEmpty()) {
+            Thread.sleep(10);
+            stats = bus.getMetrics().getHandlerStatistics();
+        }
+
+        assertEquals(1, stats.get(0).getInvocations());
+        assertTrue(stats.get(0).getMax(TimeUnit.MILLISECONDS) >= 50);
+    }
+
+    private static class TestEvent extends BaseEvent {
+    }
+
+    public static class SlowListener {
+
+        @Handler(delivery = Invoke.Asynchronously)
+        void handleTestEvent(final TestEvent event) throws InterruptedException {
+            Thread.sleep(50);
+        }
+
+    }
+
+}
@@ -17,6 +17,9 @@
 
 package com.dmdirc.util.system;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * A component that participates in or needs to know about the system lifecycle.
  */
@@ -42,4 +45,18 @@ public interface SystemLifecycleComponent {
         save();
     }
 
+    /**
+     * Retrieves the types of component that must have started before this component is started.
+     * <p>
+     * Components with no dependencies between them may be started concurrently. Components will
+     * be shut down in the reverse order. Dependencies on types that have no registered component
+     * are ignored.
+     *
+     * @return The types of component this component depends on.
+     * @see SystemLifecycleGraph
+     */
+    default Set<Class<? extends SystemLifecycleComponent>> getDependencies() {
+        return Collections.emptySet();
+    }
+
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.util.system;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Orders a set of {@link SystemLifecycleComponent}s according to their declared
+ * {@link SystemLifecycleComponent#getDependencies() dependencies}.
+ */
+public class SystemLifecycleGraph {
+
+    /** The direct dependencies of each component. */
+    private final Map<SystemLifecycleComponent, Set<SystemLifecycleComponent>> dependencies =
+            new IdentityHashMap<>();
+    /** The components, ordered so that each comes after all of its dependencies. */
+    private final List<SystemLifecycleComponent> order = new ArrayList<>();
+
+    /**
+     * Creates a new graph of the given components.
+     *
+     * @param components The components to be ordered.
+     * @throws IllegalArgumentException If the components have a circular dependency.
+     */
+    public SystemLifecycleGraph(final Collection<? extends SystemLifecycleComponent> components) {
+        for (SystemLifecycleComponent component : components) {
+            final Set<SystemLifecycleComponent> resolved = new LinkedHashSet<>();
+            for (Class<? extends SystemLifecycleComponent> type : component.getDependencies()) {
+                components.stream()
+                        .filter(type::isInstance)
+                        .filter(c -> c != component)
+                        .forEach(resolved::add);
+            }
+            dependencies.put(component, resolved);
+        }
+
+        final Set<SystemLifecycleComponent> visited =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+        final Set<SystemLifecycleComponent> visiting = new LinkedHashSet<>();
+        components.forEach(c -> visit(c, visited, visiting));
+    }
+
+    /**
+     * Performs a depth first visit of the given component, adding it to the order after all of its
+     * dependencies.
+     *
+     * @param component The component to visit.
+     * @param visited The components that have already been added to the order.
+     * @param visiting The components whose dependencies are currently being visited.
+     */
+    private void visit(final SystemLifecycleComponent component,
+            final Set<SystemLifecycleComponent> visited,
+            final Set<SystemLifecycleComponent> visiting) {
+        if (visited.contains(component)) {
+            return;
+        }
+
+        if (!visiting.add(component)) {
+            final StringBuilder cycle = new StringBuilder();
+            for (SystemLifecycleComponent member : visiting) {
+                cycle.append(member.getClass().getSimpleName()).append(" -> ");
+            }
+            cycle.append(component.getClass().getSimpleName());
+            throw new IllegalArgumentException("Circular lifecycle dependency: " + cycle);
+        }
+
+        dependencies.get(component).forEach(d -> visit(d, visited, visiting));
+        visiting.remove(component);
+        visited.add(component);
+        order.add(component);
+    }
+
+    /**
+     * Retrieves the components in an order in which they can be started one at a time.
+     *
+     * @return The components, each preceded by all of its dependencies.
+     */
+    public List<SystemLifecycleComponent> getStartUpOrder() {
+        return Collections.unmodifiableList(order);
+    }
+
+    /**
+     * Retrieves the components in an order in which they can be shut down one at a time.
+     *
+     * @return The components, each followed by all of its dependencies.
+     */
+    public List<SystemLifecycleComponent> getShutDownOrder() {
+        final List<SystemLifecycleComponent> result = new ArrayList<>(order);
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Starts all components using the given executor, and waits for them to finish. Each
+     * component is started only once all of its dependencies have been started, while components
+     * that do not depend on each other may be started concurrently.
+     * <p>
+     * If a component fails to start then the components that depend on it are not started, but all
+     * other components are, and the first failure is rethrown once they have finished.
+     *
+     * @param executor The executor to start components on.
+     * @param action The action to perform to start each component.
+     */
+    public void startUp(final Executor executor, final Consumer<SystemLifecycleComponent> action) {
+        final Map<SystemLifecycleComponent, CompletableFuture<Void>> futures =
+                new IdentityHashMap<>();
+        for (SystemLifecycleComponent component : order) {
+            final CompletableFuture<?>[] required = dependencies.get(component).stream()
+                    .map(futures::get)
+                    .toArray(CompletableFuture<?>[]::new);
+            futures.put(component, CompletableFuture.allOf(required)
+                    .thenRunAsync(() -> action.accept(component), executor));
+        }
+
+        // Dependents of a failed component fail with the same cause, so the first in the start up
+        // order is the one that actually went wrong.
+        Throwable failure = null;
+        for (SystemLifecycleComponent component : order) {
+            try {
+                futures.get(component).join();
+            } catch (CompletionException ex) {
+                if (failure == null) {
+                    failure = ex.getCause();
+                }
+            }
+        }
+
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new IllegalStateException("Unable to start lifecycle component", failure);
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.util.system;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SystemLifecycleGraphTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testStartUpOrderPutsDependenciesFirst() {
+        final Third third = new Third();
+        final Second second = new Second();
+        final First first = new First();
+        final SystemLifecycleGraph graph =
+                new SystemLifecycleGraph(Arrays.asList(third, second, first));
+
+        assertEquals(Arrays.asList(first, second, third), graph.getStartUpOrder());
+        assertEquals(Arrays.asList(third, second, first), graph.getShutDownOrder());
+    }
+
+    @Test
+    public void testIgnoresMissingDependencies() {
+        final Second second = new Second();
+        final SystemLifecycleGraph graph =
+                new SystemLifecycleGraph(Collections.singletonList(second));
+
+        assertEquals(Collections.singletonList(second), graph.getStartUpOrder());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsCircularDependencies() {
+        new SystemLifecycleGraph(Arrays.asList(new CycleStart(), new CycleEnd()));
+    }
+
+    @Test
+    public void testStartUpWaitsForDependencies() {
+        final List<SystemLifecycleComponent> started =
+                Collections.synchronizedList(new ArrayList<>());
+        final Third third = new Third();
+        final Second second = new Second();
+        final First first = new First();
+
+        new SystemLifecycleGraph(Arrays.asList(third, second, first)).startUp(executor,
+                started::add);
+
+        assertEquals(Arrays.asList(first, second, third), started);
+    }
+
+    @Test
+    public void testStartUpRunsIndependentComponentsConcurrently() {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final SystemLifecycleComponent one = new Independent();
+        final SystemLifecycleComponent two = new Independent();
+
+        new SystemLifecycleGraph(Arrays.asList(one, two)).startUp(executor, c -> {
+            latch.countDown();
+            try {
+                // Only completes if the other component is started at the same time.
+                assertTrue(latch.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+    }
+
+    @Test
+    public void testStartUpSkipsDependentsOfFailedComponents() {
+        final List<SystemLifecycleComponent> started =
+                Collections.synchronizedList(new ArrayList<>());
+        final RuntimeException failure = new IllegalStateException("Failed");
+        final First first = new First();
+        final Second second = new Second();
+        final Independent independent = new Independent();
+
+        try {
+            new SystemLifecycleGraph(Arrays.asList(second, first, independent)).startUp(executor,
+                    c -> {
+                        if (c == first) {
+                            throw failure;
+                        }
+                        started.add(c);
+                    });
+            fail("Expected exception");
+        } catch (IllegalStateException ex) {
+            assertSame(failure, ex);
+        }
+
+        assertFalse(started.contains(second));
+        assertTrue(started.contains(independent));
+    }
+
+    private static class First implements SystemLifecycleComponent {
+        @Override
+        public void startUp() {
+        }
+    }
+
+    private static class Second implements SystemLifecycleComponent {
+        @Override
+        public void startUp() {
+        }
+
+        @Override
+        public Set<Class<? extends SystemLifecycleComponent>> getDependencies() {
+            return Collections.singleton(First.class);
+        }
+    }
+
+    private static class Third implements SystemLifecycleComponent {
+        @Override
+        public void startUp() {
+        }
+
+        @Override
+        public Set<Class<? extends SystemLifecycleComponent>> getDependencies() {
+            return Collections.singleton(Second.class);
+        }
+    }
+
+    private static class CycleStart implements SystemLifecycleComponent {
+        @Override
+        public void startUp() {
+        }
+
+        @Override
+        public Set<Class<? extends SystemLifecycleComponent>> getDependencies() {
+            return Collections.singleton(CycleEnd.class);
+        }
+    }
+
+    private static class CycleEnd implements SystemLifecycleComponent {
+        @Override
+        public void startUp() {
+        }
+
+        @Override
+        public Set<Class<? extends SystemLifecycleComponent>> getDependencies() {
+            return Collections.singleton(CycleStart.class);
+        }
+    }
+
+    private static class Independent implements SystemLifecycleComponent {
+        @Override
+        public void startUp() {
+        }
+    }
+
+}
@@ -35,10 +35,10 @@ import com.dmdirc.config.provider.ConfigProviderMigrator;
 import com.dmdirc.parser.common.ChannelListModeItem;
 import com.dmdirc.parser.interfaces.ChannelClientInfo;
 import com.dmdirc.parser.interfaces.ChannelInfo;
-import com.dmdirc.parser.interfaces.Parser;
 import com.dmdirc.ui.core.components.WindowComponent;
 import com.dmdirc.ui.input.TabCompletionType;
 import com.dmdirc.ui.messages.BackBufferFactory;
+import com.dmdirc.util.TimerService;
 import com.dmdirc.ui.messages.StyledMessageUtils;
 import com.google.common.collect.EvictingQueue;
 import java.util.ArrayList;
@@ -87,12 +87,14 @@ public class Channel extends FrameContainer implements GroupChat {
             final ChannelInfo newChannelInfo,
             final ConfigProviderMigrator configMigrator,
             final BackBufferFactory backBufferFactory,
+            final TimerService timerService,
             final GroupChatUserManager groupChatUserManager) {
         super("channel-inactive",
                 newChannelInfo.getName(),
                 new StyledMessageUtils().stripControlCodes(newChannelInfo.getName()), // TODO: Inject this
                 configMigrator.getConfigProvider(),
                 backBufferFactory,
+                timerService,
                 connection.getWindowModel().getEventBus(),
                 Arrays.asList(WindowComponent.TEXTAREA.getIdentifier(),
                         WindowComponent.INPUTFIELD.getIdentifier(),
@@ -110,7 +112,7 @@ public class Channel extends FrameContainer implements GroupChat {
         eventHandler = new ChannelEventHandler(this, getEventBus(), groupChatUserManager);
 
         initBackBuffer();
-        registerCallbacks();
+        migrateConfig();
         updateTitle();
     }
 
@@ -129,10 +131,18 @@ public class Channel extends FrameContainer implements GroupChat {
     }
 
     /**
-     * Registers callbacks with the parser for this channel.
+     * Gets the handler that parser events for this channel should be routed to.
+     *
+     * @return This channel's event handler.
      */
-    private void registerCallbacks() {
-        eventHandler.registerCallbacks();
+    ChannelEventHandler getEventHandler() {
+        return eventHandler;
+    }
+
+    /**
+     * Migrates this channel's config provider to match the connection's current details.
+     */
+    private void migrateConfig() {
         configMigrator.migrate(connection.getProtocol(), connection.getIrcd(), connection.getNetwork(),
                 connection.getAddress(), channelInfo.getName());
     }
@@ -152,7 +162,7 @@ public class Channel extends FrameContainer implements GroupChat {
                 .filter(part -> !part.isEmpty())
                 .forEach(part -> {
                     getEventBus().publishAsync(new ChannelSelfMessageEvent(this, me, part));
-                    channelInfo.sendMessage(part);
+                    connection.sendMessage(channelInfo.getName(), part);
                 });
     }
 
@@ -178,7 +188,7 @@ public class Channel extends FrameContainer implements GroupChat {
         } else {
             final GroupChatUser me = getUser(connection.getLocalUser().get()).get();
             getEventBus().publishAsync(new ChannelSelfActionEvent(this, me, action));
-            channelInfo.sendAction(action);
+            connection.sendAction(channelInfo.getName(), action);
         }
     }
 
@@ -191,7 +201,7 @@ public class Channel extends FrameContainer implements GroupChat {
      */
     public void setChannelInfo(final ChannelInfo newChannelInfo) {
         channelInfo = newChannelInfo;
-        registerCallbacks();
+        migrateConfig();
     }
 
     /**
@@ -223,19 +233,22 @@ public class Channel extends FrameContainer implements GroupChat {
 
     @Override
     public void join() {
-        connection.getParser().get().joinChannel(channelInfo.getName());
+        connection.sendCommand("JOIN " + channelInfo.getName(),
+                p -> p.joinChannel(channelInfo.getName()));
     }
 
     @Override
     public void part(final String reason) {
-        channelInfo.part(reason);
+        connection.sendCommand("PART " + channelInfo.getName() + " :" + reason,
+                p -> channelInfo.part(reason));
 
         resetWindow(PartReason.LOCAL_PART);
     }
 
     @Override
     public void retrieveListModes() {
-        channelInfo.requestListModes();
+        connection.sendCommand("MODE " + channelInfo.getName(),
+                p -> channelInfo.requestListModes());
     }
 
     /**
@@ -253,18 +266,13 @@ public class Channel extends FrameContainer implements GroupChat {
         // is disconnected (which happens synchronously after this method returns).
         getEventBus().publish(
                 new NickListClientsChangedEvent(this, Collections.emptyList()));
+        groupChatUserManager.removeGroupChat(this);
     }
 
     @Override
     public void close() {
         super.close();
 
-        // Remove any callbacks or listeners
-        eventHandler.unregisterCallbacks();
-
-        connection.getParser().map(Parser::getCallbackManager)
-                .ifPresent(cm -> cm.unsubscribe(eventHandler));
-
         // Trigger any actions neccessary
         if (isOnChannel && connection.getState() != ServerState.CLOSING) {
             part(getConfigManager().getOption("general", "partmessage"));
@@ -272,6 +280,7 @@ public class Channel extends FrameContainer implements GroupChat {
 
         // Trigger action for the window closing
         getEventBus().publish(new ChannelClosedEvent(this));
+        groupChatUserManager.removeGroupChat(this);
     }
 
     /**
@@ -374,7 +383,8 @@ public class Channel extends FrameContainer implements GroupChat {
     // ------------------------------------------ PARSER METHOD DELEGATION -----
     @Override
     public void setTopic(final String topic) {
-        channelInfo.setTopic(topic);
+        connection.sendCommand("TOPIC " + channelInfo.getName() + " :" + topic,
+                p -> channelInfo.setTopic(topic));
     }
 
     @Override
@@ -410,8 +420,10 @@ public class Channel extends FrameContainer implements GroupChat {
 
     @Override
     public void kick(final GroupChatUser user, final Optional<String> reason) {
-        ((ChannelClient) user).getClientInfo().kick(
-                reason.orElse(getConfigManager().getOption("general", "kickmessage")));
+        final String message =
+                reason.orElse(getConfigManager().getOption("general", "kickmessage"));
+        connection.sendCommand("KICK " + channelInfo.getName() + ' ' + user.getNickname()
+                + " :" + message, p -> ((ChannelClient) user).getClientInfo().kick(message));
     }
 
     @Override
@@ -431,7 +443,7 @@ public class Channel extends FrameContainer implements GroupChat {
 
     @Override
     public void flushModes() {
-        channelInfo.flushModes();
+        connection.sendCommand("MODE " + channelInfo.getName(), p -> channelInfo.flushModes());
     }
 
     @Override
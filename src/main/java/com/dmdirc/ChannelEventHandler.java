@@ -64,12 +64,11 @@ import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
 
-import net.engio.mbassy.listener.Handler;
-
 /**
- * Handles events for channel objects.
+ * Handles events for channel objects. Events are routed to the handler for the relevant channel by
+ * the connection's {@link ParserEventRouter}.
  */
-public class ChannelEventHandler extends EventHandler {
+public class ChannelEventHandler {
 
     /** The channel that owns this event handler. */
     private final Channel owner;
@@ -85,8 +84,7 @@ public class ChannelEventHandler extends EventHandler {
     }
 
     @Nonnull
-    @Override
-    protected Connection getConnection() {
+    private Connection getConnection() {
         return owner.getConnection().get();
     }
 
@@ -97,41 +95,26 @@ public class ChannelEventHandler extends EventHandler {
      *
      * @return True if the client is ourself, false otherwise.
      */
-    protected boolean isMyself(final ChannelClientInfo client) {
+    private boolean isMyself(final ChannelClientInfo client) {
         return getConnection().getParser().map(Parser::getLocalClient)
                 .map(c -> client.getClient().equals(c)).orElse(false);
     }
 
-    @Handler
     public void onChannelMessage(final com.dmdirc.parser.events.ChannelMessageEvent event) {
-        if (!checkChannel(event.getChannel())) {
-            return;
-        }
-
         eventBus.publishAsync(new ChannelMessageEvent(
                 event.getDate(),
                 owner, groupChatUserManager.getUserFromClient(event.getClient(), owner),
                 event.getMessage()));
     }
 
-    @Handler
     public void onChannelGotNames(final ChannelNamesEvent event) {
-        if (!checkChannel(event.getChannel())) {
-            return;
-        }
-
         owner.setClients(event.getChannel().getChannelClients().stream()
                 .map(client -> groupChatUserManager.getUserFromClient(client, owner))
                 .collect(Collectors.toList()));
         eventBus.publishAsync(new ChannelGotNamesEvent(event.getDate(), owner));
     }
 
-    @Handler
     public void onChannelTopic(final ChannelTopicEvent event) {
-        if (!checkChannel(event.getChannel())) {
-            return;
-        }
-
         final ChannelInfo channel = event.getChannel();
         final LocalDateTime date = event.getDate();
 
@@ -172,24 +155,14 @@ public class ChannelEventHandler extends EventHandler {
         }
     }
 
-    @Handler
     public void onChannelJoin(final com.dmdirc.parser.events.ChannelJoinEvent event) {
-        if (!checkChannel(event.getChannel())) {
-            return;
-        }
-
         eventBus.publishAsync(new ChannelJoinEvent(
                 event.getDate(), owner,
                 groupChatUserManager.getUserFromClient(event.getClient(), owner)));
         owner.addClient(groupChatUserManager.getUserFromClient(event.getClient(), owner));
     }
 
-    @Handler
     public void onChannelPart(final com.dmdirc.parser.events.ChannelPartEvent event) {
-        if (!checkChannel(event.getChannel())) {
-            return;
-        }
-
         final ChannelClientInfo client = event.getClient();
         final LocalDateTime date = event.getDate();
         final String reason = event.getReason();
@@ -202,13 +175,10 @@ public class ChannelEventHandler extends EventHandler {
                     groupChatUserManager.getUserFromClient(client, owner), reason));
         }
         owner.removeClient(groupChatUserManager.getUserFromClient(client, owner));
+        groupChatUserManager.removeUser(client, owner);
     }
 
-    @Handler
     public void onChannelKick(final com.dmdirc.parser.events.ChannelKickEvent event) {
-        if (!checkChannel(event.getChannel())) {
-            return;
-        }
         final ChannelClientInfo kickedClient = event.getKickedClient();
 
         eventBus.publishAsync(new ChannelKickEvent(
@@ -216,39 +186,26 @@ public class ChannelEventHandler extends EventHandler {
                 groupChatUserManager.getUserFromClient(event.getClient(), owner),
                 groupChatUserManager.getUserFromClient(kickedClient, owner), event.getReason()));
         owner.removeClient(groupChatUserManager.getUserFromClient(kickedClient, owner));
+        groupChatUserManager.removeUser(kickedClient, owner);
     }
 
-    @Handler
     public void onChannelQuit(final com.dmdirc.parser.events.ChannelQuitEvent event) {
-        if (!checkChannel(event.getChannel())) {
-            return;
-        }
-
         eventBus.publishAsync(new ChannelQuitEvent(
                 event.getDate(), owner,
                 groupChatUserManager.getUserFromClient(event.getClient(), owner),
                 event.getReason()));
         owner.removeClient(groupChatUserManager.getUserFromClient(event.getClient(), owner));
+        groupChatUserManager.removeUser(event.getClient(), owner);
     }
 
-    @Handler
     public void onChannelAction(final com.dmdirc.parser.events.ChannelActionEvent event) {
-        if (!checkChannel(event.getChannel())) {
-            return;
-        }
-
         eventBus.publishAsync(new ChannelActionEvent(
                 event.getDate(), owner,
                 groupChatUserManager.getUserFromClient(event.getClient(), owner),
                 event.getMessage()));
     }
 
-    @Handler
     public void onChannelNickChanged(final com.dmdirc.parser.events.ChannelNickChangeEvent event) {
-        if (!checkChannel(event.getChannel())) {
-            return;
-        }
-
         final String oldNick = event.getOldNick();
         final ChannelClientInfo client = event.getClient();
 
@@ -267,12 +224,7 @@ public class ChannelEventHandler extends EventHandler {
         }
     }
 
-    @Handler
     public void onChannelUserModeChanged(final com.dmdirc.parser.events.ChannelUserModeChangeEvent event) {
-        if (!checkChannel(event.getChannel())) {
-            return;
-        }
-
         final GroupChatUser client = groupChatUserManager.getUserFromClient(event.getClient(), owner);
         final GroupChatUser targetClient = groupChatUserManager.getUserFromClient(event.getTargetClient(), owner);
         final LocalDateTime date = event.getDate();
@@ -280,12 +232,7 @@ public class ChannelEventHandler extends EventHandler {
         eventBus.publishAsync(new ChannelUserModeChangeEvent(date, owner, client, targetClient, event.getMode()));
     }
 
-    @Handler
     public void onChannelModeChanged(final com.dmdirc.parser.events.ChannelModeChangeEvent event) {
-        if (!checkChannel(event.getChannel())) {
-            return;
-        }
-
         final String host = event.getHost();
         final String modes = event.getModes();
         final ChannelClientInfo client = event.getClient();
@@ -309,12 +256,7 @@ public class ChannelEventHandler extends EventHandler {
         owner.refreshClients();
     }
 
-    @Handler
     public void onChannelCTCP(final ChannelCTCPEvent event) {
-        if (!checkChannel(event.getChannel())) {
-            return;
-        }
-
         final ChannelClientInfo client = event.getClient();
         final String message = event.getMessage();
         final LocalDateTime date = event.getDate();
@@ -328,7 +270,6 @@ public class ChannelEventHandler extends EventHandler {
         }
     }
 
-    @Handler
     public void onAwayStateOther(final OtherAwayStateEvent event) {
         owner.getUser(owner.getConnection().get().getUser(event.getClient().getNickname()))
                 .ifPresent(c -> {
@@ -342,42 +283,23 @@ public class ChannelEventHandler extends EventHandler {
                 });
     }
 
-    @Handler
     public void onChannelNotice(final com.dmdirc.parser.events.ChannelNoticeEvent event) {
-        if (!checkChannel(event.getChannel())) {
-            return;
-        }
-
         eventBus.publishAsync(new ChannelNoticeEvent(
                 event.getDate(), owner,
                 groupChatUserManager.getUserFromClient(event.getClient(), owner),
                 event.getMessage()));
     }
 
-    @Handler
     public void onChannelModeNotice(final com.dmdirc.parser.events.ChannelModeNoticeEvent event) {
-        if (!checkChannel(event.getChannel())) {
-            return;
-        }
-
         eventBus.publishAsync(new ChannelModeNoticeEvent(
                 event.getDate(), owner,
                 groupChatUserManager.getUserFromClient(event.getClient(), owner), String.valueOf
                 (event.getPrefix()), event.getMessage()));
     }
 
-    @Handler
     public void onChannelGotListModes(final ChannelListModeEvent event) {
-        if (!checkChannel(event.getChannel())) {
-            return;
-        }
-
         eventBus.publishAsync(new ChannelListModesRetrievedEvent(
                 event.getDate(), owner, event.getMode()));
     }
 
-    private boolean checkChannel(final ChannelInfo channelInfo) {
-        return owner.getChannelInfo().equals(channelInfo);
-    }
-
 }
@@ -28,6 +28,7 @@ import com.dmdirc.parser.interfaces.ChannelInfo;
 import com.dmdirc.ui.WindowManager;
 import com.dmdirc.ui.input.TabCompleterFactory;
 import com.dmdirc.ui.messages.BackBufferFactory;
+import com.dmdirc.util.TimerService;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -42,6 +43,7 @@ public class ChannelFactory {
     private final CommandController commandController;
     private final EventBus eventBus;
     private final BackBufferFactory backBufferFactory;
+    private final TimerService timerService;
     private final GroupChatUserManager groupChatUserManager;
     private final WindowManager windowManager;
 
@@ -49,11 +51,13 @@ public class ChannelFactory {
     public ChannelFactory(final TabCompleterFactory tabCompleterFactory,
             final CommandController commandController,
             final EventBus eventBus, final BackBufferFactory backBufferFactory,
+            final TimerService timerService,
             final GroupChatUserManager groupChatUserManager, final WindowManager windowManager) {
         this.tabCompleterFactory = tabCompleterFactory;
         this.commandController = commandController;
         this.eventBus = eventBus;
         this.backBufferFactory = backBufferFactory;
+        this.timerService = timerService;
         this.groupChatUserManager = groupChatUserManager;
         this.windowManager = windowManager;
     }
@@ -62,7 +66,7 @@ public class ChannelFactory {
             final ChannelInfo channelInfo,
             final ConfigProviderMigrator configMigrator) {
         final Channel channel = new Channel(connection, channelInfo, configMigrator,
-                backBufferFactory, groupChatUserManager);
+                backBufferFactory, timerService, groupChatUserManager);
         channel.setInputModel(new DefaultInputModel(
                 channel::sendLine,
                 new ChannelCommandParser(
@@ -75,7 +79,8 @@ public class ChannelFactory {
                         configMigrator.getConfigProvider(),
                         CommandType.TYPE_CHANNEL,
                         CommandType.TYPE_CHAT),
-                channel::getMaxLineLength));
+                channel::getMaxLineLength,
+                DefaultInputModel.getConfiguredCharset(channel.getConfigManager())));
         windowManager.addWindow(connection.getWindowModel(), channel);
         connection.getWindowModel().getEventBus().publish(new ChannelOpenedEvent(channel));
         channel.selfJoin();
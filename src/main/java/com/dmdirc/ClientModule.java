@@ -28,10 +28,12 @@ import com.dmdirc.commandparser.commands.CommandModule;
 import com.dmdirc.config.ConfigModule;
 import com.dmdirc.config.GlobalConfig;
 import com.dmdirc.config.profiles.ProfilesModule;
+import com.dmdirc.events.SourcedEvent;
 import com.dmdirc.events.eventbus.MBassadorEventBus;
 import com.dmdirc.interfaces.CommandController;
 import com.dmdirc.interfaces.ConnectionFactory;
 import com.dmdirc.interfaces.ConnectionManager;
+import com.dmdirc.interfaces.WindowModel;
 import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.util.system.LifecycleController;
 import com.dmdirc.config.provider.AggregateConfigProvider;
@@ -42,12 +44,17 @@ import com.dmdirc.ui.messages.ColourManagerFactory;
 import com.dmdirc.ui.messages.UiMessagesModule;
 import com.dmdirc.ui.themes.ThemeManager;
 import com.dmdirc.updater.UpdaterModule;
+import com.dmdirc.util.FileWatcher;
 import com.dmdirc.util.LoggingExecutorService;
 import com.dmdirc.util.io.Downloader;
 import com.dmdirc.util.system.SystemInfo;
+import com.dmdirc.util.system.SystemLifecycleComponent;
 import dagger.Module;
 import dagger.ObjectGraph;
 import dagger.Provides;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -96,7 +103,10 @@ public class ClientModule {
     @Provides
     @Singleton
     public EventBus getMBassador() {
-        return new MBassadorEventBus();
+        return new MBassadorEventBus(event -> event instanceof SourcedEvent
+                ? Optional.ofNullable(((SourcedEvent) event).getSource())
+                        .map(WindowModel::getId).orElse(null)
+                : null);
     }
 
     @Provides
@@ -125,12 +135,21 @@ public class ClientModule {
     public ThemeManager getThemeManager(
             final EventBus eventBus,
             final IdentityController controller,
-            @Directory(DirectoryType.THEMES) final String directory) {
+            @Directory(DirectoryType.THEMES) final String directory,
+            final FileWatcher fileWatcher) {
         final ThemeManager manager = new ThemeManager(controller, directory);
         manager.refreshAndLoadThemes();
+        fileWatcher.watchDirectory(Paths.get(directory), false, p -> !Files.isDirectory(p),
+                manager::themeFileChanged);
         return manager;
     }
 
+    @Provides(type = Provides.Type.SET)
+    public SystemLifecycleComponent getFileWatcherLifecycleComponent(
+            final FileWatcher fileWatcher) {
+        return fileWatcher;
+    }
+
     @Provides
     @Singleton
     @GlobalConfig
@@ -23,6 +23,7 @@ import com.dmdirc.interfaces.WindowModel;
 import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.ui.core.components.WindowComponent;
 import com.dmdirc.ui.messages.BackBufferFactory;
+import com.dmdirc.util.TimerService;
 
 import java.util.Collections;
 import java.util.Optional;
@@ -41,8 +42,9 @@ public class CustomWindow extends FrameContainer {
             final String name,
             final String title,
             final WindowModel parent,
-            final BackBufferFactory backBufferFactory) {
-        super("custom", name, title, parent.getConfigManager(), backBufferFactory,
+            final BackBufferFactory backBufferFactory,
+            final TimerService timerService) {
+        super("custom", name, title, parent.getConfigManager(), backBufferFactory, timerService,
                 parent.getEventBus(),
                 Collections.singletonList(WindowComponent.TEXTAREA.getIdentifier()));
         connection = parent.getConnection();
@@ -57,8 +59,9 @@ public class CustomWindow extends FrameContainer {
             final String title,
             final AggregateConfigProvider configProvider,
             final EventBus eventBus,
-            final BackBufferFactory backBufferFactory) {
-        super("custom", name, title, configProvider, backBufferFactory,
+            final BackBufferFactory backBufferFactory,
+            final TimerService timerService) {
+        super("custom", name, title, configProvider, backBufferFactory, timerService,
                 eventBus, Collections.singletonList(WindowComponent.TEXTAREA.getIdentifier()));
         connection = Optional.empty();
         initBackBuffer();
@@ -18,30 +18,74 @@
 package com.dmdirc;
 
 import com.dmdirc.commandparser.parsers.CommandParser;
+import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.interfaces.InputModel;
 import com.dmdirc.ui.input.TabCompleter;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.dmdirc.util.LogUtils.USER_ERROR;
+
 /**
  * Basic implementation of {@link InputModel}.
  */
 public class DefaultInputModel implements InputModel {
 
+    private static final Logger LOG = LoggerFactory.getLogger(DefaultInputModel.class);
+
     private final Consumer<String> lineConsumer;
     private final CommandParser commandParser;
     private final TabCompleter tabCompleter;
     private final Supplier<Integer> lineLengthSupplier;
+    private final Supplier<Charset> charsetSupplier;
 
     public DefaultInputModel(final Consumer<String> lineConsumer, final CommandParser commandParser,
             final TabCompleter tabCompleter, final Supplier<Integer> lineLengthSupplier) {
+        this(lineConsumer, commandParser, tabCompleter, lineLengthSupplier,
+                Charset::defaultCharset);
+    }
+
+    public DefaultInputModel(final Consumer<String> lineConsumer, final CommandParser commandParser,
+            final TabCompleter tabCompleter, final Supplier<Integer> lineLengthSupplier,
+            final Supplier<Charset> charsetSupplier) {
         this.lineConsumer = lineConsumer;
         this.commandParser = commandParser;
         this.tabCompleter = tabCompleter;
         this.lineLengthSupplier = lineLengthSupplier;
+        this.charsetSupplier = charsetSupplier;
+    }
+
+    /**
+     * Creates a supplier that returns the charset specified by the {@code general.encoding}
+     * setting of the given config, or the platform default if that setting is invalid.
+     *
+     * @param config The config to read the encoding from.
+     * @return A supplier of the configured charset.
+     */
+    public static Supplier<Charset> getConfiguredCharset(final AggregateConfigProvider config) {
+        return () -> {
+            final String encoding = config.getOption("general", "encoding");
+            try {
+                return Charset.forName(encoding);
+            } catch (IllegalCharsetNameException | UnsupportedCharsetException ex) {
+                LOG.warn(USER_ERROR, "Unsupported encoding: {}", encoding, ex);
+                return Charset.defaultCharset();
+            }
+        };
     }
 
     @Override
@@ -67,47 +111,106 @@ public class DefaultInputModel implements InputModel {
     @Override
     public List<String> splitLine(final String line) {
         final List<String> result = new ArrayList<>();
+        final int maxLength = getMaxLineLength();
+        final Charset charset = charsetSupplier.get();
 
         if (line.indexOf('\n') > -1) {
             for (String part : line.split("\n")) {
-                result.addAll(splitLine(part));
+                splitSingleLine(part, maxLength, charset, result);
             }
         } else {
-            final StringBuilder remaining = new StringBuilder(line);
+            splitSingleLine(line, maxLength, charset, result);
+        }
+
+        return result;
+    }
 
-            while (getMaxLineLength() > -1 && remaining.toString().getBytes().length
-                    > getMaxLineLength()) {
-                int number = Math.min(remaining.length(), getMaxLineLength());
+    /**
+     * Splits a line that contains no line breaks into parts that each encode to no more than the
+     * given number of bytes.
+     *
+     * <p>The line is encoded in a single pass: the encoder is given an output buffer the size of
+     * one part, and stops at the last whole character that fits, so multi-byte sequences are never
+     * split. If the part can end at whitespace without wasting more than half of the available
+     * space it is shortened to do so, to avoid splitting words.
+     *
+     * @param line      The line to be split.
+     * @param maxLength The maximum length of each part in bytes, or a negative value for no limit.
+     * @param charset   The charset the line will be sent in.
+     * @param result    The list to add parts to.
+     */
+    private static void splitSingleLine(final String line, final int maxLength,
+            final Charset charset, final List<String> result) {
+        if (maxLength <= 0) {
+            result.add(line);
+            return;
+        }
 
-                while (remaining.substring(0, number).getBytes().length > getMaxLineLength()) {
-                    number--;
-                }
+        final CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        final CharBuffer input = CharBuffer.wrap(line);
+        final ByteBuffer output = ByteBuffer.allocate(maxLength);
+
+        while (true) {
+            final int start = input.position();
+            output.clear();
+            encoder.reset();
+            final CoderResult coderResult = encoder.encode(input, output, true);
+
+            if (!coderResult.isOverflow()) {
+                result.add(line.substring(start));
+                return;
+            }
 
-                result.add(remaining.substring(0, number));
-                remaining.delete(0, number);
+            int end = input.position();
+            if (end == start) {
+                // A single character doesn't fit; send it on its own rather than looping forever.
+                end = line.offsetByCodePoints(start, 1);
+            } else {
+                final int boundary = findWordBoundary(line, start, end);
+                if (boundary - start > (end - start) / 2) {
+                    end = boundary;
+                }
             }
 
-            result.add(remaining.toString());
+            result.add(line.substring(start, end));
+            input.position(end);
         }
+    }
 
-        return result;
+    /**
+     * Finds the position just after the last whitespace character in a part of a line.
+     *
+     * @param line  The line being split.
+     * @param start The start of the part (inclusive).
+     * @param end   The end of the part (exclusive).
+     * @return The index after the last whitespace character, or {@code start} if there is none.
+     */
+    private static int findWordBoundary(final String line, final int start, final int end) {
+        for (int i = end; i > start; i--) {
+            if (Character.isWhitespace(line.charAt(i - 1))) {
+                return i;
+            }
+        }
+        return start;
     }
 
     @Override
     public final int getNumLines(final String line) {
-        final String[] splitLines = line.split("(\n|\r\n|\r)", Integer.MAX_VALUE);
-        int lines = 0;
-
-        for (String splitLine : splitLines) {
-            if (getMaxLineLength() <= 0) {
-                lines++;
-            } else {
-                lines += (int) Math.ceil(splitLine.getBytes().length
-                        / (double) getMaxLineLength());
+        final int maxLength = getMaxLineLength();
+        final Charset charset = charsetSupplier.get();
+        final List<String> parts = new ArrayList<>();
+
+        // Split the same way as splitLine, so that word boundaries are counted, but skip the
+        // empty lines that are never sent.
+        for (String splitLine : line.split("(\n|\r\n|\r)")) {
+            if (!splitLine.isEmpty()) {
+                splitSingleLine(splitLine, maxLength, charset, parts);
             }
         }
 
-        return lines;
+        return parts.size();
     }
 
 }
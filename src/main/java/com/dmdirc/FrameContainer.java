@@ -35,6 +35,8 @@ import com.dmdirc.ui.messages.BackBufferFactory;
 import com.dmdirc.ui.messages.BackBufferImpl;
 import com.dmdirc.ui.messages.UnreadStatusManager;
 import com.dmdirc.ui.messages.UnreadStatusManagerImpl;
+import com.dmdirc.util.TimerGroup;
+import com.dmdirc.util.TimerService;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -68,6 +70,8 @@ public class FrameContainer implements WindowModel {
     private final UnreadStatusManager unreadStatusManager;
     /** The back buffer factory. */
     private final BackBufferFactory backBufferFactory;
+    /** Timers owned by this container, cancelled when it closes. */
+    private final TimerGroup timers;
     /** The back buffer for this container. */
     private BackBufferImpl backBuffer;
     /** The input model for this container. */
@@ -86,6 +90,7 @@ public class FrameContainer implements WindowModel {
             final String title,
             final AggregateConfigProvider config,
             final BackBufferFactory backBufferFactory,
+            final TimerService timerService,
             final EventBus eventBus,
             final Collection<String> components) {
         this.configManager = config;
@@ -93,9 +98,10 @@ public class FrameContainer implements WindowModel {
         this.title = title;
         this.components = new HashSet<>(components);
         this.backBufferFactory = backBufferFactory;
+        this.timers = timerService.createGroup(name);
 
         this.eventBus = eventBus;
-        this.unreadStatusManager = new UnreadStatusManagerImpl(this);
+        this.unreadStatusManager = new UnreadStatusManagerImpl(this, timers);
         this.eventBus.subscribe(unreadStatusManager);
         configManager.getBinder().bind(unreadStatusManager, UnreadStatusManagerImpl.class);
 
@@ -206,6 +212,7 @@ public class FrameContainer implements WindowModel {
         configManager.getBinder().unbind(unreadStatusManager);
         eventBus.publish(new FrameClosingEvent(this));
         backBuffer.stopAddingEvents();
+        timers.cancelAll();
     }
 
     @Override
@@ -29,6 +29,7 @@ import com.dmdirc.ui.WindowManager;
 import com.dmdirc.ui.core.components.WindowComponent;
 import com.dmdirc.ui.input.TabCompleterFactory;
 import com.dmdirc.ui.messages.BackBufferFactory;
+import com.dmdirc.util.TimerService;
 
 import java.util.Arrays;
 import java.util.Optional;
@@ -49,8 +50,9 @@ public class GlobalWindow extends FrameContainer {
     @Inject
     public GlobalWindow(@GlobalConfig final AggregateConfigProvider config,
             final GlobalCommandParser parser, final TabCompleterFactory tabCompleterFactory,
-            final EventBus eventBus, final BackBufferFactory backBufferFactory) {
-        super("icon", "Global", "(Global)", config, backBufferFactory, eventBus,
+            final EventBus eventBus, final BackBufferFactory backBufferFactory,
+            final TimerService timerService) {
+        super("icon", "Global", "(Global)", config, backBufferFactory, timerService, eventBus,
                 Arrays.asList(WindowComponent.TEXTAREA.getIdentifier(),
                         WindowComponent.INPUTFIELD.getIdentifier()));
         initBackBuffer();
@@ -69,6 +69,27 @@ public class GroupChatManagerImpl implements GroupChatManager {
         return channels.get(channel).map(c -> (GroupChat) c);
     }
 
+    /**
+     * Gets the open channel that is bound to the given parser channel.
+     *
+     * @param channelInfo The parser's channel object.
+     *
+     * @return The corresponding channel, if it is open and hasn't since been re-bound.
+     */
+    Optional<Channel> getChannel(final ChannelInfo channelInfo) {
+        return channels.get(channelInfo.getName())
+                .filter(c -> channelInfo.equals(c.getChannelInfo()));
+    }
+
+    /**
+     * Gets all open channels, including those we are no longer in.
+     *
+     * @return A collection of open channels.
+     */
+    Collection<Channel> getOpenChannels() {
+        return channels.getAll();
+    }
+
     @Override
     public String getChannelPrefixes() {
         return connection.getParser().map(Parser::getChannelPrefixes).orElse("#%");
@@ -117,7 +138,14 @@ public class GroupChatManagerImpl implements GroupChatManager {
                 }
             }
 
-            p.joinChannels(pending.toArray(new ChannelJoinRequest[pending.size()]));
+            if (!pending.isEmpty()) {
+                final ChannelJoinRequest[] joins =
+                        pending.toArray(new ChannelJoinRequest[pending.size()]);
+                connection.sendCommand("JOIN " + pending.stream()
+                                .map(ChannelJoinRequest::getName)
+                                .collect(Collectors.joining(",")),
+                        q -> q.joinChannels(joins));
+            }
         });
     }
 
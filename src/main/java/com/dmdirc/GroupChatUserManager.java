@@ -22,32 +22,46 @@ import com.dmdirc.interfaces.GroupChatUser;
 import com.dmdirc.interfaces.User;
 import com.dmdirc.parser.interfaces.ChannelClientInfo;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 /**
+ * Caches the {@link GroupChatUser}s that represent each of a group chat's parser clients.
  *
+ * <p>Users are created lazily the first time they are requested, and must be evicted when their
+ * client leaves the group chat or the group chat is reset or closed.
  */
 @Singleton
 public class GroupChatUserManager {
 
     private final GroupChatUserFactory groupChatUserFactory;
     private final UserManager userManager;
-    private final Map<ChannelClientInfo, GroupChatUser> userCache;
+    /** Cached users, keyed on their group chat and then on their parser client. */
+    private final Map<GroupChat, Map<ChannelClientInfo, GroupChatUser>> userCache =
+            new ConcurrentHashMap<>();
+    /** The number of users that have been created. */
+    private final LongAdder created = new LongAdder();
+    /** The number of users that have been evicted. */
+    private final LongAdder evicted = new LongAdder();
 
     @Inject
     public GroupChatUserManager(final GroupChatUserFactory groupChatUserFactory,
             final UserManager userManager) {
         this.groupChatUserFactory = groupChatUserFactory;
         this.userManager = userManager;
-        userCache = new HashMap<>();
     }
 
     public GroupChatUser getUserFromClient(final ChannelClientInfo client,
             final GroupChat groupChat) {
+        final GroupChatUser user = getCachedUser(client, groupChat);
+        if (user != null) {
+            return user;
+        }
+
         return getUserFromClient(client,
                 userManager.getUserFromClientInfo(client.getClient(),
                         groupChat.getConnection().get()), groupChat);
@@ -55,7 +69,75 @@ public class GroupChatUserManager {
 
     public GroupChatUser getUserFromClient(final ChannelClientInfo client,
             final User user, final GroupChat groupChat) {
-        userCache.putIfAbsent(client, groupChatUserFactory.getGroupChatUser(user, groupChat, client));
-        return userCache.get(client);
+        final GroupChatUser cached = getCachedUser(client, groupChat);
+        if (cached != null) {
+            return cached;
+        }
+
+        return userCache.computeIfAbsent(groupChat, g -> new ConcurrentHashMap<>())
+                .computeIfAbsent(client, c -> {
+                    created.increment();
+                    return groupChatUserFactory.getGroupChatUser(user, groupChat, c);
+                });
+    }
+
+    /**
+     * Evicts the user for the given client, for example because it has parted or been kicked.
+     *
+     * @param client    The client to evict.
+     * @param groupChat The group chat the client belongs to.
+     */
+    public void removeUser(final ChannelClientInfo client, final GroupChat groupChat) {
+        final Map<ChannelClientInfo, GroupChatUser> users = userCache.get(groupChat);
+        if (users != null && users.remove(client) != null) {
+            evicted.increment();
+        }
+    }
+
+    /**
+     * Evicts all users belonging to the given group chat, for example because we have left it or
+     * it has been closed.
+     *
+     * @param groupChat The group chat whose users should be evicted.
+     */
+    public void removeGroupChat(final GroupChat groupChat) {
+        final Map<ChannelClientInfo, GroupChatUser> users = userCache.remove(groupChat);
+        if (users != null) {
+            evicted.add(users.size());
+        }
+    }
+
+    /**
+     * Gets the number of users currently cached across all group chats.
+     *
+     * @return The number of cached users.
+     */
+    public int getCacheSize() {
+        return userCache.values().stream().mapToInt(Map::size).sum();
     }
+
+    /**
+     * Gets the total number of users that have been created by this manager.
+     *
+     * @return The number of users created.
+     */
+    public long getCreatedCount() {
+        return created.sum();
+    }
+
+    /**
+     * Gets the total number of users that have been evicted from this manager.
+     *
+     * @return The number of users evicted.
+     */
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    private GroupChatUser getCachedUser(final ChannelClientInfo client,
+            final GroupChat groupChat) {
+        final Map<ChannelClientInfo, GroupChatUser> users = userCache.get(groupChat);
+        return users == null ? null : users.get(client);
+    }
+
 }
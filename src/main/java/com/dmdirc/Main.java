@@ -28,6 +28,7 @@ import com.dmdirc.interfaces.ConnectionManager;
 import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.util.system.Migrator;
 import com.dmdirc.util.system.SystemLifecycleComponent;
+import com.dmdirc.util.system.SystemLifecycleGraph;
 import com.dmdirc.interfaces.config.IdentityController;
 import com.dmdirc.interfaces.ui.UIController;
 import com.dmdirc.logger.DMDircExceptionHandler;
@@ -40,6 +41,7 @@ import com.dmdirc.plugins.Service;
 import com.dmdirc.plugins.ServiceManager;
 import com.dmdirc.plugins.ServiceProvider;
 import com.dmdirc.ui.WarningDialog;
+import com.dmdirc.util.StartupTracer;
 
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.joran.JoranConfigurator;
@@ -52,6 +54,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
@@ -67,6 +70,9 @@ import dagger.ObjectGraph;
  */
 public class Main {
 
+    /** Category used for the main phases of startup. */
+    private static final String PHASE = "phase";
+
     /** The UI to use for the client. */
     private final Collection<UIController> CONTROLLERS = new HashSet<>();
     /** The identity manager the client will use. */
@@ -95,6 +101,8 @@ public class Main {
     private final ModeAliasReporter reporter;
     private final ServiceManager serviceManager;
     private final ProgramErrorManager errorManager;
+    /** The tracer to record startup times with. */
+    private final StartupTracer startupTracer;
 
     static {
         // TODO: Can this go in a Dagger module?
@@ -123,7 +131,8 @@ public class Main {
             final Set<CommandDetails> commands,
             final ModeAliasReporter reporter,
             final ServiceManager serviceManager,
-            final ProgramErrorManager errorManager) {
+            final ProgramErrorManager errorManager,
+            final StartupTracer startupTracer) {
         this.identityManager = identityManager;
         this.connectionManager = connectionManager;
         this.commandLineParser = commandLineParser;
@@ -138,6 +147,7 @@ public class Main {
         this.reporter = reporter;
         this.serviceManager = serviceManager;
         this.errorManager = errorManager;
+        this.startupTracer = startupTracer;
     }
 
     /**
@@ -178,23 +188,50 @@ public class Main {
     public void init() {
         Thread.setDefaultUncaughtExceptionHandler(new DMDircExceptionHandler());
         setupLogback();
-        migrators.stream().filter(Migrator::needsMigration).forEach(Migrator::migrate);
-        commands.forEach(c -> commandManager.registerCommand(c.getCommand(), c.getInfo()));
+        startupTracer.trace(PHASE, "Migrators", () -> migrators.stream()
+                .filter(Migrator::needsMigration)
+                .forEach(m -> startupTracer.trace("migrator", m.getClass().getSimpleName(),
+                        m::migrate)));
+        startupTracer.trace(PHASE, "Command registration", () -> commands.forEach(
+                c -> commandManager.registerCommand(c.getCommand(), c.getInfo())));
 
-        loadUIs(serviceManager);
+        startupTracer.trace(PHASE, "UI loading", () -> loadUIs(serviceManager));
 
-        doFirstRun();
+        startupTracer.trace(PHASE, "First run", this::doFirstRun);
 
-        lifecycleComponents.forEach(SystemLifecycleComponent::startUp);
+        startupTracer.trace(PHASE, "Lifecycle start up", this::startLifecycleComponents);
 
-        pluginManager.doAutoLoad();
+        startupTracer.trace(PHASE, "Plugin auto-load", pluginManager::doAutoLoad);
 
         eventBus.publishAsync(new ClientOpenedEvent());
         eventBus.subscribe(reporter);
 
-        commandLineParser.processArguments(connectionManager);
+        startupTracer.trace(PHASE, "Command line processing",
+                () -> commandLineParser.processArguments(connectionManager));
+
+        startupTracer.trace(PHASE, "Global window", globalWindowManager::init);
+
+        startupTracer.finish();
+    }
 
-        globalWindowManager.init();
+    /**
+     * Starts all lifecycle components, running those that do not depend on each other
+     * concurrently.
+     */
+    private void startLifecycleComponents() {
+        final SystemLifecycleGraph graph = new SystemLifecycleGraph(lifecycleComponents);
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(lifecycleComponents.size(),
+                        Runtime.getRuntime().availableProcessors())),
+                new ThreadFactoryBuilder().setNameFormat("lifecycle-startup-%d")
+                        .setDaemon(true).build());
+        final StartupTracer.Span phase = startupTracer.current();
+        try {
+            graph.startUp(executor, c -> startupTracer.trace(phase, "component",
+                    c.getClass().getSimpleName(), c::startUp));
+        } finally {
+            executor.shutdown();
+        }
     }
 
     /**
@@ -240,7 +277,8 @@ public class Main {
         final List<Service> uis = pm.getServicesByType("ui");
 
         // First try: go for our desired service type
-        uis.stream().filter(Service::activate).forEach(service -> {
+        uis.stream().filter(service -> startupTracer.trace("plugin", service.getName(),
+                service::activate)).forEach(service -> {
             final ServiceProvider provider = service.getActiveProvider();
 
             final Object export = provider.getExportedService("getController").execute();
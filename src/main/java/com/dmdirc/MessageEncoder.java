@@ -17,14 +17,33 @@
 
 package com.dmdirc;
 
+import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.config.provider.ConfigChangeListener;
+import com.dmdirc.events.ChannelClosedEvent;
+import com.dmdirc.events.ChannelEvent;
+import com.dmdirc.events.ChannelOpenedEvent;
+import com.dmdirc.events.ChannelSelfPartEvent;
 import com.dmdirc.interfaces.Connection;
 import com.dmdirc.interfaces.GroupChat;
 import com.dmdirc.interfaces.WindowModel;
 import com.dmdirc.parser.interfaces.Encoder;
-import com.dmdirc.parser.interfaces.Parser;
 import com.dmdirc.util.LogUtils;
 
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import javax.annotation.Nullable;
+
+import net.engio.mbassy.listener.Handler;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,46 +51,305 @@ import org.slf4j.LoggerFactory;
 /**
  * An {@link Encoder} implementation that reads the desired encoding from the relevant target's
  * config file.
+ *
+ * <p>The charsets for each config are resolved once and cached until the config's encoding
+ * settings change, and the config used for each target is remembered until a channel is opened,
+ * parted or closed, so decoding a line does not require any config or channel lookups. The
+ * encoder must be subscribed to the connection's event bus to see channel changes. When the
+ * configured encoding is UTF-8, lines that are not valid UTF-8 are decoded using the configured
+ * fallback encoding instead.
  */
 public class MessageEncoder implements Encoder {
 
     private static final Logger LOG = LoggerFactory.getLogger(MessageEncoder.class);
+    /** The domain of the encoding settings. */
+    private static final String DOMAIN = "general";
     /** The connection that owns this encoder. */
     private final Connection connection;
-    /** The parser that this encoder will work for. */
-    private final Parser parser;
+    /** The resolved decoding settings for each config we've seen. Guarded by itself. */
+    private final Map<AggregateConfigProvider, Decoding> decodings = new WeakHashMap<>();
+    /** The resolved decoding settings for each target we've seen. Guarded by {@link #decodings}. */
+    private final Map<String, Decoding> targetDecodings = new HashMap<>();
+    /** The configs we have registered our listener with. Guarded by itself. */
+    private final Set<AggregateConfigProvider> listenedConfigs =
+            Collections.newSetFromMap(new WeakHashMap<>());
+    /** Listener that discards resolved settings when an encoding setting changes. */
+    private final ConfigChangeListener configListener = this::configChanged;
+    /** Incremented whenever resolved settings are discarded. Guarded by {@link #decodings}. */
+    private int generation;
 
     /**
      * Creates a new instance of {@link MessageEncoder}.
      *
      * @param connection   The connection that owns this encoder
-     * @param parser   The parser that this encoder will work for
      */
-    public MessageEncoder(final Connection connection, final Parser parser) {
+    public MessageEncoder(final Connection connection) {
         this.connection = connection;
-        this.parser = parser;
     }
 
     @Override
     public String encode(final String source, final String target,
             final byte[] message, final int offset, final int length) {
-        String encoding = connection.getWindowModel().getConfigManager()
-                .getOption("general", "encoding");
+        return getTargetDecoding(target).decode(message, offset, length);
+    }
+
+    /**
+     * Gets the cached decoding settings for the given target, resolving them if necessary.
+     *
+     * @param target The target of the message, if any.
+     * @return The decoding settings for the target.
+     */
+    private Decoding getTargetDecoding(@Nullable final String target) {
+        if (target == null) {
+            return getDecoding(getConfig(null));
+        }
+
+        final int expectedGeneration;
+        synchronized (decodings) {
+            final Decoding decoding = targetDecodings.get(target);
+            if (decoding != null) {
+                return decoding;
+            }
+            expectedGeneration = generation;
+        }
+
+        final Decoding decoding = getDecoding(getConfig(target));
+        synchronized (decodings) {
+            if (generation == expectedGeneration) {
+                targetDecodings.put(target, decoding);
+            }
+        }
+        return decoding;
+    }
+
+    /**
+     * Gets the config that should be used to determine the encoding for the given target.
+     *
+     * @param target The target of the message, if any.
+     * @return The channel's config if the target is an open channel, otherwise the server's.
+     */
+    private AggregateConfigProvider getConfig(@Nullable final String target) {
+        final AggregateConfigProvider serverConfig =
+                connection.getWindowModel().getConfigManager();
+
+        if (target == null) {
+            return serverConfig;
+        }
+
+        return connection.getParser()
+                .filter(p -> p.isValidChannelName(target))
+                .flatMap(p -> connection.getGroupChatManager().getChannel(target))
+                .map(GroupChat::getWindowModel)
+                .map(WindowModel::getConfigManager)
+                .orElse(serverConfig);
+    }
+
+    /**
+     * Gets the cached decoding settings for the given config, resolving them if necessary.
+     *
+     * @param config The config to read settings from.
+     * @return The decoding settings for the config.
+     */
+    private Decoding getDecoding(final AggregateConfigProvider config) {
+        final int expectedGeneration;
+        synchronized (decodings) {
+            final Decoding decoding = decodings.get(config);
+            if (decoding != null) {
+                return decoding;
+            }
+            expectedGeneration = generation;
+        }
+
+        // The config is never called while holding one of our locks, as its listeners may be
+        // fired on other threads that then call back into us.
+        final boolean added;
+        synchronized (listenedConfigs) {
+            added = listenedConfigs.add(config);
+        }
+        if (added) {
+            config.addChangeListener(DOMAIN, configListener);
+        }
+
+        final Decoding decoding = createDecoding(config);
+        synchronized (decodings) {
+            // If the settings changed while we were reading them, don't cache what we read.
+            if (generation == expectedGeneration) {
+                decodings.put(config, decoding);
+            }
+        }
+        return decoding;
+    }
+
+    /**
+     * Called when a setting in one of our configs changes.
+     *
+     * @param domain The domain of the setting that changed.
+     * @param key    The key of the setting that changed.
+     */
+    private void configChanged(final String domain, final String key) {
+        if ("encoding".equals(key) || "fallbackencoding".equals(key)) {
+            synchronized (decodings) {
+                generation++;
+                decodings.clear();
+                targetDecodings.clear();
+            }
+        }
+    }
+
+    @Handler
+    void handleChannelOpened(final ChannelOpenedEvent event) {
+        channelChanged(event);
+    }
+
+    @Handler
+    void handleChannelSelfPart(final ChannelSelfPartEvent event) {
+        channelChanged(event);
+    }
+
+    @Handler
+    void handleChannelClosed(final ChannelClosedEvent event) {
+        channelChanged(event);
+    }
 
-        if (target != null && parser.isValidChannelName(target)) {
-            encoding = connection.getGroupChatManager().getChannel(target)
-                    .map(GroupChat::getWindowModel)
-                    .map(WindowModel::getConfigManager)
-                    .map(cm -> cm.getOption("general", "encoding"))
-                    .orElse(encoding);
+    /**
+     * Called when one of our channels is opened, parted or closed, which may change the config
+     * used for messages to it.
+     *
+     * @param event The event describing the change.
+     */
+    private void channelChanged(final ChannelEvent event) {
+        if (connection.equals(event.getChannel().getConnection().orElse(null))) {
+            // Channel names may differ in case from message targets, and channels change rarely,
+            // so just forget every target.
+            synchronized (decodings) {
+                generation++;
+                targetDecodings.clear();
+            }
+        }
+    }
+
+    /**
+     * Stops listening for changes to any config, and discards all resolved settings. This should
+     * be called when the connection is closed.
+     */
+    public void close() {
+        final List<AggregateConfigProvider> configs;
+        synchronized (listenedConfigs) {
+            configs = new ArrayList<>(listenedConfigs);
+            listenedConfigs.clear();
         }
+        configs.forEach(c -> c.removeListener(configListener));
 
+        synchronized (decodings) {
+            generation++;
+            decodings.clear();
+            targetDecodings.clear();
+        }
+    }
+
+    /**
+     * Creates decoding settings from the given config.
+     *
+     * @param config The config to read settings from.
+     * @return New decoding settings.
+     */
+    private static Decoding createDecoding(final AggregateConfigProvider config) {
+        final Charset charset = getCharset(config.getOption(DOMAIN, "encoding"));
+        final String fallback = config.getOptionString(DOMAIN, "fallbackencoding");
+        if (StandardCharsets.UTF_8.equals(charset) && fallback != null && !fallback.isEmpty()) {
+            return new Decoding(charset, getCharset(fallback));
+        }
+        return new Decoding(charset, null);
+    }
+
+    /**
+     * Looks up the charset with the given name.
+     *
+     * @param name The name of the charset.
+     * @return The named charset, or the platform default if it is not supported.
+     */
+    private static Charset getCharset(final String name) {
         try {
-            return new String(message, offset, length, encoding);
-        } catch (UnsupportedEncodingException ex) {
-            LOG.warn(LogUtils.USER_ERROR, "Unsupported encoding: {}", encoding, ex);
-            return new String(message, offset, length);
+            return Charset.forName(name);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException ex) {
+            LOG.warn(LogUtils.USER_ERROR, "Unsupported encoding: {}", name, ex);
+            return Charset.defaultCharset();
         }
     }
 
+    /**
+     * Determines whether the given bytes are a well-formed UTF-8 sequence. Overlong encodings,
+     * surrogates and code points above U+10FFFF are rejected.
+     *
+     * @param bytes  The bytes to be checked.
+     * @param offset The offset of the first byte to check.
+     * @param length The number of bytes to check.
+     * @return True if the bytes are valid UTF-8, false otherwise.
+     */
+    static boolean isValidUtf8(final byte[] bytes, final int offset, final int length) {
+        final int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            final int lead = bytes[i] & 0xFF;
+            if (lead < 0x80) {
+                i++;
+                continue;
+            }
+
+            final int continuations;
+            if (lead >= 0xC2 && lead <= 0xDF) {
+                continuations = 1;
+            } else if (lead >= 0xE0 && lead <= 0xEF) {
+                continuations = 2;
+            } else if (lead >= 0xF0 && lead <= 0xF4) {
+                continuations = 3;
+            } else {
+                return false;
+            }
+
+            if (end - i <= continuations) {
+                return false;
+            }
+
+            final int second = bytes[i + 1] & 0xFF;
+            if (lead == 0xE0 && second < 0xA0
+                    || lead == 0xED && second > 0x9F
+                    || lead == 0xF0 && second < 0x90
+                    || lead == 0xF4 && second > 0x8F) {
+                return false;
+            }
+
+            for (int j = 1; j <= continuations; j++) {
+                if ((bytes[i + j] & 0xC0) != 0x80) {
+                    return false;
+                }
+            }
+
+            i += continuations + 1;
+        }
+        return true;
+    }
+
+    /** Resolved decoding settings for a config. */
+    private static class Decoding {
+
+        /** The charset to decode with. */
+        private final Charset charset;
+        /** The charset to use if the line is not valid UTF-8, if any. */
+        @Nullable private final Charset fallback;
+
+        Decoding(final Charset charset, @Nullable final Charset fallback) {
+            this.charset = charset;
+            this.fallback = fallback;
+        }
+
+        String decode(final byte[] message, final int offset, final int length) {
+            if (fallback != null && !isValidUtf8(message, offset, length)) {
+                return new String(message, offset, length, fallback);
+            }
+            return new String(message, offset, length, charset);
+        }
+
+    }
+
 }
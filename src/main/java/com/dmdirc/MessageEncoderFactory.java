@@ -18,7 +18,6 @@
 package com.dmdirc;
 
 import com.dmdirc.interfaces.Connection;
-import com.dmdirc.parser.interfaces.Parser;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -33,8 +32,8 @@ public class MessageEncoderFactory {
     public MessageEncoderFactory() {
     }
 
-    public MessageEncoder getMessageEncoder(final Connection connection, final Parser parser) {
-        return new MessageEncoder(connection, parser);
+    public MessageEncoder getMessageEncoder(final Connection connection) {
+        return new MessageEncoder(connection);
     }
 
 }
@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc;
+
+import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.config.provider.ConfigChangeListener;
+import com.dmdirc.util.LoggingScheduledExecutorService;
+import com.dmdirc.util.TokenBucket;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.dmdirc.util.LogUtils.APP_ERROR;
+
+/**
+ * Queues outbound lines for a connection and sends them at a rate the server will accept.
+ *
+ * <p>Callers enqueue lines and return immediately. A single writer task, run on a thread
+ * dedicated to this queue, drains the queue subject to two token buckets: one limiting lines
+ * per second and one limiting bytes per second. Priority lines (such as PONGs) skip ahead of
+ * everything else and are never delayed, although they still count towards the limits. Lines
+ * that must not overtake anything already queued, such as a QUIT, can be added with
+ * {@link #flush(int, Runnable, long, TimeUnit)}.
+ *
+ * <p>Sending a line may block on the connection's socket, so the writer deliberately does not
+ * share a thread with any other connection or timer.
+ */
+public class OutboundQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboundQueue.class);
+    /** The domain for flood control settings. */
+    private static final String DOMAIN = "server";
+    /** The settings that control the rate limits. */
+    private static final String[] SETTINGS = {
+            "sendburst", "sendlinespersecond", "sendbytespersecond"};
+    /** The maximum length of an IRC line, used to size the byte bucket. */
+    private static final int MAX_LINE_LENGTH = 512;
+    /** How long the writer thread is kept alive while idle, in seconds. */
+    private static final long KEEP_ALIVE = 30;
+
+    /** The executor to run the writer on. */
+    private final ScheduledExecutorService executor;
+    /** The config to read limits from. */
+    private final AggregateConfigProvider config;
+    /** Listener used to pick up changes to the limits. */
+    private final ConfigChangeListener configListener = (domain, key) -> updateLimits();
+    /** Bucket limiting the number of lines sent. */
+    private final TokenBucket lineBucket;
+    /** Bucket limiting the number of bytes sent. */
+    private final TokenBucket byteBucket;
+    /** Lines that should be sent before anything else. */
+    private final Queue<OutboundLine> priorityLines = new ArrayDeque<>();
+    /** Lines waiting to be sent. */
+    private final Queue<OutboundLine> lines = new ArrayDeque<>();
+    /** The number of lines that have been sent. */
+    private final LongAdder sent = new LongAdder();
+    /** The number of times the writer has had to wait for the rate limit. */
+    private final LongAdder throttled = new LongAdder();
+    /** Whether the writer is currently running. */
+    private boolean draining;
+    /** Whether the writer is scheduled to run. */
+    private boolean drainScheduled;
+    /** The largest number of lines that have been queued at once. */
+    private int maximumDepth;
+
+    /**
+     * Creates a new outbound queue with its own writer thread.
+     *
+     * @param config The config to read flood control settings from.
+     */
+    public OutboundQueue(final AggregateConfigProvider config) {
+        this(createExecutor(), config, System::nanoTime);
+    }
+
+    /**
+     * Creates a new outbound queue.
+     *
+     * @param executor The executor to run the writer on; it must run tasks one at a time.
+     * @param config   The config to read flood control settings from.
+     * @param clock    The source of the current time, in nanoseconds.
+     */
+    OutboundQueue(final ScheduledExecutorService executor, final AggregateConfigProvider config,
+            final LongSupplier clock) {
+        this.executor = executor;
+        this.config = config;
+        final Limits limits = new Limits(config);
+        this.lineBucket = new TokenBucket(limits.lineCapacity, limits.linesPerSecond, clock);
+        this.byteBucket = new TokenBucket(limits.byteCapacity, limits.bytesPerSecond, clock);
+        for (String setting : SETTINGS) {
+            config.addChangeListener(DOMAIN, setting, configListener);
+        }
+    }
+
+    /**
+     * Adds a line to the queue.
+     *
+     * @param length   The length of the line in bytes once encoded, including the line
+     *                 terminator.
+     * @param priority Whether the line should skip ahead of other queued lines.
+     * @param sender   The task that will actually send the line.
+     */
+    public synchronized void enqueue(final int length, final boolean priority,
+            final Runnable sender) {
+        (priority ? priorityLines : lines).add(new OutboundLine(length, sender));
+        maximumDepth = Math.max(maximumDepth, getDepth());
+
+        // If the writer is waiting for tokens, a priority line needs it to run straight away.
+        if (!draining && (priority || !drainScheduled)) {
+            scheduleDrain(0);
+        }
+    }
+
+    /**
+     * Queues a line to be sent once every line that is already waiting has been sent. If the
+     * waiting lines can't all be sent within the given timeout, the rest are discarded with a
+     * warning and the line is sent straight away.
+     *
+     * @param length  The length of the line in bytes once encoded, including the line
+     *                terminator.
+     * @param sender  The task that will actually send the line.
+     * @param timeout The longest time to wait for the lines ahead of this one.
+     * @param unit    The unit of the timeout.
+     */
+    public void flush(final int length, final Runnable sender, final long timeout,
+            final TimeUnit unit) {
+        if (executor.isShutdown()) {
+            sender.run();
+            return;
+        }
+
+        final OutboundLine line = new OutboundLine(length, sender);
+        synchronized (this) {
+            lines.add(line);
+            maximumDepth = Math.max(maximumDepth, getDepth());
+            if (!draining && !drainScheduled) {
+                scheduleDrain(0);
+            }
+        }
+
+        try {
+            executor.schedule(() -> expire(line), timeout, unit);
+        } catch (RejectedExecutionException ex) {
+            // The queue has been closed, and the line discarded with it.
+        }
+    }
+
+    /**
+     * Discards any lines that have not yet been sent.
+     */
+    public synchronized void clear() {
+        if (getDepth() > 0) {
+            LOG.warn("Discarding {} lines that were not sent", getDepth());
+        }
+        priorityLines.clear();
+        lines.clear();
+    }
+
+    /**
+     * Discards any lines that have not yet been sent and stops the writer thread. Nothing more
+     * will be sent once the queue has been closed.
+     */
+    public void close() {
+        config.removeListener(configListener);
+        executor.shutdownNow();
+        clear();
+    }
+
+    /**
+     * Gets the number of lines currently waiting to be sent.
+     *
+     * @return The current queue depth.
+     */
+    public synchronized int getDepth() {
+        return priorityLines.size() + lines.size();
+    }
+
+    /**
+     * Gets the largest number of lines that have been waiting at once.
+     *
+     * @return The maximum queue depth.
+     */
+    public synchronized int getMaximumDepth() {
+        return maximumDepth;
+    }
+
+    /**
+     * Gets the total number of lines that have been sent.
+     *
+     * @return The number of lines sent.
+     */
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    /**
+     * Gets the number of times sending was delayed by the rate limit.
+     *
+     * @return The number of times the writer has been throttled.
+     */
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    /**
+     * Reads the configured limits into our token buckets.
+     */
+    private synchronized void updateLimits() {
+        final Limits limits = new Limits(config);
+        lineBucket.setLimits(limits.lineCapacity, limits.linesPerSecond);
+        byteBucket.setLimits(limits.byteCapacity, limits.bytesPerSecond);
+    }
+
+    /**
+     * Sends as many queued lines as the rate limits allow, then reschedules itself if lines
+     * remain.
+     */
+    private void drain() {
+        synchronized (this) {
+            drainScheduled = false;
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+
+        while (true) {
+            final OutboundLine next;
+            synchronized (this) {
+                if (!priorityLines.isEmpty()) {
+                    next = priorityLines.poll();
+                } else if (lines.isEmpty()) {
+                    draining = false;
+                    return;
+                } else {
+                    final long delay = Math.max(lineBucket.getDelay(1),
+                            byteBucket.getDelay(lines.peek().length));
+                    if (delay > 0) {
+                        throttled.increment();
+                        draining = false;
+                        scheduleDrain(delay);
+                        return;
+                    }
+                    next = lines.poll();
+                }
+                lineBucket.consume(1);
+                byteBucket.consume(next.length);
+            }
+
+            try {
+                next.sender.run();
+                sent.increment();
+            } catch (RuntimeException ex) {
+                LOG.error(APP_ERROR, "Unable to send queued line", ex);
+            }
+        }
+    }
+
+    /**
+     * Sends a flushed line straight away if it is still waiting behind other lines, discarding
+     * the lines ahead of it.
+     *
+     * @param line The line that has waited for its timeout.
+     */
+    private void expire(final OutboundLine line) {
+        synchronized (this) {
+            if (!lines.contains(line)) {
+                return;
+            }
+
+            int discarded = 0;
+            while (lines.peek() != line) {
+                lines.poll();
+                discarded++;
+            }
+            lines.poll();
+            priorityLines.add(line);
+            LOG.warn("Discarding {} lines that could not be sent in time", discarded);
+        }
+
+        drain();
+    }
+
+    /**
+     * Schedules the writer to run after the given delay.
+     *
+     * @param delay The delay in nanoseconds.
+     */
+    private void scheduleDrain(final long delay) {
+        try {
+            executor.schedule(this::drain, delay, TimeUnit.NANOSECONDS);
+            drainScheduled = true;
+        } catch (RejectedExecutionException ex) {
+            // The connection has been closed; nothing more will be sent.
+            clear();
+        }
+    }
+
+    /**
+     * Creates the default executor to run the writer on.
+     *
+     * @return A new single-threaded executor.
+     */
+    private static ScheduledExecutorService createExecutor() {
+        final ScheduledThreadPoolExecutor executor =
+                new LoggingScheduledExecutorService(1, "outbound-queue");
+        executor.setKeepAliveTime(KEEP_ALIVE, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /** The rate limits read from the config. */
+    private static class Limits {
+
+        private final int lineCapacity;
+        private final int linesPerSecond;
+        private final int byteCapacity;
+        private final int bytesPerSecond;
+
+        Limits(final AggregateConfigProvider config) {
+            lineCapacity = Math.max(1, config.getOptionInt(DOMAIN, "sendburst"));
+            linesPerSecond = config.getOptionInt(DOMAIN, "sendlinespersecond");
+            bytesPerSecond = config.getOptionInt(DOMAIN, "sendbytespersecond");
+            byteCapacity = Math.max(bytesPerSecond, lineCapacity * MAX_LINE_LENGTH);
+        }
+
+    }
+
+    /** A line waiting to be sent. */
+    private static class OutboundLine {
+
+        private final int length;
+        private final Runnable sender;
+
+        OutboundLine(final int length, final Runnable sender) {
+            this.length = length;
+            this.sender = sender;
+        }
+
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc;
+
+import com.dmdirc.interfaces.Connection;
+import com.dmdirc.parser.events.ChannelActionEvent;
+import com.dmdirc.parser.events.ChannelCTCPEvent;
+import com.dmdirc.parser.events.ChannelJoinEvent;
+import com.dmdirc.parser.events.ChannelKickEvent;
+import com.dmdirc.parser.events.ChannelListModeEvent;
+import com.dmdirc.parser.events.ChannelMessageEvent;
+import com.dmdirc.parser.events.ChannelModeChangeEvent;
+import com.dmdirc.parser.events.ChannelModeNoticeEvent;
+import com.dmdirc.parser.events.ChannelNamesEvent;
+import com.dmdirc.parser.events.ChannelNickChangeEvent;
+import com.dmdirc.parser.events.ChannelNoticeEvent;
+import com.dmdirc.parser.events.ChannelPartEvent;
+import com.dmdirc.parser.events.ChannelQuitEvent;
+import com.dmdirc.parser.events.ChannelTopicEvent;
+import com.dmdirc.parser.events.ChannelUserModeChangeEvent;
+import com.dmdirc.parser.events.CompositionStateChangeEvent;
+import com.dmdirc.parser.events.NickChangeEvent;
+import com.dmdirc.parser.events.OtherAwayStateEvent;
+import com.dmdirc.parser.events.QuitEvent;
+import com.dmdirc.parser.interfaces.ChannelClientInfo;
+import com.dmdirc.parser.interfaces.ChannelInfo;
+import com.dmdirc.parser.interfaces.ClientInfo;
+import com.dmdirc.parser.interfaces.Parser;
+
+import java.util.Optional;
+
+import javax.annotation.Nonnull;
+
+import net.engio.mbassy.listener.Handler;
+
+/**
+ * Routes channel- and query-level parser events for a single connection to the {@link Channel} or
+ * {@link Query} they concern.
+ *
+ * <p>Only one router is subscribed to a parser, regardless of how many windows are open, and the
+ * target of each event is found with a single case-mapping-aware map lookup.
+ */
+public class ParserEventRouter extends EventHandler {
+
+    /** The server whose events are being routed. */
+    private final Server owner;
+    /** Group chat manager used to find channels. */
+    private final GroupChatManagerImpl groupChatManager;
+
+    public ParserEventRouter(final Server owner, final GroupChatManagerImpl groupChatManager) {
+        this.owner = owner;
+        this.groupChatManager = groupChatManager;
+    }
+
+    @Nonnull
+    @Override
+    protected Connection getConnection() {
+        return owner;
+    }
+
+    @Handler
+    public void onChannelMessage(final ChannelMessageEvent event) {
+        route(event.getChannel()).ifPresent(h -> h.onChannelMessage(event));
+    }
+
+    @Handler
+    public void onChannelGotNames(final ChannelNamesEvent event) {
+        route(event.getChannel()).ifPresent(h -> h.onChannelGotNames(event));
+    }
+
+    @Handler
+    public void onChannelTopic(final ChannelTopicEvent event) {
+        route(event.getChannel()).ifPresent(h -> h.onChannelTopic(event));
+    }
+
+    @Handler
+    public void onChannelJoin(final ChannelJoinEvent event) {
+        route(event.getChannel()).ifPresent(h -> h.onChannelJoin(event));
+    }
+
+    @Handler
+    public void onChannelPart(final ChannelPartEvent event) {
+        route(event.getChannel()).ifPresent(h -> h.onChannelPart(event));
+        handleChannelLeave(event.getChannel(), event.getClient());
+    }
+
+    @Handler
+    public void onChannelKick(final ChannelKickEvent event) {
+        route(event.getChannel()).ifPresent(h -> h.onChannelKick(event));
+        handleChannelLeave(event.getChannel(), event.getKickedClient());
+    }
+
+    @Handler
+    public void onChannelQuit(final ChannelQuitEvent event) {
+        route(event.getChannel()).ifPresent(h -> h.onChannelQuit(event));
+    }
+
+    @Handler
+    public void onChannelAction(final ChannelActionEvent event) {
+        route(event.getChannel()).ifPresent(h -> h.onChannelAction(event));
+    }
+
+    @Handler
+    public void onChannelNickChanged(final ChannelNickChangeEvent event) {
+        route(event.getChannel()).ifPresent(h -> h.onChannelNickChanged(event));
+    }
+
+    @Handler
+    public void onChannelUserModeChanged(final ChannelUserModeChangeEvent event) {
+        route(event.getChannel()).ifPresent(h -> h.onChannelUserModeChanged(event));
+    }
+
+    @Handler
+    public void onChannelModeChanged(final ChannelModeChangeEvent event) {
+        route(event.getChannel()).ifPresent(h -> h.onChannelModeChanged(event));
+    }
+
+    @Handler
+    public void onChannelCTCP(final ChannelCTCPEvent event) {
+        route(event.getChannel()).ifPresent(h -> h.onChannelCTCP(event));
+    }
+
+    @Handler
+    public void onChannelNotice(final ChannelNoticeEvent event) {
+        route(event.getChannel()).ifPresent(h -> h.onChannelNotice(event));
+    }
+
+    @Handler
+    public void onChannelModeNotice(final ChannelModeNoticeEvent event) {
+        route(event.getChannel()).ifPresent(h -> h.onChannelModeNotice(event));
+    }
+
+    @Handler
+    public void onChannelGotListModes(final ChannelListModeEvent event) {
+        route(event.getChannel()).ifPresent(h -> h.onChannelGotListModes(event));
+    }
+
+    @Handler
+    public void onAwayStateOther(final OtherAwayStateEvent event) {
+        // Away state isn't tied to a channel, so every channel needs to check for the user.
+        groupChatManager.getOpenChannels()
+                .forEach(c -> c.getEventHandler().onAwayStateOther(event));
+    }
+
+    @Handler
+    public void onNickChanged(final NickChangeEvent event) {
+        // The server may or may not have re-keyed its queries yet, so try both names.
+        final Optional<Query> query = owner.findQuery(event.getOldNick());
+        (query.isPresent() ? query : owner.findQuery(event.getClient().getNickname()))
+                .ifPresent(q -> q.onNickChanged(event));
+    }
+
+    @Handler
+    public void onQuit(final QuitEvent event) {
+        owner.findQuery(event.getClient().getNickname()).ifPresent(q -> q.onQuit(event));
+    }
+
+    @Handler
+    public void onCompositionStateChanged(final CompositionStateChangeEvent event) {
+        owner.findQuery(owner.getUser(event.getHost()).getNickname())
+                .ifPresent(q -> q.onCompositionStateChanged(event));
+    }
+
+    /**
+     * Evicts users that we no longer share anything with after a client leaves a channel. If we
+     * are the one leaving, every other member of the channel is checked.
+     *
+     * @param channelInfo The parser channel that was left.
+     * @param client      The client that left it.
+     */
+    private void handleChannelLeave(final ChannelInfo channelInfo,
+            final ChannelClientInfo client) {
+        final Optional<ClientInfo> localClient = owner.getParser().map(Parser::getLocalClient);
+        if (localClient.map(client.getClient()::equals).orElse(false)) {
+            channelInfo.getChannelClients().stream()
+                    .map(ChannelClientInfo::getClient)
+                    .filter(c -> !c.equals(localClient.get()))
+                    .forEach(c -> owner.handleChannelLeave(c, channelInfo));
+        } else {
+            owner.handleChannelLeave(client.getClient(), channelInfo);
+        }
+    }
+
+    /**
+     * Finds the event handler for the channel window bound to the given parser channel.
+     *
+     * @param channelInfo The parser channel an event was raised for.
+     *
+     * @return The corresponding channel's event handler, if any.
+     */
+    private Optional<ChannelEventHandler> route(final ChannelInfo channelInfo) {
+        return groupChatManager.getChannel(channelInfo).map(Channel::getEventHandler);
+    }
+
+}
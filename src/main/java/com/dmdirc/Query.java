@@ -29,7 +29,6 @@ import com.dmdirc.interfaces.Connection;
 import com.dmdirc.interfaces.PrivateChat;
 import com.dmdirc.interfaces.User;
 import com.dmdirc.interfaces.WindowModel;
-import com.dmdirc.parser.common.CallbackManager;
 import com.dmdirc.parser.common.CompositionState;
 import com.dmdirc.parser.events.CompositionStateChangeEvent;
 import com.dmdirc.parser.events.NickChangeEvent;
@@ -37,20 +36,18 @@ import com.dmdirc.parser.events.PrivateActionEvent;
 import com.dmdirc.parser.events.PrivateMessageEvent;
 import com.dmdirc.parser.events.QuitEvent;
 import com.dmdirc.parser.interfaces.ClientInfo;
-import com.dmdirc.parser.interfaces.Parser;
 import com.dmdirc.ui.core.components.WindowComponent;
 import com.dmdirc.ui.messages.BackBufferFactory;
+import com.dmdirc.util.TimerService;
 
 import java.awt.Toolkit;
 import java.util.Arrays;
 import java.util.Optional;
 
-import net.engio.mbassy.listener.Handler;
-
 /**
  * The Query class represents the client's view of a query with another user. It handles callbacks
- * for query events from the parser, maintains the corresponding QueryWindow, and handles user input
- * for the query.
+ * for query events from the parser (routed to it by the connection's {@link ParserEventRouter}),
+ * maintains the corresponding QueryWindow, and handles user input for the query.
  */
 public class Query extends FrameContainer implements PrivateChat {
 
@@ -62,12 +59,14 @@ public class Query extends FrameContainer implements PrivateChat {
     public Query(
             final Connection connection,
             final User user,
-            final BackBufferFactory backBufferFactory) {
+            final BackBufferFactory backBufferFactory,
+            final TimerService timerService) {
         super("query",
                 user.getNickname(),
                 user.getNickname(),
                 connection.getWindowModel().getConfigManager(),
                 backBufferFactory,
+                timerService,
                 connection.getWindowModel().getEventBus(),
                 Arrays.asList(
                         WindowComponent.TEXTAREA.getIdentifier(),
@@ -96,7 +95,7 @@ public class Query extends FrameContainer implements PrivateChat {
                 .stream()
                 .filter(part -> !part.isEmpty())
                 .forEach(part -> {
-                    connection.getParser().get().sendMessage(target, part);
+                    connection.sendMessage(target, part);
                     getEventBus().publishAsync(new QuerySelfMessageEvent(this,
                             connection.getLocalUser().get(), part));
                 });
@@ -121,7 +120,7 @@ public class Query extends FrameContainer implements PrivateChat {
         final int maxLineLength = getInputModel().get().getMaxLineLength();
 
         if (maxLineLength >= action.length() + 2) {
-            connection.getParser().get().sendAction(getNickname(), action);
+            connection.sendAction(getNickname(), action);
             getEventBus().publishAsync(
                     new QuerySelfActionEvent(this, connection.getLocalUser().get(), action));
         } else {
@@ -130,20 +129,12 @@ public class Query extends FrameContainer implements PrivateChat {
         }
     }
 
-    @Handler
     public void onPrivateMessage(final PrivateMessageEvent event) {
-        if (!checkQuery(event.getHost())) {
-            return;
-        }
         getEventBus().publishAsync(
                 new QueryMessageEvent(this, connection.getUser(event.getHost()), event.getMessage()));
     }
 
-    @Handler
     public void onPrivateAction(final PrivateActionEvent event) {
-        if (!checkQuery(event.getHost())) {
-            return;
-        }
         getEventBus().publishAsync(
                 new QueryActionEvent(this, connection.getUser(event.getHost()), event.getMessage()));
     }
@@ -155,19 +146,7 @@ public class Query extends FrameContainer implements PrivateChat {
         setTitle(getNickname());
     }
 
-    /**
-     * Reregisters query callbacks. Called when reconnecting to the server.
-     */
-    public void reregister() {
-        final CallbackManager callbackManager = connection.getParser().get().getCallbackManager();
-        callbackManager.subscribe(this);
-    }
-
-    @Handler
     public void onNickChanged(final NickChangeEvent event) {
-        if (!checkQuery(event.getClient().getHostname())) {
-            return;
-        }
         final ClientInfo client = event.getClient();
         final String oldNick = event.getOldNick();
         if (client.getNickname().equals(getNickname())) {
@@ -178,21 +157,13 @@ public class Query extends FrameContainer implements PrivateChat {
         }
     }
 
-    @Handler
     public void onQuit(final QuitEvent event) {
-        if (!checkQuery(event.getClient().getHostname())) {
-            return;
-        }
         if (event.getClient().getNickname().equals(getNickname())) {
             getEventBus().publish(new QueryQuitEvent(this, event.getReason()));
         }
     }
 
-    @Handler
     public void onCompositionStateChanged(final CompositionStateChangeEvent event) {
-        if (!checkQuery(event.getHost())) {
-            return;
-        }
         if (event.getState() == CompositionState.TYPING) {
             addComponent(WindowComponent.TYPING_INDICATOR.getIdentifier());
         } else {
@@ -209,10 +180,6 @@ public class Query extends FrameContainer implements PrivateChat {
     public void close() {
         super.close();
 
-        // Remove any callbacks or listeners
-        connection.getParser().map(Parser::getCallbackManager).ifPresent(cm -> cm.unsubscribe(this));
-
-
         // Trigger action for the window closing
         getEventBus().publishAsync(new QueryClosedEvent(this));
 
@@ -240,8 +207,4 @@ public class Query extends FrameContainer implements PrivateChat {
         return user;
     }
 
-    private boolean checkQuery(final String host) {
-        return connection.getUser(host).getNickname().equals(user.getNickname());
-    }
-
 }
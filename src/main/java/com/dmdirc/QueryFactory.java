@@ -26,6 +26,7 @@ import com.dmdirc.interfaces.User;
 import com.dmdirc.ui.WindowManager;
 import com.dmdirc.ui.input.TabCompleterFactory;
 import com.dmdirc.ui.messages.BackBufferFactory;
+import com.dmdirc.util.TimerService;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -39,6 +40,7 @@ public class QueryFactory {
     private final TabCompleterFactory tabCompleterFactory;
     private final CommandController commandController;
     private final BackBufferFactory backBufferFactory;
+    private final TimerService timerService;
     private final WindowManager windowManager;
 
     @Inject
@@ -46,15 +48,17 @@ public class QueryFactory {
             final TabCompleterFactory tabCompleterFactory,
             final CommandController commandController,
             final BackBufferFactory backBufferFactory,
+            final TimerService timerService,
             final WindowManager windowManager) {
         this.tabCompleterFactory = tabCompleterFactory;
         this.commandController = commandController;
         this.backBufferFactory = backBufferFactory;
+        this.timerService = timerService;
         this.windowManager = windowManager;
     }
 
     public Query getQuery(final Connection connection, final User user) {
-        final Query query = new Query(connection, user, backBufferFactory);
+        final Query query = new Query(connection, user, backBufferFactory, timerService);
         query.setInputModel(new DefaultInputModel(
                 query::sendLine,
                 new QueryCommandParser(
@@ -67,7 +71,8 @@ public class QueryFactory {
                         connection.getWindowModel().getConfigManager(),
                         CommandType.TYPE_QUERY,
                         CommandType.TYPE_CHAT),
-                query::getMaxLineLength));
+                query::getMaxLineLength,
+                DefaultInputModel.getConfiguredCharset(query.getConfigManager())));
         windowManager.addWindow(connection.getWindowModel(), query);
         connection.getWindowModel().getEventBus().publish(new QueryOpenedEvent(query));
         return query;
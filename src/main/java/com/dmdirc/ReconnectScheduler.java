@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc;
+
+import com.dmdirc.config.GlobalConfig;
+import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.interfaces.Connection;
+import com.dmdirc.util.TimerGroup;
+import com.dmdirc.util.TimerService;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coordinates automatic reconnection attempts across all connections.
+ *
+ * <p>When a shared network link fails, every connection will typically try to reconnect at the
+ * same time. To avoid overwhelming both the local machine and remote servers, this scheduler:
+ *
+ * <ul>
+ * <li>applies exponential backoff with jitter to each connection's reconnect delay;</li>
+ * <li>limits the number of connections that may be connecting or synchronising at once;</li>
+ * <li>admits waiting connections in order of their configured weight.</li>
+ * </ul>
+ *
+ * <p>A connection holds an admission from the time it is admitted until it has received the
+ * server's 005 headers and a short grace period for synchronising channels has elapsed, or until
+ * the attempt fails.
+ */
+@Singleton
+public class ReconnectScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReconnectScheduler.class);
+    /** The domain for settings used by the scheduler. */
+    private static final String DOMAIN = "general";
+    /** The smallest delay we'll ever use before reconnecting, in milliseconds. */
+    private static final int MINIMUM_DELAY = 1000;
+    /** The largest shift we apply to the base delay, to avoid overflowing. */
+    private static final int MAXIMUM_BACKOFF_SHIFT = 16;
+
+    /** Orders waiting connections by descending weight, then by arrival. */
+    private static final Comparator<PendingAdmission> ADMISSION_ORDER =
+            Comparator.comparingInt((PendingAdmission p) -> p.weight).reversed()
+                    .thenComparingLong(p -> p.sequence);
+
+    /** The global config to read shared limits from. */
+    private final AggregateConfigProvider globalConfig;
+    /** Timers used to dispatch admitted reconnects and release sync permits. */
+    private final TimerGroup timers;
+    /** The number of consecutive failed attempts for each connection. */
+    private final Map<Connection, Integer> attempts = new HashMap<>();
+    /** Connections that are currently admitted, and the sequence number of their admission. */
+    private final Map<Connection, Long> admitted = new HashMap<>();
+    /** Connections waiting to be admitted. */
+    private final Queue<PendingAdmission> waiting = new PriorityQueue<>(ADMISSION_ORDER);
+    /** Counter used to keep admission order stable for equal weights. */
+    private long sequence;
+
+    @Inject
+    public ReconnectScheduler(
+            @GlobalConfig final AggregateConfigProvider globalConfig,
+            final TimerService timerService) {
+        this.globalConfig = globalConfig;
+        this.timers = timerService.createGroup("reconnect scheduler");
+    }
+
+    /**
+     * Calculates how long a connection should wait before its next reconnect attempt, and records
+     * the attempt.
+     *
+     * <p>The delay doubles for each consecutive failure, up to the connection's configured
+     * maximum, and is then randomly reduced by up to half so that connections that failed
+     * together do not retry together.
+     *
+     * @param connection The connection that is going to reconnect.
+     * @param baseDelay  The configured delay for the first attempt, in milliseconds.
+     * @return The delay to use, in milliseconds.
+     */
+    public synchronized int getReconnectDelay(final Connection connection, final int baseDelay) {
+        final int attempt = attempts.getOrDefault(connection, 0);
+        attempts.put(connection, attempt + 1);
+
+        final long maximum = Math.max(baseDelay, connection.getWindowModel().getConfigManager()
+                .getOptionInt(DOMAIN, "reconnectmaxdelay"));
+        final long backoff = Math.min(maximum,
+                (long) Math.max(MINIMUM_DELAY, baseDelay)
+                        << Math.min(attempt, MAXIMUM_BACKOFF_SHIFT));
+        final long jitter = ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        return (int) Math.max(MINIMUM_DELAY, backoff - jitter);
+    }
+
+    /**
+     * Requests permission for a connection to start a reconnect attempt. The task is executed
+     * asynchronously once the connection has been admitted, which may be immediately.
+     *
+     * @param connection The connection that wishes to reconnect.
+     * @param weight     The connection's priority; higher weights are admitted first.
+     * @param task       The task to execute once admitted.
+     */
+    public synchronized void requestAdmission(final Connection connection, final int weight,
+            final Runnable task) {
+        waiting.removeIf(p -> p.connection == connection);
+        waiting.add(new PendingAdmission(connection, weight, sequence++, task));
+        admitWaiting();
+    }
+
+    /**
+     * Indicates that a connection has successfully connected. Its backoff is reset, and its
+     * admission is released once the sync grace period has passed.
+     *
+     * @param connection The connection that has connected.
+     */
+    public synchronized void connectionEstablished(final Connection connection) {
+        attempts.remove(connection);
+        final Long admission = admitted.get(connection);
+        if (admission != null) {
+            timers.schedule(() -> releaseAdmission(connection, admission),
+                    connection.getWindowModel().getConfigManager()
+                            .getOptionInt(DOMAIN, "reconnectsyncgrace"),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Releases any admission held by the given connection, and cancels any pending request. The
+     * connection's backoff state is retained.
+     *
+     * @param connection The connection to release.
+     */
+    public synchronized void release(final Connection connection) {
+        waiting.removeIf(p -> p.connection == connection);
+        if (admitted.remove(connection) != null) {
+            LOG.debug("Released reconnect admission for {}", connection.getAddress());
+            admitWaiting();
+        }
+    }
+
+    /**
+     * Releases a specific admission, if the connection still holds it.
+     *
+     * @param connection The connection to release.
+     * @param admission  The sequence number of the admission to release.
+     */
+    private synchronized void releaseAdmission(final Connection connection,
+            final long admission) {
+        if (admitted.remove(connection, admission)) {
+            LOG.debug("Sync grace period over for {}", connection.getAddress());
+            admitWaiting();
+        }
+    }
+
+    /**
+     * Forgets all state related to the given connection, typically because it has been closed.
+     *
+     * @param connection The connection to remove.
+     */
+    public synchronized void remove(final Connection connection) {
+        attempts.remove(connection);
+        release(connection);
+    }
+
+    /**
+     * Gets the number of connections currently admitted.
+     *
+     * @return The number of admitted connections.
+     */
+    public synchronized int getAdmittedCount() {
+        return admitted.size();
+    }
+
+    /**
+     * Gets the number of connections waiting to be admitted.
+     *
+     * @return The number of waiting connections.
+     */
+    public synchronized int getWaitingCount() {
+        return waiting.size();
+    }
+
+    /**
+     * Admits waiting connections while there is capacity to do so.
+     */
+    private void admitWaiting() {
+        final int limit = Math.max(1, globalConfig.getOptionInt(DOMAIN, "reconnectconcurrency"));
+        while (admitted.size() < limit && !waiting.isEmpty()) {
+            final PendingAdmission next = waiting.poll();
+            admitted.put(next.connection, next.sequence);
+            LOG.debug("Admitting reconnect for {} (weight {})", next.connection.getAddress(),
+                    next.weight);
+            // Tasks are always dispatched via the timer, so that they never run while the
+            // caller (which may be another connection) holds its own locks.
+            timers.schedule(next.task, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** A request for admission that is waiting for capacity. */
+    private static class PendingAdmission {
+
+        private final Connection connection;
+        private final int weight;
+        private final long sequence;
+        private final Runnable task;
+
+        PendingAdmission(final Connection connection, final int weight, final long sequence,
+                final Runnable task) {
+            this.connection = connection;
+            this.weight = weight;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+    }
+
+}
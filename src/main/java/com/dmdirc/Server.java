@@ -39,6 +39,7 @@ import com.dmdirc.parser.common.DefaultStringConverter;
 import com.dmdirc.parser.common.IgnoreList;
 import com.dmdirc.parser.common.ParserError;
 import com.dmdirc.parser.common.ThreadedParser;
+import com.dmdirc.parser.interfaces.ChannelInfo;
 import com.dmdirc.parser.interfaces.ClientInfo;
 import com.dmdirc.parser.interfaces.EncodingParser;
 import com.dmdirc.parser.interfaces.Parser;
@@ -49,7 +50,9 @@ import com.dmdirc.tls.CertificateManager;
 import com.dmdirc.ui.input.TabCompletionType;
 import com.dmdirc.ui.messages.Formatter;
 import com.dmdirc.ui.messages.HighlightManager;
+import com.dmdirc.util.TimerGroup;
 
+import com.google.common.base.Utf8;
 import com.google.common.net.InternetDomainName;
 
 import java.net.NoRouteToHostException;
@@ -63,11 +66,11 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import javax.annotation.Nonnull;
@@ -89,6 +92,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class Server implements Connection {
 
     private static final Logger LOG = LoggerFactory.getLogger(Server.class);
+    /** The number of bytes a PRIVMSG adds to a message, excluding the target. */
+    private static final int MESSAGE_OVERHEAD = 12;
+    /** The number of bytes a CTCP ACTION adds to an action, excluding the target. */
+    private static final int ACTION_OVERHEAD = 21;
+    /** The number of seconds to wait for queued lines to be sent before quitting. */
+    private static final int QUIT_TIMEOUT = 5;
     /** The name of the general domain. */
     private static final String DOMAIN_GENERAL = "general";
 
@@ -137,6 +146,8 @@ public class Server implements Connection {
     private Optional<String> awayMessage;
     /** Our event handler. */
     private final ServerEventHandler eventHandler;
+    /** Router for channel and query events. */
+    private final ParserEventRouter eventRouter;
     /** Our ignore list. */
     private final IgnoreList ignoreList = new IgnoreList();
     /** Our string converter. */
@@ -151,10 +162,14 @@ public class Server implements Connection {
     private final QueryFactory queryFactory;
     /** The config provider to write user settings to. */
     private final ConfigProvider userSettings;
-    /** Executor service to use to schedule repeated events. */
-    private final ScheduledExecutorService executorService;
-    /** The message encoder factory to create a message encoder with. */
-    private final MessageEncoderFactory messageEncoderFactory;
+    /** Timers used to schedule delayed events. */
+    private final TimerGroup timers;
+    /** The scheduler used to coordinate reconnect attempts with other servers. */
+    private final ReconnectScheduler reconnectScheduler;
+    /** The queue of lines waiting to be sent to the server. */
+    private final OutboundQueue outboundQueue;
+    /** The encoder used to decode incoming messages. */
+    private final MessageEncoder messageEncoder;
     /** The manager to use for highlighting. */
     private final HighlightManager highlightManager;
     /** Listener to use for config changes. */
@@ -175,7 +190,8 @@ public class Server implements Connection {
             final MessageEncoderFactory messageEncoderFactory,
             final ConfigProvider userSettings,
             final GroupChatManagerImplFactory groupChatManagerFactory,
-            final ScheduledExecutorService executorService,
+            final TimerGroup timers,
+            final ReconnectScheduler reconnectScheduler,
             @Nonnull final URI uri,
             @Nonnull final Profile profile,
             final UserManager userManager) {
@@ -184,15 +200,18 @@ public class Server implements Connection {
         this.identityFactory = identityFactory;
         this.configMigrator = configMigrator;
         this.queryFactory = queryFactory;
-        this.executorService = executorService;
+        this.timers = timers;
+        this.reconnectScheduler = reconnectScheduler;
+        this.outboundQueue = new OutboundQueue(windowModel.getConfigManager());
         this.userSettings = userSettings;
-        this.messageEncoderFactory = messageEncoderFactory;
+        this.messageEncoder = messageEncoderFactory.getMessageEncoder(this);
         this.userManager = userManager;
         this.groupChatManager = groupChatManagerFactory.create(this);
         this.inviteManager = new InviteManagerImpl(this);
 
         awayMessage = Optional.empty();
         eventHandler = new ServerEventHandler(this, groupChatManager, windowModel.getEventBus());
+        eventRouter = new ParserEventRouter(this, groupChatManager);
 
         this.address = uri;
         this.profile = profile;
@@ -206,6 +225,7 @@ public class Server implements Connection {
         highlightManager = new HighlightManager(windowModel);
         windowModel.getEventBus().subscribe(highlightManager);
         windowModel.getEventBus().subscribe(groupChatManager);
+        windowModel.getEventBus().subscribe(messageEncoder);
         windowModel.getEventBus().subscribe(this);
     }
 
@@ -245,6 +265,7 @@ public class Server implements Connection {
                     if (reconnectTimerFuture != null) {
                         reconnectTimerFuture.cancel(false);
                     }
+                    reconnectScheduler.release(this);
                     break;
                 case CLOSING:
                     // Ignore the connection attempt
@@ -354,6 +375,7 @@ public class Server implements Connection {
                     if (reconnectTimerFuture != null) {
                         reconnectTimerFuture.cancel(false);
                     }
+                    reconnectScheduler.release(this);
                     break;
                 default:
                     break;
@@ -369,7 +391,9 @@ public class Server implements Connection {
                     inviteManager.removeInvites();
                     updateIcon();
 
-                    parser.get().disconnect(reason);
+                    final Parser current = parser.get();
+                    outboundQueue.flush(Utf8.encodedLength(reason) + 8,
+                            () -> current.disconnect(reason), QUIT_TIMEOUT, TimeUnit.SECONDS);
                 } else {
                     myState.transition(ServerState.DISCONNECTED);
                 }
@@ -397,18 +421,20 @@ public class Server implements Connection {
                         + "transiently disconnected\n\nState: " + myState);
             }
 
-            final int delay = Math.max(1000,
+            final int delay = reconnectScheduler.getReconnectDelay(this,
                     windowModel.getConfigManager().getOptionInt(DOMAIN_GENERAL, "reconnectdelay"));
 
             windowModel.getEventBus().publishAsync(
                     new ServerReconnectScheduledEvent(this, delay / 1000));
 
-            reconnectTimerFuture = executorService.schedule(() -> {
+            reconnectTimerFuture = timers.schedule(() -> {
                 synchronized (myStateLock) {
-                    LOG.debug("Reconnect task executing, state: {}", myState.getState());
+                    LOG.debug("Reconnect timer expired, state: {}", myState.getState());
                     if (myState.getState() == ServerState.RECONNECT_WAIT) {
-                        myState.transition(ServerState.TRANSIENTLY_DISCONNECTED);
-                        reconnect();
+                        reconnectScheduler.requestAdmission(this,
+                                windowModel.getConfigManager()
+                                        .getOptionInt(DOMAIN_GENERAL, "reconnectweight"),
+                                this::doAdmittedReconnect);
                     }
                 }
             }, delay, TimeUnit.MILLISECONDS);
@@ -420,6 +446,21 @@ public class Server implements Connection {
         }
     }
 
+    /**
+     * Performs a reconnect attempt once the reconnect scheduler has admitted this server.
+     */
+    private void doAdmittedReconnect() {
+        synchronized (myStateLock) {
+            LOG.debug("Reconnect task executing, state: {}", myState.getState());
+            if (myState.getState() == ServerState.RECONNECT_WAIT) {
+                myState.transition(ServerState.TRANSIENTLY_DISCONNECTED);
+                reconnect();
+            } else {
+                reconnectScheduler.release(this);
+            }
+        }
+    }
+
     @Override
     public boolean hasQuery(final String host) {
         return queries.containsKey(converter.toLowerCase(getUser(host).getNickname()));
@@ -456,9 +497,6 @@ public class Server implements Connection {
 
         if (!queries.containsKey(lnick)) {
             final Query newQuery = queryFactory.getQuery(this, getUser(host));
-            if (!getState().isDisconnected()) {
-                newQuery.reregister();
-            }
             windowModel.getInputModel().get().getTabCompleter()
                     .addEntry(TabCompletionType.QUERY_NICK, nick);
             queries.put(lnick, newQuery);
@@ -467,6 +505,37 @@ public class Server implements Connection {
         return queries.get(lnick);
     }
 
+    /**
+     * Finds an existing query with the specified user.
+     *
+     * @param nickname The nickname of the user the query is with.
+     *
+     * @return The query with that user, if one is open.
+     */
+    Optional<Query> findQuery(final String nickname) {
+        return Optional.ofNullable(queries.get(converter.toLowerCase(nickname)));
+    }
+
+    /**
+     * Evicts any cached state for a client that has quit.
+     *
+     * @param client The client that quit.
+     */
+    void handleQuit(final ClientInfo client) {
+        userManager.removeUser(client, this);
+    }
+
+    /**
+     * Evicts any cached state for a client that has left a channel, if we no longer share a
+     * channel or query with it.
+     *
+     * @param client  The client that left.
+     * @param channel The channel it left.
+     */
+    void handleChannelLeave(final ClientInfo client, final ChannelInfo channel) {
+        userManager.removeUserIfUnshared(client, this, channel);
+    }
+
     /**
      * Updates tab completer and queries after a user changes their nickname.
      *
@@ -531,7 +600,7 @@ public class Server implements Connection {
 
         if (myParser instanceof EncodingParser) {
             final EncodingParser encodingParser = (EncodingParser) myParser;
-            encodingParser.setEncoder(messageEncoderFactory.getMessageEncoder(this, myParser));
+            encodingParser.setEncoder(messageEncoder);
         }
 
         return myParser;
@@ -558,16 +627,67 @@ public class Server implements Connection {
      */
     private void doCallbacks() {
         eventHandler.registerCallbacks();
-        queries.values().forEach(Query::reregister);
+        eventRouter.registerCallbacks();
     }
 
     @Override
     public void sendLine(final String line) {
+        if (!line.isEmpty()) {
+            outboundQueue.enqueue(Utf8.encodedLength(line) + 2, isPriorityLine(line),
+                    () -> sendLineNow(line));
+        }
+    }
+
+    @Override
+    public void sendMessage(final String target, final String message) {
+        if (!message.isEmpty()) {
+            outboundQueue.enqueue(
+                    Utf8.encodedLength(target) + Utf8.encodedLength(message) + MESSAGE_OVERHEAD,
+                    false,
+                    () -> parser.ifPresent(p -> p.sendMessage(target, message)));
+        }
+    }
+
+    @Override
+    public void sendAction(final String target, final String action) {
+        outboundQueue.enqueue(
+                Utf8.encodedLength(target) + Utf8.encodedLength(action) + ACTION_OVERHEAD, false,
+                () -> parser.ifPresent(p -> p.sendAction(target, action)));
+    }
+
+    @Override
+    public void sendCommand(final String line, final Consumer<Parser> sender) {
+        outboundQueue.enqueue(Utf8.encodedLength(line) + 2, isPriorityLine(line),
+                () -> sendNow(sender));
+    }
+
+    /**
+     * Sends a command using the parser immediately, if there is one.
+     *
+     * @param sender The task that sends the command
+     */
+    private void sendNow(final Consumer<Parser> sender) {
+        try {
+            parserLock.readLock().lock();
+            parser.ifPresent(sender);
+        } finally {
+            parserLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sends a raw line to the server immediately, if we are connected or still sending the lines
+     * queued before a disconnect.
+     *
+     * @param line The line to be sent
+     */
+    private void sendLineNow(final String line) {
         synchronized (myStateLock) {
             try {
                 parserLock.readLock().lock();
                 parser.ifPresent(p -> {
-                    if (!line.isEmpty() && myState.getState() == ServerState.CONNECTED) {
+                    if (myState.getState() == ServerState.CONNECTED
+                            || myState.getState() == ServerState.DISCONNECTING) {
                         p.sendRawMessage(line);
                     }
                 });
@@ -577,11 +697,25 @@ public class Server implements Connection {
         }
     }
 
-    @Override
-    public void sendMessage(final String target, final String message) {
-        if (!message.isEmpty()) {
-            parser.ifPresent(p -> p.sendMessage(target, message));
-        }
+    /**
+     * Determines whether a raw line should skip ahead of other queued lines.
+     *
+     * @param line The line to be sent
+     * @return True if the line is a PING or PONG, false otherwise.
+     */
+    private static boolean isPriorityLine(final String line) {
+        final int space = line.indexOf(' ');
+        final String command = space == -1 ? line : line.substring(0, space);
+        return "PONG".equalsIgnoreCase(command) || "PING".equalsIgnoreCase(command);
+    }
+
+    /**
+     * Gets the queue of lines waiting to be sent to the server.
+     *
+     * @return This server's outbound queue.
+     */
+    public OutboundQueue getOutboundQueue() {
+        return outboundQueue;
     }
 
     public int getMaxLineLength() {
@@ -675,10 +809,15 @@ public class Server implements Connection {
         if (event.getSource().equals(windowModel)) {
             synchronized (myStateLock) {
                 eventHandler.unregisterCallbacks();
+                eventRouter.unregisterCallbacks();
                 windowModel.getConfigManager().removeListener(configListener);
                 windowModel.getEventBus().unsubscribe(groupChatManager);
                 windowModel.getEventBus().unsubscribe(highlightManager);
-                executorService.shutdown();
+                windowModel.getEventBus().unsubscribe(messageEncoder);
+                timers.cancelAll();
+                outboundQueue.close();
+                messageEncoder.close();
+                reconnectScheduler.remove(this);
 
                 if (parser.isPresent()) {
                     parser.get().shutdown();
@@ -692,6 +831,7 @@ public class Server implements Connection {
             groupChatManager.closeAll();
             closeQueries();
             inviteManager.removeInvites();
+            userManager.removeConnection(this);
             windowModel.getEventBus().unsubscribe(this);
         }
     }
@@ -704,16 +844,28 @@ public class Server implements Connection {
     @Override
     public void sendCTCPReply(final String source, final String type, final String args) {
         if ("VERSION".equalsIgnoreCase(type)) {
-            parser.get().sendCTCPReply(source, "VERSION",
+            sendCTCPReplyLine(source, "VERSION",
                     "DMDirc " + windowModel.getConfigManager().getOption("version", "version") +
                             " - https://www.dmdirc.com/");
         } else if ("PING".equalsIgnoreCase(type)) {
-            parser.get().sendCTCPReply(source, "PING", args);
+            sendCTCPReplyLine(source, "PING", args);
         } else if ("CLIENTINFO".equalsIgnoreCase(type)) {
-            parser.get().sendCTCPReply(source, "CLIENTINFO", "VERSION PING CLIENTINFO");
+            sendCTCPReplyLine(source, "CLIENTINFO", "VERSION PING CLIENTINFO");
         }
     }
 
+    /**
+     * Queues a CTCP reply to be sent to the given target.
+     *
+     * @param target The target of the reply
+     * @param type   The type of CTCP reply
+     * @param args   The arguments of the reply
+     */
+    private void sendCTCPReplyLine(final String target, final String type, final String args) {
+        sendCommand("NOTICE " + target + " :\u0001" + type + ' ' + args + '\u0001',
+                p -> p.sendCTCPReply(target, type, args));
+    }
+
     @Override
     public void updateTitle() {
         synchronized (myStateLock) {
@@ -748,13 +900,14 @@ public class Server implements Connection {
         if (Thread.holdsLock(myStateLock)) {
             LOG.info("State lock contended: rerunning on a new thread");
 
-            executorService.schedule(this::onSocketClosed, 0, TimeUnit.SECONDS);
+            timers.schedule(this::onSocketClosed, 0, TimeUnit.SECONDS);
             return;
         }
 
         windowModel.getEventBus().publish(new ServerDisconnectedEvent(this));
 
         eventHandler.unregisterCallbacks();
+        eventRouter.unregisterCallbacks();
 
         synchronized (myStateLock) {
             if (myState.getState() == ServerState.CLOSING
@@ -770,6 +923,9 @@ public class Server implements Connection {
             }
 
             groupChatManager.handleSocketClosed();
+            userManager.removeConnection(this);
+            reconnectScheduler.release(this);
+            outboundQueue.clear();
 
             try {
                 parserLock.writeLock().lock();
@@ -822,6 +978,9 @@ public class Server implements Connection {
             }
 
             myState.transition(ServerState.TRANSIENTLY_DISCONNECTED);
+            userManager.removeConnection(this);
+            reconnectScheduler.release(this);
+            outboundQueue.clear();
 
             try {
                 parserLock.writeLock().lock();
@@ -900,6 +1059,7 @@ public class Server implements Connection {
 
             converter = parser.get().getStringConverter();
             groupChatManager.handleConnected();
+            reconnectScheduler.connectionEstablished(this);
         }
 
         windowModel.getEventBus().publish(new ServerConnectedEvent(this));
@@ -983,7 +1143,7 @@ public class Server implements Connection {
 
     @Override
     public void setNickname(final String nickname) {
-        parser.map(Parser::getLocalClient).ifPresent(c -> c.setNickname(nickname));
+        sendCommand("NICK " + nickname, p -> p.getLocalClient().setNickname(nickname));
     }
 
     @Override
@@ -993,7 +1153,7 @@ public class Server implements Connection {
 
     @Override
     public void requestUserInfo(final User user) {
-        parser.ifPresent(p -> p.sendWhois(user.getNickname()));
+        sendCommand("WHOIS " + user.getNickname(), p -> p.sendWhois(user.getNickname()));
     }
 
     /**
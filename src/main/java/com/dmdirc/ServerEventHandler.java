@@ -70,6 +70,7 @@ import com.dmdirc.parser.events.PrivateCTCPEvent;
 import com.dmdirc.parser.events.PrivateCTCPReplyEvent;
 import com.dmdirc.parser.events.PrivateMessageEvent;
 import com.dmdirc.parser.events.PrivateNoticeEvent;
+import com.dmdirc.parser.events.QuitEvent;
 import com.dmdirc.parser.events.ServerReadyEvent;
 import com.dmdirc.parser.events.SocketCloseEvent;
 import com.dmdirc.parser.events.UnknownActionEvent;
@@ -137,15 +138,17 @@ public class ServerEventHandler extends EventHandler {
 
     @Handler
     public void onPrivateMessage(final PrivateMessageEvent event) {
-        if (!owner.hasQuery(event.getHost())) {
-            ((Query) owner.getQuery(event.getHost())).onPrivateMessage(event);
+        final Query query = (Query) owner.getQuery(event.getHost());
+        if (query != null) {
+            query.onPrivateMessage(event);
         }
     }
 
     @Handler
     public void onPrivateAction(final PrivateActionEvent event) {
-        if (!owner.hasQuery(event.getHost())) {
-            ((Query) owner.getQuery(event.getHost())).onPrivateAction(event);
+        final Query query = (Query) owner.getQuery(event.getHost());
+        if (query != null) {
+            query.onPrivateAction(event);
         }
     }
 
@@ -313,7 +316,7 @@ public class ServerEventHandler extends EventHandler {
             newNick = alts.get(offset);
         }
 
-        event.getParser().getLocalClient().setNickname(newNick);
+        owner.setNickname(newNick);
     }
 
     @Handler
@@ -412,6 +415,11 @@ public class ServerEventHandler extends EventHandler {
         owner.handleNickChange(event.getClient(), event.getOldNick());
     }
 
+    @Handler
+    public void onQuit(final QuitEvent event) {
+        owner.handleQuit(event.getClient());
+    }
+
     @Handler
     public void onServerError(final com.dmdirc.parser.events.ServerErrorEvent event) {
         eventBus.publishAsync(new ServerErrorEvent(owner, event.getMessage()));
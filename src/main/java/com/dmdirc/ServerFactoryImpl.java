@@ -29,10 +29,10 @@ import com.dmdirc.interfaces.config.IdentityFactory;
 import com.dmdirc.ui.core.components.WindowComponent;
 import com.dmdirc.ui.input.TabCompleterFactory;
 import com.dmdirc.ui.messages.BackBufferFactory;
+import com.dmdirc.util.TimerService;
 
 import java.net.URI;
 import java.util.Arrays;
-import java.util.concurrent.ScheduledExecutorService;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -55,6 +55,8 @@ public class ServerFactoryImpl {
     private final BackBufferFactory backBufferFactory;
     private final GroupChatManagerImplFactory groupChatManagerFactory;
     private final UserManager userManager;
+    private final TimerService timerService;
+    private final ReconnectScheduler reconnectScheduler;
 
     @Inject
     public ServerFactoryImpl(
@@ -68,7 +70,9 @@ public class ServerFactoryImpl {
             @UserConfig final ConfigProvider userSettings,
             final BackBufferFactory backBufferFactory,
             final GroupChatManagerImplFactory groupChatManagerFactory,
-            final UserManager userManager) {
+            final UserManager userManager,
+            final TimerService timerService,
+            final ReconnectScheduler reconnectScheduler) {
         this.parserFactory = parserFactory;
         this.tabCompleterFactory = tabCompleterFactory;
         this.identityFactory = identityFactory;
@@ -80,22 +84,24 @@ public class ServerFactoryImpl {
         this.backBufferFactory = backBufferFactory;
         this.groupChatManagerFactory = groupChatManagerFactory;
         this.userManager = userManager;
+        this.timerService = timerService;
+        this.reconnectScheduler = reconnectScheduler;
     }
 
     public Server getServer(
             final ConfigProviderMigrator configMigrator,
-            final ScheduledExecutorService executorService,
             final URI uri,
             final Profile profile) {
         final FrameContainer windowModel =
                 new FrameContainer("server-disconnected", getHost(uri), getHost(uri),
-                        configMigrator.getConfigProvider(), backBufferFactory, eventBus,
+                        configMigrator.getConfigProvider(), backBufferFactory, timerService, eventBus,
                         Arrays.asList(WindowComponent.TEXTAREA.getIdentifier(),
                                 WindowComponent.INPUTFIELD.getIdentifier(),
                                 WindowComponent.CERTIFICATE_VIEWER.getIdentifier()));
         final Server server = new Server(windowModel, configMigrator, parserFactory,
                 identityFactory, queryFactory.get(),
-                messageEncoderFactory, userSettings, groupChatManagerFactory, executorService,
+                messageEncoderFactory, userSettings, groupChatManagerFactory,
+                timerService.createGroup("server " + uri.getHost()), reconnectScheduler,
                 uri, profile, userManager);
         windowModel.setConnection(server);
         windowModel.initBackBuffer();
@@ -110,7 +116,8 @@ public class ServerFactoryImpl {
                         configMigrator.getConfigProvider(),
                         CommandType.TYPE_SERVER,
                         CommandType.TYPE_GLOBAL),
-                server::getMaxLineLength));
+                server::getMaxLineLength,
+                DefaultInputModel.getConfiguredCharset(windowModel.getConfigManager())));
         return server;
     }
 
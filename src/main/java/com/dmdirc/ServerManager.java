@@ -29,8 +29,6 @@ import com.dmdirc.parser.common.ChannelJoinRequest;
 import com.dmdirc.parser.interfaces.Parser;
 import com.dmdirc.ui.WindowManager;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
-
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -39,7 +37,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -102,12 +99,7 @@ public class ServerManager implements ConnectionManager {
         final ConfigProviderMigrator configProvider = identityFactory.createMigratableConfig(uri.
                 getScheme(), "", "", uri.getHost());
 
-        final Connection server = serverFactoryImpl.getServer(
-                configProvider,
-                Executors.newScheduledThreadPool(1,
-                        new ThreadFactoryBuilder().setNameFormat("server-timer-%d").build()),
-                uri,
-                profile);
+        final Connection server = serverFactoryImpl.getServer(configProvider, uri, profile);
         registerServer(server);
         windowManager.addWindow(server.getWindowModel());
         return server;
@@ -23,10 +23,11 @@ import com.dmdirc.interfaces.ConnectionManager;
 import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.util.system.LifecycleController;
 import com.dmdirc.util.system.SystemLifecycleComponent;
+import com.dmdirc.util.system.SystemLifecycleGraph;
 import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.interfaces.config.IdentityController;
 
-import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -40,8 +41,8 @@ public class SystemLifecycleController implements LifecycleController {
 
     /** Controller to retrieve settings from. */
     private final AggregateConfigProvider configProvider;
-    /** Components to shut down when the client quits. */
-    private final Set<SystemLifecycleComponent> lifecycleComponents;
+    /** Components to shut down when the client quits, in the order to shut them down. */
+    private final List<SystemLifecycleComponent> lifecycleComponents;
     /** Manager to use to disconnect servers. */
     private final ConnectionManager connectionManager;
     /** The event bus to raise client closed events on. */
@@ -57,7 +58,8 @@ public class SystemLifecycleController implements LifecycleController {
             final EventBus eventBus,
             final IdentityController identityController) {
         this.configProvider = configProvider;
-        this.lifecycleComponents = new HashSet<>(lifecycleComponents);
+        this.lifecycleComponents =
+                new SystemLifecycleGraph(lifecycleComponents).getShutDownOrder();
         this.connectionManager = connectionManager;
         this.eventBus = eventBus;
         this.identityController = identityController;
@@ -19,31 +19,133 @@ package com.dmdirc;
 
 import com.dmdirc.interfaces.Connection;
 import com.dmdirc.interfaces.User;
+import com.dmdirc.parser.interfaces.ChannelClientInfo;
+import com.dmdirc.parser.interfaces.ChannelInfo;
 import com.dmdirc.parser.interfaces.ClientInfo;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 /**
+ * Caches the {@link User}s that represent each of a connection's parser clients.
  *
+ * <p>Users are created lazily the first time they are requested, and must be evicted when their
+ * client quits, when we no longer share a channel or query with it, or when their connection is
+ * closed.
  */
 @Singleton
 public class UserManager {
 
     private final UserFactory userFactory;
-    private final Map<ClientInfo, User> userCache;
+    /** Cached users, keyed on their connection and then on their parser client. */
+    private final Map<Connection, Map<ClientInfo, User>> userCache = new ConcurrentHashMap<>();
+    /** The number of users that have been created. */
+    private final LongAdder created = new LongAdder();
+    /** The number of users that have been evicted. */
+    private final LongAdder evicted = new LongAdder();
 
     @Inject
     public UserManager(final UserFactory userFactory) {
         this.userFactory = userFactory;
-        userCache = new HashMap<>();
     }
 
     public User getUserFromClientInfo(final ClientInfo client, final Connection connection) {
-        userCache.putIfAbsent(client, userFactory.getUser(connection,client));
-        return userCache.get(client);
+        Map<ClientInfo, User> users = userCache.get(connection);
+        if (users == null) {
+            users = userCache.computeIfAbsent(connection, c -> new ConcurrentHashMap<>());
+        }
+
+        final User user = users.get(client);
+        if (user != null) {
+            return user;
+        }
+
+        return users.computeIfAbsent(client, c -> {
+            created.increment();
+            return userFactory.getUser(connection, c);
+        });
+    }
+
+    /**
+     * Evicts the user for the given client, for example because it has quit.
+     *
+     * @param client     The client to evict.
+     * @param connection The connection the client belongs to.
+     */
+    public void removeUser(final ClientInfo client, final Connection connection) {
+        final Map<ClientInfo, User> users = userCache.get(connection);
+        if (users != null && users.remove(client) != null) {
+            evicted.increment();
+        }
+    }
+
+    /**
+     * Evicts the user for the given client if it is leaving a channel and we will no longer share
+     * any other channel or an open query with it.
+     *
+     * @param client     The client that is leaving a channel.
+     * @param connection The connection the client belongs to.
+     * @param channel    The channel the client is leaving.
+     */
+    public void removeUserIfUnshared(final ClientInfo client, final Connection connection,
+            final ChannelInfo channel) {
+        final Map<ClientInfo, User> users = userCache.get(connection);
+        final User user = users == null ? null : users.get(client);
+        if (user == null) {
+            return;
+        }
+
+        final boolean shared = client.getChannelClients().stream()
+                .map(ChannelClientInfo::getChannel)
+                .anyMatch(c -> !c.equals(channel))
+                || connection.getQueries().stream().anyMatch(q -> q.getUser() == user);
+        if (!shared && users.remove(client, user)) {
+            evicted.increment();
+        }
+    }
+
+    /**
+     * Evicts all users belonging to the given connection, for example because it has been
+     * disconnected or closed.
+     *
+     * @param connection The connection whose users should be evicted.
+     */
+    public void removeConnection(final Connection connection) {
+        final Map<ClientInfo, User> users = userCache.remove(connection);
+        if (users != null) {
+            evicted.add(users.size());
+        }
+    }
+
+    /**
+     * Gets the number of users currently cached across all connections.
+     *
+     * @return The number of cached users.
+     */
+    public int getCacheSize() {
+        return userCache.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Gets the total number of users that have been created by this manager.
+     *
+     * @return The number of users created.
+     */
+    public long getCreatedCount() {
+        return created.sum();
+    }
+
+    /**
+     * Gets the total number of users that have been evicted from this manager.
+     *
+     * @return The number of users evicted.
+     */
+    public long getEvictedCount() {
+        return evicted.sum();
     }
+
 }
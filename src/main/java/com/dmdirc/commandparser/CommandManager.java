@@ -98,7 +98,7 @@ public class CommandManager implements CommandController {
     }
 
     @Override
-    public void unregisterCommand(final CommandInfo info) {
+    public synchronized void unregisterCommand(final CommandInfo info) {
         registerCommand(info, commands.get(info), false);
     }
 
@@ -111,7 +111,7 @@ public class CommandManager implements CommandController {
      *
      * @since 0.6.3m1
      */
-    private void registerCommand(final CommandInfo info, final Command command,
+    private synchronized void registerCommand(final CommandInfo info, final Command command,
             final boolean register) {
         if (parsers.containsKey(info.getType())) {
             registerCommand(info, command, parsers.get(info.getType()), register);
@@ -222,7 +222,7 @@ public class CommandManager implements CommandController {
     }
 
     @Override
-    public void loadCommands(final CommandParser parser,
+    public synchronized void loadCommands(final CommandParser parser,
             final CommandType... supertypes) {
         for (CommandType supertype : supertypes) {
             for (CommandType type : supertype.getComponentTypes()) {
@@ -276,7 +276,7 @@ public class CommandManager implements CommandController {
      *
      * @since 0.6.3m1
      */
-    private Map<CommandInfo, Command> getCommands(final CommandType type,
+    private synchronized Map<CommandInfo, Command> getCommands(final CommandType type,
             final String name) {
         final Map<CommandInfo, Command> res = new HashMap<>();
 
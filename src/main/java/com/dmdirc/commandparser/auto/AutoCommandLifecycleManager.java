@@ -17,8 +17,12 @@
 
 package com.dmdirc.commandparser.auto;
 
+import com.dmdirc.commandparser.aliases.AliasLifecycleManager;
 import com.dmdirc.util.system.SystemLifecycleComponent;
 
+import java.util.Collections;
+import java.util.Set;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -45,6 +49,12 @@ public class AutoCommandLifecycleManager implements SystemLifecycleComponent {
         manager.start();
     }
 
+    @Override
+    public Set<Class<? extends SystemLifecycleComponent>> getDependencies() {
+        // Auto commands may invoke aliases, so they must be loaded first.
+        return Collections.singleton(AliasLifecycleManager.class);
+    }
+
     @Override
     public void shutDown() {
         manager.stop();
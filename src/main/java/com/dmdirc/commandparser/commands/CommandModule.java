@@ -31,7 +31,9 @@ import com.dmdirc.commandparser.commands.chat.Me;
 import com.dmdirc.commandparser.commands.global.AliasCommand;
 import com.dmdirc.commandparser.commands.global.AllServers;
 import com.dmdirc.commandparser.commands.global.Clear;
+import com.dmdirc.commandparser.commands.global.ConfigStats;
 import com.dmdirc.commandparser.commands.global.Echo;
+import com.dmdirc.commandparser.commands.global.EventStats;
 import com.dmdirc.commandparser.commands.global.Exit;
 import com.dmdirc.commandparser.commands.global.Help;
 import com.dmdirc.commandparser.commands.global.Ifplugin;
@@ -44,6 +46,7 @@ import com.dmdirc.commandparser.commands.global.ReloadPlugin;
 import com.dmdirc.commandparser.commands.global.SaveConfig;
 import com.dmdirc.commandparser.commands.global.SetCommand;
 import com.dmdirc.commandparser.commands.global.UnloadPlugin;
+import com.dmdirc.commandparser.commands.global.UserStats;
 import com.dmdirc.commandparser.commands.server.AllChannels;
 import com.dmdirc.commandparser.commands.server.Away;
 import com.dmdirc.commandparser.commands.server.Back;
@@ -231,11 +234,21 @@ public class CommandModule {
         return new SimpleCommandDetails(command, Clear.INFO);
     }
 
+    @Provides(type = Provides.Type.SET)
+    public CommandDetails getConfigStatsCommand(final ConfigStats command) {
+        return new SimpleCommandDetails(command, ConfigStats.INFO);
+    }
+
     @Provides(type = Provides.Type.SET)
     public CommandDetails getEchoCommand(final Echo command) {
         return new SimpleCommandDetails(command, Echo.INFO);
     }
 
+    @Provides(type = Provides.Type.SET)
+    public CommandDetails getEventStatsCommand(final EventStats command) {
+        return new SimpleCommandDetails(command, EventStats.INFO);
+    }
+
     @Provides(type = Provides.Type.SET)
     public CommandDetails getExitCommand(final Exit command) {
         return new SimpleCommandDetails(command, Exit.INFO);
@@ -296,6 +309,11 @@ public class CommandModule {
         return new SimpleCommandDetails(command, SetCommand.INFO);
     }
 
+    @Provides(type = Provides.Type.SET)
+    public CommandDetails getUserStatsCommand(final UserStats command) {
+        return new SimpleCommandDetails(command, UserStats.INFO);
+    }
+
     /**
      * Simple implementation of {@link CommandDetails}.
      */
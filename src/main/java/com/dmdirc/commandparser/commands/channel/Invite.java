@@ -64,8 +64,8 @@ public class Invite extends BaseCommand implements ExternalCommand {
             showError(origin, args.isSilent(), "Insufficient arguments: must specify user");
         } else {
             final GroupChat groupChat = ((ChannelCommandContext) context).getGroupChat();
-            groupChat.getConnection().flatMap(Connection::getParser)
-                    .ifPresent(p -> p.sendInvite(groupChat.getName(), args.getArgumentsAsString()));
+            groupChat.getConnection().ifPresent(c -> invite(c, groupChat.getName(),
+                    args.getArgumentsAsString()));
         }
     }
 
@@ -75,8 +75,21 @@ public class Invite extends BaseCommand implements ExternalCommand {
         if (args.getArguments().length < 1) {
             showError(origin, isSilent,  "Insufficient arguments: must specify user");
         } else {
-            connection.getParser().get().sendInvite(channel, args.getArgumentsAsString());
+            invite(connection, channel, args.getArgumentsAsString());
         }
     }
 
+    /**
+     * Queues an invite to the given channel.
+     *
+     * @param connection The connection to send the invite on
+     * @param channel    The channel the user is invited to
+     * @param user       The user being invited
+     */
+    private static void invite(final Connection connection, final String channel,
+            final String user) {
+        connection.sendCommand("INVITE " + user + ' ' + channel,
+                p -> p.sendInvite(channel, user));
+    }
+
 }
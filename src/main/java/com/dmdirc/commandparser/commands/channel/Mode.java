@@ -68,8 +68,8 @@ public class Mode extends BaseCommand implements IntelligentCommand, ExternalCom
             channel.getEventBus().publishAsync(new ChannelModesDiscoveredEvent(
                     channel, channel.getModes()));
         } else {
-            channel.getConnection().get().getParser().get().sendRawMessage("MODE "
-                    + channel.getName() + ' ' + args.getArgumentsAsString());
+            channel.getConnection().get().sendLine("MODE " + channel.getName() + ' '
+                    + args.getArgumentsAsString());
         }
     }
 
@@ -77,9 +77,9 @@ public class Mode extends BaseCommand implements IntelligentCommand, ExternalCom
     public void execute(final WindowModel origin, final Connection connection,
             final String channel, final boolean isSilent, final CommandArguments args) {
         if (args.getArguments().length == 0) {
-            connection.getParser().get().sendRawMessage("MODE " + channel);
+            connection.sendLine("MODE " + channel);
         } else {
-            connection.getParser().get().sendRawMessage("MODE " + channel + ' ' + args.getArgumentsAsString());
+            connection.sendLine("MODE " + channel + ' ' + args.getArgumentsAsString());
         }
     }
 
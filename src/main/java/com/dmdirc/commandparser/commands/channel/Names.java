@@ -61,14 +61,13 @@ public class Names extends BaseCommand implements IntelligentCommand, ExternalCo
     public void execute(@Nonnull final WindowModel origin,
             final CommandArguments args, final CommandContext context) {
         final GroupChat channel = ((ChannelCommandContext) context).getGroupChat();
-        channel.getConnection().get().getParser().get().sendRawMessage("NAMES "
-                + channel.getName());
+        channel.getConnection().get().sendLine("NAMES " + channel.getName());
     }
 
     @Override
     public void execute(final WindowModel origin, final Connection connection,
             final String channel, final boolean isSilent, final CommandArguments args) {
-        connection.getParser().get().sendRawMessage("NAMES " + channel);
+        connection.sendLine("NAMES " + channel);
     }
 
     @Override
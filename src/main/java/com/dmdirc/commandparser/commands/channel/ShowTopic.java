@@ -87,10 +87,9 @@ public class ShowTopic extends BaseCommand implements ExternalCommand {
     public void execute(final WindowModel origin, final Connection connection,
             final String channel, final boolean isSilent, final CommandArguments args) {
         if (args.getArguments().length == 0) {
-            connection.getParser().get().sendRawMessage("TOPIC " + channel);
+            connection.sendLine("TOPIC " + channel);
         } else {
-            connection.getParser().get().sendRawMessage("TOPIC " + channel + " :" + args.
-                    getArgumentsAsString());
+            connection.sendLine("TOPIC " + channel + " :" + args.getArgumentsAsString());
         }
     }
 
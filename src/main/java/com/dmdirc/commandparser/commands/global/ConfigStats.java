@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.commandparser.commands.global;
+
+import com.dmdirc.commandparser.BaseCommandInfo;
+import com.dmdirc.commandparser.CommandInfo;
+import com.dmdirc.commandparser.CommandType;
+import com.dmdirc.config.ConfigAccessProfiler;
+import com.dmdirc.config.ConfigAccessStatistics;
+import com.dmdirc.interfaces.CommandController;
+import com.dmdirc.interfaces.WindowModel;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+/**
+ * Shows which config options are looked up most often, and by whom.
+ */
+public class ConfigStats extends StatisticsCommand {
+
+    /** A command info object for this command. */
+    public static final CommandInfo INFO = new BaseCommandInfo("configstats",
+            "configstats [keys|callers|enable|disable|trace|untrace|reset] [limit] - shows which "
+                    + "config options are looked up most often",
+            CommandType.TYPE_GLOBAL);
+    /** The profiler whose statistics will be shown. */
+    private final ConfigAccessProfiler profiler;
+
+    /**
+     * Creates a new instance of this command.
+     *
+     * @param controller The controller to use for command information.
+     * @param profiler   The profiler whose statistics will be shown.
+     */
+    @Inject
+    public ConfigStats(final CommandController controller, final ConfigAccessProfiler profiler) {
+        super(controller, INFO, "keys", "callers", "enable", "disable", "trace", "untrace",
+                "reset");
+        this.profiler = profiler;
+    }
+
+    @Override
+    protected void showStatistics(final WindowModel origin, final boolean isSilent,
+            final String mode, final int limit) {
+        switch (mode) {
+            case "callers":
+                showCallers(origin, isSilent, profiler.getStatistics(), limit);
+                break;
+            case "enable":
+                profiler.setEnabled(true);
+                showOutput(origin, isSilent, "Config lookups are now being counted.");
+                break;
+            case "disable":
+                profiler.setEnabled(false);
+                showOutput(origin, isSilent, "Config lookups are no longer being counted.");
+                break;
+            case "trace":
+                profiler.setTracingCallers(true);
+                showOutput(origin, isSilent, "Callers of config lookups are now being "
+                        + "recorded. This will slow down every lookup; use 'untrace' when done.");
+                break;
+            case "untrace":
+                profiler.setTracingCallers(false);
+                showOutput(origin, isSilent,
+                        "Callers of config lookups are no longer being recorded.");
+                break;
+            case "reset":
+                profiler.reset();
+                showOutput(origin, isSilent, "Config lookup statistics reset.");
+                break;
+            default:
+                // No mode was given, or "keys"; unknown modes have already been rejected.
+                showKeys(origin, isSilent, profiler.getStatistics(), limit);
+                break;
+        }
+    }
+
+    private void showKeys(final WindowModel origin, final boolean isSilent,
+            final List<ConfigAccessStatistics> stats, final int limit) {
+        showTable(origin, isSilent, new String[]{"Option", "Lookups", "Callers"},
+                getTop(stats, limit).stream().map(stat -> new String[]{
+                    stat.getKey(),
+                    String.valueOf(stat.getCount()),
+                    String.valueOf(stat.getCallers().size()),
+                }).collect(Collectors.toList()));
+    }
+
+    private void showCallers(final WindowModel origin, final boolean isSilent,
+            final List<ConfigAccessStatistics> stats, final int limit) {
+        if (!profiler.isTracingCallers()
+                && stats.stream().allMatch(s -> s.getCallers().isEmpty())) {
+            showError(origin, isSilent, "No callers have been recorded. Use '"
+                    + INFO.getName() + " trace' to start recording them.");
+            return;
+        }
+
+        showTable(origin, isSilent, new String[]{"Option", "Caller", "Lookups"},
+                getTop(stats, limit).stream().flatMap(stat -> stat.getCallers().entrySet()
+                        .stream().map(caller -> new String[]{
+                            stat.getKey(),
+                            caller.getKey(),
+                            String.valueOf(caller.getValue()),
+                        })).collect(Collectors.toList()));
+    }
+
+}
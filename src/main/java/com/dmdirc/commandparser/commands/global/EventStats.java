@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.commandparser.commands.global;
+
+import com.dmdirc.commandline.CommandLineOptionsModule.Directory;
+import com.dmdirc.commandline.CommandLineOptionsModule.DirectoryType;
+import com.dmdirc.commandparser.BaseCommandInfo;
+import com.dmdirc.commandparser.CommandInfo;
+import com.dmdirc.commandparser.CommandType;
+import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.events.eventbus.EventBusMetrics;
+import com.dmdirc.events.eventbus.EventTypeStatistics;
+import com.dmdirc.events.eventbus.HandlerInvocationSample;
+import com.dmdirc.events.eventbus.HandlerStatistics;
+import com.dmdirc.interfaces.CommandController;
+import com.dmdirc.interfaces.WindowModel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+/**
+ * Shows statistics collected by the global event bus.
+ */
+public class EventStats extends StatisticsCommand {
+
+    /** A command info object for this command. */
+    public static final CommandInfo INFO = new BaseCommandInfo("eventstats",
+            "eventstats [types|handlers|slow|reset|dump] [limit] - shows which events are published "
+                    + "and which handlers take the longest to process them",
+            CommandType.TYPE_GLOBAL);
+    /** The event bus whose metrics will be shown. */
+    private final EventBus eventBus;
+    /** The directory to dump the flight recorder to. */
+    private final Path errorsDirectory;
+
+    /**
+     * Creates a new instance of this command.
+     *
+     * @param controller      The controller to use for command information.
+     * @param eventBus        The event bus whose metrics will be shown.
+     * @param errorsDirectory The directory to dump the flight recorder to.
+     */
+    @Inject
+    public EventStats(final CommandController controller, final EventBus eventBus,
+            @Directory(DirectoryType.ERRORS) final Path errorsDirectory) {
+        super(controller, INFO, "types", "handlers", "slow", "reset", "dump");
+        this.eventBus = eventBus;
+        this.errorsDirectory = errorsDirectory;
+    }
+
+    @Override
+    protected void showStatistics(final WindowModel origin, final boolean isSilent,
+            final String mode, final int limit) {
+        final EventBusMetrics metrics = eventBus.getMetrics();
+        switch (mode) {
+            case "types":
+                showTypes(origin, isSilent, metrics.getEventTypeStatistics(), limit);
+                break;
+            case "handlers":
+                showHandlers(origin, isSilent, metrics.getHandlerStatistics(), limit);
+                break;
+            case "slow":
+                showSlow(origin, isSilent, metrics.getSlowestRecentInvocations(limit));
+                break;
+            case "reset":
+                metrics.reset();
+                showOutput(origin, isSilent, "Event bus statistics reset.");
+                break;
+            case "dump":
+                dumpFlightRecorder(origin, isSilent);
+                break;
+            default:
+                // No mode was given; unknown modes have already been rejected.
+                showOutput(origin, isSilent, "Async queue depth: "
+                        + metrics.getAsyncQueueDepth());
+                showTypes(origin, isSilent, metrics.getEventTypeStatistics(), limit);
+                showHandlers(origin, isSilent, metrics.getHandlerStatistics(), limit);
+                break;
+        }
+    }
+
+    private void dumpFlightRecorder(final WindowModel origin, final boolean isSilent) {
+        final Path file = errorsDirectory.resolve("events-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".log");
+        try {
+            Files.createDirectories(errorsDirectory);
+            eventBus.getFlightRecorder().dump(file);
+            showOutput(origin, isSilent, "Recent events written to " + file);
+        } catch (IOException ex) {
+            showError(origin, isSilent, "Unable to write recent events: " + ex.getMessage());
+        }
+    }
+
+    private void showTypes(final WindowModel origin, final boolean isSilent,
+            final List<EventTypeStatistics> stats, final int limit) {
+        showTable(origin, isSilent, new String[]{"Event", "Sync", "Async"},
+                getTop(stats, limit).stream().map(stat -> new String[]{
+                    stat.getType().getSimpleName(),
+                    String.valueOf(stat.getSyncCount()),
+                    String.valueOf(stat.getAsyncCount()),
+                }).collect(Collectors.toList()));
+    }
+
+    private void showHandlers(final WindowModel origin, final boolean isSilent,
+            final List<HandlerStatistics> stats, final int limit) {
+        showTable(origin, isSilent, new String[]{"Handler", "Calls", "Total (ms)", "p50 (us)",
+                "p99 (us)", "Max (us)"},
+                getTop(stats, limit).stream().map(stat -> new String[]{
+                    stat.getHandler(),
+                    String.valueOf(stat.getInvocations()),
+                    String.valueOf(stat.getTotal(TimeUnit.MILLISECONDS)),
+                    String.valueOf(stat.getMedian(TimeUnit.MICROSECONDS)),
+                    String.valueOf(stat.get99thPercentile(TimeUnit.MICROSECONDS)),
+                    String.valueOf(stat.getMax(TimeUnit.MICROSECONDS)),
+                }).collect(Collectors.toList()));
+    }
+
+    private void showSlow(final WindowModel origin, final boolean isSilent,
+            final List<HandlerInvocationSample> samples) {
+        showTable(origin, isSilent, new String[]{"Time", "Handler", "Event", "Duration (us)"},
+                samples.stream().map(sample -> new String[]{
+                    sample.getTimestamp().toLocalTime().toString(),
+                    sample.getHandler(),
+                    sample.getEventType().getSimpleName(),
+                    String.valueOf(sample.getDuration(TimeUnit.MICROSECONDS)),
+                }).collect(Collectors.toList()));
+    }
+
+}
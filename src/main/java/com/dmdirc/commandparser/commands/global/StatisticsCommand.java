@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.commandparser.commands.global;
+
+import com.dmdirc.commandparser.CommandArguments;
+import com.dmdirc.commandparser.CommandInfo;
+import com.dmdirc.commandparser.commands.BaseCommand;
+import com.dmdirc.commandparser.commands.IntelligentCommand;
+import com.dmdirc.commandparser.commands.context.CommandContext;
+import com.dmdirc.interfaces.CommandController;
+import com.dmdirc.interfaces.WindowModel;
+import com.dmdirc.ui.input.AdditionalTabTargets;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Base class for commands that show tables of statistics. Each command takes an optional mode,
+ * and an optional limit on the number of rows to show.
+ */
+abstract class StatisticsCommand extends BaseCommand implements IntelligentCommand {
+
+    /** The number of rows to show if no limit is specified. */
+    private static final int DEFAULT_LIMIT = 10;
+    /** The info of the command being executed. */
+    private final CommandInfo info;
+    /** The modes that may be given as the first argument. */
+    private final List<String> modes;
+
+    /**
+     * Creates a new instance of this command.
+     *
+     * @param controller The controller to use for command information.
+     * @param info       The info of the command being executed.
+     * @param modes      The modes that may be given as the first argument.
+     */
+    StatisticsCommand(final CommandController controller, final CommandInfo info,
+            final String... modes) {
+        super(controller);
+        this.info = info;
+        this.modes = Arrays.asList(modes);
+    }
+
+    @Override
+    public void execute(@Nonnull final WindowModel origin,
+            final CommandArguments args, final CommandContext context) {
+        final String[] arguments = args.getArguments();
+        final String mode = arguments.length > 0 ? arguments[0].toLowerCase() : "";
+
+        int limit = DEFAULT_LIMIT;
+        if (arguments.length > 1) {
+            try {
+                limit = Integer.parseInt(arguments[1]);
+            } catch (NumberFormatException ex) {
+                limit = 0;
+            }
+        }
+
+        if (limit < 1 || !mode.isEmpty() && !modes.contains(mode)) {
+            showUsage(origin, args.isSilent(), info.getName(),
+                    '[' + String.join("|", modes) + "] [limit]");
+            return;
+        }
+
+        showStatistics(origin, args.isSilent(), mode, limit);
+    }
+
+    /**
+     * Shows the statistics for the given mode.
+     *
+     * @param origin   The window the command was executed in.
+     * @param isSilent Whether this command is being silenced or not.
+     * @param mode     The mode given by the user, or an empty string if none was.
+     * @param limit    The maximum number of rows to show; always at least one.
+     */
+    protected abstract void showStatistics(WindowModel origin, boolean isSilent, String mode,
+            int limit);
+
+    /**
+     * Shows a table of statistics.
+     *
+     * @param origin   The window to show the table in.
+     * @param isSilent Whether this command is being silenced or not.
+     * @param headers  The headers of the table.
+     * @param rows     The contents of the table.
+     */
+    protected void showTable(final WindowModel origin, final boolean isSilent,
+            final String[] headers, final List<String[]> rows) {
+        showOutput(origin, isSilent, doTable(headers, rows.toArray(new String[rows.size()][])));
+    }
+
+    /**
+     * Gets the first entries of a list, up to the given limit.
+     *
+     * @param <T>   The type of entry in the list.
+     * @param items The list of items, ordered with the most interesting first.
+     * @param limit The maximum number of items to return.
+     *
+     * @return A view of the first {@code limit} items in the list.
+     */
+    protected static <T> List<T> getTop(final List<T> items, final int limit) {
+        return items.subList(0, Math.min(limit, items.size()));
+    }
+
+    @Override
+    public AdditionalTabTargets getSuggestions(final int arg,
+            final IntelligentCommandContext context) {
+        final AdditionalTabTargets res = new AdditionalTabTargets().excludeAll();
+        if (arg == 0) {
+            modes.forEach(res::add);
+        }
+        return res;
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.commandparser.commands.global;
+
+import com.dmdirc.GroupChatUserManager;
+import com.dmdirc.UserManager;
+import com.dmdirc.commandparser.BaseCommandInfo;
+import com.dmdirc.commandparser.CommandArguments;
+import com.dmdirc.commandparser.CommandInfo;
+import com.dmdirc.commandparser.CommandType;
+import com.dmdirc.commandparser.commands.BaseCommand;
+import com.dmdirc.commandparser.commands.IntelligentCommand;
+import com.dmdirc.commandparser.commands.context.CommandContext;
+import com.dmdirc.interfaces.CommandController;
+import com.dmdirc.interfaces.WindowModel;
+import com.dmdirc.ui.input.AdditionalTabTargets;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+/**
+ * Shows how many users and channel users are cached, and how many have been created and evicted.
+ */
+public class UserStats extends BaseCommand implements IntelligentCommand {
+
+    /** A command info object for this command. */
+    public static final CommandInfo INFO = new BaseCommandInfo("userstats",
+            "userstats - shows how many users are cached across all connections",
+            CommandType.TYPE_GLOBAL);
+    /** The manager of users on each connection. */
+    private final UserManager userManager;
+    /** The manager of users in each group chat. */
+    private final GroupChatUserManager groupChatUserManager;
+
+    /**
+     * Creates a new instance of this command.
+     *
+     * @param controller           The controller to use for command information.
+     * @param userManager          The manager of users on each connection.
+     * @param groupChatUserManager The manager of users in each group chat.
+     */
+    @Inject
+    public UserStats(final CommandController controller, final UserManager userManager,
+            final GroupChatUserManager groupChatUserManager) {
+        super(controller);
+        this.userManager = userManager;
+        this.groupChatUserManager = groupChatUserManager;
+    }
+
+    @Override
+    public void execute(@Nonnull final WindowModel origin,
+            final CommandArguments args, final CommandContext context) {
+        showOutput(origin, args.isSilent(), doTable(
+                new String[]{"Cache", "Cached", "Created", "Evicted"},
+                new String[][]{
+                    {
+                        "Users",
+                        String.valueOf(userManager.getCacheSize()),
+                        String.valueOf(userManager.getCreatedCount()),
+                        String.valueOf(userManager.getEvictedCount()),
+                    },
+                    {
+                        "Group chat users",
+                        String.valueOf(groupChatUserManager.getCacheSize()),
+                        String.valueOf(groupChatUserManager.getCreatedCount()),
+                        String.valueOf(groupChatUserManager.getEvictedCount()),
+                    },
+                }));
+    }
+
+    @Override
+    public AdditionalTabTargets getSuggestions(final int arg,
+            final IntelligentCommandContext context) {
+        return new AdditionalTabTargets().excludeAll();
+    }
+
+}
@@ -59,9 +59,9 @@ public class Away extends BaseCommand {
         final String line = args.getArgumentsAsString();
 
         if (line.isEmpty()) {
-            connection.getParser().get().getLocalClient().setBack();
+            connection.sendCommand("AWAY", p -> p.getLocalClient().setBack());
         } else {
-            connection.getParser().get().getLocalClient().setAway(line);
+            connection.sendCommand("AWAY :" + line, p -> p.getLocalClient().setAway(line));
         }
     }
 
@@ -58,7 +58,7 @@ public class Back extends BaseCommand implements IntelligentCommand {
     public void execute(@Nonnull final WindowModel origin,
             final CommandArguments args, final CommandContext context) {
         final Connection connection = ((ServerCommandContext) context).getConnection();
-        connection.getParser().get().getLocalClient().setBack();
+        connection.sendCommand("AWAY", p -> p.getLocalClient().setBack());
     }
 
     @Override
@@ -64,8 +64,11 @@ public class Ctcp extends BaseCommand implements IntelligentCommand {
         if (args.getArguments().length < 2) {
             showUsage(origin, args.isSilent(), "ctcp", "<target> <type> [arguments]");
         } else {
-            connection.getParser().get().sendCTCP(args.getArguments()[0],
-                    args.getArguments()[1], args.getArgumentsAsString(2));
+            final String target = args.getArguments()[0];
+            final String type = args.getArguments()[1];
+            final String message = args.getArgumentsAsString(2);
+            connection.sendCommand("PRIVMSG " + target + " :\u0001" + type + ' ' + message
+                    + '\u0001', p -> p.sendCTCP(target, type, message));
             if (!args.isSilent()) {
                 origin.getEventBus().publishAsync(new ServerCtcpSentEvent(
                         connection, args.getArguments()[0], args.getArgumentsAsString(1)));
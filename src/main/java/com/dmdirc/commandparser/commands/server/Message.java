@@ -32,7 +32,6 @@ import com.dmdirc.interfaces.CommandController;
 import com.dmdirc.interfaces.Connection;
 import com.dmdirc.interfaces.GroupChat;
 import com.dmdirc.interfaces.WindowModel;
-import com.dmdirc.parser.interfaces.Parser;
 import com.dmdirc.ui.input.AdditionalTabTargets;
 import com.dmdirc.ui.input.TabCompletionType;
 
@@ -83,10 +82,8 @@ public class Message extends BaseCommand implements IntelligentCommand, Wrappabl
             } else if (!args.isSilent() && connection.hasQuery(target)) {
                 connection.getQuery(target).sendLine(message, target);
             } else {
-                final Optional<Parser> parser = connection.getParser();
-
-                if (parser.isPresent()) {
-                    parser.get().sendMessage(target, message);
+                if (connection.getParser().isPresent()) {
+                    connection.sendMessage(target, message);
                 } else {
                     // This can happen if the server gets disconnected after
                     // the command manager has checked the @CommandOptions
@@ -65,7 +65,7 @@ public class Nick extends BaseCommand implements IntelligentCommand {
             return;
         }
 
-        connection.getParser().get().getLocalClient().setNickname(args.getArguments()[0]);
+        connection.setNickname(args.getArguments()[0]);
     }
 
     @Override
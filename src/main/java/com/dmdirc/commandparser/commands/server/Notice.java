@@ -64,8 +64,10 @@ public class Notice extends BaseCommand implements IntelligentCommand {
         if (args.getArguments().length < 2) {
             showUsage(origin, args.isSilent(), "notice", "<target> <message>");
         } else {
-            connection.getParser().get().sendNotice(args.getArguments()[0],
-                    args.getArgumentsAsString(1));
+            final String target = args.getArguments()[0];
+            final String message = args.getArgumentsAsString(1);
+            connection.sendCommand("NOTICE " + target + " :" + message,
+                    p -> p.sendNotice(target, message));
             if (!args.isSilent()) {
                 origin.getEventBus().publishAsync(new ServerNoticeSentEvent(
                         connection, args.getArguments()[0], args.getArgumentsAsString(1)));
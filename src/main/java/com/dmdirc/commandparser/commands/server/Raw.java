@@ -60,7 +60,7 @@ public class Raw extends BaseCommand {
         final Connection connection = ((ServerCommandContext) context).getConnection();
         final String line = args.getArgumentsAsString();
 
-        connection.getParser().get().sendRawMessage(line);
+        connection.sendCommand(line, p -> p.sendRawMessage(line));
         if (!args.isSilent()) {
             origin.getEventBus().publishAsync(new ServerRawLineSentEvent(connection, line));
         }
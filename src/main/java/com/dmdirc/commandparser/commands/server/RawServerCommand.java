@@ -54,8 +54,7 @@ public class RawServerCommand extends BaseCommand implements CommandInfo {
     public void execute(@Nonnull final WindowModel origin,
             final CommandArguments args, final CommandContext context) {
         final Connection connection = ((ServerCommandContext) context).getConnection();
-        connection.getParser().get().sendRawMessage(myName.toUpperCase() + ' '
-                + args.getArgumentsAsString());
+        connection.sendLine(myName.toUpperCase() + ' ' + args.getArgumentsAsString());
     }
 
     @Override
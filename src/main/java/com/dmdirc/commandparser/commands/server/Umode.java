@@ -63,7 +63,7 @@ public class Umode extends BaseCommand {
             return;
         }
 
-        connection.getParser().get().sendRawMessage("MODE "
+        connection.sendLine("MODE "
                 + connection.getParser().get().getLocalClient().getNickname()
                 + ' ' + args.getArgumentsAsString());
     }
@@ -62,6 +62,7 @@ public class Whois extends BaseCommand {
             return;
         }
 
-        connection.getParser().get().sendWhois(args.getArgumentsAsString());
+        final String user = args.getArgumentsAsString();
+        connection.sendCommand("WHOIS " + user, p -> p.sendWhois(user));
     }
 }
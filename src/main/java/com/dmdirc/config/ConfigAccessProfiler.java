@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.config;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Counts how often each config option is looked up, and optionally where the lookups come from.
+ *
+ * <p>All recording methods are lock-free and may be called concurrently from any thread. Reading
+ * methods return point-in-time snapshots which are never updated.
+ */
+public class ConfigAccessProfiler {
+
+    /** Packages whose frames are skipped when finding the caller of a lookup. */
+    private static final String[] INTERNAL_PACKAGES = {
+            "com.dmdirc.config", "com.dmdirc.config.provider", "java.lang",
+    };
+
+    /** Lookup counters, keyed on "domain.option". */
+    private final Map<String, AccessCounter> counters = new ConcurrentHashMap<>();
+    /** Whether lookups are being counted. */
+    private volatile boolean enabled = true;
+    /** Whether the callers of each lookup are being recorded. */
+    private volatile boolean tracingCallers;
+
+    /**
+     * Records a lookup of the specified option.
+     *
+     * @param domain The domain that is being looked up
+     * @param option The option that is being looked up
+     */
+    void record(final String domain, final String option) {
+        if (!enabled) {
+            return;
+        }
+
+        final String key = domain + '.' + option;
+        AccessCounter counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, k -> new AccessCounter());
+        }
+        counter.count.increment();
+
+        if (tracingCallers) {
+            final String caller = getCaller();
+            LongAdder callerCount = counter.callers.get(caller);
+            if (callerCount == null) {
+                callerCount = counter.callers.computeIfAbsent(caller, k -> new LongAdder());
+            }
+            callerCount.increment();
+        }
+    }
+
+    /**
+     * Finds the first method on the current stack outside of the config system.
+     *
+     * @return The caller in the form {@code Class#method}, or "unknown" if none was found.
+     */
+    private static String getCaller() {
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            if (!isInternal(element.getClassName())) {
+                return element.getClassName() + '#' + element.getMethodName();
+            }
+        }
+        return "unknown";
+    }
+
+    /**
+     * Determines whether the given class is part of the config system itself.
+     *
+     * @param className The fully qualified name of the class
+     *
+     * @return True if lookups made by the class should be attributed to its caller
+     */
+    private static boolean isInternal(final String className) {
+        final int index = className.lastIndexOf('.');
+        final String packageName = index == -1 ? "" : className.substring(0, index);
+        for (String internal : INTERNAL_PACKAGES) {
+            if (internal.equals(packageName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets lookup statistics for every option looked up so far, most frequent first.
+     *
+     * @return A list of access statistics.
+     */
+    public List<ConfigAccessStatistics> getStatistics() {
+        return counters.entrySet().stream()
+                .map(e -> new ConfigAccessStatistics(e.getKey(), e.getValue().count.sum(),
+                        e.getValue().callers.entrySet().stream().collect(Collectors.toMap(
+                                Map.Entry::getKey, c -> c.getValue().sum()))))
+                .sorted(Comparator.comparingLong(ConfigAccessStatistics::getCount).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the number of times the specified option has been looked up.
+     *
+     * @param domain The domain of the option
+     * @param option The name of the option
+     *
+     * @return The number of recorded lookups of the option
+     */
+    public long getCount(final String domain, final String option) {
+        final AccessCounter counter = counters.get(domain + '.' + option);
+        return counter == null ? 0 : counter.count.sum();
+    }
+
+    /**
+     * Determines whether lookups are currently being counted.
+     *
+     * @return True if lookups are counted, false otherwise
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether lookups should be counted. Existing statistics are kept when disabling.
+     *
+     * @param enabled True to count lookups, false to ignore them
+     */
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Determines whether the callers of lookups are currently being recorded.
+     *
+     * @return True if callers are recorded, false otherwise
+     */
+    public boolean isTracingCallers() {
+        return tracingCallers;
+    }
+
+    /**
+     * Sets whether the callers of lookups should be recorded. Finding the caller requires
+     * capturing a stack trace for every lookup, so this should only be enabled while
+     * investigating.
+     *
+     * @param tracingCallers True to record callers, false otherwise
+     */
+    public void setTracingCallers(final boolean tracingCallers) {
+        this.tracingCallers = tracingCallers;
+    }
+
+    /**
+     * Discards all statistics recorded so far.
+     */
+    public void reset() {
+        counters.clear();
+    }
+
+    /**
+     * Counters for a single option.
+     */
+    private static class AccessCounter {
+        private final LongAdder count = new LongAdder();
+        private final Map<String, LongAdder> callers = new ConcurrentHashMap<>();
+    }
+
+}
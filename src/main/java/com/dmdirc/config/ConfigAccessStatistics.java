@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.config;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Snapshot of the number of lookups of a single config option.
+ */
+public final class ConfigAccessStatistics {
+
+    /** The option, in the form {@code domain.option}. */
+    private final String key;
+    /** The number of times the option has been looked up. */
+    private final long count;
+    /** The number of lookups made by each caller, most frequent first. */
+    private final Map<String, Long> callers;
+
+    ConfigAccessStatistics(final String key, final long count, final Map<String, Long> callers) {
+        this.key = key;
+        this.count = count;
+        final Map<String, Long> sorted = new LinkedHashMap<>();
+        callers.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        this.callers = Collections.unmodifiableMap(sorted);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of lookups made by each caller. Callers are only recorded while caller
+     * tracing is enabled.
+     *
+     * @return A map of callers, in the form {@code Class#method}, to lookup counts.
+     */
+    public Map<String, Long> getCallers() {
+        return callers;
+    }
+
+    @Override
+    public String toString() {
+        return key + "{count=" + count + ", callers=" + callers + '}';
+    }
+
+}
@@ -17,23 +17,33 @@
 
 package com.dmdirc.config;
 
+import com.dmdirc.config.binding.BasicInvocation;
 import com.dmdirc.config.binding.ConfigBinder;
 import com.dmdirc.config.binding.ConfigBinding;
+import com.dmdirc.config.binding.Invocation;
 import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.config.provider.ConfigChangeListener;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Executable;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,6 +57,14 @@ import static com.dmdirc.util.LogUtils.APP_ERROR;
 class ConfigBinderImpl implements ConfigBinder {
 
     private static final Logger LOG = LoggerFactory.getLogger(ConfigBinder.class);
+    /** The bound members of each class, computed the first time the class is bound. */
+    private static final ClassValue<List<BoundMember>> MEMBERS =
+            new ClassValue<List<BoundMember>>() {
+        @Override
+        protected List<BoundMember> computeValue(final Class<?> type) {
+            return findBoundMembers(type);
+        }
+    };
 
     /** A map of instances to created listeners. */
     private final Multimap<Object, ConfigChangeListener> listeners = ArrayListMultimap.create();
@@ -72,27 +90,21 @@ class ConfigBinderImpl implements ConfigBinder {
     @Override
     public void bind(final Object instance, final Class<?> clazz) {
         final Collection<ConfigChangeListener> newListeners = new ArrayList<>();
-        final Collection<AccessibleObject> elements = new ArrayList<>();
 
-        elements.addAll(Arrays.asList(clazz.getDeclaredMethods()));
-        elements.addAll(Arrays.asList(clazz.getDeclaredFields()));
+        for (BoundMember member : MEMBERS.get(clazz)) {
+            final ConfigBinding binding = member.binding;
+            final ConfigChangeListener listener = getListener(instance, member);
+            newListeners.add(listener);
 
-        for (AccessibleObject element : elements) {
-            final ConfigBinding binding = element.getAnnotation(ConfigBinding.class);
-            if (binding != null) {
-                final ConfigChangeListener listener = getListener(instance, element, binding);
-                newListeners.add(listener);
+            manager.addChangeListener(getDomain(binding.domain()), binding.key(), listener);
 
-                manager.addChangeListener(getDomain(binding.domain()), binding.key(), listener);
-
-                for (int i = 0; i < binding.fallbacks().length - 1; i += 2) {
-                    manager.addChangeListener(getDomain(binding.fallbacks()[i]),
-                            binding.fallbacks()[i + 1], listener);
-                }
+            for (int i = 0; i < binding.fallbacks().length - 1; i += 2) {
+                manager.addChangeListener(getDomain(binding.fallbacks()[i]),
+                        binding.fallbacks()[i + 1], listener);
+            }
 
-                if (binding.applyInitially()) {
-                    updateBoundMember(instance, element, binding);
-                }
+            if (binding.applyInitially()) {
+                updateBoundMember(instance, member);
             }
         }
 
@@ -107,66 +119,61 @@ class ConfigBinderImpl implements ConfigBinder {
     }
 
     /**
-     * Creates a new listener which will call
-     * {@link #updateBoundMember(Object, AccessibleObject, ConfigBinding)} with the given arguments.
+     * Creates a new listener which will call {@link #updateBoundMember(Object, BoundMember)} with
+     * the given arguments.
      *
      * @param instance The instance to create a listener for
-     * @param element  The element to create a listener for
-     * @param binding  The binding annotation on the above element
+     * @param member   The member to create a listener for
      *
      * @return An appropriate config change listener
      */
-    private ConfigChangeListener getListener(final Object instance,
-            final AccessibleObject element, final ConfigBinding binding) {
-        return (domain, key) -> updateBoundMember(instance, element, binding);
+    private ConfigChangeListener getListener(final Object instance, final BoundMember member) {
+        return (domain, key) -> updateBoundMember(instance, member);
     }
 
     /**
-     * Updates the specified element of the given instance with the current value of the
+     * Updates the specified member of the given instance with the current value of the
      * configuration key(s) specified by its binding.
      *
      * @param instance The instance to be updated
-     * @param element  The element to be updated
-     * @param binding  The binding which defines the configuration properties
+     * @param member   The member to be updated
      */
-    private void updateBoundMember(final Object instance,
-            final AccessibleObject element, final ConfigBinding binding) {
-        if (!element.isAccessible()) {
-            element.setAccessible(true);
-        }
-
+    private void updateBoundMember(final Object instance, final BoundMember member) {
+        final ConfigBinding binding = member.binding;
         final Object value = valueRetriever.getValue(
-                getTargetClass(element),
+                member.targetClass,
                 getDomain(binding.domain()),
                 binding.key(),
                 binding.required(),
                 binding.fallbacks());
 
-        try {
-            binding.invocation().newInstance().invoke(element, instance, value);
-        } catch (ReflectiveOperationException ex) {
-            LOG.error(APP_ERROR, "Exception when updating bound setting", ex);
-        }
+        member.update(instance, value);
     }
 
     /**
-     * Gets the type required for setting the given element.
+     * Finds all members of the given class that are annotated with {@link ConfigBinding}.
      *
-     * @param element The element to determine a type for
+     * @param clazz The class to be scanned
      *
-     * @return If the given element is a field, then the type of that field; if the element is a
-     *         method then the type of the first parameter; otherwise, <code>String.class</code>.
+     * @return The bound members of the class
      */
-    private Class<?> getTargetClass(final AccessibleObject element) {
-        if (element instanceof Field) {
-            return ((Field) element).getType();
-        }
+    private static List<BoundMember> findBoundMembers(final Class<?> clazz) {
+        final Collection<AccessibleObject> elements = new ArrayList<>();
+        elements.addAll(Arrays.asList(clazz.getDeclaredMethods()));
+        elements.addAll(Arrays.asList(clazz.getDeclaredFields()));
 
-        if (element instanceof Executable) {
-            return ((Executable) element).getParameterTypes()[0];
+        final List<BoundMember> members = new ArrayList<>();
+        for (AccessibleObject element : elements) {
+            final ConfigBinding binding = element.getAnnotation(ConfigBinding.class);
+            if (binding != null) {
+                try {
+                    members.add(new BoundMember(element, binding));
+                } catch (ReflectiveOperationException ex) {
+                    LOG.error(APP_ERROR, "Unable to bind setting to " + element, ex);
+                }
+            }
         }
-
-        return String.class;
+        return Collections.unmodifiableList(members);
     }
 
     /**
@@ -195,4 +202,110 @@ class ConfigBinderImpl implements ConfigBinder {
         return new ConfigBinderImpl(manager, domain);
     }
 
+    /**
+     * A field or method annotated with {@link ConfigBinding}, along with everything needed to
+     * update it. Instances are shared by every binder, so must not hold state relating to any
+     * particular binding.
+     */
+    private static class BoundMember {
+
+        /** The binding annotation on the member. */
+        private final ConfigBinding binding;
+        /** The type of value the member accepts. */
+        private final Class<?> targetClass;
+        /** The member itself. */
+        private final AccessibleObject element;
+        /** Handle taking (instance, value) used to set the member, if using a basic invocation. */
+        @Nullable
+        private final MethodHandle setter;
+        /** The custom invocation used to set the member, if specified by the binding. */
+        @Nullable
+        private final Invocation invocation;
+
+        BoundMember(final AccessibleObject element, final ConfigBinding binding)
+                throws ReflectiveOperationException {
+            this.element = element;
+            this.binding = binding;
+            this.targetClass = getTargetClass(element);
+
+            element.setAccessible(true);
+            if (binding.invocation() == BasicInvocation.class) {
+                setter = createSetter(element);
+                invocation = null;
+            } else {
+                setter = null;
+                invocation = binding.invocation().newInstance();
+            }
+        }
+
+        /**
+         * Sets the member on the given instance to the given value.
+         *
+         * @param instance The instance to update
+         * @param value    The new value of the member
+         */
+        void update(final Object instance, final Object value) {
+            if (invocation != null) {
+                invocation.invoke(element, instance, value);
+                return;
+            }
+
+            try {
+                setter.invokeExact(instance, value);
+            } catch (Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                LOG.warn("Unable to update bound setting {}", element, ex);
+            }
+        }
+
+        /**
+         * Gets the type required for setting the given element.
+         *
+         * @param element The element to determine a type for
+         *
+         * @return If the given element is a field, then the type of that field; if the element is
+         *         a method then the type of the first parameter; otherwise,
+         *         <code>String.class</code>.
+         */
+        private static Class<?> getTargetClass(final AccessibleObject element) {
+            if (element instanceof Field) {
+                return ((Field) element).getType();
+            }
+
+            if (element instanceof Executable) {
+                return ((Executable) element).getParameterTypes()[0];
+            }
+
+            return String.class;
+        }
+
+        /**
+         * Creates a method handle that sets the given field or calls the given method.
+         *
+         * @param element The field or method to create a handle for
+         *
+         * @return A handle of type {@code (Object, Object)void}.
+         *
+         * @throws IllegalAccessException If the member cannot be accessed
+         */
+        private static MethodHandle createSetter(final AccessibleObject element)
+                throws IllegalAccessException {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            final MethodHandle handle;
+            final boolean isStatic;
+            if (element instanceof Field) {
+                handle = lookup.unreflectSetter((Field) element);
+                isStatic = Modifier.isStatic(((Field) element).getModifiers());
+            } else {
+                handle = lookup.unreflect((Method) element);
+                isStatic = Modifier.isStatic(((Method) element).getModifiers());
+            }
+
+            return (isStatic ? MethodHandles.dropArguments(handle, 0, Object.class) : handle)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+        }
+
+    }
+
 }
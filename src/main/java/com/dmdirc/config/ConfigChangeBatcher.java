@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.config;
+
+import com.dmdirc.config.provider.ConfigChangeListener;
+import com.dmdirc.config.provider.ConfigTransaction;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Forwards config change notifications to a listener, holding them back while a
+ * {@link ConfigTransaction} is open.
+ *
+ * <p>Notifications held back during a transaction are de-duplicated, and delivered in the order
+ * they were first received once the outermost transaction is committed.
+ */
+class ConfigChangeBatcher implements ConfigChangeListener {
+
+    /** The listener to deliver notifications to. */
+    private final ConfigChangeListener target;
+    /** Notifications held back by open transactions. */
+    private final Set<Map.Entry<String, String>> pending = new LinkedHashSet<>();
+    /** The number of transactions currently open. */
+    private int depth;
+
+    /**
+     * Creates a new batcher.
+     *
+     * @param target The listener to deliver notifications to.
+     */
+    ConfigChangeBatcher(final ConfigChangeListener target) {
+        this.target = target;
+    }
+
+    /**
+     * Starts a new transaction.
+     *
+     * @return A transaction which will release held back notifications when committed.
+     */
+    ConfigTransaction beginTransaction() {
+        synchronized (pending) {
+            depth++;
+        }
+
+        final AtomicBoolean committed = new AtomicBoolean();
+        return () -> {
+            if (committed.compareAndSet(false, true)) {
+                endTransaction();
+            }
+        };
+    }
+
+    @Override
+    public void configChanged(final String domain, final String key) {
+        synchronized (pending) {
+            if (depth > 0) {
+                pending.add(new AbstractMap.SimpleImmutableEntry<>(domain, key));
+                return;
+            }
+        }
+
+        target.configChanged(domain, key);
+    }
+
+    /**
+     * Ends a transaction, delivering held back notifications if it was the last one open.
+     */
+    private void endTransaction() {
+        final List<Map.Entry<String, String>> changes;
+        synchronized (pending) {
+            depth--;
+            if (depth > 0 || pending.isEmpty()) {
+                return;
+            }
+            changes = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        changes.forEach(change -> target.configChanged(change.getKey(), change.getValue()));
+    }
+
+}
@@ -19,6 +19,7 @@ package com.dmdirc.config;
 
 import com.dmdirc.config.provider.ConfigChangeListener;
 import com.dmdirc.config.provider.ConfigProvider;
+import com.dmdirc.config.provider.ConfigTransaction;
 import com.dmdirc.util.io.ConfigFile;
 import com.dmdirc.util.io.InvalidConfigFileException;
 import com.dmdirc.util.validators.Validator;
@@ -26,7 +27,12 @@ import com.dmdirc.util.validators.Validator;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.ref.WeakReference;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -52,6 +58,8 @@ public class ConfigFileBackedConfigProvider implements ConfigProvider {
     private static final String DOMAIN = "identity";
     /** The domain used for profile settings. */
     private static final String PROFILE_DOMAIN = "profile";
+    /** The domain used for settings that should never be saved. */
+    private static final String TEMP_DOMAIN = "temp";
     /** The target for this identity. */
     protected final ConfigTarget myTarget;
     /** The identity manager to use for writable configs. */
@@ -59,13 +67,22 @@ public class ConfigFileBackedConfigProvider implements ConfigProvider {
     private final IdentityManager identityManager;
     /** The configuration details for this identity. */
     protected final ConfigFile file;
+    /** The path of the file backing this identity, if any. */
+    @Nullable
+    private final Path path;
     /** The global config manager. */
     protected ConfigManager globalConfig;
     /** The config change listeners for this source. */
     protected final List<WeakReference<ConfigChangeListener>> listeners =
             new CopyOnWriteArrayList<>();
+    /** Batcher used to hold back change notifications during transactions. */
+    private final ConfigChangeBatcher changeBatcher =
+            new ConfigChangeBatcher(this::notifyListeners);
     /** Whether this identity needs to be saved. */
     private boolean needSave;
+    /** The modification time of the backing file when it was last read or written. */
+    @Nullable
+    private FileTime lastModified;
 
     /**
      * Creates a new instance of Identity.
@@ -81,10 +98,12 @@ public class ConfigFileBackedConfigProvider implements ConfigProvider {
             @Nullable final IdentityManager identityManager, final Path file,
             final boolean forceDefault) throws IOException, InvalidIdentityFileException {
         this.identityManager = identityManager;
+        this.path = file;
         this.file = new ConfigFile(file);
         this.file.setAutomake(true);
         initFile(forceDefault);
         myTarget = getTarget(forceDefault);
+        recordModifiedTime();
     }
 
     /**
@@ -99,6 +118,7 @@ public class ConfigFileBackedConfigProvider implements ConfigProvider {
     public ConfigFileBackedConfigProvider(final InputStream stream,
             final boolean forceDefault) throws IOException, InvalidIdentityFileException {
         this.identityManager = null;
+        this.path = null;
         this.file = new ConfigFile(stream);
         file.setAutomake(true);
         initFile(forceDefault);
@@ -115,6 +135,7 @@ public class ConfigFileBackedConfigProvider implements ConfigProvider {
     public ConfigFileBackedConfigProvider(@Nullable final IdentityManager identityManager,
             final ConfigFile configFile, final ConfigTarget target) {
         this.identityManager = identityManager;
+        this.path = null;
         this.file = configFile;
         file.setAutomake(true);
         this.myTarget = target;
@@ -196,6 +217,7 @@ public class ConfigFileBackedConfigProvider implements ConfigProvider {
             final Map<String, Map<String, String>> oldProps = new HashMap<>(file.getKeyDomains());
 
             file.read();
+            recordModifiedTime();
 
             for (Map.Entry<String, Map<String, String>> entry : file.getKeyDomains().entrySet()) {
                 final String domain = entry.getKey();
@@ -249,12 +271,32 @@ public class ConfigFileBackedConfigProvider implements ConfigProvider {
      * @since 0.6.3m1
      */
     private void fireSettingChange(final String domain, final String key) {
+        // Managers cache values until notified, so they must not wait for the transaction.
+        listeners.stream()
+                .map(WeakReference::get)
+                .filter(ConfigManager.class::isInstance)
+                .forEach(l -> ((ConfigManager) l).optionInvalidated(domain, key));
+        changeBatcher.configChanged(domain, key);
+    }
+
+    /**
+     * Notifies all registered listeners that the specified option has changed.
+     *
+     * @param domain The domain of the option that's changed
+     * @param key    The key of the option that's changed
+     */
+    private void notifyListeners(final String domain, final String key) {
         listeners.stream()
                 .map(WeakReference::get)
                 .filter(Objects::nonNull)
                 .forEach(l -> l.configChanged(domain, key));
     }
 
+    @Override
+    public ConfigTransaction beginTransaction() {
+        return changeBatcher.beginTransaction();
+    }
+
     @Override
     public String getName() {
         if (hasOptionString(DOMAIN, "name")) {
@@ -323,7 +365,7 @@ public class ConfigFileBackedConfigProvider implements ConfigProvider {
                         // There was an old value, so we need to unset it so
                         // that the default shows through.
                         file.getKeyDomain(domain).remove(option);
-                        needSave = true;
+                        needSave |= isPersisted(domain);
                         unset = true;
                     }
                 }
@@ -332,13 +374,14 @@ public class ConfigFileBackedConfigProvider implements ConfigProvider {
             if (!unset && (oldValue == null && value != null
                     || oldValue != null && !oldValue.equals(value))) {
                 file.getKeyDomain(domain).put(option, value);
-                needSave = true;
+                needSave |= isPersisted(domain);
             }
         }
 
         // Fire any setting change listeners now we're no longer holding
         // a lock on this identity.
         if (unset || !Objects.equals(oldValue, value)) {
+            scheduleSave(domain);
             fireSettingChange(domain, option);
         }
     }
@@ -374,9 +417,10 @@ public class ConfigFileBackedConfigProvider implements ConfigProvider {
 
         synchronized (this) {
             file.getKeyDomain(domain).remove(option);
-            needSave = true;
+            needSave |= isPersisted(domain);
         }
 
+        scheduleSave(domain);
         fireSettingChange(domain, option);
     }
 
@@ -446,12 +490,8 @@ public class ConfigFileBackedConfigProvider implements ConfigProvider {
                 }
             }
 
-            if (file.isKeyDomain("temp")) {
-                file.getKeyDomain("temp").clear();
-            }
-
             try {
-                file.write();
+                write();
 
                 needSave = false;
             } catch (IOException ex) {
@@ -460,6 +500,101 @@ public class ConfigFileBackedConfigProvider implements ConfigProvider {
         }
     }
 
+    /**
+     * Writes this identity's settings, other than temporary ones, to disk. If the identity is
+     * backed by a file, the settings are written to a temporary file which then replaces the
+     * original, so the original is never left partially written.
+     *
+     * @throws IOException If the settings could not be written
+     */
+    private void write() throws IOException {
+        if (path == null) {
+            if (file.isKeyDomain(TEMP_DOMAIN)) {
+                file.getKeyDomain(TEMP_DOMAIN).clear();
+            }
+            file.write();
+            return;
+        }
+
+        // Temporary settings are kept in memory, as saves happen in the background while the
+        // client is running.
+        final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        final ConfigFile copy = new ConfigFile(temp);
+        for (Map.Entry<String, Map<String, String>> entry : file.getKeyDomains().entrySet()) {
+            if (!TEMP_DOMAIN.equals(entry.getKey())) {
+                copy.addDomain(entry.getKey(), new HashMap<>(entry.getValue()));
+            }
+        }
+        for (Map.Entry<String, List<String>> entry : file.getFlatDomains().entrySet()) {
+            copy.addDomain(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        copy.write();
+
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        recordModifiedTime();
+    }
+
+    /**
+     * Determines whether the file backing this identity has been modified since it was last read
+     * or written by this identity.
+     *
+     * @return True if the file has been modified by something else, false otherwise
+     */
+    synchronized boolean isModifiedOnDisk() {
+        if (path == null) {
+            return false;
+        }
+
+        try {
+            return !Files.getLastModifiedTime(path).equals(lastModified);
+        } catch (IOException ex) {
+            return true;
+        }
+    }
+
+    /**
+     * Records the current modification time of the file backing this identity.
+     */
+    private void recordModifiedTime() {
+        if (path == null) {
+            return;
+        }
+
+        try {
+            lastModified = Files.getLastModifiedTime(path);
+        } catch (IOException ex) {
+            lastModified = null;
+        }
+    }
+
+    /**
+     * Asks the identity manager to save this identity in the background, unless the change was to
+     * a domain that is never saved.
+     *
+     * @param domain The domain of the option that changed
+     */
+    private void scheduleSave(final String domain) {
+        if (identityManager != null && isPersisted(domain)) {
+            identityManager.scheduleSave(this);
+        }
+    }
+
+    /**
+     * Determines whether options in the specified domain are written to disk.
+     *
+     * @param domain The domain to be checked
+     *
+     * @return True if the domain's options are saved, false otherwise
+     */
+    private static boolean isPersisted(final String domain) {
+        return !TEMP_DOMAIN.equals(domain);
+    }
+
     @Override
     public synchronized void delete() throws IOException {
         file.delete();
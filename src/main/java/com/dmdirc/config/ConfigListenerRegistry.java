@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.config;
+
+import com.dmdirc.config.provider.ConfigChangeListener;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps track of the {@link ConfigChangeListener}s registered with a config manager.
+ *
+ * <p>Registrations are indexed by domain and key, so notifying listeners doesn't involve building
+ * strings or copying lists, and by listener, so removing a listener only touches the keys it was
+ * registered for.
+ *
+ * <p>Listeners may be registered weakly, in which case they are dropped automatically once they
+ * are no longer referenced elsewhere.
+ */
+class ConfigListenerRegistry {
+
+    /** Listeners registered for each domain. */
+    private final Map<String, DomainListeners> domains = new ConcurrentHashMap<>();
+    /** Registrations made by each listener. */
+    private final Map<ConfigChangeListener, List<Registration>> registrations =
+            new WeakHashMap<>();
+    /** Queue of weak registrations whose listeners have been collected. */
+    private final ReferenceQueue<ConfigChangeListener> staleRegistrations =
+            new ReferenceQueue<>();
+
+    /**
+     * Registers a listener.
+     *
+     * @param domain   The domain to be monitored
+     * @param key      The key to be monitored, or {@code null} to monitor the entire domain
+     * @param listener The listener to register
+     * @param weak     True to drop the listener once it is not referenced elsewhere
+     */
+    void add(final String domain, @Nullable final String key,
+            final ConfigChangeListener listener, final boolean weak) {
+        expungeStaleRegistrations();
+
+        final Registration registration = new Registration(domain, key, listener, weak,
+                staleRegistrations);
+        synchronized (registrations) {
+            registrations.computeIfAbsent(listener, l -> new ArrayList<>()).add(registration);
+            getListeners(domain, key, true).add(registration);
+        }
+    }
+
+    /**
+     * Removes all registrations of the specified listener.
+     *
+     * @param listener The listener to be removed
+     */
+    void remove(final ConfigChangeListener listener) {
+        expungeStaleRegistrations();
+
+        synchronized (registrations) {
+            final List<Registration> removed = registrations.remove(listener);
+            if (removed != null) {
+                removed.forEach(this::unregister);
+            }
+        }
+    }
+
+    /**
+     * Determines whether any listeners are registered.
+     *
+     * @return True if there are no listeners registered, false otherwise
+     */
+    boolean isEmpty() {
+        expungeStaleRegistrations();
+
+        synchronized (registrations) {
+            return registrations.isEmpty();
+        }
+    }
+
+    /**
+     * Notifies listeners registered for the specified domain or option that it has changed.
+     *
+     * @param domain The domain of the option that's changed
+     * @param key    The key of the option that's changed
+     */
+    void notify(final String domain, final String key) {
+        expungeStaleRegistrations();
+
+        final DomainListeners listeners = domains.get(domain);
+        if (listeners == null) {
+            return;
+        }
+
+        listeners.domainListeners.forEach(r -> r.configChanged(domain, key));
+
+        final List<Registration> keyListeners = listeners.keyListeners.get(key);
+        if (keyListeners != null) {
+            keyListeners.forEach(r -> r.configChanged(domain, key));
+        }
+    }
+
+    /**
+     * Gets the list of registrations for the specified domain and key.
+     *
+     * @param domain The domain being monitored
+     * @param key    The key being monitored, or {@code null} for the entire domain
+     * @param create True to create the list if it doesn't exist
+     * @return The registrations for the domain and key, or {@code null} if there are none and
+     * {@code create} is false
+     */
+    @Nullable
+    private List<Registration> getListeners(final String domain, @Nullable final String key,
+            final boolean create) {
+        final DomainListeners listeners = create
+                ? domains.computeIfAbsent(domain, d -> new DomainListeners())
+                : domains.get(domain);
+        if (listeners == null) {
+            return null;
+        } else if (key == null) {
+            return listeners.domainListeners;
+        } else if (create) {
+            return listeners.keyListeners.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>());
+        } else {
+            return listeners.keyListeners.get(key);
+        }
+    }
+
+    /**
+     * Removes a single registration from the domain and key index.
+     *
+     * @param registration The registration to remove
+     */
+    private void unregister(final Registration registration) {
+        final List<Registration> listeners =
+                getListeners(registration.domain, registration.key, false);
+        if (listeners != null) {
+            listeners.remove(registration);
+        }
+    }
+
+    /**
+     * Removes weak registrations whose listeners have been garbage collected.
+     */
+    private void expungeStaleRegistrations() {
+        Reference<? extends ConfigChangeListener> reference;
+        while ((reference = staleRegistrations.poll()) != null) {
+            // The listener's entry in the registrations map is expunged by the WeakHashMap
+            unregister((Registration) reference);
+        }
+    }
+
+    /**
+     * The registrations for a single domain.
+     */
+    private static class DomainListeners {
+
+        /** Registrations covering the entire domain. */
+        private final List<Registration> domainListeners = new CopyOnWriteArrayList<>();
+        /** Registrations for individual keys within the domain. */
+        private final Map<String, List<Registration>> keyListeners = new ConcurrentHashMap<>();
+
+    }
+
+    /**
+     * A single registration of a listener for a domain or option.
+     */
+    private static class Registration extends WeakReference<ConfigChangeListener> {
+
+        /** The domain being monitored. */
+        private final String domain;
+        /** The key being monitored, or {@code null} for the entire domain. */
+        @Nullable private final String key;
+        /** Strong reference to the listener, if it wasn't registered weakly. */
+        @Nullable private final ConfigChangeListener listener;
+
+        Registration(final String domain, @Nullable final String key,
+                final ConfigChangeListener listener, final boolean weak,
+                final ReferenceQueue<ConfigChangeListener> queue) {
+            super(listener, queue);
+            this.domain = domain;
+            this.key = key;
+            this.listener = weak ? null : listener;
+        }
+
+        /**
+         * Passes a change notification on to the listener, if it still exists.
+         *
+         * @param changedDomain The domain of the option that's changed
+         * @param changedKey    The key of the option that's changed
+         */
+        void configChanged(final String changedDomain, final String changedKey) {
+            final ConfigChangeListener target = get();
+            if (target != null) {
+                target.configChanged(changedDomain, changedKey);
+            }
+        }
+
+    }
+
+}
@@ -22,17 +22,25 @@ import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.config.provider.ConfigChangeListener;
 import com.dmdirc.config.provider.ConfigProvider;
 import com.dmdirc.config.provider.ConfigProviderMigrator;
+import com.dmdirc.config.provider.ConfigTransaction;
+import com.dmdirc.config.provider.ReadOnlyConfigProvider;
 import com.dmdirc.util.validators.Validator;
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,18 +51,41 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
         AggregateConfigProvider {
 
     private static final Logger LOG = LoggerFactory.getLogger(ConfigManager.class);
-    /** Temporary map for lookup stats. */
-    private static final Map<String, Integer> STATS = new TreeMap<>();
+    /** Profiler shared by all managers to count option lookups. */
+    private static final ConfigAccessProfiler PROFILER = new ConfigAccessProfiler();
     /** Magical domain to redirect to the version identity. */
     private static final String VERSION_DOMAIN = "version";
+    /** Compiled regular expressions used by identity targets. */
+    private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+    /** Placeholder used to cache the absence of a value. */
+    private static final Object NO_VALUE = new Object();
     /** A list of sources for this config manager. */
     private final List<ConfigFileBackedConfigProvider> sources = new ArrayList<>();
     /** The listeners registered for this manager. */
-    private final Multimap<String, ConfigChangeListener> listeners = ArrayListMultimap.create();
+    private final ConfigListenerRegistry listeners = new ConfigListenerRegistry();
+    /** Batcher used to hold back change notifications during transactions. */
+    private final ConfigChangeBatcher changeBatcher =
+            new ConfigChangeBatcher(this::notifyListeners);
     /** The config binder to use for this manager. */
     private final ConfigBinder binder;
+    /** The manager providing global settings to this one, if any. */
+    @Nullable private final ConfigManager parent;
+    /** Managers which use this one as their parent. */
+    private final Set<ConfigManager> children =
+            Collections.newSetFromMap(new WeakHashMap<>());
     /** The manager to use to fetch global state. */
     private final IdentityManager manager;
+    /**
+     * Cache of resolved values, keyed on "domain.option" and then on the validator or
+     * {@link ValueType} used to look them up.
+     */
+    private final Map<String, Map<Object, Object>> values = new ConcurrentHashMap<>();
+    /** Cache of merged option maps for each domain. */
+    private final Map<String, Map<String, String>> domainOptions = new ConcurrentHashMap<>();
+    /** Counter incremented whenever cached values are invalidated. */
+    private volatile long generation;
+    /** View of this manager that resolves typed values without recording the lookups. */
+    private final ReadOnlyConfigProvider unrecorded = new UnrecordedView();
     /** The protocol this manager is for. */
     private String protocol;
     /** The ircd this manager is for. */
@@ -100,9 +131,31 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
             final IdentityManager manager,
             final String protocol, final String ircd,
             final String network, final String server, final String channel) {
+        this(manager, null, protocol, ircd, network, server, channel);
+    }
+
+    /**
+     * Creates a new instance of ConfigManager which takes its global settings from another
+     * manager. The new manager only holds the sources targeted at its protocol, ircd, network,
+     * server or channel.
+     *
+     * @param manager  The manager to use to retrieve global state horribly.
+     * @param parent   The manager to take global settings from, or {@code null} to hold all
+     *                 applicable sources in this manager
+     * @param protocol The protocol for this manager
+     * @param ircd     The name of the ircd for this manager
+     * @param network  The name of the network for this manager
+     * @param server   The name of the server for this manager
+     * @param channel  The name of the channel for this manager
+     */
+    ConfigManager(
+            final IdentityManager manager, @Nullable final ConfigManager parent,
+            final String protocol, final String ircd,
+            final String network, final String server, final String channel) {
         final String chanName = channel + '@' + network;
 
         this.manager = manager;
+        this.parent = parent;
         this.protocol = protocol;
         this.ircd = ircd;
         this.network = network;
@@ -110,6 +163,25 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
         this.channel = chanName;
 
         binder = new ConfigBinderImpl(this);
+
+        if (parent != null) {
+            synchronized (parent.children) {
+                parent.children.add(this);
+            }
+        }
+    }
+
+    /**
+     * Creates a new instance of ConfigManager which only holds global sources, for use as the
+     * parent of other managers.
+     *
+     * @param manager The manager to use to retrieve global state horribly.
+     */
+    ConfigManager(final IdentityManager manager) {
+        this.manager = manager;
+        this.parent = null;
+
+        binder = new ConfigBinderImpl(this);
     }
 
     @Override
@@ -130,15 +202,7 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
             return response;
         }
 
-        synchronized (sources) {
-            for (ConfigProvider source : sources) {
-                if (source.hasOption(domain, option, validator)) {
-                    return source.getOption(domain, option, validator);
-                }
-            }
-        }
-
-        return null;
+        return lookupOption(domain, option, validator);
     }
 
     @Override
@@ -151,6 +215,13 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
             return response != null && !validator.validate(response).isFailure();
         }
 
+        if (isCacheable(validator)) {
+            // Sources only return a value for options they have, so the cached value tells us
+            // whether any source has the option.
+            return getCached(domain, option, validator,
+                    () -> resolveOption(domain, option, validator)) != null;
+        }
+
         synchronized (sources) {
             for (ConfigProvider source : sources) {
                 if (source.hasOption(domain, option, validator)) {
@@ -159,7 +230,42 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
             }
         }
 
-        return false;
+        return parent != null && parent.lookupOption(domain, option, validator) != null;
+    }
+
+    @Override
+    public String getOptionString(final String domain, final String option,
+            final String... fallbacks) {
+        if (fallbacks.length > 0 || VERSION_DOMAIN.equals(domain)) {
+            return AggregateConfigProvider.super.getOptionString(domain, option, fallbacks);
+        }
+
+        doStats(domain, option);
+        return getCached(domain, option, ValueType.STRING,
+                () -> unrecorded.getOptionString(domain, option));
+    }
+
+    @Override
+    public Integer getOptionInt(final String domain, final String option,
+            final String... fallbacks) {
+        if (fallbacks.length > 0 || VERSION_DOMAIN.equals(domain)) {
+            return AggregateConfigProvider.super.getOptionInt(domain, option, fallbacks);
+        }
+
+        doStats(domain, option);
+        return getCached(domain, option, ValueType.INT,
+                () -> unrecorded.getOptionInt(domain, option));
+    }
+
+    @Override
+    public boolean getOptionBool(final String domain, final String option) {
+        if (VERSION_DOMAIN.equals(domain)) {
+            return AggregateConfigProvider.super.getOptionBool(domain, option);
+        }
+
+        doStats(domain, option);
+        return getCached(domain, option, ValueType.BOOL,
+                () -> unrecorded.getOptionBool(domain, option));
     }
 
     @Override
@@ -168,7 +274,14 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
             return manager.getVersionSettings().getOptions(domain);
         }
 
-        final Map<String, String> res = new HashMap<>();
+        final Map<String, String> cached = domainOptions.get(domain);
+        if (cached != null) {
+            return cached;
+        }
+
+        final long expectedGeneration = generation;
+        final Map<String, String> res = parent == null
+                ? new HashMap<>() : new HashMap<>(parent.getOptions(domain));
 
         synchronized (sources) {
             for (int i = sources.size() - 1; i >= 0; i--) {
@@ -176,7 +289,131 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
             }
         }
 
-        return res;
+        final Map<String, String> result = Collections.unmodifiableMap(res);
+        synchronized (values) {
+            if (generation == expectedGeneration) {
+                domainOptions.put(domain, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the value of the specified option, using the cache where possible. Unlike
+     * {@link #getOption(String, String, Validator)}, this doesn't record the lookup.
+     *
+     * @param domain    The domain of the option
+     * @param option    The name of the option
+     * @param validator The validator to use to check the option's value
+     *
+     * @return The value of the option, or null if no source has a valid value
+     */
+    private String lookupOption(final String domain, final String option,
+            final Validator<String> validator) {
+        if (isCacheable(validator)) {
+            return getCached(domain, option, validator,
+                    () -> resolveOption(domain, option, validator));
+        }
+
+        return resolveOption(domain, option, validator);
+    }
+
+    /**
+     * Finds the value of the specified option from the first source that has it, falling back to
+     * the parent manager if none of this manager's sources do.
+     *
+     * @param domain    The domain of the option
+     * @param option    The name of the option
+     * @param validator The validator to use to check the option's value
+     *
+     * @return The value of the option, or null if no source has a valid value
+     */
+    private String resolveOption(final String domain, final String option,
+            final Validator<String> validator) {
+        synchronized (sources) {
+            for (ConfigProvider source : sources) {
+                if (source.hasOption(domain, option, validator)) {
+                    return source.getOption(domain, option, validator);
+                }
+            }
+        }
+
+        return parent == null ? null : parent.lookupOption(domain, option, validator);
+    }
+
+    /**
+     * Determines whether lookups using the specified validator can be cached. Only the shared
+     * validators are cached, as callers constructing their own would fill the cache with entries
+     * that are never used again.
+     *
+     * @param validator The validator to be checked
+     *
+     * @return True if lookups with the validator may be cached, false otherwise
+     */
+    private static boolean isCacheable(final Validator<String> validator) {
+        return validator == PERMISSIVE_VALIDATOR || validator == INT_VALIDATOR;
+    }
+
+    /**
+     * Retrieves a value from the cache, resolving and caching it if it is not present.
+     *
+     * @param <T>    The type of value being retrieved
+     * @param domain The domain of the option
+     * @param option The name of the option
+     * @param type   The validator or {@link ValueType} used to look up the value
+     * @param loader Supplier used to resolve the value on a cache miss
+     *
+     * @return The (possibly cached) value of the option
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T getCached(final String domain, final String option, final Object type,
+            final Supplier<T> loader) {
+        final String key = domain + '.' + option;
+        final Map<Object, Object> cached = values.get(key);
+        if (cached != null) {
+            final Object value = cached.get(type);
+            if (value != null) {
+                return value == NO_VALUE ? null : (T) value;
+            }
+        }
+
+        final long expectedGeneration = generation;
+        final T value = loader.get();
+
+        synchronized (values) {
+            // If anything was invalidated while we were resolving, the value may be stale.
+            if (generation == expectedGeneration) {
+                values.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                        .put(type, value == null ? NO_VALUE : value);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Discards any cached values for the specified option.
+     *
+     * @param domain The domain of the option
+     * @param option The name of the option
+     */
+    private void invalidate(final String domain, final String option) {
+        synchronized (values) {
+            generation++;
+            values.remove(domain + '.' + option);
+            domainOptions.remove(domain);
+        }
+    }
+
+    /**
+     * Discards all cached values.
+     */
+    private void invalidateAll() {
+        synchronized (values) {
+            generation++;
+            values.clear();
+            domainOptions.clear();
+        }
     }
 
     /**
@@ -202,6 +439,7 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
             identity.removeListener(this);
             sources.remove(identity);
         }
+        invalidateAll();
 
         // Fire change listeners
         for (String[] setting : changed) {
@@ -230,7 +468,7 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
             }
         }
 
-        return null;
+        return parent == null ? null : parent.getScope(domain, option);
     }
 
     /**
@@ -241,40 +479,43 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
      * @return True if the identity applies, false otherwise
      */
     public boolean identityApplies(final ConfigFileBackedConfigProvider identity) {
-        final String comp;
+        final String comp = getTargetValue(identity.getTarget().getType());
 
-        switch (identity.getTarget().getType()) {
+        final boolean result = comp != null
+                && identityTargetMatches(identity.getTarget().getData(), comp);
+
+        LOG.trace("Checking if identity {} applies. Comparison: {}, target: {}, result: {}",
+                identity, comp, identity.getTarget().getData(), result);
+
+        return result;
+    }
+
+    /**
+     * Gets the value that targets of the specified type are compared against for this manager.
+     *
+     * @param type The type of target
+     *
+     * @return The value to compare targets to, or null if targets of that type never apply
+     */
+    String getTargetValue(final ConfigTarget.TYPE type) {
+        switch (type) {
             case PROTOCOL:
-                comp = protocol;
-                break;
+                return protocol;
             case IRCD:
-                comp = ircd;
-                break;
+                return ircd;
             case NETWORK:
-                comp = network;
-                break;
+                return network;
             case SERVER:
-                comp = server;
-                break;
+                return server;
             case CHANNEL:
-                comp = channel;
-                break;
+                return channel;
             case CUSTOM:
                 // We don't want custom identities
-                comp = null;
-                break;
+                return null;
             default:
-                comp = "";
-                break;
+                // Global identities are held by the parent, if there is one
+                return parent == null ? "" : null;
         }
-
-        final boolean result = comp != null
-                && identityTargetMatches(identity.getTarget().getData(), comp);
-
-        LOG.trace("Checking if identity {} applies. Comparison: {}, target: {}, result: {}",
-                identity, comp, identity.getTarget().getData(), result);
-
-        return result;
     }
 
     /**
@@ -290,7 +531,9 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
      * @since 0.6.3m2
      */
     protected boolean identityTargetMatches(final String actual, final String desired) {
-        return actual.startsWith("re:") ? desired.matches(actual.substring(3))
+        return actual.startsWith("re:")
+                ? PATTERNS.computeIfAbsent(actual.substring(3), Pattern::compile)
+                        .matcher(desired).matches()
                 : actual.equalsIgnoreCase(desired);
     }
 
@@ -307,6 +550,7 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
                 identity.addListener(this);
                 sources.sort(new ConfigProviderTargetComparator());
             }
+            invalidateAll();
 
             // Determine which settings will have changed
             for (String domain : identity.getDomains()) {
@@ -319,7 +563,7 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
 
     @Override
     public Set<String> getDomains() {
-        final Set<String> res = new HashSet<>();
+        final Set<String> res = parent == null ? new HashSet<>() : parent.getDomains();
 
         synchronized (sources) {
             for (ConfigProvider source : sources) {
@@ -332,7 +576,11 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
 
     @Override
     public List<ConfigProvider> getSources() {
-        return new ArrayList<>(sources);
+        final List<ConfigProvider> res = new ArrayList<>(sources);
+        if (parent != null) {
+            res.addAll(parent.getSources());
+        }
+        return res;
     }
 
     /**
@@ -361,19 +609,85 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
         this.server = server;
         this.channel = channel + '@' + network;
 
-        new ArrayList<>(sources).stream().filter(identity -> !identityApplies(identity))
-                .forEach(identity -> {
-                    LOG.debug("Removing identity that no longer applies: {}", identity);
-                    removeIdentity(identity);
-                });
+        updateSources(manager.getIdentitiesForManager(this));
 
-        final List<ConfigFileBackedConfigProvider> newSources = manager.getIdentitiesForManager(this);
-        for (ConfigFileBackedConfigProvider identity : newSources) {
-            LOG.trace("Testing new identity: {}", identity);
-            checkIdentity(identity);
+        LOG.debug("New identities: {}", sources);
+    }
+
+    /**
+     * Replaces this manager's sources with the specified identities, firing listeners for any
+     * settings whose values have changed as a result.
+     *
+     * @param newSources The identities that should be used as sources
+     */
+    void updateSources(final Collection<ConfigFileBackedConfigProvider> newSources) {
+        final Set<ConfigFileBackedConfigProvider> removed;
+        final Set<ConfigFileBackedConfigProvider> added;
+        synchronized (sources) {
+            removed = new HashSet<>(sources);
+            removed.removeAll(newSources);
+            added = new LinkedHashSet<>(newSources);
+            added.removeAll(sources);
         }
 
-        LOG.debug("New identities: {}", sources);
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+
+        // Record the current values of every setting that could change, unless there's no one to
+        // tell about them
+        final Map<String, Map<String, String>> oldValues = new HashMap<>();
+        if (!listeners.isEmpty() || hasChildren()) {
+            for (ConfigProvider identity : removed) {
+                recordValues(identity, oldValues);
+            }
+            for (ConfigProvider identity : added) {
+                recordValues(identity, oldValues);
+            }
+        }
+
+        synchronized (sources) {
+            for (ConfigFileBackedConfigProvider identity : removed) {
+                LOG.debug("Removing identity that no longer applies: {}", identity);
+                identity.removeListener(this);
+                sources.remove(identity);
+            }
+            for (ConfigFileBackedConfigProvider identity : added) {
+                LOG.trace("Adding new identity: {}", identity);
+                sources.add(identity);
+                identity.addListener(this);
+            }
+            sources.sort(new ConfigProviderTargetComparator());
+        }
+        invalidateAll();
+
+        for (Map.Entry<String, Map<String, String>> domain : oldValues.entrySet()) {
+            for (Map.Entry<String, String> option : domain.getValue().entrySet()) {
+                if (!Objects.equals(option.getValue(),
+                        resolveOption(domain.getKey(), option.getKey(), PERMISSIVE_VALIDATOR))) {
+                    configChanged(domain.getKey(), option.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the current value of every option defined by the specified identity.
+     *
+     * @param identity The identity whose options should be recorded
+     * @param values   The map to record values in, keyed on domain and then option
+     */
+    private void recordValues(final ConfigProvider identity,
+            final Map<String, Map<String, String>> values) {
+        for (String domain : identity.getDomains()) {
+            final Map<String, String> domainValues =
+                    values.computeIfAbsent(domain, d -> new HashMap<>());
+            for (String option : identity.getOptions(domain).keySet()) {
+                if (!domainValues.containsKey(option)) {
+                    domainValues.put(option, resolveOption(domain, option, PERMISSIVE_VALIDATOR));
+                }
+            }
+        }
     }
 
     /**
@@ -382,76 +696,153 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
      * @param domain The domain that is being looked up
      * @param option The option that is being looked up
      */
-    @SuppressWarnings("PMD.AvoidCatchingNPE")
     protected static void doStats(final String domain, final String option) {
-        final String key = domain + '.' + option;
-
-        try {
-            STATS.put(key, 1 + (STATS.containsKey(key) ? STATS.get(key) : 0));
-        } catch (NullPointerException ex) {
-            // JVM bugs ftl.
-        }
+        PROFILER.record(domain, option);
     }
 
     /**
-     * Retrieves the statistic map.
+     * Retrieves a snapshot of the statistic map.
      *
      * @return A map of config options to lookup counts
      */
     public static Map<String, Integer> getStats() {
-        return STATS;
+        final Map<String, Integer> stats = new TreeMap<>();
+        PROFILER.getStatistics().forEach(s -> stats.put(s.getKey(),
+                (int) Math.min(Integer.MAX_VALUE, s.getCount())));
+        return stats;
+    }
+
+    /**
+     * Retrieves the profiler used to count option lookups made through any manager.
+     *
+     * @return The shared config access profiler
+     */
+    public static ConfigAccessProfiler getProfiler() {
+        return PROFILER;
     }
 
     @Override
     public void addChangeListener(final String domain,
             final ConfigChangeListener listener) {
-        addListener(domain, listener);
+        listeners.add(domain, null, listener, false);
     }
 
     @Override
     public void addChangeListener(final String domain, final String key,
             final ConfigChangeListener listener) {
-        addListener(domain + '.' + key, listener);
+        listeners.add(domain, key, listener, false);
+    }
+
+    @Override
+    public void addWeakChangeListener(final String domain, final String key,
+            final ConfigChangeListener listener) {
+        listeners.add(domain, key, listener, true);
     }
 
     @Override
     public void removeListener(final ConfigChangeListener listener) {
-        synchronized (listeners) {
-            final Iterable<String> keys = new HashSet<>(listeners.keySet());
-            keys.forEach(k -> listeners.remove(k, listener));
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void configChanged(final String domain, final String key) {
+        invalidate(domain, key);
+        changeBatcher.configChanged(domain, key);
+
+        final Collection<ConfigManager> targets;
+        synchronized (children) {
+            if (children.isEmpty()) {
+                return;
+            }
+            targets = new ArrayList<>(children);
         }
+        targets.forEach(child -> child.parentChanged(domain, key));
     }
 
     /**
-     * Adds the specified listener to the internal map/list.
+     * Discards cached values for the specified option in this manager and its children, without
+     * notifying any listeners. Sources call this as soon as an option changes, so that lookups
+     * stay current while a transaction is holding back the change notification itself.
      *
-     * @param key      The key to use (domain or domain.key)
-     * @param listener The listener to register
+     * @param domain The domain of the option that's changed
+     * @param key    The key of the option that's changed
      */
-    private void addListener(final String key,
-            final ConfigChangeListener listener) {
-        synchronized (listeners) {
-            listeners.put(key, listener);
+    void optionInvalidated(final String domain, final String key) {
+        invalidate(domain, key);
+
+        final Collection<ConfigManager> targets;
+        synchronized (children) {
+            targets = new ArrayList<>(children);
         }
+        targets.forEach(child -> child.optionInvalidated(domain, key));
     }
 
-    @Override
-    public void configChanged(final String domain, final String key) {
-        final Collection<ConfigChangeListener> targets = new ArrayList<>();
+    /**
+     * Called when an option provided by the parent manager has changed. Cached values are always
+     * discarded, but listeners are only notified if the parent's value is the one this manager
+     * resolves.
+     *
+     * @param domain The domain of the option that's changed
+     * @param key    The key of the option that's changed
+     */
+    private void parentChanged(final String domain, final String key) {
+        invalidate(domain, key);
 
-        if (listeners.containsKey(domain)) {
-            targets.addAll(listeners.get(domain));
+        if (!hasEffectiveLocalValue(domain, key)) {
+            configChanged(domain, key);
         }
+    }
+
+    /**
+     * Determines whether this manager's own sources provide the value of the specified option for
+     * every cached lookup, so that a change in the parent can't affect what this manager returns.
+     *
+     * @param domain The domain of the option
+     * @param key    The key of the option
+     *
+     * @return True if the option's value is taken from a local source, false otherwise
+     */
+    private boolean hasEffectiveLocalValue(final String domain, final String key) {
+        synchronized (sources) {
+            if (sources.stream().noneMatch(s -> s.hasOption(domain, key, PERMISSIVE_VALIDATOR))) {
+                return false;
+            }
 
-        if (listeners.containsKey(domain + '.' + key)) {
-            targets.addAll(listeners.get(domain + '.' + key));
+            if (sources.stream().anyMatch(s -> s.hasOption(domain, key, INT_VALIDATOR))) {
+                return true;
+            }
         }
 
-        for (ConfigChangeListener listener : targets) {
-            listener.configChanged(domain, key);
+        // The local value isn't numeric, so integer lookups fall through to the parent.
+        return parent == null || parent.lookupOption(domain, key, INT_VALIDATOR) == null;
+    }
+
+    /**
+     * Determines whether any managers use this one as their parent.
+     *
+     * @return True if this manager has children, false otherwise
+     */
+    private boolean hasChildren() {
+        synchronized (children) {
+            return !children.isEmpty();
         }
     }
 
+    @Override
+    public ConfigTransaction beginTransaction() {
+        return changeBatcher.beginTransaction();
+    }
+
+    /**
+     * Notifies the listeners registered for the specified option that it has changed.
+     *
+     * @param domain The domain of the option that's changed
+     * @param key    The key of the option that's changed
+     */
+    private void notifyListeners(final String domain, final String key) {
+        listeners.notify(domain, key);
+    }
+
     @Override
     public void configProviderAdded(final ConfigFileBackedConfigProvider configProvider) {
         checkIdentity(configProvider);
@@ -462,4 +853,41 @@ class ConfigManager implements ConfigChangeListener, ConfigProviderListener,
         removeIdentity(configProvider);
     }
 
+    /**
+     * Resolves options through the manager without recording them, so that typed lookups are
+     * counted once however many underlying lookups they need.
+     */
+    private class UnrecordedView implements ReadOnlyConfigProvider {
+
+        @Override
+        public String getOption(final String domain, final String option,
+                final Validator<String> validator) {
+            return lookupOption(domain, option, validator);
+        }
+
+        @Override
+        public boolean hasOption(final String domain, final String option,
+                final Validator<String> validator) {
+            return lookupOption(domain, option, validator) != null;
+        }
+
+        @Override
+        public Map<String, String> getOptions(final String domain) {
+            return ConfigManager.this.getOptions(domain);
+        }
+
+    }
+
+    /**
+     * Types of converted values that are cached alongside raw lookups.
+     */
+    private enum ValueType {
+        /** Values returned by {@link #getOptionString(String, String, String...)}. */
+        STRING,
+        /** Values returned by {@link #getOptionInt(String, String, String...)}. */
+        INT,
+        /** Values returned by {@link #getOptionBool(String, String)}. */
+        BOOL
+    }
+
 }
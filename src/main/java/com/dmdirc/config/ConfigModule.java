@@ -24,6 +24,8 @@ import com.dmdirc.interfaces.config.IdentityController;
 import com.dmdirc.interfaces.config.IdentityFactory;
 import com.dmdirc.logger.ErrorManager;
 import com.dmdirc.ui.WarningDialog;
+import com.dmdirc.util.FileWatcher;
+import com.dmdirc.util.StartupTracer;
 import dagger.Module;
 import dagger.Provides;
 import java.awt.GraphicsEnvironment;
@@ -51,11 +53,13 @@ public class ConfigModule {
             @Directory(DirectoryType.IDENTITIES) final Path identitiesDirectory,
             @Directory(DirectoryType.ERRORS) final Path errorsDirectory,
             final CommandLineParser commandLineParser,
-            final ErrorManager errorManager) {
+            final ErrorManager errorManager,
+            final FileWatcher fileWatcher,
+            final StartupTracer startupTracer) {
         final IdentityManager identityManager = new IdentityManager(baseDirectory, identitiesDirectory);
         errorManager.initialise(identityManager.getGlobalConfiguration());
         identityManager.loadVersionIdentity();
-        try {
+        try (StartupTracer.Span span = startupTracer.start("config", "Identities")) {
             identityManager.initialise();
         } catch (InvalidIdentityFileException ex) {
             handleInvalidConfigFile(identityManager, baseDirectory);
@@ -65,6 +69,8 @@ public class ConfigModule {
             identityManager.getUserSettings().setOption("temp", "noerrorreporting", true);
         }
 
+        identityManager.watchForChanges(fileWatcher);
+
         return identityManager;
     }
 
@@ -96,6 +102,11 @@ public class ConfigModule {
         return identityManager;
     }
 
+    @Provides
+    public ConfigAccessProfiler getConfigAccessProfiler() {
+        return ConfigManager.getProfiler();
+    }
+
     /**
      * Called when the global config cannot be loaded due to an error. This method informs the user
      * of the problem and installs a new default config file, backing up the old one.
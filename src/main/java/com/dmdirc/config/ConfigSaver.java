@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.config;
+
+import com.dmdirc.config.provider.ConfigProvider;
+import com.dmdirc.util.LoggingScheduledExecutorService;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.dmdirc.util.LogUtils.APP_ERROR;
+
+/**
+ * Saves modified config providers on a background thread.
+ *
+ * <p>Providers marked as dirty are collected for a short period before being saved, so that a
+ * burst of changes to the same provider results in a single write. All saves happen on a single
+ * thread, so providers are never written concurrently.
+ */
+class ConfigSaver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConfigSaver.class);
+    /** How long to wait for further changes before saving dirty providers, in milliseconds. */
+    private static final long SAVE_DELAY = 1000;
+    /** How long the saving thread is kept alive while idle, in seconds. */
+    private static final long KEEP_ALIVE = 10;
+    /** The executor used to perform saves. */
+    private final ScheduledExecutorService executor;
+    /** Providers waiting to be saved. */
+    private final Set<ConfigProvider> dirty = ConcurrentHashMap.newKeySet();
+    /** Whether a save is currently scheduled. */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Creates a new saver with its own background thread.
+     */
+    ConfigSaver() {
+        this(createExecutor());
+    }
+
+    /**
+     * Creates a new saver that uses the specified executor.
+     *
+     * @param executor The executor to perform saves on; it must run tasks one at a time.
+     */
+    ConfigSaver(final ScheduledExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Marks the specified provider as needing to be saved. The provider will be saved shortly,
+     * along with any other providers marked in the meantime.
+     *
+     * @param provider The provider to be saved
+     */
+    void markDirty(final ConfigProvider provider) {
+        dirty.add(provider);
+        if (scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::saveDirty, SAVE_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Saves the specified providers, along with any already waiting to be saved, and waits for
+     * the saves to complete.
+     *
+     * @param providers The providers to be saved
+     * @param timeout   The maximum time to wait
+     * @param unit      The unit of the timeout argument
+     *
+     * @return True if all saves completed within the timeout, false otherwise
+     */
+    boolean saveAndWait(final Collection<? extends ConfigProvider> providers,
+            final long timeout, final TimeUnit unit) {
+        dirty.addAll(providers);
+        final Future<?> future = executor.submit(this::saveDirty);
+        try {
+            future.get(timeout, unit);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            LOG.error(APP_ERROR, "Unable to save config", ex.getCause());
+        } catch (TimeoutException ex) {
+            LOG.warn(APP_ERROR, "Timed out waiting for config to be saved");
+        }
+        return false;
+    }
+
+    /**
+     * Saves every provider currently marked as dirty.
+     */
+    private void saveDirty() {
+        scheduled.set(false);
+
+        final Iterator<ConfigProvider> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            final ConfigProvider provider = iterator.next();
+            iterator.remove();
+            try {
+                provider.save();
+            } catch (RuntimeException ex) {
+                LOG.error(APP_ERROR, "Unable to save config {}", provider.getName(), ex);
+            }
+        }
+    }
+
+    /**
+     * Creates the executor used by default to perform saves.
+     *
+     * @return A single-threaded executor whose thread stops when idle.
+     */
+    private static ScheduledExecutorService createExecutor() {
+        final ScheduledThreadPoolExecutor executor =
+                new LoggingScheduledExecutorService(1, "Config saver");
+        executor.setKeepAliveTime(KEEP_ALIVE, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+}
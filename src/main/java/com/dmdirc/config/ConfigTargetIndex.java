@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Indexes config providers by the type and data of their targets, so that the providers applying
+ * to a {@link ConfigManager} can be found without testing every known provider.
+ *
+ * <p>Providers with an exact target are looked up by their case-folded data. Providers whose
+ * target is a regular expression (prefixed with "re:") are kept separately for each type and are
+ * the only ones that need to be tested individually.
+ *
+ * <p>This class is not thread safe.
+ */
+class ConfigTargetIndex {
+
+    /** Providers with exact targets, keyed on type and then case-folded data. */
+    private final Map<ConfigTarget.TYPE, Map<String, List<ConfigFileBackedConfigProvider>>> exact =
+            new EnumMap<>(ConfigTarget.TYPE.class);
+    /** Providers with regular expression targets, keyed on type. */
+    private final Map<ConfigTarget.TYPE, List<ConfigFileBackedConfigProvider>> patterns =
+            new EnumMap<>(ConfigTarget.TYPE.class);
+
+    /**
+     * Adds the specified provider to the index.
+     *
+     * @param provider The provider to be added
+     */
+    void add(final ConfigFileBackedConfigProvider provider) {
+        final ConfigTarget target = provider.getTarget();
+        if (isPattern(target)) {
+            patterns.computeIfAbsent(target.getType(), t -> new ArrayList<>()).add(provider);
+        } else {
+            exact.computeIfAbsent(target.getType(), t -> new HashMap<>())
+                    .computeIfAbsent(fold(target.getData()), d -> new ArrayList<>(1))
+                    .add(provider);
+        }
+    }
+
+    /**
+     * Removes the specified provider from the index.
+     *
+     * @param provider The provider to be removed
+     */
+    void remove(final ConfigFileBackedConfigProvider provider) {
+        final ConfigTarget target = provider.getTarget();
+        if (isPattern(target)) {
+            final List<ConfigFileBackedConfigProvider> providers = patterns.get(target.getType());
+            if (providers != null) {
+                providers.remove(provider);
+            }
+        } else {
+            final Map<String, List<ConfigFileBackedConfigProvider>> byData =
+                    exact.get(target.getType());
+            if (byData != null) {
+                final String key = fold(target.getData());
+                final List<ConfigFileBackedConfigProvider> providers = byData.get(key);
+                if (providers != null && providers.remove(provider) && providers.isEmpty()) {
+                    byData.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all providers from the index.
+     */
+    void clear() {
+        exact.clear();
+        patterns.clear();
+    }
+
+    /**
+     * Finds a provider whose target exactly matches the given type and data, ignoring case.
+     *
+     * @param type The type of target to look for
+     * @param data The data of the target to look for
+     *
+     * @return The first matching provider, if any
+     */
+    Optional<ConfigFileBackedConfigProvider> getExact(final ConfigTarget.TYPE type,
+            final String data) {
+        return getExactProviders(type, data).stream()
+                .filter(p -> data.equalsIgnoreCase(p.getTarget().getData()))
+                .findFirst();
+    }
+
+    /**
+     * Finds all providers that apply to the specified manager.
+     *
+     * @param manager The manager to find providers for
+     *
+     * @return A list of applicable providers, in no particular order
+     */
+    List<ConfigFileBackedConfigProvider> getApplicable(final ConfigManager manager) {
+        final List<ConfigFileBackedConfigProvider> result = new ArrayList<>();
+        for (ConfigTarget.TYPE type : ConfigTarget.TYPE.values()) {
+            final String value = manager.getTargetValue(type);
+            if (value == null) {
+                continue;
+            }
+
+            getExactProviders(type, value).stream()
+                    .filter(p -> value.equalsIgnoreCase(p.getTarget().getData()))
+                    .forEach(result::add);
+
+            patterns.getOrDefault(type, Collections.emptyList()).stream()
+                    .filter(manager::identityApplies)
+                    .forEach(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the providers indexed under the given type and data.
+     *
+     * @param type The type of target to look for
+     * @param data The data of the target to look for
+     *
+     * @return The (possibly empty) list of providers for the target
+     */
+    private List<ConfigFileBackedConfigProvider> getExactProviders(final ConfigTarget.TYPE type,
+            final String data) {
+        return exact.getOrDefault(type, Collections.emptyMap())
+                .getOrDefault(fold(data), Collections.emptyList());
+    }
+
+    /**
+     * Determines whether the given target is a regular expression.
+     *
+     * @param target The target to be checked
+     *
+     * @return True if the target's data is a regular expression, false otherwise
+     */
+    private static boolean isPattern(final ConfigTarget target) {
+        return target.getData() != null && target.getData().startsWith("re:");
+    }
+
+    /**
+     * Folds the case of the given target data for use as an index key.
+     *
+     * @param data The data to be folded
+     *
+     * @return The case-folded data
+     */
+    private static String fold(final String data) {
+        return data == null ? "" : data.toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -22,6 +22,7 @@ import com.dmdirc.config.provider.ConfigProvider;
 import com.dmdirc.config.provider.ConfigProviderMigrator;
 import com.dmdirc.interfaces.config.IdentityController;
 import com.dmdirc.interfaces.config.IdentityFactory;
+import com.dmdirc.util.FileWatcher;
 import com.dmdirc.util.io.ConfigFile;
 import com.dmdirc.util.io.FileUtils;
 import com.dmdirc.util.io.InvalidConfigFileException;
@@ -31,16 +32,23 @@ import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.net.URISyntaxException;
 import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,6 +68,8 @@ public class IdentityManager implements IdentityFactory, IdentityController {
     private static final String IDENTITY_DOMAIN = "identity";
     /** The domain used for profile settings. */
     private static final String PROFILE_DOMAIN = "profile";
+    /** The maximum time to wait for all identities to be saved, in seconds. */
+    private static final long SAVE_TIMEOUT = 10;
     /** Base configuration directory where the main configuration file will be located. */
     private final Path configDirectory;
     /** Directory to save and load identities in. */
@@ -71,6 +81,8 @@ public class IdentityManager implements IdentityFactory, IdentityController {
      * custom type as the key.
      */
     private final Multimap<String, ConfigFileBackedConfigProvider> identities = ArrayListMultimap.create();
+    /** Index of the standard identities by target, guarded by {@link #identities}. */
+    private final ConfigTargetIndex standardIdentities = new ConfigTargetIndex();
     /** Map of paths to corresponding config providers, to facilitate reloading. */
     private final Map<Path, ConfigFileBackedConfigProvider> configProvidersByPath = new ConcurrentHashMap<>();
     /**
@@ -89,6 +101,10 @@ public class IdentityManager implements IdentityFactory, IdentityController {
     private ConfigFileBackedConfigProvider versionConfig;
     /** The config manager used for global settings. */
     private AggregateConfigProvider globalconfig;
+    /** The manager holding global identities, shared by all other managers. */
+    private ConfigManager rootConfig;
+    /** The saver used to write modified identities to disk. */
+    private final ConfigSaver saver;
 
     /**
      * Creates a new instance of IdentityManager.
@@ -97,8 +113,21 @@ public class IdentityManager implements IdentityFactory, IdentityController {
      * @param identitiesDirectory The directory to store identities in.
      */
     public IdentityManager(final Path baseDirectory, final Path identitiesDirectory) {
+        this(baseDirectory, identitiesDirectory, new ConfigSaver());
+    }
+
+    /**
+     * Creates a new instance of IdentityManager.
+     *
+     * @param baseDirectory       The BASE config directory.
+     * @param identitiesDirectory The directory to store identities in.
+     * @param saver               The saver to use to write modified identities.
+     */
+    IdentityManager(final Path baseDirectory, final Path identitiesDirectory,
+            final ConfigSaver saver) {
         this.configDirectory = baseDirectory;
         this.identitiesDirectory = identitiesDirectory;
+        this.saver = saver;
     }
 
     /**
@@ -107,7 +136,10 @@ public class IdentityManager implements IdentityFactory, IdentityController {
      * @throws InvalidIdentityFileException If there is an error with the config file.
      */
     public void initialise() throws InvalidIdentityFileException {
-        identities.clear();
+        synchronized (identities) {
+            identities.clear();
+            standardIdentities.clear();
+        }
 
         loadVersionIdentity();
         loadDefaults();
@@ -190,7 +222,9 @@ public class IdentityManager implements IdentityFactory, IdentityController {
     }
 
     /**
-     * Recursively loads files from the specified directory.
+     * Recursively loads files from the specified directory. Identities that have already been
+     * loaded are reloaded if their files have changed. New identity files are parsed in parallel,
+     * and then added in order of their paths.
      *
      * @param dir The directory to be loaded
      */
@@ -198,16 +232,109 @@ public class IdentityManager implements IdentityFactory, IdentityController {
         checkNotNull(dir);
         checkArgument(Files.isDirectory(dir));
 
-        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(dir)) {
-            for (Path child : directoryStream) {
-                if (Files.isDirectory(child)) {
-                    loadUser(child);
-                } else {
-                    loadIdentity(child);
-                }
-            }
+        final long start = System.nanoTime();
+        final List<Path> files = new ArrayList<>();
+        try {
+            Files.walkFileTree(dir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                    new SimpleFileVisitor<Path>() {
+                        @Override
+                        public FileVisitResult visitFile(final Path file,
+                                final BasicFileAttributes attrs) {
+                            if (!attrs.isDirectory()) {
+                                files.add(file);
+                            }
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFileFailed(final Path file,
+                                final IOException exc) {
+                            // Skip just this file or directory (or symlink loop).
+                            LOG.warn(USER_ERROR, "Unable to load user identity files from: {}",
+                                    file, exc);
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult postVisitDirectory(final Path directory,
+                                final IOException exc) {
+                            if (exc != null) {
+                                LOG.warn(USER_ERROR,
+                                        "Unable to load all user identity files from: {}",
+                                        directory, exc);
+                            }
+                            return FileVisitResult.CONTINUE;
+                        }
+                    });
         } catch (IOException ex) {
             LOG.warn(USER_ERROR, "Unable to load user identity files from: {}", dir, ex);
+            return;
+        }
+        Collections.sort(files);
+
+        final List<Path> newFiles = new ArrayList<>();
+        for (Path file : files) {
+            final ConfigFileBackedConfigProvider existing = configProvidersByPath.get(file);
+            if (existing == null) {
+                newFiles.add(file);
+            } else if (existing.isModifiedOnDisk()) {
+                loadIdentity(file);
+            }
+        }
+
+        final List<Optional<ConfigFileBackedConfigProvider>> providers = newFiles
+                .parallelStream()
+                .map(this::readIdentity)
+                .collect(Collectors.toList());
+        for (int i = 0; i < newFiles.size(); i++) {
+            final Path file = newFiles.get(i);
+            providers.get(i).ifPresent(provider -> addIdentity(file, provider));
+        }
+
+        LOG.debug("Loaded {} new identities from {} in {}ms", newFiles.size(), dir,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Registers the identities directory and global config file with the specified watcher, so
+     * identities are loaded, reloaded or removed as their files change on disk.
+     *
+     * @param watcher The watcher to register with
+     */
+    public void watchForChanges(final FileWatcher watcher) {
+        watcher.watchDirectory(identitiesDirectory, true,
+                file -> !file.getFileName().toString().endsWith(".tmp"),
+                this::identityFileChanged);
+        watcher.watchFile(configDirectory.resolve("dmdirc.config"), this::identityFileChanged);
+    }
+
+    /**
+     * Handles a change to an identity file on disk. New files are loaded, existing identities are
+     * reloaded if their file was modified by something other than this client, and identities
+     * whose files have been deleted are removed. If a directory is given, every identity within it
+     * is loaded or reloaded.
+     *
+     * @param file The file or directory that has changed
+     */
+    private void identityFileChanged(final Path file) {
+        if (Files.isDirectory(file)) {
+            loadUser(file);
+            return;
+        }
+
+        final ConfigFileBackedConfigProvider provider = configProvidersByPath.get(file);
+        if (provider == null) {
+            if (Files.exists(file)) {
+                loadIdentity(file);
+            }
+        } else if (!Files.exists(file)) {
+            if (provider != config) {
+                LOG.debug("Identity file {} has been deleted", file);
+                removeConfigProvider(provider);
+            }
+        } else if (provider.isModifiedOnDisk()) {
+            LOG.debug("Identity file {} has been modified", file);
+            loadIdentity(file);
         }
     }
 
@@ -228,18 +355,40 @@ public class IdentityManager implements IdentityFactory, IdentityController {
                 } catch (InvalidConfigFileException ex) {
                     // Do nothing
                 }
+                return;
             }
         }
 
+        readIdentity(file).ifPresent(provider -> addIdentity(file, provider));
+    }
+
+    /**
+     * Reads an identity from the specified file, without adding it to this manager.
+     *
+     * @param file The file to read the identity from.
+     *
+     * @return The identity read from the file, or an empty optional if it couldn't be read.
+     */
+    private Optional<ConfigFileBackedConfigProvider> readIdentity(final Path file) {
         try {
-            final ConfigFileBackedConfigProvider provider = new ConfigFileBackedConfigProvider(this, file, false);
-            addConfigProvider(provider);
-            configProvidersByPath.put(file, provider);
+            return Optional.of(new ConfigFileBackedConfigProvider(this, file, false));
         } catch (InvalidIdentityFileException ex) {
             LOG.warn(USER_ERROR, "Invalid identity file: {} ({})", file, ex.getMessage(), ex);
         } catch (IOException ex) {
             LOG.warn(USER_ERROR, "I/O error when reading identity file: {}", file, ex);
         }
+        return Optional.empty();
+    }
+
+    /**
+     * Adds an identity read from the specified file.
+     *
+     * @param file     The file the identity was read from.
+     * @param provider The identity to add.
+     */
+    private void addIdentity(final Path file, final ConfigFileBackedConfigProvider provider) {
+        addConfigProvider(provider);
+        configProvidersByPath.put(file, provider);
     }
 
     /**
@@ -318,13 +467,27 @@ public class IdentityManager implements IdentityFactory, IdentityController {
 
     @Override
     public void saveAll() {
+        final Collection<ConfigProvider> all = new ArrayList<>();
         synchronized (identities) {
-            for (ConfigProvider identity : getAllIdentities()) {
-                identity.save();
-            }
+            getAllIdentities().forEach(all::add);
+        }
+
+        if (!saver.saveAndWait(all, SAVE_TIMEOUT, TimeUnit.SECONDS)) {
+            LOG.warn(USER_ERROR, "Not all settings could be saved within {} seconds",
+                    SAVE_TIMEOUT);
         }
     }
 
+    /**
+     * Requests that the specified identity be saved in the background. Saves are coalesced, so
+     * this may be called after every change.
+     *
+     * @param identity The identity that has been modified
+     */
+    void scheduleSave(final ConfigProvider identity) {
+        saver.markDirty(identity);
+    }
+
     @Override
     public void addConfigProvider(final ConfigFileBackedConfigProvider identity) {
         checkNotNull(identity);
@@ -337,6 +500,9 @@ public class IdentityManager implements IdentityFactory, IdentityController {
 
         synchronized (identities) {
             identities.put(target, identity);
+            if (target == null) {
+                standardIdentities.add(identity);
+            }
         }
 
         LOG.debug("Adding identity: {} (group: {})", new Object[]{identity, target});
@@ -370,6 +536,9 @@ public class IdentityManager implements IdentityFactory, IdentityController {
 
         synchronized (identities) {
             identities.remove(group, identity);
+            if (group == null) {
+                standardIdentities.remove(identity);
+            }
         }
 
         synchronized (listeners) {
@@ -416,12 +585,10 @@ public class IdentityManager implements IdentityFactory, IdentityController {
      * @return A list of all matching config sources
      */
     List<ConfigFileBackedConfigProvider> getIdentitiesForManager(final ConfigManager manager) {
-        final List<ConfigFileBackedConfigProvider> sources = new ArrayList<>();
+        final List<ConfigFileBackedConfigProvider> sources;
 
         synchronized (identities) {
-            sources.addAll(identities.get(null).stream()
-                    .filter(manager::identityApplies)
-                    .collect(Collectors.toList()));
+            sources = standardIdentities.getApplicable(manager);
         }
 
         sources.sort(new ConfigProviderTargetComparator());
@@ -454,13 +621,12 @@ public class IdentityManager implements IdentityFactory, IdentityController {
 
         final String myTarget = (channel + '@' + network).toLowerCase();
 
+        final Optional<ConfigFileBackedConfigProvider> existing;
         synchronized (identities) {
-            for (ConfigFileBackedConfigProvider identity : identities.get(null)) {
-                if (identity.getTarget().getType() == ConfigTarget.TYPE.CHANNEL
-                        && identity.getTarget().getData().equalsIgnoreCase(myTarget)) {
-                    return identity;
-                }
-            }
+            existing = standardIdentities.getExact(ConfigTarget.TYPE.CHANNEL, myTarget);
+        }
+        if (existing.isPresent()) {
+            return existing.get();
         }
 
         // We need to create one
@@ -479,13 +645,12 @@ public class IdentityManager implements IdentityFactory, IdentityController {
 
         final String myTarget = network.toLowerCase();
 
+        final Optional<ConfigFileBackedConfigProvider> existing;
         synchronized (identities) {
-            for (ConfigFileBackedConfigProvider identity : identities.get(null)) {
-                if (identity.getTarget().getType() == ConfigTarget.TYPE.NETWORK
-                        && identity.getTarget().getData().equalsIgnoreCase(myTarget)) {
-                    return identity;
-                }
-            }
+            existing = standardIdentities.getExact(ConfigTarget.TYPE.NETWORK, myTarget);
+        }
+        if (existing.isPresent()) {
+            return existing.get();
         }
 
         // We need to create one
@@ -504,13 +669,12 @@ public class IdentityManager implements IdentityFactory, IdentityController {
 
         final String myTarget = server.toLowerCase();
 
+        final Optional<ConfigFileBackedConfigProvider> existing;
         synchronized (identities) {
-            for (ConfigFileBackedConfigProvider identity : identities.get(null)) {
-                if (identity.getTarget().getType() == ConfigTarget.TYPE.SERVER
-                        && identity.getTarget().getData().equalsIgnoreCase(myTarget)) {
-                    return identity;
-                }
-            }
+            existing = standardIdentities.getExact(ConfigTarget.TYPE.SERVER, myTarget);
+        }
+        if (existing.isPresent()) {
+            return existing.get();
         }
 
         // We need to create one
@@ -616,26 +780,36 @@ public class IdentityManager implements IdentityFactory, IdentityController {
         return identity;
     }
 
+    /**
+     * Gets the manager holding the global identities, which all other managers take their global
+     * settings from.
+     *
+     * @return The root config manager
+     */
+    private synchronized ConfigManager getRootConfig() {
+        if (rootConfig == null) {
+            rootConfig = new ConfigManager(this);
+            setUpConfigManager(rootConfig);
+        }
+
+        return rootConfig;
+    }
+
     /**
      * Finds and adds sources for the given manager, and adds it as an identity listener.
      *
      * @param configManager The manager to be initialised.
      */
     private void setUpConfigManager(final ConfigManager configManager) {
-        final List<ConfigFileBackedConfigProvider> sources = getIdentitiesForManager(configManager);
-
-        for (ConfigFileBackedConfigProvider identity : sources) {
-            LOG.trace("Found {}", identity);
-            configManager.checkIdentity(identity);
-        }
-
+        configManager.updateSources(getIdentitiesForManager(configManager));
         registerIdentityListener(configManager);
     }
 
     @Override
     public ConfigProviderMigrator createMigratableConfig(final String protocol,
             final String ircd, final String network, final String server) {
-        final ConfigManager configManager = new ConfigManager(this, protocol, ircd, network, server);
+        final ConfigManager configManager = new ConfigManager(this, getRootConfig(),
+                protocol, ircd, network, server, "<Unknown>");
         setUpConfigManager(configManager);
         return new ConfigManagerMigrator(configManager);
     }
@@ -643,7 +817,8 @@ public class IdentityManager implements IdentityFactory, IdentityController {
     @Override
     public ConfigProviderMigrator createMigratableConfig(final String protocol,
             final String ircd, final String network, final String server, final String channel) {
-        final ConfigManager configManager = new ConfigManager(this, protocol, ircd, network, server, channel);
+        final ConfigManager configManager = new ConfigManager(this, getRootConfig(),
+                protocol, ircd, network, server, channel);
         setUpConfigManager(configManager);
         return new ConfigManagerMigrator(configManager);
     }
@@ -651,7 +826,8 @@ public class IdentityManager implements IdentityFactory, IdentityController {
     @Override
     public AggregateConfigProvider createAggregateConfig(final String protocol, final String ircd,
             final String network, final String server) {
-        final ConfigManager configManager = new ConfigManager(this, protocol, ircd, network, server);
+        final ConfigManager configManager = new ConfigManager(this, getRootConfig(),
+                protocol, ircd, network, server, "<Unknown>");
         setUpConfigManager(configManager);
         return configManager;
     }
@@ -659,7 +835,8 @@ public class IdentityManager implements IdentityFactory, IdentityController {
     @Override
     public AggregateConfigProvider createAggregateConfig(final String protocol, final String ircd,
             final String network, final String server, final String channel) {
-        final ConfigManager configManager = new ConfigManager(this, protocol, ircd, network, server, channel);
+        final ConfigManager configManager = new ConfigManager(this, getRootConfig(),
+                protocol, ircd, network, server, channel);
         setUpConfigManager(configManager);
         return configManager;
     }
@@ -22,6 +22,7 @@ import com.dmdirc.events.ClientPrefsOpenedEvent;
 import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.config.provider.ConfigProvider;
+import com.dmdirc.config.provider.ConfigTransaction;
 import com.dmdirc.plugins.Service;
 import com.dmdirc.plugins.ServiceManager;
 import com.dmdirc.util.collections.ListenerList;
@@ -137,16 +138,19 @@ public class PreferencesDialogModel {
      * @return Is a restart needed after saving?
      */
     public boolean save() {
-        fireSaveListeners();
-
-        boolean restart = false;
-        for (PreferencesCategory category : categories) {
-            if (category.save()) {
-                restart |= true;
+        // Hold back change notifications so listeners only react once to each changed setting
+        try (ConfigTransaction transaction = identity.beginTransaction()) {
+            fireSaveListeners();
+
+            boolean restart = false;
+            for (PreferencesCategory category : categories) {
+                if (category.save()) {
+                    restart |= true;
+                }
             }
-        }
 
-        return restart;
+            return restart;
+        }
     }
 
     /**
@@ -265,6 +269,21 @@ public class PreferencesDialogModel {
                 "server", "pingfrequency", "Ping frequency",
                 "How often a PING request should be sent to the server (to "
                 + "check that it is still alive)", configManager, identity));
+        category.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                "server", "sendlinespersecond", "Lines per second",
+                "The number of lines that may be sent to the server each "
+                + "second once the burst allowance is used (0 for no limit)",
+                configManager, identity));
+        category.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                "server", "sendbytespersecond", "Bytes per second",
+                "The number of bytes that may be sent to the server each "
+                + "second (0 for no limit)",
+                configManager, identity));
+        category.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                "server", "sendburst", "Burst allowance",
+                "The number of lines that may be sent at once before flood "
+                + "control starts delaying them",
+                configManager, identity));
         category.addSetting(new PreferencesSetting(PreferencesType.BOOLEAN,
                 "general", "reconnectonconnectfailure", "Reconnect on failure",
                 "Attempt to reconnect if there is an error when connecting",
@@ -277,6 +296,14 @@ public class PreferencesDialogModel {
                 "general", "reconnectdelay", "Reconnect delay",
                 "How long to wait before attempting to reconnect to a server",
                 configManager, identity));
+        category.addSetting(new PreferencesSetting(PreferencesType.DURATION,
+                "general", "reconnectmaxdelay", "Maximum reconnect delay",
+                "The longest to wait between repeated reconnect attempts",
+                configManager, identity));
+        category.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                "general", "reconnectconcurrency", "Concurrent reconnects",
+                "How many servers may be reconnecting at the same time",
+                configManager, identity));
         category.addSetting(new PreferencesSetting(PreferencesType.BOOLEAN,
                 "general", "rejoinchannels", "Rejoin open channels",
                 "Rejoin open channels when reconnecting to a server",
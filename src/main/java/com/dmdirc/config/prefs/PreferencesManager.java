@@ -93,6 +93,21 @@ public class PreferencesManager {
                 "How often a PING request should be sent to the server (to "
                 + "check that it is still alive)",
                 manager, identity));
+        category.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                "server", "sendlinespersecond", "Lines per second",
+                "The number of lines that may be sent to the server each "
+                + "second once the burst allowance is used (0 for no limit)",
+                manager, identity));
+        category.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                "server", "sendbytespersecond", "Bytes per second",
+                "The number of bytes that may be sent to the server each "
+                + "second (0 for no limit)",
+                manager, identity));
+        category.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                "server", "sendburst", "Burst allowance",
+                "The number of lines that may be sent at once before flood "
+                + "control starts delaying them",
+                manager, identity));
         category.addSetting(new PreferencesSetting(PreferencesType.BOOLEAN,
                 "general", "reconnectonconnectfailure", "Reconnect on failure",
                 "Attempt to reconnect if there is an error when connecting",
@@ -105,6 +120,15 @@ public class PreferencesManager {
                 "general", "reconnectdelay", "Reconnect delay",
                 "How long to wait before attempting to reconnect to a server",
                 manager, identity));
+        category.addSetting(new PreferencesSetting(PreferencesType.DURATION,
+                "general", "reconnectmaxdelay", "Maximum reconnect delay",
+                "The longest to wait between repeated reconnect attempts",
+                manager, identity));
+        category.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                "general", "reconnectweight", "Reconnect priority",
+                "Servers with a higher priority are reconnected first when "
+                + "several servers are waiting to reconnect",
+                manager, identity));
         category.addSetting(new PreferencesSetting(PreferencesType.BOOLEAN,
                 "general", "rejoinchannels", "Rejoin open channels",
                 "Rejoin open channels when reconnecting to a server",
@@ -62,10 +62,8 @@ public class GroupListManager {
     public void startSearch(final String searchTerm) {
         groups.clear();
 
-        connection.getParser().ifPresent(p -> {
-            p.getCallbackManager().subscribe(this);
-            p.requestGroupList(searchTerm);
-        });
+        connection.getParser().ifPresent(p -> p.getCallbackManager().subscribe(this));
+        connection.sendCommand("LIST " + searchTerm, p -> p.requestGroupList(searchTerm));
     }
 
     @Handler
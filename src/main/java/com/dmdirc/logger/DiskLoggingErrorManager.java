@@ -41,7 +41,7 @@ import javax.inject.Singleton;
 import net.engio.mbassy.listener.Handler;
 
 /**
- * Listens for {@link ErrorEvent}s and writes them to disk.
+ * Listens for {@link ErrorEvent}s and writes them to disk, along with a dump of the event bus's flight recorder.
  */
 @Singleton
 public class DiskLoggingErrorManager {
@@ -105,6 +105,7 @@ public class DiskLoggingErrorManager {
                 .ifPresent(s -> Arrays.stream(s.split("\n")).forEach(data::add));
         try {
             Files.write(errorFile, data, Charset.forName("UTF-8"));
+            eventBus.getFlightRecorder().dump(errorsDirectory.resolve(logName + "-events.log"));
         } catch (IOException ex) {
             //Not really anything we can do at this point, so don't try.
         }
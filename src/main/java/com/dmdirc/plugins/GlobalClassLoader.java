@@ -20,9 +20,8 @@ package com.dmdirc.plugins;
 import com.dmdirc.util.resourcemanager.ResourceManager;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nullable;
 
@@ -32,7 +31,7 @@ import javax.annotation.Nullable;
 public final class GlobalClassLoader extends ClassLoader {
 
     /** HashMap containing sources of Global class files. */
-    private final Map<String, String> resourcesList = new HashMap<>();
+    private final Map<String, String> resourcesList = new ConcurrentHashMap<>();
     /** Plugin Manager that owns this GlobalClassLoader. */
     private final PluginManager manager;
 
@@ -68,10 +67,8 @@ public final class GlobalClassLoader extends ClassLoader {
      */
     public Class<?> loadClass(final String name, final PluginInfo pi) throws ClassNotFoundException {
 
-        pi.getPersistentClasses().stream()
-                .filter(classname -> !resourcesList.containsKey(classname))
-                .forEach(classname -> resourcesList.put(classname,
-                        pi.getMetaData().getPluginPath().toAbsolutePath().toString()));
+        pi.getPersistentClasses().forEach(classname -> resourcesList.putIfAbsent(classname,
+                pi.getMetaData().getPluginPath().toAbsolutePath().toString()));
         return loadClass(name);
     }
 
@@ -88,8 +85,7 @@ public final class GlobalClassLoader extends ClassLoader {
 
         // Check the other plugins.
         for (PluginInfo pi : manager.getPluginInfos()) {
-            final List<String> classList = pi.getClassList();
-            if (classList.contains(name) && pi.getPluginClassLoader() != null) {
+            if (pi.hasClass(name) && pi.getPluginClassLoader() != null) {
                 return pi.getPluginClassLoader().loadClass(name, false);
             }
         }
@@ -105,8 +101,10 @@ public final class GlobalClassLoader extends ClassLoader {
      *
      * @return The resulting {@link Class} object
      */
-    public Class<?> defineClass(final String classname, final byte... data) {
-        return defineClass(classname, data, 0, data.length);
+    public synchronized Class<?> defineClass(final String classname, final byte... data) {
+        // Plugins may be loaded concurrently, so another may have got here first.
+        final Class<?> existing = findLoadedClass(classname);
+        return existing == null ? defineClass(classname, data, 0, data.length) : existing;
     }
 
     /**
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.plugins;
+
+import com.dmdirc.commandparser.CommandArguments;
+import com.dmdirc.commandparser.CommandInfo;
+import com.dmdirc.commandparser.commands.BaseCommand;
+import com.dmdirc.commandparser.commands.Command;
+import com.dmdirc.commandparser.commands.context.CommandContext;
+import com.dmdirc.interfaces.CommandController;
+import com.dmdirc.interfaces.WindowModel;
+
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Stands in for a command of a lazy plugin that has not yet been loaded. When executed, the plugin
+ * is loaded and the command it registers in place of this one is executed instead.
+ */
+class LazyPluginCommand extends BaseCommand {
+
+    /** The plugin that provides the real command. */
+    private final PluginInfo plugin;
+    /** The info of the command this stands in for. */
+    private final CommandInfo info;
+
+    /**
+     * Creates a new command that loads the given plugin when executed.
+     *
+     * @param controller The controller the real command will be registered with.
+     * @param plugin The plugin that provides the real command.
+     * @param info The info of the command this stands in for.
+     */
+    LazyPluginCommand(final CommandController controller, final PluginInfo plugin,
+            final CommandInfo info) {
+        super(controller);
+        this.plugin = plugin;
+        this.info = info;
+    }
+
+    @Override
+    public void execute(@Nonnull final WindowModel origin, final CommandArguments args,
+            final CommandContext context) {
+        plugin.loadPlugin();
+
+        final Map.Entry<CommandInfo, Command> command =
+                getController().getCommand(info.getType(), info.getName());
+        if (command == null || command.getValue() instanceof LazyPluginCommand) {
+            showError(origin, args.isSilent(), "Unable to load plugin "
+                    + plugin.getMetaData().getName() + ": " + plugin.getLastError());
+        } else {
+            command.getValue().execute(origin, args, context);
+        }
+    }
+
+}
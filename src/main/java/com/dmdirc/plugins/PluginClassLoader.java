@@ -20,6 +20,7 @@ package com.dmdirc.plugins;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -27,6 +28,11 @@ import java.util.Enumeration;
 
 public class PluginClassLoader extends ClassLoader {
 
+    static {
+        // Plugins are loaded concurrently, so lock per class name rather than per loader.
+        registerAsParallelCapable();
+    }
+
     /** The plugin Info object for the plugin we are loading. */
     private final PluginInfo pluginInfo;
     /** Global Class Loader */
@@ -74,6 +80,25 @@ public class PluginClassLoader extends ClassLoader {
         return findLoadedClass(name) != null || checkGlobal && globalLoader.isClassLoaded(name);
     }
 
+    /**
+     * Checks whether this loader's plugin, or any of its parents, contains the given class.
+     *
+     * @param name Fully qualified name of the class to check.
+     *
+     * @return True if the class can be found in this loader's hierarchy, false otherwise
+     */
+    boolean hasClass(final String name) {
+        if (pluginInfo.hasClass(name)) {
+            return true;
+        }
+        for (PluginClassLoader parent : parents) {
+            if (parent.hasClass(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Load the plugin with the given className.
      *
@@ -87,75 +112,80 @@ public class PluginClassLoader extends ClassLoader {
     @Override
     public Class<?> loadClass(final String name, final boolean askGlobal) throws
             ClassNotFoundException {
-        Class<?> loadedClass = null;
-        for (PluginClassLoader parent : parents) {
-            try {
-                loadedClass = parent.loadClass(name, false);
-                if (loadedClass != null) {
-                    return loadedClass;
+        // Plugins may be loaded concurrently, and may share parent plugins.
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loadedClass = null;
+            for (PluginClassLoader parent : parents) {
+                if (!parent.hasClass(name)) {
+                    continue;
+                }
+                try {
+                    loadedClass = parent.loadClass(name, false);
+                    if (loadedClass != null) {
+                        return loadedClass;
+                    }
+                } catch (ClassNotFoundException cnfe) {
+                    // Parent doesn't have the class, carry on trying...
                 }
-            } catch (ClassNotFoundException cnfe) {
-                // Parent doesn't have the class, carry on trying...
             }
-        }
 
-        final String fileName = name.replace('.', '/') + ".class";
-        try {
-            if (pluginInfo.isPersistent(name) || !Files.exists(
-                    pluginInfo.getPath(fileName))) {
-                if (!pluginInfo.isPersistent(name) && askGlobal) {
-                    return globalLoader.loadClass(name);
-                } else {
-                    // Try to load class from previous load.
-                    try {
-                        if (askGlobal) {
-                            return globalLoader.loadClass(name, pluginInfo);
+            final Path classPath = pluginInfo.getClassPath(name);
+            try {
+                if (pluginInfo.isPersistent(name) || classPath == null) {
+                    if (!pluginInfo.isPersistent(name) && askGlobal) {
+                        return globalLoader.loadClass(name);
+                    } else {
+                        // Try to load class from previous load.
+                        try {
+                            if (askGlobal) {
+                                return globalLoader.loadClass(name, pluginInfo);
+                            }
+                        } catch (ClassNotFoundException e) {
+                            /* Class doesn't exist, we load it ourself below */
                         }
-                    } catch (ClassNotFoundException e) {
-                        /* Class doesn't exist, we load it ourself below */
                     }
                 }
+            } catch (NoClassDefFoundError e) {
+                throw new ClassNotFoundException("Error loading '" + name + "' (wanted by "
+                        + pluginInfo.getMetaData().getName() + ") -> " + e.getMessage(), e);
             }
-        } catch (NoClassDefFoundError e) {
-            throw new ClassNotFoundException("Error loading '" + name + "' (wanted by "
-                    + pluginInfo.getMetaData().getName() + ") -> " + e.getMessage(), e);
-        }
 
-        // Don't duplicate a class
-        if (isClassLoaded(name, false)) {
-            return findLoadedClass(name);
-        }
+            // Don't duplicate a class
+            if (isClassLoaded(name, false)) {
+                return findLoadedClass(name);
+            }
+
+            // We are meant to be loading this one!
+            final byte[] data;
+            if (classPath != null) {
+                try {
+                    data = Files.readAllBytes(classPath);
+                } catch (IOException ex) {
+                    throw new ClassNotFoundException(ex.getMessage(), ex);
+                }
+            } else {
+                throw new ClassNotFoundException("Resource '" + name + "' (wanted by " + pluginInfo.
+                        getMetaData().getName() + ") does not exist.");
+            }
 
-        // We are meant to be loading this one!
-        final byte[] data;
-        if (Files.exists(pluginInfo.getPath(fileName))) {
             try {
-                data = Files.readAllBytes(pluginInfo.getPath(fileName));
-            } catch (IOException ex) {
-                throw new ClassNotFoundException(ex.getMessage(), ex);
+                if (pluginInfo.isPersistent(name)) {
+                    globalLoader.defineClass(name, data);
+                } else {
+                    loadedClass = defineClass(name, data, 0, data.length);
+                }
+            } catch (LinkageError e) {
+                throw new ClassNotFoundException(e.getMessage(), e);
             }
-        } else {
-            throw new ClassNotFoundException("Resource '" + name + "' (wanted by " + pluginInfo.
-                    getMetaData().getName() + ") does not exist.");
-        }
 
-        try {
-            if (pluginInfo.isPersistent(name)) {
-                globalLoader.defineClass(name, data);
+            if (loadedClass == null) {
+                throw new ClassNotFoundException("Could not load " + name);
             } else {
-                loadedClass = defineClass(name, data, 0, data.length);
+                resolveClass(loadedClass);
             }
-        } catch (LinkageError e) {
-            throw new ClassNotFoundException(e.getMessage(), e);
-        }
 
-        if (loadedClass == null) {
-            throw new ClassNotFoundException("Could not load " + name);
-        } else {
-            resolveClass(loadedClass);
+            return loadedClass;
         }
-
-        return loadedClass;
     }
 
     @Override
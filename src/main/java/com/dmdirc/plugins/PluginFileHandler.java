@@ -52,13 +52,17 @@ public class PluginFileHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(PluginFileHandler.class);
     private final Path directory;
+    /** Index of plugin config files, used to avoid reopening plugins that haven't changed. */
+    private final PluginMetaDataIndex index;
 
     private final Collection<PluginMetaData> knownPlugins = new CopyOnWriteArrayList<>();
 
     @Inject
     public PluginFileHandler(
-            @Directory(DirectoryType.PLUGINS) final Path directory) {
+            @Directory(DirectoryType.PLUGINS) final Path directory,
+            @Directory(DirectoryType.BASE) final Path baseDirectory) {
         this.directory = directory;
+        this.index = new PluginMetaDataIndex(baseDirectory.resolve("plugin-index.yml"));
     }
 
     /**
@@ -130,20 +134,28 @@ public class PluginFileHandler {
      * @return Collection of all plugins with loadable metadata.
      */
     private Set<PluginMetaData> findAllPlugins(final PluginManager manager) {
+        final Set<Path> paths;
         try {
-            return Files.walk(directory, FileVisitOption.FOLLOW_LINKS)
+            paths = Files.walk(directory, FileVisitOption.FOLLOW_LINKS)
                     .filter(p -> p.getFileName().toString().endsWith(".jar"))
                     .map(Path::toAbsolutePath)
-                    .map(path -> getMetaData(path, manager))
                     .collect(Collectors.toSet());
         } catch (IOException ex) {
             LOG.error(USER_ERROR, "Unable to read plugin directory.", ex);
             return Collections.emptySet();
         }
+
+        final Set<PluginMetaData> metadata = paths.stream()
+                .map(path -> getMetaData(path, manager))
+                .collect(Collectors.toSet());
+        index.retainAll(paths);
+        index.save();
+        return metadata;
     }
 
     /**
-     * Attempts to get the metadata for a plugin at the specified path.
+     * Attempts to get the metadata for a plugin at the specified path. The plugin's config file
+     * is only read from disk if it has changed since it was last indexed.
      *
      * @param path The path of the plugin to get metadata from.
      * @param manager The plugin manager to pass to new metadata instances.
@@ -151,7 +163,12 @@ public class PluginFileHandler {
      */
     private PluginMetaData getMetaData(final Path path, final PluginManager manager) {
         final PluginMetaData metaData = new PluginMetaData(manager, path);
-        metaData.load();
+        try {
+            metaData.load(index.getConfig(path));
+        } catch (IOException ex) {
+            // Let the metadata report the problem in the usual manner.
+            metaData.load();
+        }
         return metaData;
     }
 
@@ -40,9 +40,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Nullable;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -70,11 +73,11 @@ public class PluginInfo implements ServiceProvider {
     /** Filename for this plugin (taken from URL). */
     private final String filename;
     /** The actual Plugin from this jar. */
-    private Plugin plugin;
+    private volatile Plugin plugin;
     /** The classloader used for this Plugin. */
-    private PluginClassLoader pluginClassLoader;
-    /** List of classes this plugin has. */
-    private final List<String> myClasses = new ArrayList<>();
+    private volatile PluginClassLoader pluginClassLoader;
+    /** Index of the classes this plugin has, mapped to their location within the plugin. */
+    private volatile Map<String, Path> myClasses = Collections.emptyMap();
     /** Last Error Message. */
     private String lastError = "No Error";
     /** Are we trying to load? */
@@ -125,7 +128,7 @@ public class PluginInfo implements ServiceProvider {
         }
         updateClassList();
 
-        if (!myClasses.contains(metadata.getMainClass())) {
+        if (!hasClass(metadata.getMainClass())) {
             lastError = "main class file (" + metadata.getMainClass() + ") not found in jar.";
             throw new PluginException("Plugin " + filename + " failed to load. " + lastError);
         }
@@ -155,10 +158,12 @@ public class PluginInfo implements ServiceProvider {
     }
 
     /**
-     * Updates the list of known classes within this plugin from the specified resource manager.
+     * Updates the index of known classes within this plugin. The plugin's file system reads the
+     * jar's central directory once when opened, so this doesn't need to touch the jar again, and
+     * classes can then be located without probing the file system.
      */
     private void updateClassList() throws PluginException {
-        myClasses.clear();
+        final Map<String, Path> classes = new LinkedHashMap<>();
         try {
             Files.walkFileTree(pluginFilesystem.getPath("/"), new SimpleFileVisitor<Path>() {
 
@@ -167,11 +172,12 @@ public class PluginInfo implements ServiceProvider {
                     if (file.getFileName().toString().endsWith(".class")) {
                         final String classname = file.toAbsolutePath().toString().replace('/',
                                 '.');
-                        myClasses.add(classname.substring(1, classname.length() - 6));
+                        classes.put(classname.substring(1, classname.length() - 6), file);
                     }
                     return FileVisitResult.CONTINUE;
                 }
             });
+            myClasses = Collections.unmodifiableMap(classes);
         } catch (IOException ex) {
             lastError = "Error loading classes: " + ex.getMessage();
             throw new PluginException("Plugin " + filename + " failed to load. " + lastError, ex);
@@ -475,32 +481,40 @@ public class PluginInfo implements ServiceProvider {
     }
 
     /**
-     * Load the plugin files.
+     * Load the plugin files. If a lazy plugin fails to load, its stand-in commands are restored so
+     * that loading can be retried.
      */
-    public void loadPlugin() {
+    public synchronized void loadPlugin() {
         if (isLoaded() || isLoading) {
             lastError = "Not Loading: (" + isLoaded() + "||" + isLoading + ')';
             return;
         }
 
-        updateProvides();
-        isLoading = true;
+        final boolean hadLazyCommands = pluginManager.removeLazyCommands(this);
+        try {
+            updateProvides();
+            isLoading = true;
 
-        if (!loadRequirements()) {
-            isLoading = false;
-            lastError = "Unable to satisfy dependencies for " + metaData.getName();
-            return;
-        }
+            if (!loadRequirements()) {
+                isLoading = false;
+                lastError = "Unable to satisfy dependencies for " + metaData.getName();
+                return;
+            }
 
-        loadIdentities();
-        loadMainClass();
+            loadIdentities();
+            loadMainClass();
 
-        if (isLoaded()) {
-            //TODO plugin loading shouldn't be done from here, event bus shouldn't be here.
-            eventBus.publishAsync(new PluginLoadedEvent(this));
-        }
+            if (isLoaded()) {
+                //TODO plugin loading shouldn't be done from here, event bus shouldn't be here.
+                eventBus.publishAsync(new PluginLoadedEvent(this));
+            }
 
-        isLoading = false;
+            isLoading = false;
+        } finally {
+            if (hadLazyCommands && !isLoaded()) {
+                pluginManager.registerLazyCommands(this);
+            }
+        }
     }
 
     /**
@@ -712,7 +726,30 @@ public class PluginInfo implements ServiceProvider {
      * @return Classes this plugin has
      */
     public List<String> getClassList() {
-        return Collections.unmodifiableList(myClasses);
+        return Collections.unmodifiableList(new ArrayList<>(myClasses.keySet()));
+    }
+
+    /**
+     * Determines whether this plugin contains the given class.
+     *
+     * @param classname The name of the class to look for
+     *
+     * @return True if the class is in this plugin's jar, false otherwise
+     */
+    public boolean hasClass(final String classname) {
+        return myClasses.containsKey(classname);
+    }
+
+    /**
+     * Gets the location of the given class within this plugin.
+     *
+     * @param classname The name of the class to look for
+     *
+     * @return The path of the class file, or null if the plugin does not contain the class
+     */
+    @Nullable
+    public Path getClassPath(final String classname) {
+        return myClasses.get(classname);
     }
 
     /**
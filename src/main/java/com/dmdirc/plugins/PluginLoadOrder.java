@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.plugins;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Works out which of a set of plugins can be loaded concurrently, based on the plugins and
+ * services they require.
+ * <p>
+ * A plugin can be loaded concurrently with others once all of the plugins it depends on have been
+ * loaded, provided that it and all of its dependencies are marked as
+ * {@link PluginMetaData#isParallelSafe() parallel safe}, and all of its requirements can be
+ * resolved to specific plugins. Any other plugins must be loaded one at a time afterwards, as
+ * loading them may load other plugins.
+ */
+class PluginLoadOrder {
+
+    /** The service manager to check for active services. */
+    private final ServiceManager serviceManager;
+    /** All known plugins, keyed by name. */
+    private final Map<String, PluginMetaData> pluginsByName = new HashMap<>();
+    /** The direct dependencies of each plugin, or null for plugins with unresolvable ones. */
+    private final Map<PluginMetaData, Set<PluginMetaData>> dependencies = new HashMap<>();
+    /** Plugins that can be loaded concurrently, each preceded by its dependencies. */
+    private final Map<PluginMetaData, Set<PluginMetaData>> concurrent = new LinkedHashMap<>();
+    /** Requested plugins that must be loaded one at a time. */
+    private final List<PluginMetaData> serial = new ArrayList<>();
+
+    /**
+     * Creates a new load order for the given plugins.
+     *
+     * @param serviceManager The service manager to check for active services.
+     * @param known The metadata of all known plugins.
+     * @param requested The metadata of the plugins to be loaded, in the order they were requested.
+     */
+    PluginLoadOrder(final ServiceManager serviceManager, final Collection<PluginMetaData> known,
+            final Collection<PluginMetaData> requested) {
+        this.serviceManager = serviceManager;
+        known.forEach(m -> pluginsByName.put(m.getName(), m));
+
+        final Map<PluginMetaData, Boolean> visited = new HashMap<>();
+        final Set<PluginMetaData> visiting = new HashSet<>();
+        for (PluginMetaData plugin : requested) {
+            if (visit(plugin, visited, visiting)) {
+                serial.add(plugin);
+            }
+        }
+    }
+
+    /**
+     * Gets the plugins that can be loaded concurrently, along with the plugins that must be loaded
+     * before each of them. This may include plugins that were not requested, but are required by
+     * those that were.
+     *
+     * @return A map of plugins to their dependencies, in an order where each plugin follows all of
+     * its dependencies.
+     */
+    Map<PluginMetaData, Set<PluginMetaData>> getConcurrent() {
+        return Collections.unmodifiableMap(concurrent);
+    }
+
+    /**
+     * Gets the requested plugins that must be loaded one at a time, after all of the concurrent
+     * plugins have been loaded.
+     *
+     * @return The plugins to load serially, in the order they were requested.
+     */
+    List<PluginMetaData> getSerial() {
+        return Collections.unmodifiableList(serial);
+    }
+
+    /**
+     * Visits the given plugin and all of its dependencies, adding those that can be loaded
+     * concurrently to the concurrent map.
+     *
+     * @param plugin The plugin to visit.
+     * @param visited The plugins that have been visited, and whether they must be loaded serially.
+     * @param visiting The plugins whose dependencies are currently being visited.
+     * @return True if the plugin must be loaded serially, false otherwise.
+     */
+    private boolean visit(final PluginMetaData plugin, final Map<PluginMetaData, Boolean> visited,
+            final Set<PluginMetaData> visiting) {
+        if (visited.containsKey(plugin)) {
+            return visited.get(plugin);
+        }
+
+        if (!visiting.add(plugin)) {
+            // Circular dependency: leave it to the plugins to sort out one at a time.
+            return true;
+        }
+
+        final Optional<Set<PluginMetaData>> required = getDependencies(plugin);
+        boolean isSerial = !plugin.isParallelSafe() || !required.isPresent();
+        for (PluginMetaData dependency : required.orElse(Collections.emptySet())) {
+            isSerial |= visit(dependency, visited, visiting);
+        }
+
+        visiting.remove(plugin);
+        visited.put(plugin, isSerial);
+        if (!isSerial) {
+            concurrent.put(plugin, required.get());
+        }
+        return isSerial;
+    }
+
+    /**
+     * Gets the plugins that the given plugin requires to be loaded first.
+     *
+     * @param plugin The plugin to get the dependencies of.
+     * @return The plugin's dependencies, or empty if they cannot all be resolved to specific
+     * plugins.
+     */
+    private Optional<Set<PluginMetaData>> getDependencies(final PluginMetaData plugin) {
+        if (!dependencies.containsKey(plugin)) {
+            dependencies.put(plugin, resolveDependencies(plugin));
+        }
+        return Optional.ofNullable(dependencies.get(plugin));
+    }
+
+    /**
+     * Resolves the required plugins, parent and required services of the given plugin.
+     *
+     * @param plugin The plugin to resolve the dependencies of.
+     * @return The plugin's dependencies, or null if they cannot all be resolved.
+     */
+    private Set<PluginMetaData> resolveDependencies(final PluginMetaData plugin) {
+        final Set<String> names = new LinkedHashSet<>();
+        final String required = plugin.getRequirements().get("plugins");
+        if (required != null) {
+            for (String pluginName : required.split(",")) {
+                final String name = pluginName.split(":")[0].trim();
+                if (!name.isEmpty()) {
+                    names.add(name);
+                }
+            }
+        }
+        if (plugin.getParent() != null) {
+            names.add(plugin.getParent());
+        }
+
+        final Set<PluginMetaData> result = new LinkedHashSet<>();
+        for (String name : names) {
+            if (!pluginsByName.containsKey(name)) {
+                return null;
+            }
+            result.add(pluginsByName.get(name));
+        }
+
+        for (String serviceInfo : plugin.getRequiredServices()) {
+            final String[] parts = serviceInfo.split(" ", 2);
+            if (parts.length < 2 || isActive(parts[1], parts[0])) {
+                continue;
+            }
+
+            // Any provider of the service will do, so we can't know in advance which it will be.
+            if ("any".equals(parts[0])) {
+                return null;
+            }
+
+            final List<PluginMetaData> providers = pluginsByName.values().stream()
+                    .filter(p -> p.getServices().contains(parts[0] + ' ' + parts[1]))
+                    .collect(Collectors.toList());
+            if (providers.size() != 1) {
+                return null;
+            }
+            result.addAll(providers);
+        }
+
+        result.remove(plugin);
+        return result;
+    }
+
+    /**
+     * Determines whether a service is already active.
+     *
+     * @param type The type of the service.
+     * @param name The name of the service, or "any" for any service of the type.
+     * @return True if the service is active, false otherwise.
+     */
+    private boolean isActive(final String type, final String name) {
+        if ("any".equals(name)) {
+            return serviceManager.getServicesByType(type).stream().anyMatch(Service::isActive);
+        }
+
+        final Service service = serviceManager.getService(type, name);
+        return service != null && service.isActive();
+    }
+
+}
@@ -17,29 +17,47 @@
 
 package com.dmdirc.plugins;
 
+import com.dmdirc.commandparser.BaseCommandInfo;
+import com.dmdirc.commandparser.CommandInfo;
+import com.dmdirc.commandparser.CommandType;
 import com.dmdirc.events.PluginRefreshEvent;
 import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.interfaces.CommandController;
 import com.dmdirc.interfaces.config.IdentityController;
 import com.dmdirc.updater.components.PluginComponent;
 import com.dmdirc.updater.manager.UpdateManager;
+import com.dmdirc.util.StartupTracer;
 
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import java.io.File;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
+import javax.inject.Provider;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import dagger.ObjectGraph;
 
+import static com.dmdirc.util.LogUtils.APP_ERROR;
 import static com.dmdirc.util.LogUtils.USER_ERROR;
 
 /**
@@ -69,6 +87,13 @@ public class PluginManager {
     private final EventBus eventBus;
     /** The service manager to use. */
     private final ServiceManager serviceManager;
+    /** The tracer to record plugin load times with. */
+    private final StartupTracer startupTracer;
+    /** Provider of the controller to register lazy plugins' commands with. */
+    private final Provider<CommandController> commandController;
+    /** Stand-in commands registered for lazy plugins that have not yet been loaded. */
+    private final Map<PluginInfo, Collection<CommandInfo>> lazyCommands =
+            new ConcurrentHashMap<>();
 
     /**
      * Creates a new instance of PluginManager.
@@ -78,6 +103,9 @@ public class PluginManager {
      * @param updateManager       The update manager to inform about plugins.
      * @param objectGraph         The graph to pass to plugins for DI purposes.
      * @param directory           The directory to load plugins from.
+     * @param startupTracer       The tracer to record plugin load times with.
+     * @param commandController   Provider of the controller to register lazy plugins' commands
+     *                            with.
      */
     public PluginManager(
             final EventBus eventBus,
@@ -86,7 +114,9 @@ public class PluginManager {
             final UpdateManager updateManager,
             final ObjectGraph objectGraph,
             final PluginFileHandler fileHandler,
-            final String directory) {
+            final String directory,
+            final StartupTracer startupTracer,
+            final Provider<CommandController> commandController) {
         this.identityController = identityController;
         this.serviceManager = serviceManager;
         this.updateManager = updateManager;
@@ -95,6 +125,8 @@ public class PluginManager {
         this.globalClassLoader = new GlobalClassLoader(this);
         this.objectGraph = objectGraph;
         this.eventBus = eventBus;
+        this.startupTracer = startupTracer;
+        this.commandController = commandController;
     }
 
     /**
@@ -107,16 +139,110 @@ public class PluginManager {
     }
 
     /**
-     * Autoloads plugins.
+     * Autoloads plugins. Plugins that do not depend on each other are loaded concurrently, unless
+     * they are marked as not being parallel safe. Lazy plugins are not loaded, but will be when
+     * one of their services or commands is first used.
      */
     public void doAutoLoad() {
+        final Map<PluginMetaData, PluginInfo> infos = getPluginInfos().stream()
+                .collect(Collectors.toMap(PluginInfo::getMetaData, Function.identity()));
+        final List<PluginMetaData> requested = new ArrayList<>();
         for (String plugin : identityController.getGlobalConfiguration().getOptionList("plugins",
                 "autoload")) {
             plugin = plugin.trim();
             if (!plugin.isEmpty() && plugin.charAt(0) != '#' && getPluginInfo(plugin) != null) {
-                getPluginInfo(plugin).loadPlugin();
+                final PluginInfo info = getPluginInfo(plugin);
+                if (info.getMetaData().isLazy()) {
+                    registerLazyCommands(info);
+                } else {
+                    requested.add(info.getMetaData());
+                }
             }
         }
+
+        final PluginLoadOrder order = new PluginLoadOrder(serviceManager, infos.keySet(),
+                requested);
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                new ThreadFactoryBuilder().setNameFormat("plugin-loader-%d")
+                        .setDaemon(true).build());
+        final StartupTracer.Span phase = startupTracer.current();
+        try {
+            final Map<PluginMetaData, CompletableFuture<Void>> futures = new HashMap<>();
+            order.getConcurrent().forEach((plugin, dependencies) -> futures.put(plugin,
+                    CompletableFuture.allOf(dependencies.stream()
+                            .map(futures::get)
+                            .toArray(CompletableFuture<?>[]::new))
+                            .thenRunAsync(() -> autoLoad(phase, infos.get(plugin)), executor)));
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        order.getSerial().forEach(plugin -> autoLoad(phase, infos.get(plugin)));
+    }
+
+    /**
+     * Registers stand-in commands for each command declared by a lazy plugin, which will load the
+     * plugin when executed. The plugin's services are already registered from its metadata, and
+     * will load it when first requested.
+     *
+     * @param plugin The lazy plugin to register commands for.
+     */
+    void registerLazyCommands(final PluginInfo plugin) {
+        final PluginMetaData metaData = plugin.getMetaData();
+        final Collection<CommandInfo> commands = new ArrayList<>();
+        for (String command : metaData.getCommands()) {
+            final String[] parts = command.split(" ", 2);
+            final Optional<CommandType> type = parts.length < 2 ? Optional.empty()
+                    : Arrays.stream(CommandType.values())
+                            .filter(t -> t.toString().equalsIgnoreCase(parts[1].trim()))
+                            .findFirst();
+            if (type.isPresent()) {
+                final CommandInfo info = new BaseCommandInfo(parts[0], "Provided by the "
+                        + metaData.getFriendlyName() + " plugin, which is loaded when the "
+                        + "command is first used.", type.get());
+                commandController.get().registerCommand(
+                        new LazyPluginCommand(commandController.get(), plugin, info), info);
+                commands.add(info);
+            } else {
+                LOG.warn(USER_ERROR, "Invalid command '{}' declared by plugin {}", command,
+                        metaData.getName());
+            }
+        }
+        lazyCommands.put(plugin, commands);
+    }
+
+    /**
+     * Removes any stand-in commands registered for a lazy plugin. Called before the plugin is
+     * loaded, so that they don't conflict with the real commands it registers.
+     *
+     * @param plugin The plugin that is being loaded.
+     *
+     * @return True if stand-in commands were removed, false if the plugin had none.
+     */
+    boolean removeLazyCommands(final PluginInfo plugin) {
+        final Collection<CommandInfo> commands = lazyCommands.remove(plugin);
+        if (commands == null) {
+            return false;
+        }
+
+        commands.forEach(commandController.get()::unregisterCommand);
+        return true;
+    }
+
+    /**
+     * Loads a plugin as part of the auto-load process.
+     *
+     * @param phase The span the plugin's load should be nested in.
+     * @param plugin The plugin to load.
+     */
+    private void autoLoad(@Nullable final StartupTracer.Span phase, final PluginInfo plugin) {
+        try {
+            startupTracer.trace(phase, "plugin", plugin.getFilename(), plugin::loadPlugin);
+        } catch (RuntimeException ex) {
+            LOG.warn(APP_ERROR, "Unable to auto-load plugin {}", plugin.getFilename(), ex);
+        }
     }
 
     /**
@@ -131,6 +257,19 @@ public class PluginManager {
      *         a result of it), false if it was not added for one of the reasons outlined above.
      */
     public boolean addPlugin(final String filename) {
+        return addPlugin(filename, null);
+    }
+
+    /**
+     * Tests and adds the specified plugin to the known plugins list.
+     *
+     * @param filename Filename of Plugin jar
+     * @param loaded   The metadata already loaded from the plugin, or null to load it
+     *
+     * @return True if the plugin is in the known plugins list.
+     * @see #addPlugin(String)
+     */
+    private boolean addPlugin(final String filename, @Nullable final PluginMetaData loaded) {
         if (knownPlugins.containsKey(filename.toLowerCase())) {
             return true;
         }
@@ -141,9 +280,13 @@ public class PluginManager {
         }
 
         try {
-            final PluginMetaData metadata = new PluginMetaData(this,
-                    Paths.get(directory, filename));
-            metadata.load();
+            final PluginMetaData metadata;
+            if (loaded == null) {
+                metadata = new PluginMetaData(this, Paths.get(directory, filename));
+                metadata.load();
+            } else {
+                metadata = loaded;
+            }
             final PluginInfo pluginInfo = new PluginInfo(this, serviceManager, metadata,
                     eventBus, identityController, objectGraph);
             final PluginInfo existing = getPluginInfoByName(metadata.getName());
@@ -306,7 +449,7 @@ public class PluginManager {
      */
     private void handleNewPluginFound(final PluginMetaData metaData) {
         plugins.add(metaData);
-        addPlugin(metaData.getRelativeFilename());
+        addPlugin(metaData.getRelativeFilename(), metaData);
     }
 
     /**
@@ -21,9 +21,11 @@ import com.dmdirc.updater.Version;
 import com.dmdirc.util.io.ConfigFile;
 import com.dmdirc.util.io.InvalidConfigFileException;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -55,6 +57,8 @@ import java.util.Objects;
  * {@link #readExports(Collection)}.
  * <li><code>persistent</code> - optional list of persistent classes within the plugin. See
  * {@link #readPersistent(Collection)}.
+ * <li><code>commands</code> - optional list of commands registered by a lazy plugin. See
+ * {@link #readCommands(Collection)}.
  * </ul>
  * A collection of errors that occurred when attempting to read the metadata is available via the
  * {@link #getErrors()} method.
@@ -81,6 +85,8 @@ public class PluginMetaData {
     private final Collection<String> exports = new ArrayList<>();
     /** Persistent classes in this plugin. */
     private final Collection<String> persistentClasses = new ArrayList<>();
+    /** Commands registered by this plugin. */
+    private final Collection<String> commands = new ArrayList<>();
     /** The name of the parent plugin, if any. */
     private String parent;
     /** The name of the main class, if any. */
@@ -101,6 +107,10 @@ public class PluginMetaData {
     private String description;
     /** Whether or not the plugin is marked as unloadable. */
     private boolean unloadable;
+    /** Whether or not the plugin can be loaded concurrently with other plugins. */
+    private boolean parallelSafe;
+    /** Whether or not the plugin should only be loaded when it is first used. */
+    private boolean lazy;
     /** The URL to the plugin. */
     private final Path pluginPath;
     /** The parent plugin manager. */
@@ -121,9 +131,25 @@ public class PluginMetaData {
      * Loads plugin metadata from a config file.
      */
     public void load() {
+        try {
+            load(readConfig(pluginPath));
+        } catch (IOException ex) {
+            errors.clear();
+            errors.add("Unable to read config file: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Loads plugin metadata from the contents of a config file that has previously been read from
+     * the plugin.
+     *
+     * @param config The contents of the plugin's config file.
+     * @see #readConfig(Path)
+     */
+    void load(final byte[] config) {
         errors.clear();
-        try (FileSystem fs = FileSystems.newFileSystem(pluginPath, getClass().getClassLoader())) {
-            final ConfigFile configFile = new ConfigFile(fs.getPath("/META-INF/plugin.config"));
+        try {
+            final ConfigFile configFile = new ConfigFile(new ByteArrayInputStream(config));
             configFile.read();
             readMetaData(configFile.getKeyDomain("metadata"));
             readVersion(configFile.getKeyDomain("version"));
@@ -136,11 +162,26 @@ public class PluginMetaData {
             readProvides(configFile.getFlatDomain("provides"));
             readPersistent(configFile.getFlatDomain("persistent"));
             readExports(configFile.getFlatDomain("exports"));
+            readCommands(configFile.getFlatDomain("commands"));
         } catch (IOException | InvalidConfigFileException ex) {
             errors.add("Unable to read config file: " + ex.getMessage());
         }
     }
 
+    /**
+     * Reads the contents of the config file inside the given plugin.
+     *
+     * @param pluginPath The path of the plugin to read.
+     * @return The contents of the plugin's config file.
+     * @throws IOException If the plugin or its config file could not be read.
+     */
+    static byte[] readConfig(final Path pluginPath) throws IOException {
+        try (FileSystem fs = FileSystems.newFileSystem(pluginPath,
+                PluginMetaData.class.getClassLoader())) {
+            return Files.readAllBytes(fs.getPath("/META-INF/plugin.config"));
+        }
+    }
+
     @Override
     public boolean equals(final Object obj) {
         if (obj == null || getClass() != obj.getClass()) {
@@ -168,6 +209,10 @@ public class PluginMetaData {
      * <li><code>nicename</code> - user-friendly name
      * <li><code>unloadable</code> - boolean indicating if the plugin can be unloaded. Defaults to
      * true if not specified.
+     * <li><code>parallelsafe</code> - boolean indicating if the plugin can be loaded concurrently
+     * with other plugins. Defaults to true if not specified.
+     * <li><code>lazy</code> - boolean indicating if the plugin should not be loaded at start up,
+     * but when one of its services or commands is first used. Defaults to false if not specified.
      * </ul>
      * It is recommended that the <code>author</code> field should take the form of "
      * <code>name &lt;email@address&gt;</code>", although this is not enforced.
@@ -190,6 +235,9 @@ public class PluginMetaData {
         friendlyName = data.get("nicename");
         unloadable = !data.containsKey("unloadable")
                 || !data.get("unloadable").matches("(?i)^true|1|yes$");
+        parallelSafe = !data.containsKey("parallelsafe")
+                || data.get("parallelsafe").matches("(?i)^true|1|yes$");
+        lazy = data.containsKey("lazy") && data.get("lazy").matches("(?i)^true|1|yes$");
     }
 
     /**
@@ -336,6 +384,23 @@ public class PluginMetaData {
         }
     }
 
+    /**
+     * Reads the commands section of the config file. This is a flat domain containing a list of
+     * the commands the plugin registers when loaded, as a space-separated name and type pair, e.g.
+     * 'nowplaying chat' or 'dcc server'. The type is one of 'global', 'server', 'chat', 'channel'
+     * or 'query'. Commands are only used for lazy plugins, which are loaded when one of their
+     * commands is first executed.
+     *
+     * @param commands The commands registered by the plugin
+     */
+    protected void readCommands(final Collection<String> commands) {
+        this.commands.clear();
+
+        if (commands != null) {
+            this.commands.addAll(commands);
+        }
+    }
+
     // </editor-fold>
     /**
      * Calculates the relative path of this plugin in relation to the main plugin directory.
@@ -442,6 +507,24 @@ public class PluginMetaData {
         return unloadable;
     }
 
+    /**
+     * Determines whether the plugin can be loaded concurrently with other plugins.
+     *
+     * @return True if the plugin can be loaded concurrently, false otherwise
+     */
+    public boolean isParallelSafe() {
+        return parallelSafe;
+    }
+
+    /**
+     * Determines whether the plugin should only be loaded when it is first used.
+     *
+     * @return True if the plugin is lazy, false otherwise
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
     /**
      * Retrieves the version of this plugin
      *
@@ -543,5 +626,15 @@ public class PluginMetaData {
         return Collections.unmodifiableCollection(persistentClasses);
     }
 
+    /**
+     * Retrieves the collection of commands registered by the plugin.
+     *
+     * @see #readCommands(Collection)
+     * @return The commands registered by the plugin
+     */
+    public Collection<String> getCommands() {
+        return Collections.unmodifiableCollection(commands);
+    }
+
     // </editor-fold>
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.plugins;
+
+import com.dmdirc.util.io.yaml.BaseYamlStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.dmdirc.util.io.yaml.YamlReaderUtils.asMap;
+import static com.dmdirc.util.io.yaml.YamlReaderUtils.requiredString;
+
+/**
+ * Persistent index of plugin config files, keyed by the path, size and modification time of the
+ * plugin they were read from. Plugins that have not changed since they were indexed do not need
+ * to be reopened to read their metadata.
+ * <p>
+ * The index is written as a list of maps:
+ * <pre><code>
+ * ---
+ * - path: /home/user/.DMDirc/plugins/ui_swing.jar
+ *   size: 1048576
+ *   modified: 1490000000000
+ *   config: a2V5c2VjdGlvbnM6CgltZXRhZGF0YQo...
+ * </code></pre>
+ * Config files are Base64 encoded, as they are indented with tabs which YAML does not allow.
+ */
+class PluginMetaDataIndex extends BaseYamlStore<PluginMetaDataIndex.Entry> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PluginMetaDataIndex.class);
+
+    /** The path to the file to read and write the index in. */
+    private final Path path;
+    /** The indexed config files, keyed on the path of their plugin. */
+    private final Map<Path, Entry> entries = new HashMap<>();
+    /** Whether the index has been read from disk. */
+    private boolean loaded;
+    /** Whether the index has changed since it was last read or written. */
+    private boolean dirty;
+
+    /**
+     * Creates a new plugin metadata index.
+     *
+     * @param path The path to the YAML file to read and write the index in.
+     */
+    PluginMetaDataIndex(final Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Gets the contents of the config file inside the given plugin. If the plugin has changed
+     * since it was last indexed, or has not been indexed, it is read from disk and the index is
+     * updated.
+     *
+     * @param plugin The absolute path of the plugin to get the config file of.
+     * @return The contents of the plugin's config file.
+     * @throws IOException If the plugin or its config file could not be read.
+     */
+    synchronized byte[] getConfig(final Path plugin) throws IOException {
+        if (!loaded) {
+            read(path).forEach(e -> entries.put(e.getPath(), e));
+            loaded = true;
+        }
+
+        final BasicFileAttributes attributes =
+                Files.readAttributes(plugin, BasicFileAttributes.class);
+        final long size = attributes.size();
+        final long modified = attributes.lastModifiedTime().toMillis();
+
+        final Entry entry = entries.get(plugin);
+        if (entry != null && entry.getSize() == size && entry.getModified() == modified) {
+            return entry.getConfig();
+        }
+
+        final byte[] config = PluginMetaData.readConfig(plugin);
+        entries.put(plugin, new Entry(plugin, size, modified, config));
+        dirty = true;
+        return config;
+    }
+
+    /**
+     * Removes all plugins from the index except for the given ones.
+     *
+     * @param plugins The absolute paths of the plugins to keep in the index.
+     */
+    synchronized void retainAll(final Collection<Path> plugins) {
+        dirty |= entries.keySet().retainAll(plugins);
+    }
+
+    /**
+     * Writes the index to disk, if it has changed.
+     */
+    synchronized void save() {
+        if (dirty) {
+            write(path, entries.values());
+            dirty = false;
+        }
+    }
+
+    @Override
+    protected Optional<Entry> convertFromYaml(final Object object) {
+        try {
+            final Map<Object, Object> map = asMap(object);
+            return Optional.of(new Entry(
+                    path.getFileSystem().getPath(requiredString(map, "path")),
+                    Long.parseLong(requiredString(map, "size")),
+                    Long.parseLong(requiredString(map, "modified")),
+                    Base64.getDecoder().decode(requiredString(map, "config"))));
+        } catch (IllegalArgumentException ex) {
+            LOG.info("Unable to read plugin index entry", ex);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    protected Object convertToYaml(final Entry object) {
+        final Map<Object, Object> map = new HashMap<>();
+        map.put("path", object.getPath().toString());
+        map.put("size", String.valueOf(object.getSize()));
+        map.put("modified", String.valueOf(object.getModified()));
+        map.put("config", Base64.getEncoder().encodeToString(object.getConfig()));
+        return map;
+    }
+
+    /**
+     * An indexed config file.
+     */
+    static class Entry {
+
+        /** The path of the plugin the config was read from. */
+        private final Path path;
+        /** The size of the plugin when the config was read. */
+        private final long size;
+        /** The modification time of the plugin, in milliseconds, when the config was read. */
+        private final long modified;
+        /** The contents of the config file. */
+        private final byte[] config;
+
+        Entry(final Path path, final long size, final long modified, final byte[] config) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.config = config;
+        }
+
+        Path getPath() {
+            return path;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getModified() {
+            return modified;
+        }
+
+        byte[] getConfig() {
+            return config;
+        }
+
+    }
+
+}
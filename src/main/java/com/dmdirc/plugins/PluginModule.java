@@ -18,10 +18,13 @@
 package com.dmdirc.plugins;
 
 import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.interfaces.CommandController;
 import com.dmdirc.util.system.SystemLifecycleComponent;
 import com.dmdirc.interfaces.config.IdentityController;
 import com.dmdirc.updater.manager.UpdateManager;
+import com.dmdirc.util.StartupTracer;
 
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import dagger.Module;
@@ -48,9 +51,12 @@ public class PluginModule {
             final ServiceManager serviceManager,
             final CorePluginHelper pluginHelper,
             final PluginFileHandler fileHandler,
-            @Directory(DirectoryType.PLUGINS) final String directory) {
+            @Directory(DirectoryType.PLUGINS) final String directory,
+            final StartupTracer startupTracer,
+            final Provider<CommandController> commandController) {
         final PluginManager manager = new PluginManager(eventBus, serviceManager,
-                identityController, updateManager, objectGraph, fileHandler, directory);
+                identityController, updateManager, objectGraph, fileHandler, directory,
+                startupTracer, commandController);
         manager.refreshPlugins();
 
         final CorePluginExtractor extractor = new CorePluginExtractor(manager, directory);
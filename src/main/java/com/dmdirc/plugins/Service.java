@@ -19,6 +19,7 @@ package com.dmdirc.plugins;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Defines a service provided by a ServiceProvider.
@@ -30,7 +31,7 @@ public class Service {
     /** Service Name. */
     private final String name;
     /** List of ServiceProviders that implement this service. */
-    private final List<ServiceProvider> serviceproviders = new ArrayList<>();
+    private final List<ServiceProvider> serviceproviders = new CopyOnWriteArrayList<>();
 
     /**
      * Create a new Service.
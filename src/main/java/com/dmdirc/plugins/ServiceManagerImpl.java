@@ -44,7 +44,8 @@ public class ServiceManagerImpl implements ServiceManager {
     }
 
     @Override
-    public Service getService(final String type, final String name, final boolean create) {
+    public synchronized Service getService(final String type, final String name,
+            final boolean create) {
         // Find the type first
         if (services.containsKey(type)) {
             final Map<String, Service> map = services.get(type);
@@ -115,7 +116,7 @@ public class ServiceManagerImpl implements ServiceManager {
     }
 
     @Override
-    public List<Service> getServicesByType(final String type) {
+    public synchronized List<Service> getServicesByType(final String type) {
         // Find the type first
         if (services.containsKey(type)) {
             final Map<String, Service> map = services.get(type);
@@ -126,7 +127,7 @@ public class ServiceManagerImpl implements ServiceManager {
     }
 
     @Override
-    public List<Service> getAllServices() {
+    public synchronized List<Service> getAllServices() {
         // Find the type first
         final List<Service> allServices = new ArrayList<>();
         for (Map<String, Service> map : services.values()) {
@@ -36,18 +36,16 @@ import com.dmdirc.plugins.ServiceManager;
 import com.dmdirc.ui.input.tabstyles.TabCompletionResult;
 import com.dmdirc.ui.input.tabstyles.TabCompletionStyle;
 import com.dmdirc.ui.messages.IRCControlCodes;
+import com.dmdirc.util.TimerGroup;
+import com.dmdirc.util.TimerService;
 import com.dmdirc.util.collections.ListenerList;
 import com.dmdirc.util.collections.RollingList;
 import com.dmdirc.util.validators.ValidationResponse;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
-
 import java.awt.Toolkit;
 import java.awt.event.KeyEvent;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -115,8 +113,8 @@ public abstract class InputHandler implements ConfigChangeListener {
     private final CommandController commandController;
     /** The event bus to use to dispatch input events. */
     private final EventBus eventBus;
-    /** Executor service. */
-    private final ScheduledExecutorService executorService;
+    /** Timers used to manage the composition state. */
+    private final TimerGroup timers;
 
     /**
      * Creates a new instance of InputHandler. Adds listeners to the target that we need to operate.
@@ -127,6 +125,7 @@ public abstract class InputHandler implements ConfigChangeListener {
      * @param commandParser     The command parser to use for this text field.
      * @param parentWindow      The window that owns this input handler
      * @param eventBus          The event bus to use to dispatch input events.
+     * @param timerService      The service to use to schedule composition state timeouts.
      */
     public InputHandler(
             final ServiceManager serviceManager,
@@ -135,7 +134,8 @@ public abstract class InputHandler implements ConfigChangeListener {
             final CommandParser commandParser,
             final WindowModel parentWindow,
             final TabCompleterUtils tabCompleterUtils,
-            final EventBus eventBus) {
+            final EventBus eventBus,
+            final TimerService timerService) {
         buffer = new RollingList<>(parentWindow.getConfigManager()
                 .getOptionInt("ui", "inputbuffersize"), "");
 
@@ -146,8 +146,7 @@ public abstract class InputHandler implements ConfigChangeListener {
         this.parentWindow = parentWindow;
         this.tabCompleterUtils = tabCompleterUtils;
         this.eventBus = eventBus;
-        executorService = Executors.newSingleThreadScheduledExecutor(
-                new ThreadFactoryBuilder().setNameFormat("Composition state timer-%d").build());
+        this.timers = timerService.createGroup("input " + parentWindow.getName());
 
         setStyle();
 
@@ -302,7 +301,7 @@ public abstract class InputHandler implements ConfigChangeListener {
     private void cancelTypingNotification() {
         if (compositionTimer != null) {
             LOG.debug("Cancelling composition timer");
-            compositionTimer.cancel(true);
+            compositionTimer.cancel(false);
         }
 
         LOG.debug("Cancelling typing notification");
@@ -313,10 +312,10 @@ public abstract class InputHandler implements ConfigChangeListener {
     private void updateTypingNotification() {
         if (compositionTimer != null) {
             LOG.debug("Cancelling composition timer");
-            compositionTimer.cancel(true);
+            compositionTimer.cancel(false);
         }
 
-        compositionTimer = executorService.schedule(this::timeoutTypingNotification,
+        compositionTimer = timers.schedule(this::timeoutTypingNotification,
                 TYPING_TIMEOUT, TimeUnit.MILLISECONDS);
 
         LOG.debug("Setting composition state to typing. Timer scheduled for {}", TYPING_TIMEOUT);
@@ -671,7 +670,7 @@ public abstract class InputHandler implements ConfigChangeListener {
     @Handler
     void parentClosing(final FrameClosingEvent event) {
         if (event.getSource().equals(parentWindow)) {
-            executorService.shutdown();
+            timers.cancelAll();
             eventBus.unsubscribe(this);
         }
     }
@@ -61,9 +61,9 @@ public class IRCDocument implements Serializable, ConfigChangeListener, Document
 
         frameBufferSize = configManager.getOptionInt("ui", "frameBufferSize", false);
 
-        configManager.addChangeListener("ui", "textPaneFontSize", this);
-        configManager.addChangeListener("ui", "textPaneFontName", this);
-        configManager.addChangeListener("ui", "frameBufferSize", this);
+        configManager.addWeakChangeListener("ui", "textPaneFontSize", this);
+        configManager.addWeakChangeListener("ui", "textPaneFontName", this);
+        configManager.addWeakChangeListener("ui", "frameBufferSize", this);
 
         setCachedSettings();
     }
@@ -109,10 +109,10 @@ public class Styliser implements ConfigChangeListener, StyleApplier {
         this.configManager = configManager;
         this.colourManager = colourManager;
 
-        configManager.addChangeListener("ui", "linkcolour", this);
-        configManager.addChangeListener("ui", "channelcolour", this);
-        configManager.addChangeListener("ui", "stylelinks", this);
-        configManager.addChangeListener("ui", "stylechannels", this);
+        configManager.addWeakChangeListener("ui", "linkcolour", this);
+        configManager.addWeakChangeListener("ui", "channelcolour", this);
+        configManager.addWeakChangeListener("ui", "stylelinks", this);
+        configManager.addWeakChangeListener("ui", "stylechannels", this);
         styleURIs = configManager.getOptionBool("ui", "stylelinks");
         styleChannels = configManager.getOptionBool("ui", "stylechannels");
         uriColour = colourManager.getColourFromString(
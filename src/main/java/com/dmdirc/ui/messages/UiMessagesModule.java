@@ -19,6 +19,7 @@ package com.dmdirc.ui.messages;
 
 import com.dmdirc.commandline.CommandLineOptionsModule.Directory;
 import com.dmdirc.config.GlobalConfig;
+import com.dmdirc.util.FileWatcher;
 import dagger.Module;
 import dagger.Provides;
 
@@ -39,10 +40,13 @@ public class UiMessagesModule {
     public MultiEventFormatProvider getTemplateProvider(
             @Directory(BASE) final Path directory,
             @GlobalConfig final ColourManager colourManager,
-            final DisplayLocationManager displayLocationManager) {
+            final DisplayLocationManager displayLocationManager,
+            final FileWatcher fileWatcher) {
+        final Path path = directory.resolve("format.yml");
         final YamlEventFormatProvider yamlProvider =
-                new YamlEventFormatProvider(directory.resolve("format.yml"), colourManager, displayLocationManager);
+                new YamlEventFormatProvider(path, colourManager, displayLocationManager);
         yamlProvider.load();
+        fileWatcher.watchFile(path, p -> yamlProvider.load());
         return new MultiEventFormatProvider(yamlProvider);
     }
 
@@ -26,12 +26,12 @@ import com.dmdirc.events.DisplayableEvent;
 import com.dmdirc.events.QueryHighlightEvent;
 import com.dmdirc.events.UnreadStatusChangedEvent;
 import com.dmdirc.interfaces.WindowModel;
+import com.dmdirc.util.TimerGroup;
 import com.dmdirc.util.colours.Colour;
-import io.reactivex.subjects.PublishSubject;
-import io.reactivex.subjects.Subject;
 import net.engio.mbassy.listener.Handler;
 
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -39,9 +39,16 @@ import java.util.concurrent.TimeUnit;
  */
 public class UnreadStatusManagerImpl implements UnreadStatusManager {
 
+    /** The minimum time between status change events, in milliseconds. */
+    private static final int PUBLISH_INTERVAL = 200;
+
     private final WindowModel container;
     private final ColourManager colourManager;
-    private final Subject<UnreadStatusChangedEvent> eventSubject;
+    private final TimerGroup timers;
+    private final Object pendingEventLock = new Object();
+
+    /** The most recent status change that has not yet been published, if any. */
+    private UnreadStatusChangedEvent pendingEvent;
 
     private int unreadLines;
     private Optional<Colour> notificationColour = Optional.empty();
@@ -50,14 +57,10 @@ public class UnreadStatusManagerImpl implements UnreadStatusManager {
     private Optional<Colour> messageColour = Optional.of(Colour.BLUE);
     private Optional<Colour> highlightColour = Optional.of(Colour.RED);
 
-    public UnreadStatusManagerImpl(final WindowModel container) {
+    public UnreadStatusManagerImpl(final WindowModel container, final TimerGroup timers) {
         this.container = container;
         this.colourManager = new ColourManagerImpl(container.getConfigManager());
-        this.eventSubject = PublishSubject.create();
-
-        eventSubject
-                .throttleLast(200, TimeUnit.MILLISECONDS)
-                .subscribe(unreadStatusChangedEvent -> container.getEventBus().publish(unreadStatusChangedEvent));
+        this.timers = timers;
     }
 
     @Handler
@@ -182,8 +185,32 @@ public class UnreadStatusManagerImpl implements UnreadStatusManager {
     }
 
     private void publishChangedEvent() {
-        eventSubject.onNext(new UnreadStatusChangedEvent(container, this, notificationColour,
-                unreadLines));
+        final UnreadStatusChangedEvent event = new UnreadStatusChangedEvent(container, this,
+                notificationColour, unreadLines);
+        synchronized (pendingEventLock) {
+            final boolean scheduled = pendingEvent != null;
+            pendingEvent = event;
+            if (!scheduled) {
+                // Only the latest status in each interval is published, so a timer is only
+                // needed while there is actually a change waiting to go out.
+                try {
+                    timers.schedule(this::publishPendingEvent, PUBLISH_INTERVAL,
+                            TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException ex) {
+                    // The window has been closed; nobody is interested any more.
+                    pendingEvent = null;
+                }
+            }
+        }
+    }
+
+    private void publishPendingEvent() {
+        final UnreadStatusChangedEvent event;
+        synchronized (pendingEventLock) {
+            event = pendingEvent;
+            pendingEvent = null;
+        }
+        container.getEventBus().publish(event);
     }
 
 }
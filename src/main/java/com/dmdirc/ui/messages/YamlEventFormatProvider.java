@@ -53,7 +53,8 @@ public class YamlEventFormatProvider implements EventFormatProvider {
     private final Path path;
     private final ColourManager colourManager;
     private final DisplayLocationManager displayLocationManager;
-    private final Map<String, EventFormat> formats = new HashMap<>();
+    /** The loaded formats, replaced wholesale on each load so readers never see a partial set. */
+    private volatile Map<String, EventFormat> formats = new HashMap<>();
 
     public YamlEventFormatProvider(final Path path, final ColourManager colourManager,
                                    final DisplayLocationManager displayLocationManager) {
@@ -62,30 +63,33 @@ public class YamlEventFormatProvider implements EventFormatProvider {
         this.displayLocationManager = displayLocationManager;
     }
 
-    public void load() {
-        formats.clear();
+    public synchronized void load() {
+        final Map<String, EventFormat> newFormats = new HashMap<>();
 
         try (final InputStream stream = getClass().getResourceAsStream("format.yml")) {
-            load(stream);
+            load(stream, newFormats);
         } catch (IOException e) {
             LOG.error(FATAL_APP_ERROR, "Unable to load default event templates", e);
         }
 
         if (Files.exists(path)) {
             try (final InputStream stream = Files.newInputStream(path)) {
-                load(stream);
+                load(stream, newFormats);
             } catch (IOException e) {
                 LOG.info(USER_ERROR, "Unable to load event templates from {}", path, e);
             }
         }
+
+        formats = newFormats;
     }
 
-    private void load(final InputStream stream) throws IOException {
+    private void load(final InputStream stream, final Map<String, EventFormat> target)
+            throws IOException {
         try (final InputStreamReader reader = new InputStreamReader(stream, CHARSET)) {
             final YamlReader yamlReader = new YamlReader(reader);
             final Object root = yamlReader.read();
             final Map<Object, Object> entries = asMap(root);
-            entries.forEach((k, v) -> formats.put(k.toString(), readFormat(v)));
+            entries.forEach((k, v) -> target.put(k.toString(), readFormat(v)));
             yamlReader.close();
         }
     }
@@ -20,6 +20,8 @@ package com.dmdirc.ui.themes;
 import com.dmdirc.interfaces.config.IdentityController;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -86,6 +88,34 @@ public class ThemeManager {
         }
     }
 
+    /**
+     * Handles a change to a file in the themes directory. A new or modified theme is (re)loaded,
+     * and a deleted theme is removed. If the themes directory itself is given, it is rescanned.
+     *
+     * @param file The file that has changed
+     */
+    public void themeFileChanged(final Path file) {
+        if (Files.isDirectory(file)) {
+            refreshAndLoadThemes();
+            return;
+        }
+
+        final String name = file.getFileName().toString();
+        final List<String> enabled = identityController.getGlobalConfiguration()
+                .getOptionList("themes", "enabled");
+
+        synchronized (themes) {
+            final Theme oldTheme = themes.remove(name);
+            if (oldTheme != null && oldTheme.isEnabled()) {
+                oldTheme.removeTheme();
+            }
+
+            if (Files.exists(file)) {
+                loadTheme(file.toFile(), enabled.contains(name));
+            }
+        }
+    }
+
     /**
      * Attempts to load the theme from the specified file. If the enabled argument is true, the
      * theme will be applied automatically. If it has been previously applied and is no longer
@@ -117,13 +147,13 @@ public class ThemeManager {
     }
 
     /**
-     * Retrieves a list of available themes.
+     * Retrieves a list of available themes. The list is kept up to date by
+     * {@link #refreshAndLoadThemes()} and {@link #themeFileChanged(Path)}, rather than by
+     * rescanning the themes directory on each call.
      *
      * @return A list of available themes
      */
     public Map<String, Theme> getAllThemes() {
-        refreshAndLoadThemes();
-
         synchronized (themes) {
             return new HashMap<>(themes);
         }
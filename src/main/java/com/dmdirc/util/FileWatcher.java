@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.util;
+
+import com.dmdirc.util.system.SystemLifecycleComponent;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.dmdirc.util.LogUtils.APP_ERROR;
+import static com.dmdirc.util.LogUtils.USER_ERROR;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches files and directories for changes, and tells interested parties which files have been
+ * created, modified or deleted.
+ *
+ * <p>Changes are collected for a short period before handlers are called, so a burst of events
+ * for the same file (such as an editor writing it in several steps) results in a single call.
+ * Handlers are called on a single background thread, one at a time.
+ */
+@Singleton
+public class FileWatcher implements SystemLifecycleComponent {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileWatcher.class);
+    /** How long to wait for further events before handling changes, in milliseconds. */
+    private static final long DEBOUNCE_DELAY = 500;
+    /** How long the handler thread is kept alive while idle, in seconds. */
+    private static final long KEEP_ALIVE = 10;
+    /** The executor used to call handlers. */
+    private final ScheduledExecutorService executor;
+    /** How long to wait for further events before handling changes, in milliseconds. */
+    private final long delay;
+    /** All registered watches. */
+    private final List<Watch> watches = new ArrayList<>();
+    /** The watches for each directory registered with the watch service. */
+    private final Map<WatchKey, List<Watch>> keys = new ConcurrentHashMap<>();
+    /** Changed files waiting to be handled, and the watches they were seen by. */
+    private final Map<Path, Set<Watch>> pending = new LinkedHashMap<>();
+    /** The watch service in use, if started. */
+    @Nullable private WatchService watchService;
+    /** Whether handling pending changes is currently scheduled. */
+    private boolean scheduled;
+
+    /**
+     * Creates a new file watcher with its own background thread.
+     */
+    @Inject
+    public FileWatcher() {
+        this(createExecutor(), DEBOUNCE_DELAY);
+    }
+
+    /**
+     * Creates a new file watcher.
+     *
+     * @param executor The executor to call handlers on; it must run tasks one at a time.
+     * @param delay    How long to wait for further events before handling changes, in
+     *                 milliseconds
+     */
+    FileWatcher(final ScheduledExecutorService executor, final long delay) {
+        this.executor = executor;
+        this.delay = delay;
+    }
+
+    /**
+     * Watches a directory for changes to the files within it. If events are lost, the handler is
+     * called with the directory itself and should rescan it.
+     *
+     * @param directory The directory to watch
+     * @param recursive Whether to watch subdirectories as well
+     * @param filter    Filter for the files the handler is interested in
+     * @param handler   The handler to call with each changed file
+     */
+    public void watchDirectory(final Path directory, final boolean recursive,
+            final Predicate<Path> filter, final Consumer<Path> handler) {
+        addWatch(new Watch(directory, recursive, filter, handler));
+    }
+
+    /**
+     * Watches a single file for changes.
+     *
+     * @param file    The file to watch
+     * @param handler The handler to call when the file changes
+     */
+    public void watchFile(final Path file, final Consumer<Path> handler) {
+        final Path fileName = file.getFileName();
+        addWatch(new Watch(file.toAbsolutePath().getParent(), false,
+                p -> p.getFileName().equals(fileName),
+                p -> handler.accept(file)));
+    }
+
+    @Override
+    public void startUp() {
+        final WatchService service;
+        final Collection<Watch> toRegister;
+        synchronized (watches) {
+            if (watchService != null) {
+                return;
+            }
+            try {
+                watchService = FileSystems.getDefault().newWatchService();
+            } catch (IOException | UnsupportedOperationException ex) {
+                LOG.warn(APP_ERROR, "Unable to watch files for changes", ex);
+                return;
+            }
+            service = watchService;
+            toRegister = new ArrayList<>(watches);
+        }
+
+        toRegister.forEach(watch -> register(service, watch, watch.directory));
+
+        final Thread thread = new Thread(() -> watchForEvents(service), "File watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void shutDown() {
+        synchronized (watches) {
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException ex) {
+                    LOG.warn(APP_ERROR, "Unable to stop watching files", ex);
+                }
+                watchService = null;
+            }
+        }
+        keys.clear();
+        executor.shutdown();
+    }
+
+    /**
+     * Adds a watch, registering it with the watch service if it has been started.
+     *
+     * @param watch The watch to add
+     */
+    private void addWatch(final Watch watch) {
+        final WatchService service;
+        synchronized (watches) {
+            watches.add(watch);
+            service = watchService;
+        }
+
+        if (service != null) {
+            register(service, watch, watch.directory);
+        }
+    }
+
+    /**
+     * Registers a directory, and its subdirectories if the watch is recursive, with the watch
+     * service.
+     *
+     * @param service   The watch service to register with
+     * @param watch     The watch the directory belongs to
+     * @param directory The directory to register
+     */
+    private void register(final WatchService service, final Watch watch, final Path directory) {
+        if (!Files.isDirectory(directory)) {
+            LOG.debug("Not watching {} as it isn't a directory", directory);
+            return;
+        }
+
+        try {
+            // The same directory may be watched several times, and always yields the same key.
+            final List<Watch> keyWatches = keys.computeIfAbsent(
+                    directory.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE),
+                    k -> new CopyOnWriteArrayList<>());
+            synchronized (keyWatches) {
+                if (keyWatches.stream().noneMatch(w -> w.origin == watch.origin)) {
+                    keyWatches.add(watch.forDirectory(directory));
+                }
+            }
+
+            if (watch.recursive) {
+                try (Stream<Path> children = Files.list(directory)) {
+                    children.filter(Files::isDirectory)
+                            .forEach(child -> register(service, watch, child));
+                }
+            }
+        } catch (ClosedWatchServiceException ex) {
+            // Shut down while registering; nothing to do.
+        } catch (IOException ex) {
+            LOG.warn(USER_ERROR, "Unable to watch {} for changes", directory, ex);
+        }
+    }
+
+    /**
+     * Waits for events from the watch service, queueing changed files to be handled. Returns when
+     * the watch service is closed.
+     *
+     * @param service The watch service to wait on
+     */
+    private void watchForEvents(final WatchService service) {
+        try {
+            while (true) {
+                final WatchKey key = service.take();
+                final List<Watch> keyWatches = keys.get(key);
+                if (keyWatches != null) {
+                    key.pollEvents().forEach(event -> keyWatches.forEach(
+                            watch -> handleEvent(service, watch, event)));
+                }
+                if (!key.reset()) {
+                    keys.remove(key);
+                }
+            }
+        } catch (ClosedWatchServiceException ex) {
+            LOG.debug("Stopped watching files");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Handles a single event from the watch service.
+     *
+     * @param service The watch service that produced the event
+     * @param watch   The watch for the directory the event occurred in
+     * @param event   The event to be handled
+     */
+    private void handleEvent(final WatchService service, final Watch watch,
+            final WatchEvent<?> event) {
+        if (event.kind() == OVERFLOW) {
+            queue(watch.directory, watch);
+            return;
+        }
+
+        final Path file = watch.directory.resolve((Path) event.context());
+        if (watch.recursive && event.kind() == ENTRY_CREATE && Files.isDirectory(file)) {
+            // Files may have been added before we started watching the new directory
+            register(service, watch, file);
+            queue(file, watch);
+        } else if (watch.filter.test(file)) {
+            queue(file, watch);
+        }
+    }
+
+    /**
+     * Queues a changed file to be handled once events stop arriving.
+     *
+     * @param file  The file that has changed
+     * @param watch The watch that saw the change
+     */
+    private void queue(final Path file, final Watch watch) {
+        synchronized (pending) {
+            pending.computeIfAbsent(file, f -> new LinkedHashSet<>()).add(watch.origin);
+            if (!scheduled) {
+                scheduled = true;
+                executor.schedule(this::handlePending, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Calls the handlers for all queued files.
+     */
+    private void handlePending() {
+        final Map<Path, Set<Watch>> changes;
+        synchronized (pending) {
+            changes = new LinkedHashMap<>(pending);
+            pending.clear();
+            scheduled = false;
+        }
+
+        changes.forEach((file, fileWatches) -> fileWatches.forEach(watch -> {
+            try {
+                watch.handler.accept(file);
+            } catch (RuntimeException ex) {
+                LOG.warn(APP_ERROR, "Unable to handle change to {}", file, ex);
+            }
+        }));
+    }
+
+    /**
+     * Creates the default executor to call handlers on.
+     *
+     * @return A new single-threaded executor.
+     */
+    private static ScheduledExecutorService createExecutor() {
+        final ScheduledThreadPoolExecutor executor =
+                new LoggingScheduledExecutorService(1, "File watcher");
+        executor.setKeepAliveTime(KEEP_ALIVE, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * A directory being watched, and the handler interested in it.
+     */
+    private static class Watch {
+
+        /** The watch originally added, which this watch may be a subdirectory copy of. */
+        private final Watch origin;
+        /** The directory being watched. */
+        private final Path directory;
+        /** Whether subdirectories are also watched. */
+        private final boolean recursive;
+        /** Filter for the files the handler is interested in. */
+        private final Predicate<Path> filter;
+        /** The handler to call with each changed file. */
+        private final Consumer<Path> handler;
+
+        Watch(final Path directory, final boolean recursive, final Predicate<Path> filter,
+                final Consumer<Path> handler) {
+            this(null, directory, recursive, filter, handler);
+        }
+
+        private Watch(@Nullable final Watch origin, final Path directory,
+                final boolean recursive, final Predicate<Path> filter,
+                final Consumer<Path> handler) {
+            this.origin = origin == null ? this : origin;
+            this.directory = directory;
+            this.recursive = recursive;
+            this.filter = filter;
+            this.handler = handler;
+        }
+
+        /**
+         * Creates a copy of this watch for one of its subdirectories.
+         *
+         * @param subdirectory The subdirectory being watched
+         * @return A watch for the subdirectory with the same settings and handler
+         */
+        Watch forDirectory(final Path subdirectory) {
+            return subdirectory.equals(directory)
+                    ? this : new Watch(origin, subdirectory, recursive, filter, handler);
+        }
+
+    }
+
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.util;
+
+import com.dmdirc.commandline.CommandLineOptionsModule.Directory;
+import com.dmdirc.commandline.CommandLineOptionsModule.DirectoryType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records how long each part of the client's startup takes.
+ *
+ * <p>Spans are recorded from the time the tracer is created until {@link #finish()} is called,
+ * after which tracing does nothing. Each span records its wall-clock time and the CPU time used
+ * by the thread that ran it. When startup finishes, a report is logged and written to a YAML file
+ * in the base directory, so that startup times can be compared between runs and releases.
+ */
+@Singleton
+public class StartupTracer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StartupTracer.class);
+    /** The name of the file the report is written to. */
+    private static final String REPORT_FILE = "startup.yml";
+    /** Bean used to read thread CPU times. */
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    /** The path to write the report to. */
+    private final Path reportPath;
+    /** Details of the client to include in the report. */
+    private final Map<String, String> attributes = new LinkedHashMap<>();
+    /** The time the tracer was created. */
+    private final Instant started = Instant.now();
+    /** The value of {@link System#nanoTime()} when the tracer was created. */
+    private final long startNanos = System.nanoTime();
+    /** The innermost span open on each thread. */
+    private final ThreadLocal<Span> current = new ThreadLocal<>();
+    /** All spans that have been completed. */
+    private final List<Span> spans = new ArrayList<>();
+    /** Whether startup has finished. */
+    private volatile boolean finished;
+
+    /**
+     * Creates a new tracer which writes its report to the base directory.
+     *
+     * @param baseDirectory The base directory to write the report in.
+     * @param clientInfo    The client info to read version details from.
+     */
+    @Inject
+    public StartupTracer(@Directory(DirectoryType.BASE) final Path baseDirectory,
+            final ClientInfo clientInfo) {
+        this(baseDirectory.resolve(REPORT_FILE));
+        attributes.put("version", clientInfo.getVersion());
+        attributes.put("java", clientInfo.getJavaVersion());
+        attributes.put("os", clientInfo.getOperatingSystemName());
+    }
+
+    /**
+     * Creates a new tracer.
+     *
+     * @param reportPath The path to write the report to.
+     */
+    StartupTracer(final Path reportPath) {
+        this.reportPath = reportPath;
+    }
+
+    /**
+     * Starts a new span. The span ends when it is closed, and should be used in a
+     * try-with-resources statement.
+     *
+     * @param category The category of the span, such as "phase" or "plugin"
+     * @param name     The name of the span
+     *
+     * @return The new span
+     */
+    public Span start(final String category, final String name) {
+        return start(current.get(), category, name);
+    }
+
+    /**
+     * Starts a new span nested in the specified parent. This allows spans started on worker
+     * threads to be nested in the span that created the work.
+     *
+     * @param parent   The span to nest the new span in, or {@code null} for a top-level span
+     * @param category The category of the span, such as "phase" or "plugin"
+     * @param name     The name of the span
+     *
+     * @return The new span
+     */
+    public Span start(@Nullable final Span parent, final String category, final String name) {
+        return finished ? Span.NONE : new Span(this, parent, category, name);
+    }
+
+    /**
+     * Gets the innermost span that is open on the calling thread, for use as the parent of spans
+     * started on other threads.
+     *
+     * @return The current span, or {@code null} if there is none
+     */
+    @Nullable
+    public Span current() {
+        return current.get();
+    }
+
+    /**
+     * Runs the specified task within a new span.
+     *
+     * @param category The category of the span, such as "phase" or "plugin"
+     * @param name     The name of the span
+     * @param task     The task to run
+     */
+    public void trace(final String category, final String name, final Runnable task) {
+        trace(current.get(), category, name, task);
+    }
+
+    /**
+     * Runs the specified task within a new span nested in the specified parent.
+     *
+     * @param parent   The span to nest the new span in, or {@code null} for a top-level span
+     * @param category The category of the span, such as "phase" or "plugin"
+     * @param name     The name of the span
+     * @param task     The task to run
+     */
+    public void trace(@Nullable final Span parent, final String category, final String name,
+            final Runnable task) {
+        try (Span span = start(parent, category, name)) {
+            task.run();
+        }
+    }
+
+    /**
+     * Runs the specified task within a new span, returning its result.
+     *
+     * @param <T>      The type of result returned by the task
+     * @param category The category of the span, such as "phase" or "plugin"
+     * @param name     The name of the span
+     * @param task     The task to run
+     *
+     * @return The result of the task
+     */
+    public <T> T trace(final String category, final String name, final Supplier<T> task) {
+        try (Span span = start(category, name)) {
+            return task.get();
+        }
+    }
+
+    /**
+     * Retrieves the spans that have been completed, in the order they were started.
+     *
+     * @return The completed spans
+     */
+    public List<Span> getSpans() {
+        final List<Span> result;
+        synchronized (spans) {
+            result = new ArrayList<>(spans);
+        }
+        result.sort(Comparator.comparingLong(s -> s.start));
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Marks startup as finished, then logs and writes the report. Spans started afterwards are not
+     * recorded.
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+
+        final long total = System.nanoTime() - startNanos;
+        final List<Span> completed = getSpans();
+        LOG.info("Startup took {}ms", TimeUnit.NANOSECONDS.toMillis(total));
+        completed.forEach(s -> LOG.debug("{}{} {}: {}ms wall, {}ms CPU", indent(s.depth),
+                s.category, s.name, s.getWallTime(TimeUnit.MILLISECONDS),
+                s.getCpuTime(TimeUnit.MILLISECONDS)));
+
+        try (Writer writer = Files.newBufferedWriter(reportPath, StandardCharsets.UTF_8)) {
+            writeReport(writer, total, completed);
+        } catch (IOException ex) {
+            LOG.info("Unable to write startup report to {}", reportPath, ex);
+        }
+    }
+
+    /**
+     * Writes the report in YAML form.
+     *
+     * @param writer    The writer to write to
+     * @param total     The total startup time, in nanoseconds
+     * @param completed The spans to include in the report
+     *
+     * @throws IOException If the report could not be written
+     */
+    private void writeReport(final Writer writer, final long total, final List<Span> completed)
+            throws IOException {
+        writer.write("started: " + quote(started.toString()) + '\n');
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            writer.write(attribute.getKey() + ": " + quote(attribute.getValue()) + '\n');
+        }
+        writer.write("total: " + TimeUnit.NANOSECONDS.toMillis(total) + '\n');
+        writer.write("spans:\n");
+        for (Span span : completed) {
+            writer.write("  - category: " + quote(span.category) + '\n');
+            writer.write("    name: " + quote(span.name) + '\n');
+            writer.write("    depth: " + span.depth + '\n');
+            writer.write("    offset: " + TimeUnit.NANOSECONDS.toMillis(span.start - startNanos)
+                    + '\n');
+            writer.write("    wall: " + span.getWallTime(TimeUnit.MILLISECONDS) + '\n');
+            writer.write("    cpu: " + span.getCpuTime(TimeUnit.MILLISECONDS) + '\n');
+            writer.write("    thread: " + quote(span.thread) + '\n');
+        }
+    }
+
+    /**
+     * Quotes a string for use as a YAML scalar.
+     *
+     * @param value The value to quote
+     *
+     * @return The quoted value
+     */
+    private static String quote(final String value) {
+        return '"' + String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    /**
+     * Creates indentation for a span at the specified depth.
+     *
+     * @param level The depth of the span
+     *
+     * @return A string of spaces
+     */
+    private static String indent(final int level) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < level; i++) {
+            builder.append("  ");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Reads the CPU time used by the current thread.
+     *
+     * @return The CPU time in nanoseconds, or -1 if it is not available
+     */
+    private static long readCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * A timed part of startup.
+     */
+    public static class Span implements AutoCloseable {
+
+        /** Span returned once startup has finished, which records nothing. */
+        private static final Span NONE = new Span();
+        /** The tracer this span belongs to. */
+        private final StartupTracer tracer;
+        /** The category of the span. */
+        private final String category;
+        /** The name of the span. */
+        private final String name;
+        /** The number of spans this one is nested in. */
+        private final int depth;
+        /** The span that was open on this span's thread before it started. */
+        @Nullable private final Span previous;
+        /** The name of the thread that ran the span. */
+        private final String thread;
+        /** The value of {@link System#nanoTime()} when the span started. */
+        private final long start;
+        /** The CPU time of the thread when the span started. */
+        private final long cpuStart;
+        /** The wall-clock time taken by the span, in nanoseconds. */
+        private long wallTime;
+        /** The CPU time taken by the span, in nanoseconds, or -1 if unknown. */
+        private long cpuTime = -1;
+
+        private Span() {
+            this.tracer = null;
+            this.category = "";
+            this.name = "";
+            this.depth = 0;
+            this.previous = null;
+            this.thread = "";
+            this.start = 0;
+            this.cpuStart = -1;
+        }
+
+        private Span(final StartupTracer tracer, @Nullable final Span parent,
+                final String category, final String name) {
+            this.tracer = tracer;
+            this.category = category;
+            this.name = name;
+            this.depth = parent == null || parent.tracer == null ? 0 : parent.depth + 1;
+            this.previous = tracer.current.get();
+            this.thread = Thread.currentThread().getName();
+            tracer.current.set(this);
+            this.cpuStart = readCpuTime();
+            this.start = System.nanoTime();
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Gets the wall-clock time taken by this span.
+         *
+         * @param unit The unit to return the time in
+         *
+         * @return The time taken
+         */
+        public long getWallTime(final TimeUnit unit) {
+            return unit.convert(wallTime, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Gets the CPU time used by this span's thread while the span was open.
+         *
+         * @param unit The unit to return the time in
+         *
+         * @return The time used, or -1 if it is not known
+         */
+        public long getCpuTime(final TimeUnit unit) {
+            return cpuTime < 0 ? -1 : unit.convert(cpuTime, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void close() {
+            if (tracer == null) {
+                return;
+            }
+
+            wallTime = System.nanoTime() - start;
+            final long cpuEnd = readCpuTime();
+            if (cpuStart >= 0 && cpuEnd >= 0) {
+                cpuTime = cpuEnd - cpuStart;
+            }
+            tracer.current.set(previous);
+
+            if (!tracer.finished) {
+                synchronized (tracer.spans) {
+                    tracer.spans.add(this);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.util;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A group of timers belonging to a single owner, such as a server or a window.
+ *
+ * <p>Tasks are executed by the shared {@link TimerService}. When the owner is closed it should
+ * call {@link #cancelAll()}, which cancels any outstanding tasks and prevents new ones from being
+ * scheduled.
+ */
+public class TimerGroup {
+
+    /** The service that executes our tasks. */
+    private final TimerService service;
+    /** The name of this group. */
+    private final String name;
+    /** Tasks that have been scheduled and may not have completed yet. */
+    private final Set<ScheduledFuture<?>> tasks = ConcurrentHashMap.newKeySet();
+    /** Lock held while scheduling, so that no task can be added after we've been cancelled. */
+    private final Object scheduleLock = new Object();
+    /** Whether this group has been cancelled. */
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a new timer group.
+     *
+     * @param service The service that will execute tasks.
+     * @param name    The name of this group.
+     */
+    TimerGroup(final TimerService service, final String name) {
+        this.service = service;
+        this.name = name;
+    }
+
+    /**
+     * Schedules a one-shot task to run after the given delay.
+     *
+     * @param task  The task to be executed.
+     * @param delay The delay before executing the task.
+     * @param unit  The unit of the delay.
+     * @return A future that can be used to cancel the task.
+     * @throws RejectedExecutionException If this group has been cancelled.
+     */
+    public ScheduledFuture<?> schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        synchronized (scheduleLock) {
+            if (cancelled) {
+                throw new RejectedExecutionException(
+                        "Timer group " + name + " has been cancelled");
+            }
+            purge();
+            final ScheduledFuture<?> future = service.schedule(task, delay, unit);
+            tasks.add(future);
+            return future;
+        }
+    }
+
+    /**
+     * Cancels all outstanding tasks in this group. Once cancelled, no further tasks may be
+     * scheduled.
+     */
+    public void cancelAll() {
+        synchronized (scheduleLock) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+        }
+        // Any schedule call that got in before us has already added its task.
+        tasks.forEach(f -> f.cancel(false));
+        purge();
+        service.recordGroupCancelled();
+    }
+
+    /**
+     * Determines whether this group has been cancelled.
+     *
+     * @return True if the group has been cancelled, false otherwise.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Gets the number of tasks in this group that have not yet completed.
+     *
+     * @return The number of outstanding tasks.
+     */
+    public int getPendingCount() {
+        purge();
+        return tasks.size();
+    }
+
+    /**
+     * Gets the name of this group.
+     *
+     * @return The name of this group.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Removes any completed tasks from our set, recording those that were cancelled.
+     */
+    private void purge() {
+        for (ScheduledFuture<?> future : tasks) {
+            if (future.isDone() && tasks.remove(future) && future.isCancelled()) {
+                service.recordCancellation();
+            }
+        }
+    }
+
+}
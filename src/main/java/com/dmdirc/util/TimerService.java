@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.util;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * A single, shared scheduler used for all of the client's timers.
+ *
+ * <p>Rather than creating a thread per server or window, components obtain a {@link TimerGroup}
+ * from this service. Groups share a small pool of threads, and can cancel all of their own
+ * outstanding tasks when their owner is closed.
+ */
+@Singleton
+public class TimerService {
+
+    /** The number of threads used to run timer tasks. */
+    private static final int POOL_SIZE = 2;
+
+    /** The executor that actually runs tasks. */
+    private final ScheduledThreadPoolExecutor executor;
+    /** The number of tasks that have been scheduled. */
+    private final LongAdder scheduled = new LongAdder();
+    /** The number of tasks that have been executed. */
+    private final LongAdder executed = new LongAdder();
+    /** The number of tasks that were cancelled before executing. */
+    private final LongAdder cancelled = new LongAdder();
+    /** The number of groups that have been created and not yet cancelled. */
+    private final AtomicInteger activeGroups = new AtomicInteger();
+
+    @Inject
+    public TimerService() {
+        this(new LoggingScheduledExecutorService(POOL_SIZE, "Timer"));
+    }
+
+    /**
+     * Creates a new timer service that schedules tasks on the given executor.
+     *
+     * @param executor The executor to schedule tasks on.
+     */
+    public TimerService(final ScheduledThreadPoolExecutor executor) {
+        this.executor = executor;
+        // Cancelled tasks are frequent (e.g. composition timers are reset on every key press), so
+        // make sure they don't linger in the work queue until their original deadline.
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Creates a new group of timers.
+     *
+     * @param name The name of the group, used for diagnostics.
+     * @return A new timer group backed by this service.
+     */
+    public TimerGroup createGroup(final String name) {
+        activeGroups.incrementAndGet();
+        return new TimerGroup(this, name);
+    }
+
+    /**
+     * Schedules a task for a group.
+     *
+     * @param task  The task to be executed.
+     * @param delay The delay before executing the task.
+     * @param unit  The unit of the delay.
+     * @return A future representing the scheduled task.
+     */
+    ScheduledFuture<?> schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        scheduled.increment();
+        return executor.schedule(() -> {
+            executed.increment();
+            task.run();
+        }, delay, unit);
+    }
+
+    /**
+     * Records that one of a group's tasks was cancelled before it executed.
+     */
+    void recordCancellation() {
+        cancelled.increment();
+    }
+
+    /**
+     * Records that a group has been cancelled and will no longer schedule tasks.
+     */
+    void recordGroupCancelled() {
+        activeGroups.decrementAndGet();
+    }
+
+    /**
+     * Gets the number of tasks that are currently waiting to be executed.
+     *
+     * @return The number of pending tasks.
+     */
+    public int getPendingCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Gets the number of tasks that are currently being executed.
+     *
+     * @return The number of active tasks.
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Gets the total number of tasks that have been scheduled.
+     *
+     * @return The number of scheduled tasks.
+     */
+    public long getScheduledCount() {
+        return scheduled.sum();
+    }
+
+    /**
+     * Gets the total number of tasks that have started executing.
+     *
+     * @return The number of executed tasks.
+     */
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    /**
+     * Gets the total number of tasks that were known to be cancelled before executing.
+     *
+     * @return The number of cancelled tasks.
+     */
+    public long getCancelledCount() {
+        return cancelled.sum();
+    }
+
+    /**
+     * Gets the number of groups that are still able to schedule tasks.
+     *
+     * @return The number of active groups.
+     */
+    public int getActiveGroupCount() {
+        return activeGroups.get();
+    }
+
+}
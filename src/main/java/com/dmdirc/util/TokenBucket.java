@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket used to limit the rate of some activity.
+ *
+ * <p>Tokens accumulate at a fixed rate up to the bucket's capacity, and are consumed by each
+ * operation. A rate of zero or less disables limiting entirely.
+ *
+ * <p>This class is not thread safe; callers must provide their own synchronisation.
+ */
+public class TokenBucket {
+
+    /** The source of the current time, in nanoseconds. */
+    private final LongSupplier clock;
+    /** The maximum number of tokens that can be accumulated. */
+    private double capacity;
+    /** The number of tokens added per nanosecond. */
+    private double ratePerNano;
+    /** The number of tokens currently available. May be negative if we're in debt. */
+    private double tokens;
+    /** The time at which tokens were last added. */
+    private long lastRefill;
+
+    /**
+     * Creates a new, full, token bucket.
+     *
+     * @param capacity      The maximum number of tokens that can be accumulated.
+     * @param ratePerSecond The number of tokens added per second.
+     * @param clock         The source of the current time, in nanoseconds.
+     */
+    public TokenBucket(final double capacity, final double ratePerSecond,
+            final LongSupplier clock) {
+        this.clock = clock;
+        this.lastRefill = clock.getAsLong();
+        setLimits(capacity, ratePerSecond);
+        this.tokens = capacity;
+    }
+
+    /**
+     * Updates the capacity and rate of this bucket. Any accumulated tokens in excess of the new
+     * capacity are discarded.
+     *
+     * @param capacity      The maximum number of tokens that can be accumulated.
+     * @param ratePerSecond The number of tokens added per second.
+     */
+    public void setLimits(final double capacity, final double ratePerSecond) {
+        refill();
+        this.capacity = capacity;
+        this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = Math.min(tokens, capacity);
+    }
+
+    /**
+     * Determines whether this bucket is limiting anything.
+     *
+     * @return True if the bucket has a positive rate, false if it is unlimited.
+     */
+    public boolean isLimited() {
+        return ratePerNano > 0;
+    }
+
+    /**
+     * Calculates how long a caller must wait until the given number of tokens is available.
+     *
+     * <p>Requests for more tokens than the bucket's capacity are satisfied once the bucket is
+     * full, so that oversized operations are never blocked forever.
+     *
+     * @param amount The number of tokens required.
+     * @return The number of nanoseconds to wait, or zero if the tokens are available now.
+     */
+    public long getDelay(final double amount) {
+        if (!isLimited()) {
+            return 0;
+        }
+        refill();
+        final double required = Math.min(amount, capacity);
+        if (tokens >= required) {
+            return 0;
+        }
+        return (long) Math.ceil((required - tokens) / ratePerNano);
+    }
+
+    /**
+     * Consumes the given number of tokens, regardless of whether they are available. If they are
+     * not, the bucket goes into debt and future operations are delayed accordingly.
+     *
+     * @param amount The number of tokens to consume.
+     */
+    public void consume(final double amount) {
+        if (isLimited()) {
+            refill();
+            tokens -= amount;
+        }
+    }
+
+    /**
+     * Gets the number of tokens currently available.
+     *
+     * @return The number of available tokens.
+     */
+    public double getAvailableTokens() {
+        refill();
+        return tokens;
+    }
+
+    /**
+     * Adds any tokens that have accumulated since the last refill.
+     */
+    private void refill() {
+        final long now = clock.getAsLong();
+        if (ratePerNano > 0) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+        }
+        lastRefill = now;
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc;
+
+import com.dmdirc.commandparser.parsers.CommandParser;
+import com.dmdirc.ui.input.TabCompleter;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultInputModelTest {
+
+    @Mock private CommandParser commandParser;
+    @Mock private TabCompleter tabCompleter;
+
+    private DefaultInputModel getModel(final int maxLength, final Charset charset) {
+        return new DefaultInputModel(line -> {}, commandParser, tabCompleter, () -> maxLength,
+                () -> charset);
+    }
+
+    @Test
+    public void testNoLimit() {
+        assertEquals(Arrays.asList("0123456789"),
+                getModel(-1, StandardCharsets.UTF_8).splitLine("0123456789"));
+    }
+
+    @Test
+    public void testSplitsOnNewLines() {
+        assertEquals(Arrays.asList("one", "two"),
+                getModel(-1, StandardCharsets.UTF_8).splitLine("one\ntwo"));
+    }
+
+    @Test
+    public void testPrefersWordBoundaries() {
+        assertEquals(Arrays.asList("hello ", "world"),
+                getModel(10, StandardCharsets.UTF_8).splitLine("hello world"));
+    }
+
+    @Test
+    public void testIgnoresWordBoundariesThatWasteSpace() {
+        assertEquals(Arrays.asList("a 01234567", "89"),
+                getModel(10, StandardCharsets.UTF_8).splitLine("a 0123456789"));
+    }
+
+    @Test
+    public void testCountsLinesSplitOnWordBoundaries() {
+        final DefaultInputModel model = getModel(10, StandardCharsets.UTF_8);
+        final String line = "aaaaaa bbbbbb cccccc";
+        assertEquals(model.splitLine(line).size(), model.getNumLines(line));
+        assertEquals(3, model.getNumLines(line));
+    }
+
+    @Test
+    public void testUsesConfiguredCharset() {
+        // U+00E9 is two bytes in UTF-8 but a single byte in ISO-8859-1.
+        final String line = "\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9";
+        assertEquals(Arrays.asList("\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9"),
+                getModel(6, StandardCharsets.ISO_8859_1).splitLine(line));
+        assertEquals(Arrays.asList("\u00e9\u00e9\u00e9", "\u00e9\u00e9\u00e9"),
+                getModel(6, StandardCharsets.UTF_8).splitLine(line));
+    }
+
+    @Test
+    public void testDoesNotSplitSurrogatePairs() {
+        // U+1F600 is a surrogate pair, encoded as four bytes in UTF-8.
+        final String line = "ab\uD83D\uDE00cd";
+        assertEquals(Arrays.asList("ab", "\uD83D\uDE00c", "d"),
+                getModel(5, StandardCharsets.UTF_8).splitLine(line));
+    }
+
+    @Test
+    public void testLongLinesFitWithinLimit() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            builder.append("word\u2192 ");
+        }
+        final String line = builder.toString();
+        final List<String> parts = getModel(400, StandardCharsets.UTF_8).splitLine(line);
+
+        assertEquals(line, String.join("", parts));
+        for (String part : parts) {
+            assertTrue(part.getBytes(StandardCharsets.UTF_8).length <= 400);
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc;
+
+import com.dmdirc.interfaces.GroupChat;
+import com.dmdirc.interfaces.GroupChatUser;
+import com.dmdirc.interfaces.User;
+import com.dmdirc.parser.interfaces.ChannelClientInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GroupChatUserManagerTest {
+
+    @Mock private GroupChatUserFactory groupChatUserFactory;
+    @Mock private UserManager userManager;
+    @Mock private GroupChat channel1;
+    @Mock private GroupChat channel2;
+    @Mock private ChannelClientInfo client1;
+    @Mock private ChannelClientInfo client2;
+    @Mock private User user;
+    @Mock private GroupChatUser groupChatUser1;
+    @Mock private GroupChatUser groupChatUser2;
+    @Mock private GroupChatUser groupChatUser3;
+
+    private GroupChatUserManager manager;
+
+    @Before
+    public void setUp() {
+        when(groupChatUserFactory.getGroupChatUser(user, channel1, client1))
+                .thenReturn(groupChatUser1);
+        when(groupChatUserFactory.getGroupChatUser(user, channel1, client2))
+                .thenReturn(groupChatUser2);
+        when(groupChatUserFactory.getGroupChatUser(user, channel2, client1))
+                .thenReturn(groupChatUser3);
+        manager = new GroupChatUserManager(groupChatUserFactory, userManager);
+    }
+
+    @Test
+    public void testCachesUsers() {
+        assertSame(groupChatUser1, manager.getUserFromClient(client1, user, channel1));
+        assertSame(groupChatUser1, manager.getUserFromClient(client1, user, channel1));
+        verify(groupChatUserFactory, times(1)).getGroupChatUser(user, channel1, client1);
+        assertEquals(1, manager.getCacheSize());
+        assertEquals(1, manager.getCreatedCount());
+    }
+
+    @Test
+    public void testCacheHitDoesNotLookUpUser() {
+        manager.getUserFromClient(client1, user, channel1);
+        assertSame(groupChatUser1, manager.getUserFromClient(client1, channel1));
+        verify(userManager, never()).getUserFromClientInfo(any(), any());
+    }
+
+    @Test
+    public void testRemoveUser() {
+        manager.getUserFromClient(client1, user, channel1);
+        manager.getUserFromClient(client2, user, channel1);
+        manager.removeUser(client1, channel1);
+
+        assertEquals(1, manager.getCacheSize());
+        assertEquals(1, manager.getEvictedCount());
+        manager.getUserFromClient(client1, user, channel1);
+        verify(groupChatUserFactory, times(2)).getGroupChatUser(user, channel1, client1);
+    }
+
+    @Test
+    public void testRemoveGroupChat() {
+        manager.getUserFromClient(client1, user, channel1);
+        manager.getUserFromClient(client2, user, channel1);
+        manager.getUserFromClient(client1, user, channel2);
+        manager.removeGroupChat(channel1);
+
+        assertEquals(1, manager.getCacheSize());
+        assertEquals(2, manager.getEvictedCount());
+        assertSame(groupChatUser3, manager.getUserFromClient(client1, user, channel2));
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc;
+
+import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.config.provider.ConfigChangeListener;
+import com.dmdirc.events.ChannelClosedEvent;
+import com.dmdirc.interfaces.Connection;
+import com.dmdirc.interfaces.GroupChat;
+import com.dmdirc.interfaces.GroupChatManager;
+import com.dmdirc.interfaces.WindowModel;
+import com.dmdirc.parser.interfaces.Parser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MessageEncoderTest {
+
+    /** An accented word encoded in UTF-8. */
+    private static final byte[] UTF8_BYTES = "caf\u00e9".getBytes(StandardCharsets.UTF_8);
+    /** The same word encoded in ISO-8859-1. */
+    private static final byte[] LATIN1_BYTES = "caf\u00e9".getBytes(StandardCharsets.ISO_8859_1);
+
+    @Mock private Connection connection;
+    @Mock private Parser parser;
+    @Mock private GroupChatManager groupChatManager;
+    @Mock private GroupChat channel;
+    @Mock private WindowModel serverWindow;
+    @Mock private WindowModel channelWindow;
+    @Mock private AggregateConfigProvider serverConfig;
+    @Mock private AggregateConfigProvider channelConfig;
+    @Captor private ArgumentCaptor<ConfigChangeListener> listenerCaptor;
+
+    private MessageEncoder encoder;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(connection.getWindowModel()).thenReturn(serverWindow);
+        when(serverWindow.getConfigManager()).thenReturn(serverConfig);
+        when(serverConfig.getOption("general", "encoding")).thenReturn("UTF-8");
+        when(serverConfig.getOptionString("general", "fallbackencoding"))
+                .thenReturn("ISO-8859-1");
+        encoder = new MessageEncoder(connection);
+    }
+
+    private String decode(final String target, final byte[] bytes) {
+        return encoder.encode("source", target, bytes, 0, bytes.length);
+    }
+
+    @Test
+    public void testDecodesValidUtf8() {
+        assertEquals("caf\u00e9", decode(null, UTF8_BYTES));
+    }
+
+    @Test
+    public void testFallsBackForInvalidUtf8() {
+        assertEquals("caf\u00e9", decode(null, LATIN1_BYTES));
+    }
+
+    @Test
+    public void testUsesConfiguredCharsetDirectly() {
+        when(serverConfig.getOption("general", "encoding")).thenReturn("ISO-8859-1");
+        assertEquals("caf\u00c3\u00a9", decode(null, UTF8_BYTES));
+    }
+
+    @Test
+    public void testCachesResolvedCharset() {
+        decode(null, UTF8_BYTES);
+        decode(null, UTF8_BYTES);
+        decode(null, LATIN1_BYTES);
+        verify(serverConfig, times(1)).getOption("general", "encoding");
+    }
+
+    @Test
+    public void testConfigChangeUpdatesCharset() {
+        decode(null, UTF8_BYTES);
+        verify(serverConfig).addChangeListener(eq("general"), listenerCaptor.capture());
+
+        when(serverConfig.getOption("general", "encoding")).thenReturn("ISO-8859-1");
+        listenerCaptor.getValue().configChanged("general", "encoding");
+
+        assertEquals("caf\u00c3\u00a9", decode(null, UTF8_BYTES));
+    }
+
+    @Test
+    public void testRegistersListenerOncePerConfig() {
+        decode(null, UTF8_BYTES);
+        getListener(serverConfig).configChanged("general", "encoding");
+        decode(null, UTF8_BYTES);
+
+        verify(serverConfig, times(1)).addChangeListener(eq("general"),
+                any(ConfigChangeListener.class));
+        verify(serverConfig, times(2)).getOption("general", "encoding");
+    }
+
+    @Test
+    public void testCloseRemovesListener() {
+        decode(null, UTF8_BYTES);
+        final ConfigChangeListener listener = getListener(serverConfig);
+
+        encoder.close();
+
+        verify(serverConfig).removeListener(listener);
+    }
+
+    private ConfigChangeListener getListener(final AggregateConfigProvider config) {
+        verify(config).addChangeListener(eq("general"), listenerCaptor.capture());
+        return listenerCaptor.getValue();
+    }
+
+    @Test
+    public void testUsesChannelConfigForChannels() {
+        when(connection.getParser()).thenReturn(Optional.of(parser));
+        when(connection.getGroupChatManager()).thenReturn(groupChatManager);
+        when(parser.isValidChannelName(anyString())).thenReturn(true);
+        when(groupChatManager.getChannel("#test")).thenReturn(Optional.of(channel));
+        when(channel.getWindowModel()).thenReturn(channelWindow);
+        when(channelWindow.getConfigManager()).thenReturn(channelConfig);
+        when(channelConfig.getOption("general", "encoding")).thenReturn("ISO-8859-1");
+
+        assertEquals("caf\u00c3\u00a9", decode("#test", UTF8_BYTES));
+    }
+
+    @Test
+    public void testCachesConfigForTarget() {
+        when(connection.getParser()).thenReturn(Optional.of(parser));
+        when(parser.isValidChannelName("#test")).thenReturn(true);
+        when(connection.getGroupChatManager()).thenReturn(groupChatManager);
+        when(groupChatManager.getChannel("#test")).thenReturn(Optional.empty());
+
+        decode("#test", UTF8_BYTES);
+        decode("#test", LATIN1_BYTES);
+
+        verify(groupChatManager, times(1)).getChannel("#test");
+    }
+
+    @Test
+    public void testChannelClosedForgetsTarget() {
+        when(connection.getParser()).thenReturn(Optional.of(parser));
+        when(parser.isValidChannelName("#test")).thenReturn(true);
+        when(connection.getGroupChatManager()).thenReturn(groupChatManager);
+        when(groupChatManager.getChannel("#test")).thenReturn(Optional.of(channel));
+        when(channel.getConnection()).thenReturn(Optional.of(connection));
+        when(channel.getWindowModel()).thenReturn(channelWindow);
+        when(channelWindow.getConfigManager()).thenReturn(channelConfig);
+        when(channelConfig.getOption("general", "encoding")).thenReturn("ISO-8859-1");
+        assertEquals("caf\u00c3\u00a9", decode("#test", UTF8_BYTES));
+
+        when(groupChatManager.getChannel("#test")).thenReturn(Optional.empty());
+        encoder.handleChannelClosed(new ChannelClosedEvent(channel));
+
+        assertEquals("caf\u00e9", decode("#test", UTF8_BYTES));
+    }
+
+    @Test
+    public void testValidatesUtf8() {
+        assertTrue(MessageEncoder.isValidUtf8(UTF8_BYTES, 0, UTF8_BYTES.length));
+        assertTrue(MessageEncoder.isValidUtf8(new byte[]{(byte) 0xF0, (byte) 0x9F,
+                (byte) 0x98, (byte) 0x80}, 0, 4));
+        assertFalse(MessageEncoder.isValidUtf8(LATIN1_BYTES, 0, LATIN1_BYTES.length));
+        // Truncated sequence.
+        assertFalse(MessageEncoder.isValidUtf8(UTF8_BYTES, 0, UTF8_BYTES.length - 1));
+        // Overlong encoding of '/'.
+        assertFalse(MessageEncoder.isValidUtf8(new byte[]{(byte) 0xC0, (byte) 0xAF}, 0, 2));
+        // Encoded surrogate.
+        assertFalse(MessageEncoder.isValidUtf8(new byte[]{(byte) 0xED, (byte) 0xA0,
+                (byte) 0x80}, 0, 3));
+    }
+
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc;
+
+import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.config.provider.ConfigChangeListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OutboundQueueTest {
+
+    @Mock private AggregateConfigProvider config;
+    @Mock private ScheduledExecutorService executor;
+
+    private final List<Runnable> scheduledTasks = new ArrayList<>();
+    private final List<Long> scheduledDelays = new ArrayList<>();
+    private final List<String> sent = new ArrayList<>();
+    private long now;
+    private OutboundQueue queue;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(config.getOptionInt("server", "sendburst")).thenReturn(2);
+        when(config.getOptionInt("server", "sendlinespersecond")).thenReturn(1);
+        when(config.getOptionInt("server", "sendbytespersecond")).thenReturn(0);
+        doAnswer(invocation -> {
+            scheduledTasks.add(invocation.getArgument(0));
+            scheduledDelays.add(invocation.getArgument(1));
+            return null;
+        }).when(executor).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        queue = new OutboundQueue(executor, config, () -> now);
+    }
+
+    private void runScheduledTasks() {
+        final List<Runnable> tasks = new ArrayList<>(scheduledTasks);
+        scheduledTasks.clear();
+        scheduledDelays.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private Runnable removeScheduledTask(final long delay) {
+        final int index = scheduledDelays.indexOf(delay);
+        scheduledDelays.remove(index);
+        return scheduledTasks.remove(index);
+    }
+
+    private void enqueue(final String line, final boolean priority) {
+        queue.enqueue(line.length(), priority, () -> sent.add(line));
+    }
+
+    @Test
+    public void testSendsAsynchronously() {
+        enqueue("one", false);
+        assertEquals(0, sent.size());
+        assertEquals(1, queue.getDepth());
+
+        runScheduledTasks();
+        assertEquals(1, sent.size());
+        assertEquals(0, queue.getDepth());
+        assertEquals(1, queue.getSentCount());
+    }
+
+    @Test
+    public void testThrottlesAfterBurst() {
+        enqueue("one", false);
+        enqueue("two", false);
+        enqueue("three", false);
+        runScheduledTasks();
+
+        assertEquals(2, sent.size());
+        assertEquals(1, queue.getDepth());
+        assertEquals(1, queue.getThrottledCount());
+        assertEquals(TimeUnit.SECONDS.toNanos(1), (long) scheduledDelays.get(0));
+
+        now = TimeUnit.SECONDS.toNanos(1);
+        runScheduledTasks();
+        assertEquals("three", sent.get(2));
+        assertEquals(3, queue.getMaximumDepth());
+    }
+
+    @Test
+    public void testPriorityLinesSkipQueueAndLimits() {
+        enqueue("one", false);
+        enqueue("two", false);
+        enqueue("three", false);
+        runScheduledTasks();
+
+        enqueue("PONG :server", true);
+        runScheduledTasks();
+
+        assertEquals("PONG :server", sent.get(2));
+        assertEquals(1, queue.getDepth());
+    }
+
+    @Test
+    public void testClearDiscardsQueuedLines() {
+        enqueue("one", false);
+        queue.clear();
+        runScheduledTasks();
+        assertEquals(0, sent.size());
+    }
+
+    @Test
+    public void testFlushedLineWaitsForQueuedLines() {
+        enqueue("one", false);
+        enqueue("two", false);
+        enqueue("three", false);
+        queue.flush(4, () -> sent.add("QUIT"), 5, TimeUnit.SECONDS);
+        final Runnable timeout = removeScheduledTask(5);
+
+        runScheduledTasks();
+        now = TimeUnit.SECONDS.toNanos(1);
+        runScheduledTasks();
+        now = TimeUnit.SECONDS.toNanos(2);
+        runScheduledTasks();
+        timeout.run();
+
+        assertEquals(Arrays.asList("one", "two", "three", "QUIT"), sent);
+    }
+
+    @Test
+    public void testFlushTimeoutDiscardsQueuedLines() {
+        enqueue("one", false);
+        enqueue("two", false);
+        enqueue("three", false);
+        enqueue("four", false);
+        queue.flush(4, () -> sent.add("QUIT"), 5, TimeUnit.SECONDS);
+        final Runnable timeout = removeScheduledTask(5);
+
+        runScheduledTasks();
+        timeout.run();
+
+        assertEquals(Arrays.asList("one", "two", "QUIT"), sent);
+        assertEquals(0, queue.getDepth());
+    }
+
+    @Test
+    public void testFlushAfterCloseSendsImmediately() {
+        queue.close();
+        when(executor.isShutdown()).thenReturn(true);
+
+        queue.flush(4, () -> sent.add("QUIT"), 5, TimeUnit.SECONDS);
+
+        assertEquals(Collections.singletonList("QUIT"), sent);
+    }
+
+    @Test
+    public void testStartsWithFullBurst() {
+        enqueue("one", false);
+        enqueue("two", false);
+        runScheduledTasks();
+
+        assertEquals(2, sent.size());
+        assertEquals(0, queue.getThrottledCount());
+    }
+
+    @Test
+    public void testCountsLengthInBytes() {
+        when(config.getOptionInt("server", "sendbytespersecond")).thenReturn(1024);
+        final ArgumentCaptor<ConfigChangeListener> listener =
+                ArgumentCaptor.forClass(ConfigChangeListener.class);
+        verify(config).addChangeListener(eq("server"), eq("sendbytespersecond"),
+                listener.capture());
+        listener.getValue().configChanged("server", "sendbytespersecond");
+
+        queue.enqueue(1024, false, () -> sent.add("big"));
+        queue.enqueue(10, false, () -> sent.add("small"));
+        runScheduledTasks();
+
+        assertEquals(1, sent.size());
+        assertEquals(1, queue.getThrottledCount());
+    }
+
+    @Test
+    public void testUpdatesLimitsWhenConfigChanges() {
+        when(config.getOptionInt("server", "sendburst")).thenReturn(1);
+        final ArgumentCaptor<ConfigChangeListener> listener =
+                ArgumentCaptor.forClass(ConfigChangeListener.class);
+        verify(config).addChangeListener(eq("server"), eq("sendburst"), listener.capture());
+        listener.getValue().configChanged("server", "sendburst");
+
+        enqueue("one", false);
+        enqueue("two", false);
+        runScheduledTasks();
+
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    public void testCloseStopsWriter() {
+        enqueue("one", false);
+        queue.close();
+
+        verify(executor).shutdownNow();
+        verify(config).removeListener(any(ConfigChangeListener.class));
+        assertEquals(0, queue.getDepth());
+    }
+
+    @Test
+    public void testFailedSendDoesNotStopQueue() {
+        queue.enqueue(3, false, () -> {
+            throw new IllegalStateException();
+        });
+        enqueue("two", false);
+        runScheduledTasks();
+        assertEquals(1, sent.size());
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc;
+
+import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.interfaces.InputModel;
+import com.dmdirc.interfaces.WindowModel;
+import com.dmdirc.interfaces.config.IdentityFactory;
+import com.dmdirc.parser.events.ChannelKickEvent;
+import com.dmdirc.parser.events.ChannelMessageEvent;
+import com.dmdirc.parser.events.ChannelPartEvent;
+import com.dmdirc.parser.events.NickChangeEvent;
+import com.dmdirc.parser.events.OtherAwayStateEvent;
+import com.dmdirc.parser.events.QuitEvent;
+import com.dmdirc.parser.interfaces.ChannelClientInfo;
+import com.dmdirc.parser.interfaces.ChannelInfo;
+import com.dmdirc.parser.interfaces.ClientInfo;
+import com.dmdirc.parser.interfaces.Parser;
+import com.dmdirc.ui.input.TabCompleter;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ParserEventRouterTest {
+
+    @Mock private Server server;
+    @Mock private WindowModel serverWindow;
+    @Mock private InputModel inputModel;
+    @Mock private TabCompleter tabCompleter;
+    @Mock private IdentityFactory identityFactory;
+    @Mock private ChannelFactory channelFactory;
+    @Mock private Parser parser;
+    @Mock private ClientInfo localClient;
+    @Mock private ClientInfo client;
+    @Mock private ChannelClientInfo channelClient;
+    @Mock private ChannelClientInfo localChannelClient;
+    @Mock private ChannelInfo channelInfo;
+    @Mock private ChannelInfo otherChannelInfo;
+    @Mock private Channel channel;
+    @Mock private Channel otherChannel;
+    @Mock private WindowModel channelWindow;
+    @Mock private EventBus channelEventBus;
+    @Mock private ChannelEventHandler channelHandler;
+    @Mock private ChannelEventHandler otherChannelHandler;
+    @Mock private Query oldQuery;
+    @Mock private Query newQuery;
+    @Mock private ChannelMessageEvent channelMessageEvent;
+    @Mock private ChannelPartEvent channelPartEvent;
+    @Mock private ChannelKickEvent channelKickEvent;
+    @Mock private OtherAwayStateEvent awayStateEvent;
+    @Mock private NickChangeEvent nickChangeEvent;
+    @Mock private QuitEvent quitEvent;
+    private ParserEventRouter router;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(server.getWindowModel()).thenReturn(serverWindow);
+        when(server.getParser()).thenReturn(Optional.of(parser));
+        when(serverWindow.getInputModel()).thenReturn(Optional.of(inputModel));
+        when(inputModel.getTabCompleter()).thenReturn(tabCompleter);
+        when(parser.getLocalClient()).thenReturn(localClient);
+        when(channelClient.getClient()).thenReturn(client);
+        when(localChannelClient.getClient()).thenReturn(localClient);
+
+        final GroupChatManagerImpl groupChatManager =
+                new GroupChatManagerImpl(server, identityFactory, channelFactory);
+        addChannel(groupChatManager, channelInfo, channel, "#dmdirc", channelHandler);
+        addChannel(groupChatManager, otherChannelInfo, otherChannel, "#other",
+                otherChannelHandler);
+        router = new ParserEventRouter(server, groupChatManager);
+    }
+
+    private void addChannel(final GroupChatManagerImpl groupChatManager,
+            final ChannelInfo info, final Channel window, final String name,
+            final ChannelEventHandler handler) {
+        when(info.getName()).thenReturn(name);
+        when(window.getName()).thenReturn(name);
+        when(window.getChannelInfo()).thenReturn(info);
+        when(window.getWindowModel()).thenReturn(channelWindow);
+        when(window.getEventHandler()).thenReturn(handler);
+        when(channelWindow.getEventBus()).thenReturn(channelEventBus);
+        when(channelFactory.getChannel(server, info, null)).thenReturn(window);
+        groupChatManager.addChannel(info, true);
+    }
+
+    @Test
+    public void testRoutesChannelEventToBoundChannel() {
+        when(channelMessageEvent.getChannel()).thenReturn(channelInfo);
+        router.onChannelMessage(channelMessageEvent);
+        verify(channelHandler).onChannelMessage(channelMessageEvent);
+        verify(otherChannelHandler, never()).onChannelMessage(any());
+    }
+
+    @Test
+    public void testIgnoresChannelEventForReboundChannel() {
+        // The window has since been bound to a new parser channel with the same name.
+        final ChannelInfo staleInfo = mock(ChannelInfo.class);
+        when(staleInfo.getName()).thenReturn("#DMDirc");
+        when(channelMessageEvent.getChannel()).thenReturn(staleInfo);
+
+        router.onChannelMessage(channelMessageEvent);
+
+        verify(channelHandler, never()).onChannelMessage(any());
+    }
+
+    @Test
+    public void testFansAwayStateOutToAllChannels() {
+        router.onAwayStateOther(awayStateEvent);
+        verify(channelHandler).onAwayStateOther(awayStateEvent);
+        verify(otherChannelHandler).onAwayStateOther(awayStateEvent);
+    }
+
+    @Test
+    public void testRoutesNickChangeToQueryForOldNick() {
+        when(nickChangeEvent.getOldNick()).thenReturn("old");
+        when(nickChangeEvent.getClient()).thenReturn(client);
+        when(client.getNickname()).thenReturn("new");
+        when(server.findQuery("old")).thenReturn(Optional.of(oldQuery));
+
+        router.onNickChanged(nickChangeEvent);
+
+        verify(oldQuery).onNickChanged(nickChangeEvent);
+    }
+
+    @Test
+    public void testRoutesNickChangeToQueryForNewNickIfAlreadyRekeyed() {
+        when(nickChangeEvent.getOldNick()).thenReturn("old");
+        when(nickChangeEvent.getClient()).thenReturn(client);
+        when(client.getNickname()).thenReturn("new");
+        when(server.findQuery("new")).thenReturn(Optional.of(newQuery));
+
+        router.onNickChanged(nickChangeEvent);
+
+        verify(newQuery).onNickChanged(nickChangeEvent);
+    }
+
+    @Test
+    public void testNickChangeToExistingQueryGoesToOldNicksQuery() {
+        when(nickChangeEvent.getOldNick()).thenReturn("old");
+        when(nickChangeEvent.getClient()).thenReturn(client);
+        when(client.getNickname()).thenReturn("new");
+        when(server.findQuery("old")).thenReturn(Optional.of(oldQuery));
+        when(server.findQuery("new")).thenReturn(Optional.of(newQuery));
+
+        router.onNickChanged(nickChangeEvent);
+
+        verify(oldQuery).onNickChanged(nickChangeEvent);
+        verify(newQuery, never()).onNickChanged(any());
+    }
+
+    @Test
+    public void testRoutesQuitToQuery() {
+        when(quitEvent.getClient()).thenReturn(client);
+        when(client.getNickname()).thenReturn("nick");
+        when(server.findQuery("nick")).thenReturn(Optional.of(oldQuery));
+
+        router.onQuit(quitEvent);
+
+        verify(oldQuery).onQuit(quitEvent);
+    }
+
+    @Test
+    public void testPartRoutesToChannelAndChecksLeavingUser() {
+        when(channelPartEvent.getChannel()).thenReturn(channelInfo);
+        when(channelPartEvent.getClient()).thenReturn(channelClient);
+
+        router.onChannelPart(channelPartEvent);
+
+        verify(channelHandler).onChannelPart(channelPartEvent);
+        verify(server).handleChannelLeave(client, channelInfo);
+    }
+
+    @Test
+    public void testSelfPartChecksEveryOtherMember() {
+        when(channelPartEvent.getChannel()).thenReturn(channelInfo);
+        when(channelPartEvent.getClient()).thenReturn(localChannelClient);
+        when(channelInfo.getChannelClients())
+                .thenReturn(Arrays.asList(localChannelClient, channelClient));
+
+        router.onChannelPart(channelPartEvent);
+
+        verify(server).handleChannelLeave(client, channelInfo);
+        verify(server, never()).handleChannelLeave(localClient, channelInfo);
+    }
+
+    @Test
+    public void testKickRoutesToChannelAndChecksKickedUser() {
+        when(channelKickEvent.getChannel()).thenReturn(channelInfo);
+        when(channelKickEvent.getKickedClient()).thenReturn(channelClient);
+
+        router.onChannelKick(channelKickEvent);
+
+        verify(channelHandler).onChannelKick(channelKickEvent);
+        verify(server).handleChannelLeave(client, channelInfo);
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc;
+
+import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.interfaces.Connection;
+import com.dmdirc.interfaces.WindowModel;
+import com.dmdirc.util.TimerGroup;
+import com.dmdirc.util.TimerService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+public class ReconnectSchedulerTest {
+
+    @Mock private AggregateConfigProvider config;
+    @Mock private AggregateConfigProvider serverConfig;
+    @Mock private WindowModel windowModel;
+    @Mock private TimerService timerService;
+    @Mock private TimerGroup timerGroup;
+    @Mock private Connection connection1;
+    @Mock private Connection connection2;
+    @Mock private Connection connection3;
+
+    private final List<Runnable> scheduledTasks = new ArrayList<>();
+    private final List<String> executed = new ArrayList<>();
+    private ReconnectScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(config.getOptionInt("general", "reconnectconcurrency")).thenReturn(1);
+        when(serverConfig.getOptionInt("general", "reconnectmaxdelay")).thenReturn(60000);
+        when(serverConfig.getOptionInt("general", "reconnectsyncgrace")).thenReturn(5000);
+        when(windowModel.getConfigManager()).thenReturn(serverConfig);
+        when(connection1.getWindowModel()).thenReturn(windowModel);
+        when(connection2.getWindowModel()).thenReturn(windowModel);
+        when(connection3.getWindowModel()).thenReturn(windowModel);
+        when(timerService.createGroup(anyString())).thenReturn(timerGroup);
+        doAnswer(invocation -> {
+            scheduledTasks.add(invocation.getArgument(0));
+            return null;
+        }).when(timerGroup).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        scheduler = new ReconnectScheduler(config, timerService);
+    }
+
+    private void runScheduledTasks() {
+        final List<Runnable> tasks = new ArrayList<>(scheduledTasks);
+        scheduledTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Test
+    public void testDelayIsJitteredWithinBackoffWindow() {
+        for (int i = 0; i < 100; i++) {
+            scheduler.remove(connection1);
+            final int delay = scheduler.getReconnectDelay(connection1, 5000);
+            assertTrue("Delay " + delay + " too short", delay >= 2500);
+            assertTrue("Delay " + delay + " too long", delay <= 5000);
+        }
+    }
+
+    @Test
+    public void testDelayBacksOffExponentiallyUpToMaximum() {
+        scheduler.getReconnectDelay(connection1, 5000);
+        final int second = scheduler.getReconnectDelay(connection1, 5000);
+        assertTrue(second >= 5000 && second <= 10000);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(scheduler.getReconnectDelay(connection1, 5000) <= 60000);
+        }
+    }
+
+    @Test
+    public void testUsesConnectionsMaximumDelay() {
+        when(serverConfig.getOptionInt("general", "reconnectmaxdelay")).thenReturn(8000);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(scheduler.getReconnectDelay(connection1, 5000) <= 8000);
+        }
+    }
+
+    @Test
+    public void testBackoffResetWhenConnected() {
+        for (int i = 0; i < 10; i++) {
+            scheduler.getReconnectDelay(connection1, 5000);
+        }
+        scheduler.connectionEstablished(connection1);
+        assertTrue(scheduler.getReconnectDelay(connection1, 5000) <= 5000);
+    }
+
+    @Test
+    public void testLimitsConcurrentAdmissions() {
+        scheduler.requestAdmission(connection1, 0, () -> executed.add("one"));
+        scheduler.requestAdmission(connection2, 0, () -> executed.add("two"));
+        runScheduledTasks();
+
+        assertEquals(1, executed.size());
+        assertEquals("one", executed.get(0));
+        assertEquals(1, scheduler.getAdmittedCount());
+        assertEquals(1, scheduler.getWaitingCount());
+
+        scheduler.release(connection1);
+        runScheduledTasks();
+        assertEquals("two", executed.get(1));
+    }
+
+    @Test
+    public void testAdmitsHigherWeightsFirst() {
+        scheduler.requestAdmission(connection1, 0, () -> executed.add("one"));
+        scheduler.requestAdmission(connection2, 1, () -> executed.add("two"));
+        scheduler.requestAdmission(connection3, 5, () -> executed.add("three"));
+        runScheduledTasks();
+
+        scheduler.release(connection1);
+        runScheduledTasks();
+        scheduler.release(connection3);
+        runScheduledTasks();
+
+        assertEquals("one", executed.get(0));
+        assertEquals("three", executed.get(1));
+        assertEquals("two", executed.get(2));
+    }
+
+    @Test
+    public void testAdmissionHeldUntilSyncGraceExpires() {
+        scheduler.requestAdmission(connection1, 0, () -> executed.add("one"));
+        scheduler.requestAdmission(connection2, 0, () -> executed.add("two"));
+        runScheduledTasks();
+
+        scheduler.connectionEstablished(connection1);
+        assertEquals(1, scheduler.getAdmittedCount());
+
+        // Runs the grace timer, which then admits the second connection.
+        runScheduledTasks();
+        runScheduledTasks();
+        assertEquals(2, executed.size());
+        assertEquals("two", executed.get(1));
+    }
+
+    @Test
+    public void testRemoveCancelsPendingRequest() {
+        scheduler.requestAdmission(connection1, 0, () -> executed.add("one"));
+        scheduler.requestAdmission(connection2, 0, () -> executed.add("two"));
+        scheduler.remove(connection2);
+        scheduler.release(connection1);
+        runScheduledTasks();
+
+        assertEquals(1, executed.size());
+        assertEquals(0, scheduler.getWaitingCount());
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc;
+
+import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.parser.events.PrivateActionEvent;
+import com.dmdirc.parser.events.PrivateMessageEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ServerEventHandlerTest {
+
+    @Mock private Server server;
+    @Mock private GroupChatManagerImpl groupChatManager;
+    @Mock private EventBus eventBus;
+    @Mock private Query query;
+    @Mock private PrivateMessageEvent messageEvent;
+    @Mock private PrivateActionEvent actionEvent;
+    private ServerEventHandler handler;
+
+    @Before
+    public void setUp() {
+        when(server.getQuery("nick!ident@host")).thenReturn(query);
+        handler = new ServerEventHandler(server, groupChatManager, eventBus);
+    }
+
+    @Test
+    public void testPrivateMessageIsDeliveredToQuery() {
+        when(messageEvent.getHost()).thenReturn("nick!ident@host");
+        handler.onPrivateMessage(messageEvent);
+        verify(query).onPrivateMessage(messageEvent);
+    }
+
+    @Test
+    public void testPrivateActionIsDeliveredToQuery() {
+        when(actionEvent.getHost()).thenReturn("nick!ident@host");
+        handler.onPrivateAction(actionEvent);
+        verify(query).onPrivateAction(actionEvent);
+    }
+
+}
@@ -33,7 +33,6 @@ import com.dmdirc.parser.common.ChannelJoinRequest;
 import com.dmdirc.ui.WindowManager;
 import java.net.URI;
 import java.util.Optional;
-import java.util.concurrent.ScheduledExecutorService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -43,7 +42,6 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import static org.junit.Assert.assertEquals;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -80,8 +78,8 @@ public class ServerManagerTest {
         when(identityFactory.createMigratableConfig(anyString(), anyString(), anyString(),
                 anyString())).thenReturn(configProviderMigrator);
 
-        when(serverFactoryImpl.getServer(eq(configProviderMigrator),
-                any(ScheduledExecutorService.class), uriCaptor.capture(), eq(profile)))
+        when(serverFactoryImpl.getServer(eq(configProviderMigrator), uriCaptor.capture(),
+                eq(profile)))
                 .thenReturn(server);
     }
 
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc;
+
+import com.dmdirc.interfaces.Connection;
+import com.dmdirc.interfaces.PrivateChat;
+import com.dmdirc.interfaces.User;
+import com.dmdirc.parser.interfaces.ChannelClientInfo;
+import com.dmdirc.parser.interfaces.ChannelInfo;
+import com.dmdirc.parser.interfaces.ClientInfo;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserManagerTest {
+
+    @Mock private UserFactory userFactory;
+    @Mock private Connection connection1;
+    @Mock private Connection connection2;
+    @Mock private ClientInfo client1;
+    @Mock private ClientInfo client2;
+    @Mock private User user1;
+    @Mock private User user2;
+    @Mock private User user3;
+    @Mock private ChannelInfo channel1;
+    @Mock private ChannelInfo channel2;
+    @Mock private ChannelClientInfo channelClient1;
+    @Mock private ChannelClientInfo channelClient2;
+    @Mock private PrivateChat query;
+
+    private UserManager userManager;
+
+    @Before
+    public void setUp() {
+        when(userFactory.getUser(connection1, client1)).thenReturn(user1, user3);
+        when(userFactory.getUser(connection1, client2)).thenReturn(user2);
+        when(userFactory.getUser(connection2, client1)).thenReturn(user3);
+        userManager = new UserManager(userFactory);
+    }
+
+    @Test
+    public void testCachesUsers() {
+        assertSame(user1, userManager.getUserFromClientInfo(client1, connection1));
+        assertSame(user1, userManager.getUserFromClientInfo(client1, connection1));
+        verify(userFactory, times(1)).getUser(connection1, client1);
+        assertEquals(1, userManager.getCacheSize());
+        assertEquals(1, userManager.getCreatedCount());
+    }
+
+    @Test
+    public void testScopesUsersToConnection() {
+        assertSame(user1, userManager.getUserFromClientInfo(client1, connection1));
+        assertSame(user3, userManager.getUserFromClientInfo(client1, connection2));
+        assertEquals(2, userManager.getCacheSize());
+    }
+
+    @Test
+    public void testRemoveUser() {
+        userManager.getUserFromClientInfo(client1, connection1);
+        userManager.getUserFromClientInfo(client2, connection1);
+        userManager.removeUser(client1, connection1);
+
+        assertEquals(1, userManager.getCacheSize());
+        assertEquals(1, userManager.getEvictedCount());
+        assertNotSame(user1, userManager.getUserFromClientInfo(client1, connection1));
+        assertSame(user2, userManager.getUserFromClientInfo(client2, connection1));
+    }
+
+    @Test
+    public void testRemoveUnknownUser() {
+        userManager.removeUser(client1, connection1);
+        assertEquals(0, userManager.getEvictedCount());
+    }
+
+    @Test
+    public void testRemoveUserIfUnsharedEvictsUserInNoOtherChannel() {
+        when(channelClient1.getChannel()).thenReturn(channel1);
+        when(client1.getChannelClients()).thenReturn(Collections.singletonList(channelClient1));
+        when(connection1.getQueries()).thenReturn(Collections.emptyList());
+        userManager.getUserFromClientInfo(client1, connection1);
+        userManager.removeUserIfUnshared(client1, connection1, channel1);
+
+        assertEquals(0, userManager.getCacheSize());
+        assertEquals(1, userManager.getEvictedCount());
+    }
+
+    @Test
+    public void testRemoveUserIfUnsharedKeepsUserInAnotherChannel() {
+        when(channelClient1.getChannel()).thenReturn(channel1);
+        when(channelClient2.getChannel()).thenReturn(channel2);
+        when(client1.getChannelClients())
+                .thenReturn(Arrays.asList(channelClient1, channelClient2));
+        userManager.getUserFromClientInfo(client1, connection1);
+        userManager.removeUserIfUnshared(client1, connection1, channel1);
+
+        assertEquals(1, userManager.getCacheSize());
+        assertEquals(0, userManager.getEvictedCount());
+    }
+
+    @Test
+    public void testRemoveUserIfUnsharedKeepsUserWithOpenQuery() {
+        when(channelClient1.getChannel()).thenReturn(channel1);
+        when(client1.getChannelClients()).thenReturn(Collections.singletonList(channelClient1));
+        when(query.getUser()).thenReturn(user1);
+        when(connection1.getQueries()).thenReturn(Collections.singletonList(query));
+        userManager.getUserFromClientInfo(client1, connection1);
+        userManager.removeUserIfUnshared(client1, connection1, channel1);
+
+        assertSame(user1, userManager.getUserFromClientInfo(client1, connection1));
+        assertEquals(0, userManager.getEvictedCount());
+    }
+
+    @Test
+    public void testRemoveConnection() {
+        userManager.getUserFromClientInfo(client1, connection1);
+        userManager.getUserFromClientInfo(client2, connection1);
+        userManager.getUserFromClientInfo(client1, connection2);
+        userManager.removeConnection(connection1);
+
+        assertEquals(1, userManager.getCacheSize());
+        assertEquals(2, userManager.getEvictedCount());
+        assertEquals(3, userManager.getCreatedCount());
+    }
+
+}
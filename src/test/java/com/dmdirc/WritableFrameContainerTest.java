@@ -29,6 +29,8 @@ import com.dmdirc.interfaces.ConnectionManager;
 import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.ui.messages.BackBufferFactory;
+import com.dmdirc.util.TimerGroup;
+import com.dmdirc.util.TimerService;
 
 import java.util.Arrays;
 
@@ -41,6 +43,7 @@ import org.mockito.MockitoAnnotations;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
 public class WritableFrameContainerTest {
@@ -50,6 +53,8 @@ public class WritableFrameContainerTest {
     @Mock private ConnectionManager connectionManager;
     @Mock private EventBus eventBus;
     @Mock private BackBufferFactory backBufferFactory;
+    @Mock private TimerService timerService;
+    @Mock private TimerGroup timerGroup;
     @Mock private Provider<GlobalWindow> globalWindowProvider;
     private CommandManager commands;
 
@@ -59,6 +64,7 @@ public class WritableFrameContainerTest {
         when(acp.getOption("general", "silencechar")).thenReturn(".");
         when(acp.getOption("general", "commandchar")).thenReturn("/");
         when(acp.getBinder()).thenReturn(configBinder);
+        when(timerService.createGroup(anyString())).thenReturn(timerGroup);
         commands = new CommandManager(connectionManager, globalWindowProvider);
     }
 
@@ -66,7 +72,7 @@ public class WritableFrameContainerTest {
     @Test
     public void testGetNumLines() {
         final FrameContainer container10 = new TestWritableFrameContainer(10, acp, commands,
-                eventBus, backBufferFactory);
+                eventBus, backBufferFactory, timerService);
 
         final int res0a = container10.getInputModel().get().getNumLines("");
         final int res0b = container10.getInputModel().get().getNumLines("\r");
@@ -97,7 +103,7 @@ public class WritableFrameContainerTest {
     @Test
     public void testSplitLine() {
         final FrameContainer container10 = new TestWritableFrameContainer(10, acp, commands,
-                eventBus, backBufferFactory);
+                eventBus, backBufferFactory, timerService);
         final String[][][] tests = new String[][][]{
             {{""}, {""}},
             {{"0123456789"}, {"0123456789"}},
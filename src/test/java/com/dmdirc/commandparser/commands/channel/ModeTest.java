@@ -31,7 +31,6 @@ import com.dmdirc.interfaces.CommandController;
 import com.dmdirc.interfaces.Connection;
 import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.interfaces.WindowModel;
-import com.dmdirc.parser.interfaces.Parser;
 
 import java.util.Optional;
 
@@ -55,14 +54,12 @@ public class ModeTest {
     @Mock private CommandController controller;
     @Mock private Channel channel;
     @Mock private Connection connection;
-    @Mock private Parser parser;
     @Captor private ArgumentCaptor<ChannelModesDiscoveredEvent> modeDiscoveredCaptor;
     private Mode command;
 
     @Before
     public void setUp() throws InvalidIdentityFileException {
         when(channel.getConnection()).thenReturn(Optional.of(connection));
-        when(connection.getParser()).thenReturn(Optional.of(parser));
         when(channel.getModes()).thenReturn("my mode string!");
         when(channel.getName()).thenReturn("#chan");
         when(channel.getEventBus()).thenReturn(eventbus);
@@ -83,7 +80,7 @@ public class ModeTest {
         command.execute(origin, new CommandArguments(controller, "/mode +hello -bye"),
                 new ChannelCommandContext(null, Mode.INFO, channel));
 
-        verify(parser).sendRawMessage("MODE #chan +hello -bye");
+        verify(connection).sendLine("MODE #chan +hello -bye");
     }
 
     @Test
@@ -91,7 +88,7 @@ public class ModeTest {
         command.execute(origin, connection, "#chan", false,
                 new CommandArguments(controller, "/mode +hello -bye"));
 
-        verify(parser).sendRawMessage("MODE #chan +hello -bye");
+        verify(connection).sendLine("MODE #chan +hello -bye");
     }
 
     @Test
@@ -99,7 +96,7 @@ public class ModeTest {
         command.execute(origin, connection, "#chan", false,
                 new CommandArguments(controller, "/mode"));
 
-        verify(parser).sendRawMessage("MODE #chan");
+        verify(connection).sendLine("MODE #chan");
     }
 
 }
@@ -28,7 +28,6 @@ import com.dmdirc.commandparser.commands.context.ChannelCommandContext;
 import com.dmdirc.config.InvalidIdentityFileException;
 import com.dmdirc.interfaces.CommandController;
 import com.dmdirc.interfaces.Connection;
-import com.dmdirc.parser.interfaces.Parser;
 import java.util.Optional;
 import org.junit.Before;
 import org.junit.Test;
@@ -45,14 +44,12 @@ public class NamesTest {
     @Mock private CommandController controller;
     @Mock private Channel channel;
     @Mock private Connection connection;
-    @Mock private Parser parser;
 
     private Names command;
 
     @Before
     public void setUp() throws InvalidIdentityFileException {
         when(channel.getConnection()).thenReturn(Optional.of(connection));
-        when(connection.getParser()).thenReturn(Optional.of(parser));
         when(channel.getName()).thenReturn("#chan");
 
         command = new Names(controller);
@@ -63,7 +60,7 @@ public class NamesTest {
         command.execute(null, new CommandArguments(controller, "/names"),
                 new ChannelCommandContext(null, Names.INFO, channel));
 
-        verify(parser).sendRawMessage("NAMES #chan");
+        verify(connection).sendLine("NAMES #chan");
     }
 
     @Test
@@ -71,7 +68,7 @@ public class NamesTest {
         command.execute(null, connection, "#chan", false,
                 new CommandArguments(controller, "/names #chan"));
 
-        verify(parser).sendRawMessage("NAMES #chan");
+        verify(connection).sendLine("NAMES #chan");
     }
 
 }
\ No newline at end of file
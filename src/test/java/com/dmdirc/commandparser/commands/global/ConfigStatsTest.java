@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.commandparser.commands.global;
+
+import com.dmdirc.commandparser.CommandArguments;
+import com.dmdirc.commandparser.commands.context.CommandContext;
+import com.dmdirc.config.ConfigAccessProfiler;
+import com.dmdirc.events.CommandErrorEvent;
+import com.dmdirc.events.CommandOutputEvent;
+import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.interfaces.CommandController;
+import com.dmdirc.interfaces.WindowModel;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigStatsTest {
+
+    @Mock private CommandController controller;
+    @Mock private ConfigAccessProfiler profiler;
+    @Mock private WindowModel tiw;
+    @Mock private EventBus eventBus;
+    private ConfigStats command;
+
+    @Before
+    public void setUp() {
+        when(tiw.getEventBus()).thenReturn(eventBus);
+        command = new ConfigStats(controller, profiler);
+    }
+
+    private void execute(final String line) {
+        command.execute(tiw, new CommandArguments(controller, line),
+                new CommandContext(null, ConfigStats.INFO));
+    }
+
+    @Test
+    public void testNegativeLimitShowsUsage() {
+        execute("/configstats keys -1");
+        verify(eventBus).publishAsync(isA(CommandErrorEvent.class));
+        verify(profiler, never()).getStatistics();
+    }
+
+    @Test
+    public void testZeroLimitShowsUsage() {
+        execute("/configstats callers 0");
+        verify(eventBus).publishAsync(isA(CommandErrorEvent.class));
+        verify(profiler, never()).getStatistics();
+    }
+
+    @Test
+    public void testShowsKeysByDefault() {
+        when(profiler.getStatistics()).thenReturn(Collections.emptyList());
+        execute("/configstats");
+        verify(eventBus).publishAsync(isA(CommandOutputEvent.class));
+        verify(eventBus, never()).publishAsync(isA(CommandErrorEvent.class));
+    }
+
+    @Test
+    public void testEnablesProfiler() {
+        execute("/configstats enable");
+        verify(profiler).setEnabled(true);
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.commandparser.commands.global;
+
+import com.dmdirc.commandparser.CommandArguments;
+import com.dmdirc.commandparser.commands.context.CommandContext;
+import com.dmdirc.events.CommandErrorEvent;
+import com.dmdirc.events.CommandOutputEvent;
+import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.events.eventbus.EventBusMetrics;
+import com.dmdirc.interfaces.CommandController;
+import com.dmdirc.interfaces.WindowModel;
+
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EventStatsTest {
+
+    @Mock private CommandController controller;
+    @Mock private EventBus eventBus;
+    @Mock private EventBusMetrics metrics;
+    @Mock private WindowModel tiw;
+    @Mock private EventBus windowEventBus;
+    private EventStats command;
+
+    @Before
+    public void setUp() {
+        when(tiw.getEventBus()).thenReturn(windowEventBus);
+        when(eventBus.getMetrics()).thenReturn(metrics);
+        command = new EventStats(controller, eventBus, Paths.get("errors"));
+    }
+
+    private void execute(final String line) {
+        command.execute(tiw, new CommandArguments(controller, line),
+                new CommandContext(null, EventStats.INFO));
+    }
+
+    @Test
+    public void testNegativeLimitShowsUsage() {
+        execute("/eventstats types -1");
+        verify(windowEventBus).publishAsync(isA(CommandErrorEvent.class));
+        verify(metrics, never()).getEventTypeStatistics();
+    }
+
+    @Test
+    public void testZeroLimitShowsUsage() {
+        execute("/eventstats slow 0");
+        verify(windowEventBus).publishAsync(isA(CommandErrorEvent.class));
+        verify(metrics, never()).getSlowestRecentInvocations(anyInt());
+    }
+
+    @Test
+    public void testNonNumericLimitShowsUsage() {
+        execute("/eventstats handlers lots");
+        verify(windowEventBus).publishAsync(isA(CommandErrorEvent.class));
+        verify(metrics, never()).getHandlerStatistics();
+    }
+
+    @Test
+    public void testUnknownModeShowsUsage() {
+        execute("/eventstats foo");
+        verify(windowEventBus).publishAsync(isA(CommandErrorEvent.class));
+    }
+
+    @Test
+    public void testShowsTypesWithLimit() {
+        when(metrics.getEventTypeStatistics()).thenReturn(Collections.emptyList());
+        execute("/eventstats types 5");
+        verify(windowEventBus).publishAsync(isA(CommandOutputEvent.class));
+        verify(windowEventBus, never()).publishAsync(isA(CommandErrorEvent.class));
+    }
+
+    @Test
+    public void testPassesLimitToSlowInvocations() {
+        when(metrics.getSlowestRecentInvocations(3)).thenReturn(Collections.emptyList());
+        execute("/eventstats slow 3");
+        verify(metrics).getSlowestRecentInvocations(3);
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.commandparser.commands.global;
+
+import com.dmdirc.GroupChatUserManager;
+import com.dmdirc.UserManager;
+import com.dmdirc.commandparser.CommandArguments;
+import com.dmdirc.commandparser.commands.context.CommandContext;
+import com.dmdirc.events.CommandOutputEvent;
+import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.interfaces.CommandController;
+import com.dmdirc.interfaces.WindowModel;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserStatsTest {
+
+    @Mock private CommandController controller;
+    @Mock private UserManager userManager;
+    @Mock private GroupChatUserManager groupChatUserManager;
+    @Mock private WindowModel tiw;
+    @Mock private EventBus eventBus;
+    private UserStats command;
+
+    @Before
+    public void setUp() {
+        when(tiw.getEventBus()).thenReturn(eventBus);
+        command = new UserStats(controller, userManager, groupChatUserManager);
+    }
+
+    @Test
+    public void testShowsCacheCounts() {
+        when(userManager.getCacheSize()).thenReturn(12);
+        when(userManager.getCreatedCount()).thenReturn(34L);
+        when(userManager.getEvictedCount()).thenReturn(22L);
+        when(groupChatUserManager.getCacheSize()).thenReturn(56);
+        when(groupChatUserManager.getCreatedCount()).thenReturn(78L);
+        when(groupChatUserManager.getEvictedCount()).thenReturn(90L);
+
+        command.execute(tiw, new CommandArguments(controller, "/userstats"),
+                new CommandContext(null, UserStats.INFO));
+
+        final ArgumentCaptor<CommandOutputEvent> event =
+                ArgumentCaptor.forClass(CommandOutputEvent.class);
+        verify(eventBus).publishAsync(event.capture());
+        final String output = event.getValue().getMessage();
+        for (String value : new String[]{"12", "34", "22", "56", "78", "90"}) {
+            assertTrue(output.contains(value));
+        }
+    }
+
+}
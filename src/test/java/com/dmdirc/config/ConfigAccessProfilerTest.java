@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.config;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigAccessProfilerTest {
+
+    private ConfigAccessProfiler profiler;
+
+    @Before
+    public void setUp() {
+        profiler = new ConfigAccessProfiler();
+    }
+
+    @Test
+    public void testCountsLookups() {
+        profiler.record("domain", "option");
+        profiler.record("domain", "option");
+        profiler.record("domain", "other");
+
+        assertEquals(2, profiler.getCount("domain", "option"));
+        assertEquals(1, profiler.getCount("domain", "other"));
+        assertEquals(0, profiler.getCount("domain", "missing"));
+    }
+
+    @Test
+    public void testStatisticsAreOrderedByCount() {
+        profiler.record("domain", "rare");
+        profiler.record("domain", "common");
+        profiler.record("domain", "common");
+
+        final List<ConfigAccessStatistics> stats = profiler.getStatistics();
+        assertEquals(2, stats.size());
+        assertEquals("domain.common", stats.get(0).getKey());
+        assertEquals(2, stats.get(0).getCount());
+        assertEquals("domain.rare", stats.get(1).getKey());
+    }
+
+    @Test
+    public void testDisabledProfilerIgnoresLookups() {
+        profiler.setEnabled(false);
+        profiler.record("domain", "option");
+        assertEquals(0, profiler.getCount("domain", "option"));
+
+        profiler.setEnabled(true);
+        profiler.record("domain", "option");
+        assertEquals(1, profiler.getCount("domain", "option"));
+    }
+
+    @Test
+    public void testCallersOnlyRecordedWhenTracing() {
+        profiler.record("domain", "option");
+        assertTrue(profiler.getStatistics().get(0).getCallers().isEmpty());
+
+        profiler.setTracingCallers(true);
+        profiler.record("domain", "option");
+
+        final Map<String, Long> callers = profiler.getStatistics().get(0).getCallers();
+        assertEquals(1, callers.size());
+        assertEquals(Long.valueOf(1), callers.values().iterator().next());
+    }
+
+    @Test
+    public void testReset() {
+        profiler.record("domain", "option");
+        profiler.reset();
+        assertTrue(profiler.getStatistics().isEmpty());
+    }
+
+}
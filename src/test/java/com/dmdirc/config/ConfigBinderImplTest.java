@@ -24,11 +24,18 @@ package com.dmdirc.config;
 
 import com.dmdirc.config.binding.ConfigBinder;
 import com.dmdirc.config.binding.ConfigBinding;
+import com.dmdirc.config.binding.Invocation;
 import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.config.provider.ConfigChangeListener;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
@@ -36,12 +43,14 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ConfigBinderImplTest {
 
     @Mock private AggregateConfigProvider configProvider;
+    @Captor private ArgumentCaptor<ConfigChangeListener> listenerCaptor;
     private ConfigBinder binder;
 
     @Before
@@ -99,4 +108,68 @@ public class ConfigBinderImplTest {
         assertEquals("test456", test.bar);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testUpdatesBoundMembersWhenSettingChanges() {
+        final IntTest test = new IntTest();
+        when(configProvider.getOptionInt("test", "number")).thenReturn(12, 34);
+        binder.bind(test, IntTest.class);
+        assertEquals(12, test.number);
+
+        verify(configProvider).addChangeListener(eq("test"), eq("number"),
+                listenerCaptor.capture());
+        listenerCaptor.getValue().configChanged("test", "number");
+
+        assertEquals(34, test.number);
+    }
+
+    @Test
+    public void testBindsMultipleInstancesOfSameClass() {
+        final IntTest test1 = new IntTest();
+        final IntTest test2 = new IntTest();
+        when(configProvider.getOptionInt("test", "number")).thenReturn(12);
+        binder.bind(test1, IntTest.class);
+        binder.bind(test2, IntTest.class);
+
+        assertEquals(12, test1.number);
+        assertEquals(12, test2.number);
+    }
+
+    @Test
+    public void testUsesCustomInvocation() {
+        final InvocationTest test = new InvocationTest();
+        when(configProvider.getOptionString(eq("test"), eq("foo"), anyBoolean(), any()))
+                .thenReturn("test123");
+        binder.bind(test, InvocationTest.class);
+
+        assertEquals("test123!", test.field);
+    }
+
+    private static class IntTest {
+        @ConfigBinding(domain = "test", key = "number")
+        private int number;
+    }
+
+    private static class InvocationTest {
+        @ConfigBinding(domain = "test", key = "foo", invocation = ExclaimingInvocation.class)
+        private String field;
+    }
+
+    public static class ExclaimingInvocation extends Invocation {
+
+        @Override
+        public void invoke(final Field field, final Object instance, final Object value) {
+            try {
+                field.set(instance, value + "!");
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        @Override
+        public void invoke(final Method method, final Object instance, final Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
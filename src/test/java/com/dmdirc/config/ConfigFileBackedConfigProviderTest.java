@@ -24,6 +24,7 @@ package com.dmdirc.config;
 
 import com.dmdirc.config.provider.ConfigChangeListener;
 import com.dmdirc.config.provider.ConfigProvider;
+import com.dmdirc.config.provider.ConfigTransaction;
 import com.dmdirc.tests.JimFsRule;
 import com.dmdirc.util.io.InvalidConfigFileException;
 import com.dmdirc.util.validators.NumericalValidator;
@@ -34,6 +35,7 @@ import com.google.common.collect.Lists;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -48,6 +50,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -203,6 +206,35 @@ public class ConfigFileBackedConfigProviderTest {
         assertEquals("DMDircircd!", loaded.getTarget().getData());
     }
 
+    @Test
+    public void testSaveKeepsTemporarySettingsInMemory() throws Exception {
+        final ConfigFileBackedConfigProvider provider = getProvider("simple-ircd");
+        provider.setOption("temp", "test123", "foo");
+        provider.setOption("newdomain", "test123", "bar");
+        provider.save();
+
+        assertEquals("foo", provider.getOption("temp", "test123", PERMISSIVE_VALIDATOR));
+
+        final ConfigFileBackedConfigProvider loaded = getProvider("simple-ircd");
+        assertFalse(loaded.hasOptionString("temp", "test123"));
+        assertTrue(loaded.hasOptionString("newdomain", "test123"));
+    }
+
+    @Test
+    public void testSchedulesSaveWhenSettingChanged() throws Exception {
+        final ConfigFileBackedConfigProvider provider = getProvider("simple-ircd");
+        provider.setOption("new", "option", "boo");
+        verify(identityManager).scheduleSave(provider);
+    }
+
+    @Test
+    public void testDoesNotScheduleSaveForTemporarySettings() throws Exception {
+        final ConfigFileBackedConfigProvider provider = getProvider("simple-ircd");
+        provider.setOption("temp", "option", "boo");
+        provider.unsetOption("temp", "option");
+        verify(identityManager, never()).scheduleSave(provider);
+    }
+
     @Test
     public void testFiresSettingChanged() throws Exception {
         final ConfigFileBackedConfigProvider provider = getProvider("simple-ircd");
@@ -211,6 +243,57 @@ public class ConfigFileBackedConfigProviderTest {
         verify(changeListener).configChanged("new", "option");
     }
 
+    @Test
+    public void testTransactionHoldsBackSettingChanges() throws Exception {
+        final ConfigFileBackedConfigProvider provider = getProvider("simple-ircd");
+        provider.addListener(changeListener);
+
+        try (ConfigTransaction transaction = provider.beginTransaction()) {
+            provider.setOption("new", "option", "boo");
+            provider.setOption("new", "option", "baz");
+            provider.setOption("new", "other", "boo");
+            assertEquals("baz", provider.getOption("new", "option", PERMISSIVE_VALIDATOR));
+            verify(changeListener, never()).configChanged(anyString(), anyString());
+        }
+
+        verify(changeListener, times(1)).configChanged("new", "option");
+        verify(changeListener, times(1)).configChanged("new", "other");
+    }
+
+    @Test
+    public void testManagersSeeChangesDuringTransaction() throws Exception {
+        final ConfigFileBackedConfigProvider provider = getProvider("simple-ircd");
+        final ConfigManager manager =
+                new ConfigManager(identityManager, "", "DMDircircd!", "", "");
+        manager.checkIdentity(provider);
+        manager.addChangeListener("unit", "test", changeListener);
+        assertEquals("true", manager.getOption("unit", "test"));
+
+        try (ConfigTransaction transaction = provider.beginTransaction()) {
+            provider.setOption("unit", "test", "false");
+            assertEquals("false", manager.getOption("unit", "test"));
+            verify(changeListener, never()).configChanged(anyString(), anyString());
+        }
+
+        verify(changeListener).configChanged("unit", "test");
+    }
+
+    @Test
+    public void testNestedTransactionsNotifyWhenOutermostCommits() throws Exception {
+        final ConfigFileBackedConfigProvider provider = getProvider("simple-ircd");
+        provider.addListener(changeListener);
+
+        final ConfigTransaction outer = provider.beginTransaction();
+        try (ConfigTransaction inner = provider.beginTransaction()) {
+            provider.setOption("new", "option", "boo");
+        }
+        verify(changeListener, never()).configChanged(anyString(), anyString());
+
+        outer.commit();
+        outer.commit();
+        verify(changeListener, times(1)).configChanged("new", "option");
+    }
+
     @Test
     public void testDoesNotFireSettingChangedIfValueIsSame() throws Exception {
         final ConfigFileBackedConfigProvider provider = getProvider("simple-ircd");
@@ -296,6 +379,26 @@ public class ConfigFileBackedConfigProviderTest {
         verify(changeListener, never()).configChanged("meep", "mop");
     }
 
+    @Test
+    public void testDetectsModificationOnDisk() throws Exception {
+        final ConfigFileBackedConfigProvider provider = getProvider("simple-ircd");
+        assertFalse(provider.isModifiedOnDisk());
+
+        Files.setLastModifiedTime(jimFsRule.getPath("simple-ircd"), FileTime.fromMillis(0));
+        assertTrue(provider.isModifiedOnDisk());
+
+        provider.reload();
+        assertFalse(provider.isModifiedOnDisk());
+    }
+
+    @Test
+    public void testSavingIsNotModificationOnDisk() throws Exception {
+        final ConfigFileBackedConfigProvider provider = getProvider("simple-ircd");
+        provider.setOption("new", "option", "boo");
+        provider.save();
+        assertFalse(provider.isModifiedOnDisk());
+    }
+
     private void copyFileAndReload(final ConfigProvider provider)
             throws IOException, InvalidConfigFileException {
         Files.copy(jimFsRule.getPath("simple-ircd-extra"), jimFsRule.getPath("simple-ircd"),
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.config;
+
+import com.dmdirc.config.provider.ConfigChangeListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigListenerRegistryTest {
+
+    private ConfigListenerRegistry registry;
+    private List<String> changes;
+
+    @Before
+    public void setUp() {
+        registry = new ConfigListenerRegistry();
+        changes = new ArrayList<>();
+    }
+
+    @Test
+    public void testNotifiesDomainAndKeyListeners() {
+        registry.add("domain", null, (d, k) -> changes.add("domain:" + k), false);
+        registry.add("domain", "key", (d, k) -> changes.add("key:" + k), false);
+
+        registry.notify("domain", "key");
+        registry.notify("domain", "other");
+        registry.notify("other", "key");
+
+        assertEquals(3, changes.size());
+        assertEquals("domain:key", changes.get(0));
+        assertEquals("key:key", changes.get(1));
+        assertEquals("domain:other", changes.get(2));
+    }
+
+    @Test
+    public void testRemovesAllRegistrationsOfListener() {
+        final ConfigChangeListener listener = (d, k) -> changes.add(d + '.' + k);
+        final ConfigChangeListener other = (d, k) -> changes.add("other");
+        registry.add("domain", null, listener, false);
+        registry.add("domain", "key", listener, false);
+        registry.add("another", "key", listener, false);
+        registry.add("domain", "key", other, false);
+
+        registry.remove(listener);
+        registry.notify("domain", "key");
+        registry.notify("another", "key");
+
+        assertEquals(1, changes.size());
+        assertEquals("other", changes.get(0));
+    }
+
+    @Test
+    public void testIsEmpty() {
+        final ConfigChangeListener listener = (d, k) -> changes.add(k);
+        assertTrue(registry.isEmpty());
+
+        registry.add("domain", "key", listener, false);
+        assertFalse(registry.isEmpty());
+
+        registry.remove(listener);
+        assertTrue(registry.isEmpty());
+    }
+
+    @Test
+    public void testDropsCollectedWeakListeners() throws InterruptedException {
+        registry.add("domain", "key", (d, k) -> changes.add(k), true);
+
+        for (int i = 0; i < 50 && !registry.isEmpty(); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        registry.notify("domain", "key");
+        assertTrue(registry.isEmpty());
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void testKeepsReferencedWeakListeners() {
+        final ConfigChangeListener listener = (d, k) -> changes.add(k);
+        registry.add("domain", "key", listener, true);
+
+        System.gc();
+        registry.notify("domain", "key");
+
+        assertEquals(1, changes.size());
+        registry.remove(listener);
+    }
+
+}
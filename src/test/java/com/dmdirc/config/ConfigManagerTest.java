@@ -23,24 +23,34 @@
 package com.dmdirc.config;
 
 import com.dmdirc.config.provider.ConfigChangeListener;
+import com.dmdirc.config.provider.ConfigTransaction;
+import com.dmdirc.config.provider.ReadOnlyConfigProvider;
 import com.dmdirc.util.validators.PermissiveValidator;
+import java.util.Collections;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ConfigManagerTest {
 
     @Mock private IdentityManager identityManager;
+    @Mock private ConfigFileBackedConfigProvider source;
 
     @Test
     public void testNonExistantOption() {
@@ -57,6 +67,20 @@ public class ConfigManagerTest {
         assertEquals(1, (int) ConfigManager.getStats().get("unit-test123.baz"));
     }
 
+    @Test
+    public void testStatsCountCachedTypedLookups() {
+        final ConfigManager cm = createManagerWithSource();
+        stubOption("unit-test-typed", "foo", "5");
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("5", cm.getOptionString("unit-test-typed", "foo"));
+            assertEquals(5, (int) cm.getOptionInt("unit-test-typed", "foo"));
+            assertFalse(cm.getOptionBool("unit-test-typed", "foo"));
+        }
+
+        assertEquals(9, (int) ConfigManager.getStats().get("unit-test-typed.foo"));
+    }
+
     @Test
     public void testDomainListener() {
         final ConfigChangeListener listener = mock(ConfigChangeListener.class);
@@ -86,4 +110,180 @@ public class ConfigManagerTest {
         verify(listener).configChanged("unit-test", "foo");
     }
 
+    @Test
+    public void testTransactionHoldsBackListeners() {
+        final ConfigChangeListener listener = mock(ConfigChangeListener.class);
+        final ConfigManager cm = new ConfigManager(identityManager, "", "", "", "");
+        cm.addChangeListener("unit-test", listener);
+
+        try (ConfigTransaction transaction = cm.beginTransaction()) {
+            cm.configChanged("unit-test", "foo");
+            cm.configChanged("unit-test", "foo");
+            verify(listener, never()).configChanged(anyString(), anyString());
+        }
+
+        verify(listener, times(1)).configChanged("unit-test", "foo");
+    }
+
+    @Test
+    public void testCachesResolvedValues() {
+        final ConfigManager cm = createManagerWithSource();
+        stubOption("unit-test", "foo", "bar");
+
+        assertEquals("bar", cm.getOption("unit-test", "foo"));
+        assertEquals("bar", cm.getOption("unit-test", "foo"));
+        assertEquals("bar", cm.getOptionString("unit-test", "foo"));
+        assertEquals("bar", cm.getOptionString("unit-test", "foo"));
+
+        verify(source, times(1)).getOption("unit-test", "foo",
+                ReadOnlyConfigProvider.PERMISSIVE_VALIDATOR);
+    }
+
+    @Test
+    public void testConfigChangeInvalidatesCache() {
+        final ConfigManager cm = createManagerWithSource();
+        stubOption("unit-test", "foo", "12");
+        assertEquals(12, (int) cm.getOptionInt("unit-test", "foo"));
+
+        stubOption("unit-test", "foo", "34");
+        cm.configChanged("unit-test", "foo");
+
+        assertEquals(34, (int) cm.getOptionInt("unit-test", "foo"));
+    }
+
+    @Test
+    public void testConfigChangeOnlyInvalidatesChangedOption() {
+        final ConfigManager cm = createManagerWithSource();
+        stubOption("unit-test", "foo", "true");
+        assertTrue(cm.getOptionBool("unit-test", "foo"));
+
+        stubOption("unit-test", "foo", "false");
+        cm.configChanged("unit-test", "bar");
+        assertTrue(cm.getOptionBool("unit-test", "foo"));
+
+        cm.configChanged("unit-test", "foo");
+        assertFalse(cm.getOptionBool("unit-test", "foo"));
+    }
+
+    @Test
+    public void testCachesDomainOptions() {
+        final ConfigManager cm = createManagerWithSource();
+        when(source.getOptions("unit-test")).thenReturn(Collections.singletonMap("foo", "bar"));
+
+        assertEquals(Collections.singletonMap("foo", "bar"), cm.getOptions("unit-test"));
+        assertEquals(Collections.singletonMap("foo", "bar"), cm.getOptions("unit-test"));
+        verify(source, times(1)).getOptions("unit-test");
+
+        cm.configChanged("unit-test", "foo");
+        cm.getOptions("unit-test");
+        verify(source, times(2)).getOptions("unit-test");
+    }
+
+    @Test
+    public void testRemovingIdentityInvalidatesCache() {
+        final ConfigManager cm = createManagerWithSource();
+        stubOption("unit-test", "foo", "bar");
+        assertEquals("bar", cm.getOption("unit-test", "foo"));
+
+        cm.removeIdentity(source);
+
+        assertNull(cm.getOption("unit-test", "foo"));
+    }
+
+    @Test
+    public void testChildTakesGlobalSettingsFromParent() {
+        final ConfigManager parent = new ConfigManager(identityManager);
+        final ConfigManager child = new ConfigManager(identityManager, parent, "", "", "", "",
+                "#chan");
+        addGlobalSource(parent);
+        child.checkIdentity(source);
+        stubOption("unit-test", "foo", "bar");
+
+        assertEquals("bar", child.getOption("unit-test", "foo"));
+        assertEquals(Collections.singletonList(source), child.getSources());
+    }
+
+    @Test
+    public void testParentChangesNotifyChildListeners() {
+        final ConfigChangeListener listener = mock(ConfigChangeListener.class);
+        final ConfigManager parent = new ConfigManager(identityManager);
+        final ConfigManager child = new ConfigManager(identityManager, parent, "", "", "", "",
+                "#chan");
+        child.addChangeListener("unit-test", "foo", listener);
+
+        parent.configChanged("unit-test", "foo");
+
+        verify(listener).configChanged("unit-test", "foo");
+    }
+
+    @Test
+    public void testParentChangesIgnoredWhenOverridden() {
+        final ConfigChangeListener listener = mock(ConfigChangeListener.class);
+        final ConfigFileBackedConfigProvider override = mock(ConfigFileBackedConfigProvider.class);
+        final ConfigTarget target = new ConfigTarget();
+        target.setChannel("#chan@");
+        when(override.getTarget()).thenReturn(target);
+        when(override.getDomains()).thenReturn(Collections.<String>emptySet());
+        when(override.hasOption(eq("unit-test"), eq("foo"), any())).thenReturn(true);
+
+        final ConfigManager parent = new ConfigManager(identityManager);
+        final ConfigManager child = new ConfigManager(identityManager, parent, "", "", "", "",
+                "#chan");
+        child.checkIdentity(override);
+        child.addChangeListener("unit-test", "foo", listener);
+
+        parent.configChanged("unit-test", "foo");
+
+        verify(listener, never()).configChanged(anyString(), anyString());
+    }
+
+    @Test
+    public void testParentChangesNotifyChildWhenOverrideIsNotNumeric() {
+        final ConfigChangeListener listener = mock(ConfigChangeListener.class);
+        final ConfigFileBackedConfigProvider override = mock(ConfigFileBackedConfigProvider.class);
+        final ConfigTarget target = new ConfigTarget();
+        target.setChannel("#chan@");
+        when(override.getTarget()).thenReturn(target);
+        when(override.getDomains()).thenReturn(Collections.<String>emptySet());
+        when(override.hasOption("unit-test", "foo", ReadOnlyConfigProvider.PERMISSIVE_VALIDATOR))
+                .thenReturn(true);
+        when(override.getOption("unit-test", "foo", ReadOnlyConfigProvider.PERMISSIVE_VALIDATOR))
+                .thenReturn("bar");
+
+        final ConfigManager parent = new ConfigManager(identityManager);
+        final ConfigManager child = new ConfigManager(identityManager, parent, "", "", "", "",
+                "#chan");
+        addGlobalSource(parent);
+        child.checkIdentity(override);
+        child.addChangeListener("unit-test", "foo", listener);
+        stubOption("unit-test", "foo", "5");
+        assertEquals(5, (int) child.getOptionInt("unit-test", "foo"));
+
+        stubOption("unit-test", "foo", "6");
+        parent.configChanged("unit-test", "foo");
+
+        verify(listener).configChanged("unit-test", "foo");
+        assertEquals(6, (int) child.getOptionInt("unit-test", "foo"));
+    }
+
+    private ConfigManager createManagerWithSource() {
+        final ConfigManager cm = new ConfigManager(identityManager, "", "", "", "");
+        addGlobalSource(cm);
+        return cm;
+    }
+
+    private void addGlobalSource(final ConfigManager cm) {
+        final ConfigTarget target = new ConfigTarget();
+        target.setGlobal();
+        when(source.getTarget()).thenReturn(target);
+        when(source.getDomains()).thenReturn(Collections.<String>emptySet());
+
+        cm.checkIdentity(source);
+    }
+
+    private void stubOption(final String domain, final String option, final String value) {
+        when(source.hasOption(eq(domain), eq(option), any())).thenReturn(true);
+        when(source.getOption(eq(domain), eq(option), any())).thenReturn(value);
+    }
+
 }
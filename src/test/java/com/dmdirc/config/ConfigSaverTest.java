@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.config;
+
+import com.dmdirc.config.provider.ConfigProvider;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigSaverTest {
+
+    @Mock private ConfigProvider provider1;
+    @Mock private ConfigProvider provider2;
+
+    private ScheduledExecutorService executor;
+    private ConfigSaver saver;
+
+    @Before
+    public void setUp() {
+        executor = new ScheduledThreadPoolExecutor(1);
+        saver = new ConfigSaver(executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCoalescesDirtyProviders() {
+        saver.markDirty(provider1);
+        saver.markDirty(provider1);
+        saver.markDirty(provider2);
+
+        assertTrue(saver.saveAndWait(Collections.emptyList(), 5, TimeUnit.SECONDS));
+
+        verify(provider1, times(1)).save();
+        verify(provider2, times(1)).save();
+    }
+
+    @Test
+    public void testSavesProvidersPassedToSaveAndWait() {
+        assertTrue(saver.saveAndWait(Collections.singletonList(provider1), 5, TimeUnit.SECONDS));
+
+        verify(provider1).save();
+    }
+
+    @Test
+    public void testSavesDirtyProvidersInBackground() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            latch.countDown();
+            return null;
+        }).when(provider1).save();
+
+        saver.markDirty(provider1);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testContinuesAfterFailedSave() {
+        doThrow(new IllegalStateException()).when(provider1).save();
+
+        assertTrue(saver.saveAndWait(Arrays.asList(provider1, provider2),
+                5, TimeUnit.SECONDS));
+
+        verify(provider2).save();
+    }
+
+    @Test
+    public void testReturnsFalseOnTimeout() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            latch.await();
+            return null;
+        }).when(provider1).save();
+
+        try {
+            assertFalse(saver.saveAndWait(Collections.singletonList(provider1),
+                    10, TimeUnit.MILLISECONDS));
+        } finally {
+            latch.countDown();
+        }
+    }
+
+}
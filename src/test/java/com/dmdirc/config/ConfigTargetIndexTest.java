@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.config;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigTargetIndexTest {
+
+    @Mock private IdentityManager identityManager;
+
+    private ConfigTargetIndex index;
+    private ConfigManager manager;
+
+    @Before
+    public void setUp() {
+        index = new ConfigTargetIndex();
+        manager = new ConfigManager(identityManager, "irc", "hyperion", "Quakenet",
+                "irc.quakenet.org", "#DMDirc");
+    }
+
+    @Test
+    public void testFindsExactTargetsIgnoringCase() {
+        final ConfigFileBackedConfigProvider network =
+                createProvider(t -> t.setNetwork("quakenet"));
+        final ConfigFileBackedConfigProvider other = createProvider(t -> t.setNetwork("freenode"));
+        index.add(network);
+        index.add(other);
+
+        final List<ConfigFileBackedConfigProvider> result = index.getApplicable(manager);
+        assertEquals(1, result.size());
+        assertTrue(result.contains(network));
+    }
+
+    @Test
+    public void testFindsGlobalTargets() {
+        final ConfigFileBackedConfigProvider global = createProvider(ConfigTarget::setGlobal);
+        index.add(global);
+
+        assertTrue(index.getApplicable(manager).contains(global));
+    }
+
+    @Test
+    public void testFindsRegexTargets() {
+        final ConfigFileBackedConfigProvider matching =
+                createProvider(t -> t.setServer("re:.*\\.quakenet\\.org"));
+        final ConfigFileBackedConfigProvider other =
+                createProvider(t -> t.setServer("re:.*\\.freenode\\.net"));
+        index.add(matching);
+        index.add(other);
+
+        final List<ConfigFileBackedConfigProvider> result = index.getApplicable(manager);
+        assertEquals(1, result.size());
+        assertTrue(result.contains(matching));
+    }
+
+    @Test
+    public void testIgnoresCustomTargets() {
+        index.add(createProvider(t -> t.setCustom("profile")));
+
+        assertTrue(index.getApplicable(manager).isEmpty());
+    }
+
+    @Test
+    public void testRemovesProviders() {
+        final ConfigFileBackedConfigProvider channel =
+                createProvider(t -> t.setChannel("#dmdirc@quakenet"));
+        final ConfigFileBackedConfigProvider regex = createProvider(t -> t.setIrcd("re:hyp.*"));
+        index.add(channel);
+        index.add(regex);
+        assertEquals(2, index.getApplicable(manager).size());
+
+        index.remove(channel);
+        index.remove(regex);
+        assertTrue(index.getApplicable(manager).isEmpty());
+    }
+
+    @Test
+    public void testGetExact() {
+        final ConfigFileBackedConfigProvider server = createProvider(t -> t.setServer("irc.foo"));
+        index.add(server);
+
+        assertEquals(server, index.getExact(ConfigTarget.TYPE.SERVER, "IRC.FOO").get());
+        assertFalse(index.getExact(ConfigTarget.TYPE.NETWORK, "irc.foo").isPresent());
+        assertFalse(index.getExact(ConfigTarget.TYPE.SERVER, "irc.bar").isPresent());
+    }
+
+    private ConfigFileBackedConfigProvider createProvider(final Consumer<ConfigTarget> setter) {
+        final ConfigTarget target = new ConfigTarget();
+        setter.accept(target);
+        final ConfigFileBackedConfigProvider provider = mock(ConfigFileBackedConfigProvider.class);
+        when(provider.getTarget()).thenReturn(target);
+        return provider;
+    }
+
+}
@@ -24,9 +24,14 @@ package com.dmdirc.config;
 
 import com.dmdirc.config.provider.ConfigProvider;
 import com.dmdirc.tests.JimFsRule;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -86,4 +91,45 @@ public class IdentityManagerTest {
         assertEquals("New Profile", profiles.stream().findAny().get().getName());
     }
 
+    @Test
+    public void testRegistersParallelLoadedIdentitiesInPathOrder() throws Exception {
+        Files.createDirectories(identitiesDirectory);
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            expected.add(String.format("Profile %02d", i));
+        }
+        // Create the files in the reverse of the order they should be registered in.
+        for (int i = 19; i >= 0; i--) {
+            writeProfile(identitiesDirectory.resolve(String.format("profile-%02d", i)),
+                    expected.get(i));
+        }
+
+        final IdentityManager identityManager = new IdentityManager(baseDirectory, identitiesDirectory);
+        identityManager.initialise();
+
+        assertEquals(expected, identityManager.getProvidersByType("profile").stream()
+                .map(ConfigProvider::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testSkipsSymlinkLoopsWhenLoading() throws Exception {
+        Files.createDirectories(identitiesDirectory);
+        Files.createSymbolicLink(identitiesDirectory.resolve("loop"),
+                identitiesDirectory.toAbsolutePath());
+        writeProfile(identitiesDirectory.resolve("profile"), "Looped Profile");
+
+        final IdentityManager identityManager = new IdentityManager(baseDirectory, identitiesDirectory);
+        identityManager.initialise();
+
+        final Collection<ConfigProvider> profiles = identityManager.getProvidersByType("profile");
+        assertEquals(1, profiles.size());
+        assertEquals("Looped Profile", profiles.stream().findAny().get().getName());
+    }
+
+    private static void writeProfile(final Path file, final String name) throws IOException {
+        Files.write(file, ("keysections:\n  identity\n  profile\n\n"
+                + "identity:\n  name=" + name + "\n\n"
+                + "profile:\n  nicknames=nick\n").getBytes(StandardCharsets.UTF_8));
+    }
+
 }
\ No newline at end of file
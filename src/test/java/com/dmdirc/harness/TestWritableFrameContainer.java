@@ -31,6 +31,7 @@ import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.ui.input.TabCompleterImpl;
 import com.dmdirc.ui.messages.BackBufferFactory;
+import com.dmdirc.util.TimerService;
 
 import java.util.Collections;
 import java.util.Optional;
@@ -40,8 +41,9 @@ public class TestWritableFrameContainer extends FrameContainer {
     public TestWritableFrameContainer(final int lineLength,
             final AggregateConfigProvider cm, final CommandManager commandManager,
             final EventBus eventBus,
-            final BackBufferFactory backBufferFactory) {
-        super("raw", "Raw", "(Raw)", cm, backBufferFactory,
+            final BackBufferFactory backBufferFactory,
+            final TimerService timerService) {
+        super("raw", "Raw", "(Raw)", cm, backBufferFactory, timerService,
                 eventBus,
                 Collections.<String>emptySet());
 
@@ -25,6 +25,7 @@ package com.dmdirc.logger;
 import com.dmdirc.config.binding.ConfigBinder;
 import com.dmdirc.events.ProgramErrorEvent;
 import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.events.eventbus.EventFlightRecorder;
 import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.tests.JimFsRule;
 
@@ -43,6 +44,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -51,6 +53,7 @@ public class DiskLoggingErrorManagerTest {
     @Rule public final JimFsRule jimFsRule = new JimFsRule();
 
     @Mock private EventBus eventBus;
+    @Mock private EventFlightRecorder flightRecorder;
     @Mock private AggregateConfigProvider config;
     @Mock private ConfigBinder configBinder;
     @Mock private ProgramErrorEvent error;
@@ -65,6 +68,7 @@ public class DiskLoggingErrorManagerTest {
         when(programError.getThrowableAsString()).thenReturn(Optional.of("test"));
         when(programError.getLevel()).thenReturn(ErrorLevel.MEDIUM);
         when(config.getBinder()).thenReturn(configBinder);
+        when(eventBus.getFlightRecorder()).thenReturn(flightRecorder);
         instance = new DiskLoggingErrorManager(jimFsRule.getPath("/errors"),
                 eventBus);
     }
@@ -95,6 +99,15 @@ public class DiskLoggingErrorManagerTest {
         assertTrue(Files.readAllLines(errorPath).contains("Level: Medium"));
     }
 
+    @Test
+    public void testHandleErrorEventDumpsFlightRecorder() throws Exception {
+        instance.initialise(config);
+        instance.handleLoggingSetting(true);
+        final String logName = error.getTimestamp() + "-" + error.getError().getLevel();
+        instance.handleErrorEvent(error);
+        verify(flightRecorder).dump(jimFsRule.getPath("/errors", logName + "-events.log"));
+    }
+
     @Test
     public void testHandleErrorEventNotLogging() throws Exception {
         instance.initialise(config);
@@ -103,6 +116,7 @@ public class DiskLoggingErrorManagerTest {
         assertFalse(Files.exists(jimFsRule.getPath("/errors", logName)));
         instance.handleErrorEvent(error);
         assertFalse(Files.exists(jimFsRule.getPath("/errors", logName)));
+        verifyZeroInteractions(flightRecorder);
     }
 
     @Test
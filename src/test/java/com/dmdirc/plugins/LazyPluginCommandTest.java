@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.plugins;
+
+import com.dmdirc.commandparser.BaseCommandInfo;
+import com.dmdirc.commandparser.CommandArguments;
+import com.dmdirc.commandparser.CommandInfo;
+import com.dmdirc.commandparser.CommandType;
+import com.dmdirc.commandparser.commands.Command;
+import com.dmdirc.commandparser.commands.context.CommandContext;
+import com.dmdirc.events.CommandErrorEvent;
+import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.interfaces.CommandController;
+import com.dmdirc.interfaces.WindowModel;
+
+import java.util.AbstractMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LazyPluginCommandTest {
+
+    private static final CommandInfo INFO =
+            new BaseCommandInfo("test", "help", CommandType.TYPE_GLOBAL);
+
+    @Mock private CommandController controller;
+    @Mock private PluginInfo plugin;
+    @Mock private PluginMetaData metaData;
+    @Mock private Command realCommand;
+    @Mock private WindowModel origin;
+    @Mock private EventBus eventBus;
+    @Mock private CommandContext context;
+    @Captor private ArgumentCaptor<CommandErrorEvent> errorEventCaptor;
+    private CommandArguments arguments;
+    private LazyPluginCommand command;
+
+    @Before
+    public void setUp() {
+        arguments = new CommandArguments(controller, "/test foo");
+        command = new LazyPluginCommand(controller, plugin, INFO);
+    }
+
+    @Test
+    public void testLoadsPluginAndExecutesRealCommand() {
+        when(controller.getCommand(CommandType.TYPE_GLOBAL, "test"))
+                .thenReturn(new AbstractMap.SimpleEntry<>(INFO, realCommand));
+
+        command.execute(origin, arguments, context);
+
+        final InOrder inOrder = inOrder(plugin, realCommand);
+        inOrder.verify(plugin).loadPlugin();
+        inOrder.verify(realCommand).execute(origin, arguments, context);
+    }
+
+    @Test
+    public void testShowsErrorIfPluginDoesNotRegisterCommand() {
+        when(plugin.getMetaData()).thenReturn(metaData);
+        when(metaData.getName()).thenReturn("lazy");
+        when(plugin.getLastError()).thenReturn("oops");
+        when(origin.getEventBus()).thenReturn(eventBus);
+
+        command.execute(origin, arguments, context);
+
+        verify(eventBus).publishAsync(errorEventCaptor.capture());
+        assertEquals("Unable to load plugin lazy: oops", errorEventCaptor.getValue().getMessage());
+    }
+
+    @Test
+    public void testShowsErrorIfCommandIsStillLazy() {
+        when(controller.getCommand(CommandType.TYPE_GLOBAL, "test"))
+                .thenReturn(new AbstractMap.SimpleEntry<>(INFO, command));
+        when(plugin.getMetaData()).thenReturn(metaData);
+        when(metaData.getName()).thenReturn("lazy");
+        when(plugin.getLastError()).thenReturn("oops");
+        when(origin.getEventBus()).thenReturn(eventBus);
+
+        command.execute(origin, arguments, context);
+
+        verify(eventBus).publishAsync(errorEventCaptor.capture());
+        assertEquals("Unable to load plugin lazy: oops", errorEventCaptor.getValue().getMessage());
+    }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.plugins;
+
+import com.dmdirc.config.provider.ConfigProvider;
+import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.interfaces.config.IdentityController;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PluginClassLoaderTest {
+
+    private static final String MAIN = "com.dmdirc.plugins.test.Main";
+    private static final String HELPER = "com.dmdirc.plugins.test.Helper";
+    private static final String CHILD_MAIN = "com.dmdirc.plugins.test.child.Main";
+
+    @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock private PluginManager pluginManager;
+    @Mock private ServiceManager serviceManager;
+    @Mock private EventBus eventBus;
+    @Mock private IdentityController identityController;
+    @Mock private ConfigProvider addonSettings;
+    private GlobalClassLoader globalLoader;
+
+    @Before
+    public void setUp() {
+        globalLoader = new GlobalClassLoader(pluginManager);
+    }
+
+    @Test
+    public void testIndexesClassesInPlugin() throws Exception {
+        final PluginInfo plugin = createPlugin("plugin", MAIN, MAIN, HELPER);
+
+        assertEquals("/com/dmdirc/plugins/test/Helper.class",
+                plugin.getClassPath(HELPER).toString());
+        assertNull(plugin.getClassPath("com.dmdirc.plugins.test.Missing"));
+    }
+
+    @Test
+    public void testLoadsClassFromIndex() throws Exception {
+        final PluginInfo plugin = createPlugin("plugin", MAIN, MAIN, HELPER);
+        final PluginClassLoader loader = new PluginClassLoader(plugin, globalLoader);
+
+        final Class<?> clazz = loader.loadClass(HELPER);
+
+        assertEquals(HELPER, clazz.getName());
+        assertSame(loader, clazz.getClassLoader());
+        assertSame(clazz, loader.loadClass(HELPER));
+    }
+
+    @Test
+    public void testLoadsClassFromParentsIndex() throws Exception {
+        final PluginInfo parent = createPlugin("parent", MAIN, MAIN, HELPER);
+        final PluginInfo child = createPlugin("child", CHILD_MAIN, CHILD_MAIN);
+        final PluginClassLoader parentLoader = new PluginClassLoader(parent, globalLoader);
+        final PluginClassLoader loader = new PluginClassLoader(child, globalLoader, parentLoader);
+
+        final Class<?> clazz = loader.loadClass(HELPER);
+
+        assertSame(parentLoader, clazz.getClassLoader());
+        assertFalse(loader.isClassLoaded(HELPER, false));
+    }
+
+    @Test(expected = ClassNotFoundException.class)
+    public void testThrowsForMissingClass() throws Exception {
+        final PluginInfo plugin = createPlugin("plugin", MAIN, MAIN, HELPER);
+        new PluginClassLoader(plugin, globalLoader).loadClass("com.dmdirc.plugins.test.Missing");
+    }
+
+    @Test
+    public void testLoadsPersistentClassThroughGlobalLoader() throws Exception {
+        final PluginInfo plugin = createPlugin("plugin", MAIN, MAIN, HELPER);
+        when(plugin.getMetaData().getPersistentClasses())
+                .thenReturn(Collections.singletonList(HELPER));
+        final PluginClassLoader loader = new PluginClassLoader(plugin, globalLoader);
+
+        final Class<?> clazz = loader.loadClass(HELPER);
+
+        assertSame(globalLoader, clazz.getClassLoader());
+        assertFalse(loader.isClassLoaded(HELPER, false));
+    }
+
+    private PluginInfo createPlugin(final String name, final String mainClass,
+            final String... classes) throws IOException, PluginException {
+        final Path path = folder.getRoot().toPath().resolve(name + ".jar").toAbsolutePath();
+        try (OutputStream stream = Files.newOutputStream(path);
+                ZipOutputStream zip = new ZipOutputStream(stream)) {
+            for (String className : classes) {
+                zip.putNextEntry(new ZipEntry(className.replace('.', '/') + ".class"));
+                zip.write(createClass(className));
+                zip.closeEntry();
+            }
+        }
+
+        final PluginMetaData metaData = mock(PluginMetaData.class);
+        when(metaData.getPluginPath()).thenReturn(path);
+        when(metaData.getMainClass()).thenReturn(mainClass);
+        when(identityController.getAddonSettings()).thenReturn(addonSettings);
+        return new PluginInfo(pluginManager, serviceManager, metaData, eventBus,
+                identityController, null);
+    }
+
+    /**
+     * Creates the bytecode for an empty class with the given name, so that the classes loaded by
+     * the tests can't be found on the test's own class path.
+     */
+    private static byte[] createClass(final String name) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(52);
+            // Constant pool: the class's name, the class, Object's name, and Object.
+            out.writeShort(5);
+            out.writeByte(1);
+            out.writeUTF(name.replace('.', '/'));
+            out.writeByte(7);
+            out.writeShort(1);
+            out.writeByte(1);
+            out.writeUTF("java/lang/Object");
+            out.writeByte(7);
+            out.writeShort(3);
+            // Public class, extending Object, with no interfaces, fields, methods or attributes.
+            out.writeShort(0x21);
+            out.writeShort(2);
+            out.writeShort(4);
+            out.writeShort(0);
+            out.writeShort(0);
+            out.writeShort(0);
+            out.writeShort(0);
+        }
+        return bytes.toByteArray();
+    }
+
+}
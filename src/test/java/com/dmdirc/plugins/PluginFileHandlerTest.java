@@ -54,7 +54,7 @@ public class PluginFileHandlerTest {
         directory = jimFsRule.getPath("plugins");
 
         Files.createDirectory(directory);
-        fileHandler = new PluginFileHandler(directory);
+        fileHandler = new PluginFileHandler(directory, jimFsRule.getPath("."));
     }
 
     @Test
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.plugins;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PluginLoadOrderTest {
+
+    @Mock private ServiceManager serviceManager;
+    @Mock private Service service;
+
+    @Test
+    public void testIndependentPluginsAreConcurrent() {
+        final PluginMetaData first = mockPlugin("first", true);
+        final PluginMetaData second = mockPlugin("second", true);
+
+        final PluginLoadOrder order = new PluginLoadOrder(serviceManager,
+                Arrays.asList(first, second), Arrays.asList(first, second));
+
+        assertEquals(Arrays.asList(first, second),
+                Arrays.asList(order.getConcurrent().keySet().toArray()));
+        assertTrue(order.getConcurrent().get(first).isEmpty());
+        assertTrue(order.getConcurrent().get(second).isEmpty());
+        assertTrue(order.getSerial().isEmpty());
+    }
+
+    @Test
+    public void testRequiredPluginsAreLoadedFirst() {
+        final PluginMetaData first = mockPlugin("first", true);
+        final PluginMetaData second = mockPlugin("second", true);
+        when(first.getRequirements()).thenReturn(
+                Collections.singletonMap("plugins", "second:0.1"));
+
+        final PluginLoadOrder order = new PluginLoadOrder(serviceManager,
+                Arrays.asList(first, second), Collections.singletonList(first));
+
+        assertEquals(Arrays.asList(second, first),
+                Arrays.asList(order.getConcurrent().keySet().toArray()));
+        assertEquals(Collections.singleton(second), order.getConcurrent().get(first));
+        assertTrue(order.getSerial().isEmpty());
+    }
+
+    @Test
+    public void testParentIsLoadedFirst() {
+        final PluginMetaData child = mockPlugin("child", true);
+        final PluginMetaData parent = mockPlugin("parent", true);
+        when(child.getParent()).thenReturn("parent");
+
+        final PluginLoadOrder order = new PluginLoadOrder(serviceManager,
+                Arrays.asList(child, parent), Collections.singletonList(child));
+
+        assertEquals(Collections.singleton(parent), order.getConcurrent().get(child));
+    }
+
+    @Test
+    public void testPluginsDependingOnUnsafePluginsAreSerial() {
+        final PluginMetaData first = mockPlugin("first", true);
+        final PluginMetaData second = mockPlugin("second", false);
+        when(first.getParent()).thenReturn("second");
+
+        final PluginLoadOrder order = new PluginLoadOrder(serviceManager,
+                Arrays.asList(first, second), Arrays.asList(second, first));
+
+        assertTrue(order.getConcurrent().isEmpty());
+        assertEquals(Arrays.asList(second, first), order.getSerial());
+    }
+
+    @Test
+    public void testPluginsWithMissingRequirementsAreSerial() {
+        final PluginMetaData first = mockPlugin("first", true);
+        when(first.getParent()).thenReturn("missing");
+
+        final PluginLoadOrder order = new PluginLoadOrder(serviceManager,
+                Collections.singletonList(first), Collections.singletonList(first));
+
+        assertTrue(order.getConcurrent().isEmpty());
+        assertEquals(Collections.singletonList(first), order.getSerial());
+    }
+
+    @Test
+    public void testServiceProvidersAreLoadedFirst() {
+        final PluginMetaData first = mockPlugin("first", true);
+        final PluginMetaData second = mockPlugin("second", true);
+        when(first.getRequiredServices()).thenReturn(Collections.singletonList("tabber misc"));
+        when(second.getServices()).thenReturn(Collections.singletonList("tabber misc"));
+
+        final PluginLoadOrder order = new PluginLoadOrder(serviceManager,
+                Arrays.asList(first, second), Collections.singletonList(first));
+
+        assertEquals(Collections.singleton(second), order.getConcurrent().get(first));
+    }
+
+    @Test
+    public void testActiveServicesAreIgnored() {
+        final PluginMetaData first = mockPlugin("first", true);
+        when(first.getRequiredServices()).thenReturn(Collections.singletonList("any ui"));
+        when(serviceManager.getServicesByType("ui")).thenReturn(
+                Collections.singletonList(service));
+        when(service.isActive()).thenReturn(true);
+
+        final PluginLoadOrder order = new PluginLoadOrder(serviceManager,
+                Collections.singletonList(first), Collections.singletonList(first));
+
+        assertTrue(order.getConcurrent().get(first).isEmpty());
+    }
+
+    @Test
+    public void testPluginsRequiringAnyInactiveServiceAreSerial() {
+        final PluginMetaData first = mockPlugin("first", true);
+        when(first.getRequiredServices()).thenReturn(Collections.singletonList("any ui"));
+
+        final PluginLoadOrder order = new PluginLoadOrder(serviceManager,
+                Collections.singletonList(first), Collections.singletonList(first));
+
+        assertTrue(order.getConcurrent().isEmpty());
+        assertEquals(Collections.singletonList(first), order.getSerial());
+    }
+
+    @Test
+    public void testCircularDependenciesAreSerial() {
+        final PluginMetaData first = mockPlugin("first", true);
+        final PluginMetaData second = mockPlugin("second", true);
+        when(first.getParent()).thenReturn("second");
+        when(second.getParent()).thenReturn("first");
+
+        final PluginLoadOrder order = new PluginLoadOrder(serviceManager,
+                Arrays.asList(first, second), Arrays.asList(first, second));
+
+        assertTrue(order.getConcurrent().isEmpty());
+        assertEquals(Arrays.asList(first, second), order.getSerial());
+    }
+
+    private PluginMetaData mockPlugin(final String name, final boolean parallelSafe) {
+        final PluginMetaData metaData = mock(PluginMetaData.class);
+        when(metaData.getName()).thenReturn(name);
+        when(metaData.isParallelSafe()).thenReturn(parallelSafe);
+        return metaData;
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.plugins;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PluginMetaDataIndexTest {
+
+    @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Path indexPath;
+    private Path plugin;
+
+    @Before
+    public void setUp() throws IOException {
+        indexPath = folder.getRoot().toPath().resolve("plugin-index.yml");
+        plugin = folder.getRoot().toPath().resolve("plugin.jar").toAbsolutePath();
+    }
+
+    @Test
+    public void testReadsConfigFromPlugin() throws IOException {
+        writePlugin("first");
+
+        assertEquals("first", getConfig(new PluginMetaDataIndex(indexPath)));
+    }
+
+    @Test
+    public void testUsesIndexedConfigForUnchangedPlugin() throws IOException {
+        writePlugin("first");
+        final PluginMetaDataIndex index = new PluginMetaDataIndex(indexPath);
+        getConfig(index);
+        index.save();
+
+        final FileTime modified = Files.getLastModifiedTime(plugin);
+        final long size = Files.size(plugin);
+        writePlugin("other");
+        Files.setLastModifiedTime(plugin, modified);
+        assertEquals(size, Files.size(plugin));
+
+        assertEquals("first", getConfig(new PluginMetaDataIndex(indexPath)));
+    }
+
+    @Test
+    public void testRereadsChangedPlugin() throws IOException {
+        writePlugin("first");
+        final PluginMetaDataIndex index = new PluginMetaDataIndex(indexPath);
+        getConfig(index);
+
+        writePlugin("second");
+        Files.setLastModifiedTime(plugin,
+                FileTime.fromMillis(Files.getLastModifiedTime(plugin).toMillis() + 10000));
+
+        assertEquals("second", getConfig(index));
+    }
+
+    @Test
+    public void testOnlyWritesIndexWhenChanged() throws IOException {
+        writePlugin("first");
+        final PluginMetaDataIndex index = new PluginMetaDataIndex(indexPath);
+        index.save();
+        assertFalse(Files.exists(indexPath));
+
+        getConfig(index);
+        index.save();
+        assertTrue(Files.exists(indexPath));
+
+        Files.delete(indexPath);
+        getConfig(index);
+        index.save();
+        assertFalse(Files.exists(indexPath));
+
+        index.retainAll(Collections.emptySet());
+        index.save();
+        assertTrue(Files.exists(indexPath));
+    }
+
+    private String getConfig(final PluginMetaDataIndex index) throws IOException {
+        return new String(index.getConfig(plugin), StandardCharsets.UTF_8);
+    }
+
+    private void writePlugin(final String config) throws IOException {
+        final byte[] data = config.getBytes(StandardCharsets.UTF_8);
+        final CRC32 crc = new CRC32();
+        crc.update(data);
+
+        final ZipEntry entry = new ZipEntry("META-INF/plugin.config");
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(data.length);
+        entry.setCrc(crc.getValue());
+        entry.setTime(0);
+
+        try (OutputStream stream = Files.newOutputStream(plugin);
+                ZipOutputStream zip = new ZipOutputStream(stream)) {
+            zip.putNextEntry(entry);
+            zip.write(data);
+            zip.closeEntry();
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FileWatcherTest {
+
+    private Path directory;
+    private FileWatcher watcher;
+    private BlockingQueue<Path> changes;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("dmdirc-filewatcher");
+        watcher = new FileWatcher(Executors.newSingleThreadScheduledExecutor(), 200);
+        changes = new LinkedBlockingQueue<>();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        watcher.shutDown();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testReportsChangedFiles() throws IOException, InterruptedException {
+        watcher.watchDirectory(directory, false, p -> true, changes::add);
+        watcher.startUp();
+
+        final Path file = directory.resolve("test");
+        write(file, "foo");
+
+        assertEquals(file, changes.poll(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWatchFileIgnoresOtherFiles() throws IOException, InterruptedException {
+        final Path file = directory.resolve("watched");
+        watcher.watchFile(file, changes::add);
+        watcher.startUp();
+
+        write(directory.resolve("other"), "foo");
+        write(file, "bar");
+
+        assertEquals(file, changes.poll(10, TimeUnit.SECONDS));
+        assertNull(changes.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCoalescesRepeatedChanges() throws IOException, InterruptedException {
+        watcher.watchDirectory(directory, false, p -> true, changes::add);
+        watcher.startUp();
+
+        final Path file = directory.resolve("test");
+        write(file, "foo");
+        write(file, "bar");
+        write(file, "baz");
+
+        assertEquals(file, changes.poll(10, TimeUnit.SECONDS));
+        assertNull(changes.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testWatchesNewSubdirectories() throws IOException, InterruptedException {
+        watcher.watchDirectory(directory, true, p -> true, changes::add);
+        watcher.startUp();
+
+        final Path subdirectory = directory.resolve("sub");
+        Files.createDirectory(subdirectory);
+        assertEquals(subdirectory, changes.poll(10, TimeUnit.SECONDS));
+
+        final Path file = subdirectory.resolve("test");
+        write(file, "foo");
+        assertEquals(file, changes.poll(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWatchesSeveralFilesInSameDirectory() throws IOException,
+            InterruptedException {
+        final Path first = directory.resolve("first");
+        final Path second = directory.resolve("second");
+        watcher.watchFile(first, changes::add);
+        watcher.watchFile(second, changes::add);
+        watcher.startUp();
+
+        write(first, "foo");
+        assertEquals(first, changes.poll(10, TimeUnit.SECONDS));
+
+        write(second, "bar");
+        assertEquals(second, changes.poll(10, TimeUnit.SECONDS));
+        assertNull(changes.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    private static void write(final Path file, final String contents) throws IOException {
+        Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StartupTracerTest {
+
+    private Path report;
+    private StartupTracer tracer;
+
+    @Before
+    public void setUp() throws IOException {
+        report = Files.createTempFile("dmdirc-startup", ".yml");
+        tracer = new StartupTracer(report);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(report);
+    }
+
+    @Test
+    public void testRecordsNestedSpansInStartOrder() {
+        tracer.trace("phase", "outer", () -> tracer.trace("plugin", "inner", () -> { }));
+        tracer.trace("phase", "second", () -> { });
+
+        final List<StartupTracer.Span> spans = tracer.getSpans();
+        assertEquals(3, spans.size());
+        assertEquals("outer", spans.get(0).getName());
+        assertEquals(0, spans.get(0).getDepth());
+        assertEquals("inner", spans.get(1).getName());
+        assertEquals("plugin", spans.get(1).getCategory());
+        assertEquals(1, spans.get(1).getDepth());
+        assertEquals("second", spans.get(2).getName());
+        assertEquals(0, spans.get(2).getDepth());
+    }
+
+    @Test
+    public void testNestsSpansFromOtherThreadsInGivenParent() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            tracer.trace("phase", "outer", () -> {
+                final StartupTracer.Span parent = tracer.current();
+                CompletableFuture.runAsync(() -> tracer.trace(parent, "component", "inner",
+                        () -> tracer.trace("plugin", "innermost", () -> { })), executor).join();
+            });
+            assertNull(CompletableFuture.supplyAsync(tracer::current, executor).join());
+        } finally {
+            executor.shutdown();
+        }
+
+        final List<StartupTracer.Span> spans = tracer.getSpans();
+        assertEquals(3, spans.size());
+        assertEquals("outer", spans.get(0).getName());
+        assertEquals(0, spans.get(0).getDepth());
+        assertEquals("inner", spans.get(1).getName());
+        assertEquals(1, spans.get(1).getDepth());
+        assertEquals("innermost", spans.get(2).getName());
+        assertEquals(2, spans.get(2).getDepth());
+    }
+
+    @Test
+    public void testReturnsResultOfTask() {
+        assertEquals("result", tracer.trace("phase", "test", () -> "result"));
+    }
+
+    @Test
+    public void testStopsRecordingWhenFinished() {
+        tracer.trace("phase", "before", () -> { });
+        tracer.finish();
+        tracer.trace("phase", "after", () -> { });
+
+        assertEquals(1, tracer.getSpans().size());
+    }
+
+    @Test
+    public void testWritesReport() throws IOException {
+        tracer.trace("phase", "Loading \"things\"", () -> { });
+        tracer.finish();
+
+        final String contents = new String(Files.readAllBytes(report), StandardCharsets.UTF_8);
+        assertTrue(contents.contains("spans:\n"));
+        assertTrue(contents.contains("  - category: \"phase\"\n"));
+        assertTrue(contents.contains("    name: \"Loading \\\"things\\\"\"\n"));
+        assertTrue(contents.contains("    depth: 0\n"));
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimerGroupTest {
+
+    private ScheduledThreadPoolExecutor executor;
+    private TimerService service;
+
+    @Before
+    public void setUp() {
+        executor = new ScheduledThreadPoolExecutor(1);
+        service = new TimerService(executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testExecutesScheduledTask() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final TimerGroup group = service.createGroup("test");
+        group.schedule(latch::countDown, 1, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, service.getScheduledCount());
+    }
+
+    @Test
+    public void testCancelAllCancelsPendingTasks() {
+        final TimerGroup group = service.createGroup("test");
+        final ScheduledFuture<?> future = group.schedule(() -> {}, 1, TimeUnit.HOURS);
+        assertEquals(1, group.getPendingCount());
+
+        group.cancelAll();
+
+        assertTrue(future.isCancelled());
+        assertEquals(0, group.getPendingCount());
+        assertEquals(0, service.getPendingCount());
+        assertEquals(1, service.getCancelledCount());
+    }
+
+    @Test
+    public void testCancelAllOnlyAffectsOwnGroup() {
+        final TimerGroup group1 = service.createGroup("one");
+        final TimerGroup group2 = service.createGroup("two");
+        final ScheduledFuture<?> future1 = group1.schedule(() -> {}, 1, TimeUnit.HOURS);
+        final ScheduledFuture<?> future2 = group2.schedule(() -> {}, 1, TimeUnit.HOURS);
+
+        group1.cancelAll();
+
+        assertTrue(future1.isCancelled());
+        assertFalse(future2.isCancelled());
+        assertEquals(1, service.getActiveGroupCount());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testCannotScheduleAfterCancel() {
+        final TimerGroup group = service.createGroup("test");
+        group.cancelAll();
+        group.schedule(() -> {}, 1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testNoTaskSurvivesConcurrentCancel() throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            final TimerGroup group = service.createGroup("test");
+            final AtomicReference<ScheduledFuture<?>> future = new AtomicReference<>();
+            final CountDownLatch start = new CountDownLatch(1);
+            final Thread scheduler = new Thread(() -> {
+                try {
+                    start.await();
+                    future.set(group.schedule(() -> {}, 1, TimeUnit.HOURS));
+                } catch (InterruptedException | RejectedExecutionException ex) {
+                    // Cancelled first; nothing was scheduled.
+                }
+            });
+            scheduler.start();
+            start.countDown();
+            group.cancelAll();
+            scheduler.join();
+
+            assertTrue(future.get() == null || future.get().isCancelled());
+        }
+        assertEquals(0, service.getPendingCount());
+    }
+
+    @Test
+    public void testCancelledTasksAreRemovedFromQueue() {
+        final TimerGroup group = service.createGroup("test");
+        group.schedule(() -> {}, 1, TimeUnit.HOURS).cancel(false);
+        assertEquals(0, service.getPendingCount());
+    }
+
+}
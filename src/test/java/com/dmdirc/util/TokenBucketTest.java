@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TokenBucketTest {
+
+    private long now;
+    private TokenBucket bucket;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        bucket = new TokenBucket(5, 1, () -> now);
+    }
+
+    @Test
+    public void testStartsFull() {
+        assertEquals(5, bucket.getAvailableTokens(), 0.001);
+        assertEquals(0, bucket.getDelay(5));
+    }
+
+    @Test
+    public void testDelayWhenEmpty() {
+        bucket.consume(5);
+        assertEquals(TimeUnit.SECONDS.toNanos(1), bucket.getDelay(1));
+        now = TimeUnit.MILLISECONDS.toNanos(500);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), bucket.getDelay(1));
+    }
+
+    @Test
+    public void testRefillsUpToCapacity() {
+        bucket.consume(5);
+        now = TimeUnit.SECONDS.toNanos(60);
+        assertEquals(5, bucket.getAvailableTokens(), 0.001);
+    }
+
+    @Test
+    public void testConsumeCanGoIntoDebt() {
+        bucket.consume(7);
+        assertEquals(-2, bucket.getAvailableTokens(), 0.001);
+        assertEquals(TimeUnit.SECONDS.toNanos(3), bucket.getDelay(1));
+    }
+
+    @Test
+    public void testOversizedRequestsWaitForFullBucket() {
+        bucket.consume(1);
+        assertEquals(TimeUnit.SECONDS.toNanos(1), bucket.getDelay(10));
+        now = TimeUnit.SECONDS.toNanos(1);
+        assertEquals(0, bucket.getDelay(10));
+    }
+
+    @Test
+    public void testZeroRateIsUnlimited() {
+        bucket.setLimits(5, 0);
+        assertFalse(bucket.isLimited());
+        bucket.consume(100);
+        assertEquals(0, bucket.getDelay(100));
+    }
+
+    @Test
+    public void testSetLimitsDiscardsExcessTokens() {
+        bucket.setLimits(2, 1);
+        assertTrue(bucket.isLimited());
+        assertEquals(2, bucket.getAvailableTokens(), 0.001);
+    }
+
+}